@@ -41,6 +41,9 @@ final class Base64VLQ {
   // The continuation bit is the 6th bit.
   private static final int VLQ_CONTINUATION_BIT = VLQ_BASE;
 
+  // The most digits needed to encode an int: 32 bits plus the sign bit.
+  static final int MAX_ENCODED_LENGTH = (32 + VLQ_BASE_SHIFT) / VLQ_BASE_SHIFT;
+
   /**
    * Converts from a two-complement value to a value where the sign bit is
    * is placed in the least significant bit.  For example, as decimals:
@@ -84,6 +87,24 @@ final class Base64VLQ {
     } while (value > 0);
   }
 
+  /**
+   * Writes a VLQ encoded value into the buffer as ASCII bytes, starting at
+   * the given position, and returns the position after the last byte written.
+   * The buffer must have room for {@link #MAX_ENCODED_LENGTH} bytes.
+   */
+  static int encode(byte[] buffer, int position, int value) {
+    value = toVLQSigned(value);
+    do {
+      int digit = value & VLQ_BASE_MASK;
+      value >>>= VLQ_BASE_SHIFT;
+      if (value > 0) {
+        digit |= VLQ_CONTINUATION_BIT;
+      }
+      buffer[position++] = (byte) Base64.toBase64(digit);
+    } while (value > 0);
+    return position;
+  }
+
   /**
    * A simple interface for advancing through a sequence of characters, that
    * communicates that advance back to the source.
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.debugging.sourcemap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.debugging.sourcemap.SourceMapGeneratorV3.appendField;
+import static com.google.debugging.sourcemap.SourceMapGeneratorV3.appendFieldStart;
+import static com.google.debugging.sourcemap.SourceMapGeneratorV3.appendFirstField;
+import static com.google.debugging.sourcemap.SourceMapGeneratorV3.escapeString;
+
+import com.google.debugging.sourcemap.Base64VLQ.CharIterator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Concatenates already encoded source maps, such as the cached maps of the
+ * modules of a bundle, into a single regular source map.
+ *
+ * <p>Unlike {@link SourceMapGeneratorV3#mergeMapSection}, the mappings of a
+ * section are not decoded into entries and encoded again. The sources and
+ * names of each section are appended to those of the result, so most encoded
+ * segments stay valid as they are: the relative values in a section only need
+ * to be rebased in its first segment, and in the first segment that has a
+ * source or a name. The result is built in time linear in the size of the
+ * sections. Sources that are shared by several sections are listed once for
+ * each section.
+ *
+ * <p>Sections must be added in order and must not overlap. Their extensions,
+ * source roots and source contents are ignored, as with
+ * {@link SourceMapGeneratorV3#mergeMapSection(int, int, String)}.
+ */
+public final class SourceMapConcatenator {
+
+  private final StringBuilder mappings = new StringBuilder();
+  private final List<String> sources = new ArrayList<>();
+  private final List<String> names = new ArrayList<>();
+
+  // The position in the generated file of the last segment of the result.
+  private int line = 0;
+  private int column = 0;
+  private boolean lineHasSegments = false;
+
+  // The values of the last segments of the result that have them.
+  private int sourceId = 0;
+  private int sourceLine = 0;
+  private int sourceColumn = 0;
+  private int nameId = 0;
+
+  /**
+   * Appends a source map that starts at the given position of the generated
+   * file.
+   *
+   * @param line The line offset of the section
+   * @param column The column offset of the first line of the section
+   * @param mapSectionContents The source map of the section
+   * @throws SourceMapParseException if the section is not a valid regular
+   *     source map
+   */
+  public void addSection(int line, int column, String mapSectionContents)
+      throws SourceMapParseException {
+    checkArgument(
+        line > this.line || (line == this.line && column >= this.column),
+        "Section at %s:%s overlaps the previous section, which ends at %s:%s",
+        line, column, this.line, this.column);
+
+    SourceMapObject section = SourceMapObjectParser.parse(mapSectionContents);
+    if (section.getVersion() != 3) {
+      throw new SourceMapParseException("Unknown version: " + section.getVersion());
+    }
+    if (section.getSections() != null || section.getMappings() == null) {
+      throw new SourceMapParseException("Only regular source maps can be concatenated");
+    }
+
+    String sectionMappings = section.getMappings();
+    int end = sectionMappings.length();
+    // Trailing empty lines would overlap the next section.
+    while (end > 0 && sectionMappings.charAt(end - 1) == ';') {
+      end--;
+    }
+    if (end > 0) {
+      new SectionAppender(
+              sectionMappings, end, line, column, sources.size(), names.size())
+          .append();
+    }
+
+    if (section.getSources() != null) {
+      Collections.addAll(sources, section.getSources());
+    }
+    if (section.getNames() != null) {
+      Collections.addAll(names, section.getNames());
+    }
+  }
+
+  /**
+   * Appends the concatenated source map to the given buffer, in the same
+   * format as {@link SourceMapGeneratorV3#appendTo}.
+   *
+   * @param out The stream to which the map will be appended.
+   * @param name The name of the generated source file that this source map
+   *   represents.
+   */
+  public void appendTo(Appendable out, String name) throws IOException {
+    out.append("{\n");
+    appendFirstField(out, "version", "3");
+    appendField(out, "file", escapeString(name));
+    appendField(out, "lineCount", String.valueOf(line + 1));
+    appendFieldStart(out, "mappings");
+    out.append('"').append(mappings).append(';').append('"');
+    appendStringArrayField(out, "sources", sources);
+    appendStringArrayField(out, "names", names);
+    out.append("\n}\n");
+  }
+
+  private static void appendStringArrayField(Appendable out, String name, List<String> values)
+      throws IOException {
+    appendFieldStart(out, name);
+    out.append("[");
+    for (int i = 0; i < values.size(); i++) {
+      if (i != 0) {
+        out.append(",");
+      }
+      out.append(escapeString(values.get(i)));
+    }
+    out.append("]");
+  }
+
+  /** Copies the segments of a section to the result, rebasing them as needed. */
+  private final class SectionAppender implements CharIterator {
+    private final String content;
+    private final int end;
+    private final int columnOffset;
+    private final int sourceBase;
+    private final int nameBase;
+    private int position = 0;
+
+    // The values of the section, relative to the start of the section.
+    private int sectionColumn = 0;
+    private int sectionSourceId = 0;
+    private int sectionSourceLine = 0;
+    private int sectionSourceColumn = 0;
+    private int sectionNameId = 0;
+
+    private boolean onFirstLine = true;
+    private boolean seenFirstSegment = false;
+    private boolean seenSource = false;
+    private boolean seenName = false;
+
+    SectionAppender(
+        String content, int end, int line, int column, int sourceBase, int nameBase) {
+      this.content = content;
+      this.end = end;
+      this.columnOffset = column;
+      this.sourceBase = sourceBase;
+      this.nameBase = nameBase;
+
+      for (; SourceMapConcatenator.this.line < line; SourceMapConcatenator.this.line++) {
+        mappings.append(';');
+        SourceMapConcatenator.this.column = 0;
+        lineHasSegments = false;
+      }
+    }
+
+    void append() throws SourceMapParseException {
+      int[] values = new int[5];
+      while (hasNext()) {
+        char c = content.charAt(position);
+        if (c == ';') {
+          position++;
+          mappings.append(';');
+          line++;
+          column = 0;
+          lineHasSegments = false;
+          onFirstLine = false;
+          sectionColumn = 0;
+          continue;
+        }
+        if (c == ',') {
+          position++;
+          continue;
+        }
+
+        int segmentStart = position;
+        int valueCount = 0;
+        while (hasNext() && content.charAt(position) != ',' && content.charAt(position) != ';') {
+          if (valueCount == values.length) {
+            throw new SourceMapParseException("Too many values for segment");
+          }
+          values[valueCount++] = Base64VLQ.decode(this);
+        }
+        if (valueCount != 1 && valueCount != 4 && valueCount != 5) {
+          throw new SourceMapParseException(
+              "Unexpected number of values for entry:" + valueCount);
+        }
+        appendSegment(segmentStart, values, valueCount);
+      }
+    }
+
+    private void appendSegment(int segmentStart, int[] values, int valueCount) {
+      boolean rebased = false;
+
+      sectionColumn += values[0];
+      int newColumn = onFirstLine ? columnOffset + sectionColumn : sectionColumn;
+      if (!seenFirstSegment) {
+        seenFirstSegment = true;
+        values[0] = newColumn - column;
+        rebased = true;
+      }
+      column = newColumn;
+
+      if (valueCount >= 4) {
+        sectionSourceId += values[1];
+        sectionSourceLine += values[2];
+        sectionSourceColumn += values[3];
+        if (!seenSource) {
+          seenSource = true;
+          values[1] = sourceBase + sectionSourceId - sourceId;
+          values[2] = sectionSourceLine - sourceLine;
+          values[3] = sectionSourceColumn - sourceColumn;
+          rebased = true;
+        }
+        sourceId = sourceBase + sectionSourceId;
+        sourceLine = sectionSourceLine;
+        sourceColumn = sectionSourceColumn;
+      }
+
+      if (valueCount == 5) {
+        sectionNameId += values[4];
+        if (!seenName) {
+          seenName = true;
+          values[4] = nameBase + sectionNameId - nameId;
+          rebased = true;
+        }
+        nameId = nameBase + sectionNameId;
+      }
+
+      if (lineHasSegments) {
+        mappings.append(',');
+      }
+      lineHasSegments = true;
+      if (rebased) {
+        try {
+          for (int i = 0; i < valueCount; i++) {
+            Base64VLQ.encode(mappings, values[i]);
+          }
+        } catch (IOException e) {
+          // Can't happen.
+          throw new RuntimeException(e);
+        }
+      } else {
+        mappings.append(content, segmentStart, position);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return position < end;
+    }
+
+    @Override
+    public char next() {
+      return content.charAt(position++);
+    }
+  }
+}
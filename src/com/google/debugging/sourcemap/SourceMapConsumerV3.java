@@ -17,9 +17,10 @@
 package com.google.debugging.sourcemap;
 
 import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.common.annotations.GwtIncompatible;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Iterables;
 import com.google.debugging.sourcemap.Base64VLQ.CharIterator;
 import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
 import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping.Builder;
@@ -30,26 +31,55 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Class for parsing version 3 of the SourceMap format, as produced by the
  * Closure Compiler, etc.
  * http://code.google.com/p/closure-compiler/wiki/SourceMaps
+ *
+ * <p>The entries of each line are packed into a single int array, so a
+ * parsed map does not need any objects per entry. The reverse mapping is
+ * built on first use, or ahead of time with {@link #precomputeReverseMapping},
+ * and is kept as sorted int arrays as well.
+ *
  * @author johnlenz@google.com (John Lenz)
  */
 public final class SourceMapConsumerV3 implements SourceMapConsumer,
     SourceMappingReversable {
   static final int UNMAPPED = -1;
 
+  /*
+   * Each entry of a line takes ENTRY_SIZE consecutive ints in the array of
+   * the line, at the following offsets.
+   */
+  private static final int ENTRY_SIZE = 5;
+  private static final int GENERATED_COLUMN = 0;
+  private static final int SOURCE_FILE_ID = 1;
+  private static final int SOURCE_LINE = 2;
+  private static final int SOURCE_COLUMN = 3;
+  private static final int NAME_ID = 4;
+
+  /*
+   * Each generated position in the reverse mapping takes REVERSE_ENTRY_SIZE
+   * consecutive ints, at the following offsets.
+   */
+  private static final int REVERSE_ENTRY_SIZE = 3;
+  private static final int REVERSE_SOURCE_LINE = 0;
+  private static final int REVERSE_GENERATED_LINE = 1;
+  private static final int REVERSE_GENERATED_COLUMN = 2;
+
   private String[] sources;
   private String[] names;
   private int lineCount;
   // Slots in the lines list will be null if the line does not have any entries.
-  private ArrayList<ArrayList<Entry>> lines = null;
-  /** originalFile path ==> original line ==> target mappings */
-  private Map<String, Map<Integer, Collection<OriginalMapping>>>
-      reverseSourceMapping;
+  private ArrayList<int[]> lines = null;
+  /**
+   * originalFile path ==> the generated positions mapped from it, sorted by
+   * original line.
+   */
+  private Map<String, int[]> reverseSourceMapping;
   private String sourceRoot;
   private final Map<String, Object> extensions = new LinkedHashMap<>();
 
@@ -69,6 +99,37 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
     parse(sourceMapObject, null);
   }
 
+  /**
+   * Parses the given UTF-8 encoded contents containing a source map.
+   *
+   * <p>Unlike {@link #parse(String)}, this reads the fields of the map
+   * straight from the bytes, without building a JSON object tree, and decodes
+   * the mappings in place. Index maps and maps with extensions are handed to
+   * {@link #parse(String)}.
+   */
+  @GwtIncompatible("java.nio.charset.StandardCharsets")
+  public void parse(byte[] contents) throws SourceMapParseException {
+    ByteMapReader reader = new ByteMapReader(contents);
+    if (!reader.read()) {
+      parse(new String(contents, UTF_8));
+      return;
+    }
+
+    if (reader.version != 3) {
+      throw new SourceMapParseException("Unknown version: " + reader.version);
+    }
+    if (reader.file != null && reader.file.isEmpty()) {
+      throw new SourceMapParseException("File entry is empty");
+    }
+
+    build(
+        reader.lineCount,
+        reader.sourceRoot,
+        reader.sources,
+        reader.names,
+        new ByteCharIterator(contents, reader.mappingsStart, reader.mappingsEnd));
+  }
+
   /**
    * Parses the given contents containing a source map.
    */
@@ -89,10 +150,29 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
       return;
     }
 
-    lineCount = sourceMapObject.getLineCount();
-    sourceRoot = sourceMapObject.getSourceRoot();
-    sources = sourceMapObject.getSources();
-    names = sourceMapObject.getNames();
+    // The value type of each extension is the native JSON type (e.g. JsonObject, or JSONObject
+    // when compiled with GWT).
+    extensions.putAll(sourceMapObject.getExtensions());
+    build(
+        sourceMapObject.getLineCount(),
+        sourceMapObject.getSourceRoot(),
+        sourceMapObject.getSources(),
+        sourceMapObject.getNames(),
+        new StringCharIterator(sourceMapObject.getMappings()));
+  }
+
+  private void build(
+      int lineCount,
+      String sourceRoot,
+      String[] sources,
+      String[] names,
+      PeekingCharIterator mappings)
+      throws SourceMapParseException {
+    this.lineCount = lineCount;
+    this.sourceRoot = sourceRoot;
+    this.sources = sources;
+    this.names = names;
+    this.reverseSourceMapping = null;
 
     if (lineCount >= 0) {
       lines = new ArrayList<>(lineCount);
@@ -100,10 +180,7 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
       lines = new ArrayList<>();
     }
 
-    // The value type of each extension is the native JSON type (e.g. JsonObject, or JSONObject
-    // when compiled with GWT).
-    extensions.putAll(sourceMapObject.getExtensions());
-    new MappingBuilder(sourceMapObject.getMappings()).build();
+    new MappingBuilder(mappings).build();
   }
 
   /**
@@ -169,16 +246,16 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
       return getPreviousMapping(lineNumber);
     }
 
-    ArrayList<Entry> entries = lines.get(lineNumber);
-    // No empty lists.
-    checkState(!entries.isEmpty());
-    if (entries.get(0).getGeneratedColumn() > column) {
+    int[] entries = lines.get(lineNumber);
+    // No empty lines.
+    checkState(entries.length > 0);
+    if (entries[GENERATED_COLUMN] > column) {
       return getPreviousMapping(lineNumber);
     }
 
-    int index = search(entries, column, 0, entries.size() - 1);
+    int index = search(entries, column, 0, entries.length / ENTRY_SIZE - 1);
     Preconditions.checkState(index >= 0, "unexpected:%s", index);
-    return getOriginalMappingForEntry(entries.get(index));
+    return getOriginalMappingForEntry(entries, index * ENTRY_SIZE);
   }
 
   @Override
@@ -197,20 +274,47 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
       createReverseMapping();
     }
 
-    Map<Integer, Collection<OriginalMapping>> sourceLineToCollectionMap =
-        reverseSourceMapping.get(originalFile);
-
-    if (sourceLineToCollectionMap == null) {
+    int[] positions = reverseSourceMapping.get(originalFile);
+    if (positions == null) {
       return Collections.emptyList();
-    } else {
-      Collection<OriginalMapping> mappings =
-          sourceLineToCollectionMap.get(line);
+    }
 
-      if (mappings == null) {
-        return Collections.emptyList();
+    // Find the first position for the line.
+    int low = 0;
+    int high = positions.length / REVERSE_ENTRY_SIZE;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (positions[mid * REVERSE_ENTRY_SIZE + REVERSE_SOURCE_LINE] < line) {
+        low = mid + 1;
       } else {
-        return mappings;
+        high = mid;
+      }
+    }
+
+    List<OriginalMapping> mappings = null;
+    for (int i = low * REVERSE_ENTRY_SIZE;
+        i < positions.length && positions[i + REVERSE_SOURCE_LINE] == line;
+        i += REVERSE_ENTRY_SIZE) {
+      if (mappings == null) {
+        mappings = new ArrayList<>(1);
       }
+      mappings.add(
+          OriginalMapping.newBuilder()
+              .setLineNumber(positions[i + REVERSE_GENERATED_LINE])
+              .setColumnPosition(positions[i + REVERSE_GENERATED_COLUMN])
+              .build());
+    }
+    return mappings == null ? Collections.<OriginalMapping>emptyList() : mappings;
+  }
+
+  /**
+   * Builds the index used by {@link #getReverseMapping} now, rather than on
+   * its first call. Once it is built, the consumer is not modified by any
+   * lookups, so it can be shared by several threads.
+   */
+  public void precomputeReverseMapping() {
+    if (reverseSourceMapping == null) {
+      createReverseMapping();
     }
   }
 
@@ -231,7 +335,7 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
 
   private class MappingBuilder {
     private static final int MAX_ENTRY_VALUES = 5;
-    private final StringCharIterator content;
+    private final PeekingCharIterator content;
     private int line = 0;
     private int previousCol = 0;
     private int previousSrcId = 0;
@@ -239,22 +343,21 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
     private int previousSrcColumn = 0;
     private int previousNameId = 0;
 
-    MappingBuilder(String lineMap) {
-      this.content = new StringCharIterator(lineMap);
+    // The entries of the current line, packed, reused for every line.
+    private int[] entries = new int[16 * ENTRY_SIZE];
+    private int entriesLength = 0;
+
+    MappingBuilder(PeekingCharIterator content) {
+      this.content = content;
     }
 
     void build() throws SourceMapParseException {
       int [] temp = new int[MAX_ENTRY_VALUES];
-      ArrayList<Entry> entries = new ArrayList<>();
       while (content.hasNext()) {
         // ';' denotes a new line.
         if (tryConsumeToken(';')) {
           // The line is complete, store the result
-          completeLine(entries);
-          if (!entries.isEmpty()) {
-            // A new array list for the next line.
-            entries = new ArrayList<>();
-          }
+          completeLine();
         } else {
           // grab the next entry for the current line.
           int entryValues = 0;
@@ -262,10 +365,13 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
             temp[entryValues] = nextValue();
             entryValues++;
           }
-          Entry entry = decodeEntry(temp, entryValues);
+          if (entriesLength == entries.length) {
+            entries = Arrays.copyOf(entries, entriesLength * 2);
+          }
+          decodeEntry(temp, entryValues, entries, entriesLength);
 
-          validateEntry(entry);
-          entries.add(entry);
+          validateEntry(entries, entriesLength);
+          entriesLength += ENTRY_SIZE;
 
           // Consume the separating token, if there is one.
           tryConsumeToken(',');
@@ -274,16 +380,17 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
 
       // Some source map generator (e.g.UglifyJS) generates lines without
       // a trailing line separator. So add the rest of the content.
-      if (!entries.isEmpty()) {
-        completeLine(entries);
+      if (entriesLength > 0) {
+        completeLine();
       }
     }
 
-    private void completeLine(ArrayList<Entry> entries) {
+    private void completeLine() {
       // The line is complete, store the result for the line,
       // null if the line is empty.
-      if (!entries.isEmpty()) {
-        lines.add(entries);
+      if (entriesLength > 0) {
+        lines.add(Arrays.copyOf(entries, entriesLength));
+        entriesLength = 0;
       } else {
         lines.add(null);
       }
@@ -294,11 +401,13 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
     /**
      * Sanity check the entry.
      */
-    private void validateEntry(Entry entry) {
+    private void validateEntry(int[] entries, int entry) {
       Preconditions.checkState((lineCount < 0) || (line < lineCount),
           "line=%s, lineCount=%s", line, lineCount);
-      checkState(entry.getSourceFileId() == UNMAPPED || entry.getSourceFileId() < sources.length);
-      checkState(entry.getNameId() == UNMAPPED || entry.getNameId() < names.length);
+      int sourceFileId = entries[entry + SOURCE_FILE_ID];
+      int nameId = entries[entry + NAME_ID];
+      checkState(sourceFileId == UNMAPPED || sourceFileId < sources.length);
+      checkState(nameId == UNMAPPED || nameId < names.length);
     }
 
     /**
@@ -307,10 +416,11 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
      *
      * @param vals An array of integers that represent values in the entry.
      * @param entryValues The number of entries in the array.
-     * @return The entry object.
+     * @param entries The array to store the entry in.
+     * @param entry The offset of the entry in the array.
      */
-    private Entry decodeEntry(int[] vals, int entryValues) throws SourceMapParseException {
-      Entry entry;
+    private void decodeEntry(int[] vals, int entryValues, int[] entries, int entry)
+        throws SourceMapParseException {
       switch (entryValues) {
         // The first values, if present are in the following order:
         //   0: the starting column in the current line of the generated file
@@ -325,42 +435,41 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
 
         case 1:
           // An unmapped section of the generated file.
-          entry = new UnmappedEntry(
-              vals[0] + previousCol);
-          // Set the values see for the next entry.
-          previousCol = entry.getGeneratedColumn();
-          return entry;
+          previousCol += vals[0];
+          entries[entry + GENERATED_COLUMN] = previousCol;
+          entries[entry + SOURCE_FILE_ID] = UNMAPPED;
+          entries[entry + SOURCE_LINE] = UNMAPPED;
+          entries[entry + SOURCE_COLUMN] = UNMAPPED;
+          entries[entry + NAME_ID] = UNMAPPED;
+          return;
 
         case 4:
           // A mapped section of the generated file.
-          entry = new UnnamedEntry(
-              vals[0] + previousCol,
-              vals[1] + previousSrcId,
-              vals[2] + previousSrcLine,
-              vals[3] + previousSrcColumn);
-          // Set the values see for the next entry.
-          previousCol = entry.getGeneratedColumn();
-          previousSrcId = entry.getSourceFileId();
-          previousSrcLine = entry.getSourceLine();
-          previousSrcColumn = entry.getSourceColumn();
-          return entry;
+          previousCol += vals[0];
+          previousSrcId += vals[1];
+          previousSrcLine += vals[2];
+          previousSrcColumn += vals[3];
+          entries[entry + GENERATED_COLUMN] = previousCol;
+          entries[entry + SOURCE_FILE_ID] = previousSrcId;
+          entries[entry + SOURCE_LINE] = previousSrcLine;
+          entries[entry + SOURCE_COLUMN] = previousSrcColumn;
+          entries[entry + NAME_ID] = UNMAPPED;
+          return;
 
         case 5:
           // A mapped section of the generated file, that has an associated
           // name.
-          entry = new NamedEntry(
-              vals[0] + previousCol,
-              vals[1] + previousSrcId,
-              vals[2] + previousSrcLine,
-              vals[3] + previousSrcColumn,
-              vals[4] + previousNameId);
-          // Set the values see for the next entry.
-          previousCol = entry.getGeneratedColumn();
-          previousSrcId = entry.getSourceFileId();
-          previousSrcLine = entry.getSourceLine();
-          previousSrcColumn = entry.getSourceColumn();
-          previousNameId = entry.getNameId();
-          return entry;
+          previousCol += vals[0];
+          previousSrcId += vals[1];
+          previousSrcLine += vals[2];
+          previousSrcColumn += vals[3];
+          previousNameId += vals[4];
+          entries[entry + GENERATED_COLUMN] = previousCol;
+          entries[entry + SOURCE_FILE_ID] = previousSrcId;
+          entries[entry + SOURCE_LINE] = previousSrcLine;
+          entries[entry + SOURCE_COLUMN] = previousSrcColumn;
+          entries[entry + NAME_ID] = previousNameId;
+          return;
 
         default:
           throw new SourceMapParseException(
@@ -392,13 +501,13 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
   }
 
   /**
-   * Perform a binary search on the array to find a section that covers
-   * the target column.
+   * Perform a binary search on the packed entries to find a section that
+   * covers the target column, and return its index.
    */
-  private static int search(ArrayList<Entry> entries, int target, int start, int end) {
+  private static int search(int[] entries, int target, int start, int end) {
     while (true) {
       int mid = ((end - start) / 2) + start;
-      int compare = compareEntry(entries, mid, target);
+      int compare = entries[mid * ENTRY_SIZE + GENERATED_COLUMN] - target;
       if (compare == 0) {
         return mid;
       } else if (compare < 0) {
@@ -417,13 +526,6 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
     }
   }
 
-  /**
-   * Compare an array entry's column value to the target column value.
-   */
-  private static int compareEntry(ArrayList<Entry> entries, int entry, int target) {
-    return entries.get(entry).getGeneratedColumn() - target;
-  }
-
   /**
    * Returns the mapping entry that proceeds the supplied line or null if no
    * such entry exists.
@@ -435,24 +537,26 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
       }
       lineNumber--;
     } while (lines.get(lineNumber) == null);
-    ArrayList<Entry> entries = lines.get(lineNumber);
-    return getOriginalMappingForEntry(Iterables.getLast(entries));
+    int[] entries = lines.get(lineNumber);
+    return getOriginalMappingForEntry(entries, entries.length - ENTRY_SIZE);
   }
 
   /**
-   * Creates an "OriginalMapping" object for the given entry object.
+   * Creates an "OriginalMapping" object for the entry at the given offset.
    */
-  private OriginalMapping getOriginalMappingForEntry(Entry entry) {
-    if (entry.getSourceFileId() == UNMAPPED) {
+  private OriginalMapping getOriginalMappingForEntry(int[] entries, int entry) {
+    int sourceFileId = entries[entry + SOURCE_FILE_ID];
+    if (sourceFileId == UNMAPPED) {
       return null;
     } else {
       // Adjust the line/column here to be start at 1.
       Builder x = OriginalMapping.newBuilder()
-        .setOriginalFile(sources[entry.getSourceFileId()])
-        .setLineNumber(entry.getSourceLine() + 1)
-        .setColumnPosition(entry.getSourceColumn() + 1);
-      if (entry.getNameId() != UNMAPPED) {
-        x.setIdentifier(names[entry.getNameId()]);
+        .setOriginalFile(sources[sourceFileId])
+        .setLineNumber(entries[entry + SOURCE_LINE] + 1)
+        .setColumnPosition(entries[entry + SOURCE_COLUMN] + 1);
+      int nameId = entries[entry + NAME_ID];
+      if (nameId != UNMAPPED) {
+        x.setIdentifier(names[nameId]);
       }
       return x.build();
     }
@@ -464,50 +568,96 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
    * OriginalMappings.
    */
   private void createReverseMapping() {
-    reverseSourceMapping = new HashMap<>();
+    // Number the distinct source file names, since the same name may appear
+    // more than once in the sources.
+    Map<String, Integer> fileIndexes = new HashMap<>();
+    int[] fileIndexOfSource = new int[sources.length];
+    for (int i = 0; i < sources.length; i++) {
+      Integer index = fileIndexes.get(sources[i]);
+      if (index == null) {
+        index = fileIndexes.size();
+        fileIndexes.put(sources[i], index);
+      }
+      fileIndexOfSource[i] = index;
+    }
 
+    // Count the positions of each file, then collect them in generated order
+    // as sort keys: the original line in the high half and the position's
+    // index in the low half.
+    int[] counts = new int[fileIndexes.size()];
+    for (int[] entries : lines) {
+      if (entries != null) {
+        for (int entry = 0; entry < entries.length; entry += ENTRY_SIZE) {
+          if (isReversible(entries, entry)) {
+            counts[fileIndexOfSource[entries[entry + SOURCE_FILE_ID]]]++;
+          }
+        }
+      }
+    }
+    long[][] keys = new long[counts.length][];
+    int[][] positions = new int[counts.length][];
+    for (int i = 0; i < counts.length; i++) {
+      keys[i] = new long[counts[i]];
+      positions[i] = new int[counts[i] * REVERSE_ENTRY_SIZE];
+      counts[i] = 0;
+    }
     for (int targetLine = 0; targetLine < lines.size(); targetLine++) {
-      ArrayList<Entry> entries = lines.get(targetLine);
-
+      int[] entries = lines.get(targetLine);
       if (entries != null) {
-        for (Entry entry : entries) {
-          if (entry.getSourceFileId() != UNMAPPED
-              && entry.getSourceLine() != UNMAPPED) {
-            String originalFile = sources[entry.getSourceFileId()];
-
-            if (!reverseSourceMapping.containsKey(originalFile)) {
-              reverseSourceMapping.put(originalFile,
-                  new HashMap<Integer, Collection<OriginalMapping>>());
-            }
-
-            Map<Integer, Collection<OriginalMapping>> lineToCollectionMap =
-                reverseSourceMapping.get(originalFile);
-
-            int sourceLine = entry.getSourceLine();
-
-            if (!lineToCollectionMap.containsKey(sourceLine)) {
-              lineToCollectionMap.put(sourceLine,
-                  new ArrayList<OriginalMapping>(1));
-            }
-
-            Collection<OriginalMapping> mappings =
-                lineToCollectionMap.get(sourceLine);
-
-            Builder builder = OriginalMapping.newBuilder().setLineNumber(
-                targetLine).setColumnPosition(entry.getGeneratedColumn());
-
-            mappings.add(builder.build());
+        for (int entry = 0; entry < entries.length; entry += ENTRY_SIZE) {
+          if (isReversible(entries, entry)) {
+            int file = fileIndexOfSource[entries[entry + SOURCE_FILE_ID]];
+            int index = counts[file]++;
+            keys[file][index] =
+                ((long) entries[entry + SOURCE_LINE] << 32) | (index & 0xffffffffL);
+            positions[file][index * REVERSE_ENTRY_SIZE + REVERSE_GENERATED_LINE] = targetLine;
+            positions[file][index * REVERSE_ENTRY_SIZE + REVERSE_GENERATED_COLUMN] =
+                entries[entry + GENERATED_COLUMN];
           }
         }
       }
     }
+
+    // Sort the positions of each file by original line, keeping the
+    // generated order within a line.
+    Map<String, int[]> result = new HashMap<>();
+    for (Map.Entry<String, Integer> file : fileIndexes.entrySet()) {
+      int i = file.getValue();
+      long[] fileKeys = keys[i];
+      if (fileKeys.length == 0) {
+        continue;
+      }
+      Arrays.sort(fileKeys);
+      int[] unsorted = positions[i];
+      int[] sorted = new int[unsorted.length];
+      for (int j = 0; j < fileKeys.length; j++) {
+        int index = (int) fileKeys[j];
+        sorted[j * REVERSE_ENTRY_SIZE + REVERSE_SOURCE_LINE] = (int) (fileKeys[j] >> 32);
+        sorted[j * REVERSE_ENTRY_SIZE + REVERSE_GENERATED_LINE] =
+            unsorted[index * REVERSE_ENTRY_SIZE + REVERSE_GENERATED_LINE];
+        sorted[j * REVERSE_ENTRY_SIZE + REVERSE_GENERATED_COLUMN] =
+            unsorted[index * REVERSE_ENTRY_SIZE + REVERSE_GENERATED_COLUMN];
+      }
+      result.put(file.getKey(), sorted);
+    }
+    reverseSourceMapping = result;
+  }
+
+  private static boolean isReversible(int[] entries, int entry) {
+    return entries[entry + SOURCE_FILE_ID] != UNMAPPED
+        && entries[entry + SOURCE_LINE] != UNMAPPED;
+  }
+
+  /** A CharIterator that can also look at the next character. */
+  private interface PeekingCharIterator extends CharIterator {
+    char peek();
   }
 
   /**
    * A implementation of the Base64VLQ CharIterator used for decoding the
    * mappings encoded in the JSON string.
    */
-  private static class StringCharIterator implements CharIterator {
+  private static class StringCharIterator implements PeekingCharIterator {
     final String content;
     final int length;
     int current = 0;
@@ -522,7 +672,8 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
       return content.charAt(current++);
     }
 
-    char peek() {
+    @Override
+    public char peek() {
       return content.charAt(current);
     }
 
@@ -533,105 +684,280 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
   }
 
   /**
-   * Represents a mapping entry in the source map.
-   */
-  private interface Entry {
-    int getGeneratedColumn();
-    int getSourceFileId();
-    int getSourceLine();
-    int getSourceColumn();
-    int getNameId();
-  }
-
-  /**
-   * This class represents a portion of the generated file, that is not mapped
-   * to a section in the original source.
+   * A implementation of the Base64VLQ CharIterator used for decoding the
+   * mappings straight from the bytes of the JSON string. The mappings only
+   * contain ASCII characters.
    */
-  private static class UnmappedEntry implements Entry {
-    private final int column;
+  private static class ByteCharIterator implements PeekingCharIterator {
+    final byte[] content;
+    final int end;
+    int current;
 
-    UnmappedEntry(int column) {
-      this.column = column;
+    ByteCharIterator(byte[] content, int start, int end) {
+      this.content = content;
+      this.current = start;
+      this.end = end;
     }
 
     @Override
-    public int getGeneratedColumn() {
-      return column;
+    public char next() {
+      return (char) content[current++];
     }
 
     @Override
-    public int getSourceFileId() {
-      return UNMAPPED;
+    public char peek() {
+      return (char) content[current];
     }
 
     @Override
-    public int getSourceLine() {
-      return UNMAPPED;
+    public boolean hasNext() {
+      return current < end;
     }
+  }
 
-    @Override
-    public int getSourceColumn() {
-      return UNMAPPED;
+  /**
+   * Reads the fields of a source map from its UTF-8 encoded JSON, without
+   * building an object tree. Only the fields of a regular map are read; the
+   * mappings are located but not copied.
+   */
+  @GwtIncompatible("java.nio.charset.StandardCharsets")
+  private static final class ByteMapReader {
+    final byte[] bytes;
+    int pos = 0;
+
+    int version = UNMAPPED;
+    String file;
+    int lineCount = UNMAPPED;
+    String sourceRoot;
+    String[] sources;
+    String[] names;
+    int mappingsStart = UNMAPPED;
+    int mappingsEnd = UNMAPPED;
+
+    ByteMapReader(byte[] bytes) {
+      this.bytes = bytes;
     }
 
-    @Override
-    public int getNameId() {
-      return UNMAPPED;
+    /**
+     * Reads the map, and returns false if it needs the JSON object tree: if
+     * it is an index map, has extensions, lacks mappings or sources, or is
+     * not valid JSON.
+     */
+    boolean read() {
+      try {
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+          return false;
+        }
+        while (true) {
+          String key = readString();
+          skipWhitespace();
+          expect(':');
+          skipWhitespace();
+          switch (key) {
+            case "version":
+              version = readInt();
+              break;
+            case "file":
+              file = readStringOrNull();
+              break;
+            case "lineCount":
+              lineCount = readInt();
+              break;
+            case "sourceRoot":
+              sourceRoot = readStringOrNull();
+              break;
+            case "sources":
+              sources = readStringArray();
+              break;
+            case "names":
+              names = readStringArray();
+              break;
+            case "mappings":
+              if (!readMappings()) {
+                return false;
+              }
+              break;
+            default:
+              if (key.equals("sections") || key.startsWith("x_")) {
+                return false;
+              }
+              skipValue();
+              break;
+          }
+          skipWhitespace();
+          if (peek() == ',') {
+            pos++;
+            skipWhitespace();
+          } else {
+            expect('}');
+            break;
+          }
+        }
+      } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+        // Let the JSON parser report the problem.
+        return false;
+      }
+      return version != UNMAPPED && mappingsStart != UNMAPPED && sources != null && names != null;
     }
-  }
 
-  /**
-   * This class represents a portion of the generated file, that is mapped
-   * to a section in the original source.
-   */
-  private static class UnnamedEntry extends UnmappedEntry {
-    private final int srcFile;
-    private final int srcLine;
-    private final int srcColumn;
+    /** Locates the mappings string, and returns false if it has escapes. */
+    private boolean readMappings() {
+      expect('"');
+      int start = pos;
+      while (bytes[pos] != '"') {
+        if (bytes[pos] == '\\') {
+          return false;
+        }
+        pos++;
+      }
+      mappingsStart = start;
+      mappingsEnd = pos;
+      pos++;
+      return true;
+    }
 
-    UnnamedEntry(int column, int srcFile, int srcLine, int srcColumn) {
-      super(column);
-      this.srcFile = srcFile;
-      this.srcLine = srcLine;
-      this.srcColumn = srcColumn;
+    private byte peek() {
+      return bytes[pos];
     }
 
-    @Override
-    public int getSourceFileId() {
-      return srcFile;
+    private void expect(char c) {
+      if (bytes[pos] != c) {
+        throw new IllegalArgumentException("Expected " + c + " at " + pos);
+      }
+      pos++;
     }
 
-    @Override
-    public int getSourceLine() {
-      return srcLine;
+    private void skipWhitespace() {
+      while (pos < bytes.length
+          && (bytes[pos] == ' ' || bytes[pos] == '\n' || bytes[pos] == '\r'
+              || bytes[pos] == '\t')) {
+        pos++;
+      }
     }
 
-    @Override
-    public int getSourceColumn() {
-      return srcColumn;
+    private boolean tryConsumeLiteral(String literal) {
+      for (int i = 0; i < literal.length(); i++) {
+        if (pos + i >= bytes.length || bytes[pos + i] != literal.charAt(i)) {
+          return false;
+        }
+      }
+      pos += literal.length();
+      return true;
     }
 
-    @Override
-    public int getNameId() {
-      return UNMAPPED;
+    private int readInt() {
+      int start = pos;
+      if (bytes[pos] == '-') {
+        pos++;
+      }
+      while (pos < bytes.length && bytes[pos] >= '0' && bytes[pos] <= '9') {
+        pos++;
+      }
+      return Integer.parseInt(new String(bytes, start, pos - start, UTF_8));
     }
-  }
 
-  /**
-   * This class represents a portion of the generated file, that is mapped
-   * to a section in the original source, and is associated with a name.
-   */
-  private static class NamedEntry extends UnnamedEntry {
-    private final int name;
+    private String readStringOrNull() {
+      return tryConsumeLiteral("null") ? null : readString();
+    }
 
-    NamedEntry(int column, int srcFile, int srcLine, int srcColumn, int name) {
-      super(column, srcFile, srcLine, srcColumn);
-      this.name = name;
+    private String readString() {
+      expect('"');
+      int start = pos;
+      while (bytes[pos] != '"' && bytes[pos] != '\\') {
+        pos++;
+      }
+      if (bytes[pos] == '"') {
+        return new String(bytes, start, pos++ - start, UTF_8);
+      }
+
+      // The string has escapes.
+      StringBuilder sb = new StringBuilder(new String(bytes, start, pos - start, UTF_8));
+      while (true) {
+        int runStart = pos;
+        while (bytes[pos] != '"' && bytes[pos] != '\\') {
+          pos++;
+        }
+        sb.append(new String(bytes, runStart, pos - runStart, UTF_8));
+        if (bytes[pos] == '"') {
+          pos++;
+          return sb.toString();
+        }
+        pos++;
+        char c = (char) bytes[pos++];
+        switch (c) {
+          case 'b': sb.append('\b'); break;
+          case 'f': sb.append('\f'); break;
+          case 'n': sb.append('\n'); break;
+          case 'r': sb.append('\r'); break;
+          case 't': sb.append('\t'); break;
+          case 'u':
+            sb.append((char) Integer.parseInt(new String(bytes, pos, 4, UTF_8), 16));
+            pos += 4;
+            break;
+          default:
+            sb.append(c);
+            break;
+        }
+      }
     }
 
-    @Override
-    public int getNameId() {
-      return name;
+    private String[] readStringArray() {
+      expect('[');
+      List<String> result = new ArrayList<>();
+      skipWhitespace();
+      if (peek() == ']') {
+        pos++;
+        return new String[0];
+      }
+      while (true) {
+        skipWhitespace();
+        result.add(readString());
+        skipWhitespace();
+        if (peek() == ',') {
+          pos++;
+        } else {
+          expect(']');
+          return result.toArray(new String[0]);
+        }
+      }
+    }
+
+    /** Skips a value of any type. */
+    private void skipValue() {
+      byte b = peek();
+      if (b == '"') {
+        readString();
+      } else if (b == '{' || b == '[') {
+        int depth = 0;
+        do {
+          b = peek();
+          if (b == '"') {
+            readString();
+            continue;
+          }
+          if (b == '{' || b == '[') {
+            depth++;
+          } else if (b == '}' || b == ']') {
+            depth--;
+          }
+          pos++;
+        } while (depth > 0);
+      } else {
+        while (pos < bytes.length
+            && bytes[pos] != ',' && bytes[pos] != '}' && bytes[pos] != ']') {
+          pos++;
+        }
+        while (pos > 0 && isWhitespace(bytes[pos - 1])) {
+          pos--;
+        }
+      }
+    }
+
+    private static boolean isWhitespace(byte b) {
+      return b == ' ' || b == '\n' || b == '\r' || b == '\t';
     }
   }
 
@@ -652,14 +978,12 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
 
     final int lineCount = lines.size();
     for (int i = 0; i < lineCount; i++) {
-      ArrayList<Entry> line = lines.get(i);
+      int[] line = lines.get(i);
       if (line != null) {
-        final int entryCount = line.size();
-        for (int j = 0; j < entryCount; j++) {
-          Entry entry = line.get(j);
+        for (int entry = 0; entry < line.length; entry += ENTRY_SIZE) {
           if (pending) {
             FilePosition endPosition = new FilePosition(
-                i, entry.getGeneratedColumn());
+                i, line[entry + GENERATED_COLUMN]);
             visitor.visit(
                 sourceName,
                 symbolName,
@@ -669,15 +993,16 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
             pending = false;
           }
 
-          if (entry.getSourceFileId() != UNMAPPED) {
+          int sourceFileId = line[entry + SOURCE_FILE_ID];
+          if (sourceFileId != UNMAPPED) {
             pending = true;
-            sourceName = sources[entry.getSourceFileId()];
-            symbolName = (entry.getNameId() != UNMAPPED)
-                ? names[entry.getNameId()] : null;
+            sourceName = sources[sourceFileId];
+            int nameId = line[entry + NAME_ID];
+            symbolName = (nameId != UNMAPPED) ? names[nameId] : null;
             sourceStartPosition = new FilePosition(
-                entry.getSourceLine(), entry.getSourceColumn());
+                line[entry + SOURCE_LINE], line[entry + SOURCE_COLUMN]);
             startPosition = new FilePosition(
-                i, entry.getGeneratedColumn());
+                i, line[entry + GENERATED_COLUMN]);
           }
         }
       }
@@ -18,13 +18,19 @@ package com.google.debugging.sourcemap;
 
 import static com.google.common.base.Preconditions.checkState;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.GwtIncompatible;
 import com.google.common.base.Preconditions;
 import com.google.debugging.sourcemap.SourceMapConsumerV3.EntryVisitor;
 import java.io.IOException;
-import java.util.ArrayDeque;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -64,11 +70,97 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
 
   private static final int UNMAPPED = -1;
 
+  private static final int INITIAL_MAPPING_CAPACITY = 16;
+
+  /** The size of the buffer the encoded mappings are collected in. */
+  private static final int MAPPINGS_BUFFER_SIZE = 1 << 16;
+
+  /**
+   * The most bytes written for a single segment of the mappings: a separator
+   * and five encoded values.
+   */
+  private static final int MAX_SEGMENT_LENGTH = 1 + 5 * Base64VLQ.MAX_ENCODED_LENGTH;
+
+  /*
+   * The mappings stored in this map, in pre-order traversal order. The fields
+   * of the i-th mapping are stored at index i of each of the following
+   * arrays, so that the map does not need any objects per mapping.
+   */
+
+  /** The number of mappings stored in this map. */
+  private int mappingCount = 0;
 
   /**
-   * A pre-order traversal ordered list of mappings stored in this map.
+   * The starting line of each mapping in the generated source file. Indexed
+   * by 0.
    */
-  private final List<Mapping> mappings = new ArrayList<>();
+  private int[] startLines = new int[INITIAL_MAPPING_CAPACITY];
+
+  /**
+   * The starting column of each mapping in the generated source file.
+   * Indexed by 0.
+   */
+  private int[] startColumns = new int[INITIAL_MAPPING_CAPACITY];
+
+  /**
+   * The ending line of each mapping in the generated source file. Indexed by
+   * 0.
+   */
+  private int[] endLines = new int[INITIAL_MAPPING_CAPACITY];
+
+  /**
+   * The ending column of each mapping in the generated source file. Indexed
+   * by 0.
+   */
+  private int[] endColumns = new int[INITIAL_MAPPING_CAPACITY];
+
+  /** The index in {@link #sourceNames} of the source file of each mapping. */
+  private int[] sourceIndexes = new int[INITIAL_MAPPING_CAPACITY];
+
+  /**
+   * The position of the code of each mapping in the input source file. Both
+   * the line number and the character index are indexed by 1 for legacy
+   * reasons via the Rhino Node class.
+   */
+  private int[] originalLines = new int[INITIAL_MAPPING_CAPACITY];
+
+  private int[] originalColumns = new int[INITIAL_MAPPING_CAPACITY];
+
+  /**
+   * The index in {@link #symbolNames} of the original name of the token found
+   * at the position of each mapping, or {@code UNMAPPED} if there is none.
+   */
+  private int[] symbolIndexes = new int[INITIAL_MAPPING_CAPACITY];
+
+  /** The mappings that are actually used by the source map. */
+  private final BitSet usedMappings = new BitSet();
+
+  /** The distinct source file names of the mappings, in the order added. */
+  private final List<String> sourceNames = new ArrayList<>();
+
+  /** The index of each source file name in {@link #sourceNames}. */
+  private final Map<String, Integer> sourceNameIndexes = new HashMap<>();
+
+  /** The distinct original names of the mappings, in the order added. */
+  private final List<String> symbolNames = new ArrayList<>();
+
+  /** The index of each original name in {@link #symbolNames}. */
+  private final Map<String, Integer> symbolNameIndexes = new HashMap<>();
+
+  /**
+   * The index in {@link #sourceFileMap} of each entry of {@link #sourceNames},
+   * or {@code UNMAPPED} if it has not been written yet.
+   */
+  private int[] sourceFileIds = new int[0];
+
+  /**
+   * The index in {@link #originalNameMap} of each entry of
+   * {@link #symbolNames}, or {@code UNMAPPED} if it has not been written yet.
+   */
+  private int[] originalNameIds = new int[0];
+
+  /** The buffer the mappings are encoded into, reused by each write. */
+  private byte[] mappingsBuffer = null;
 
   /**
    * A map of source names to source name index
@@ -94,15 +186,10 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
   private String lastSourceFile = null;
 
   /**
-   * Cache of the last mappings source name index.
+   * Cache of the last mappings source name index in {@link #sourceNames}.
    */
   private int lastSourceFileIndex = -1;
 
-  /**
-   * For validation store the last mapping added.
-   */
-  private Mapping lastMapping;
-
   /**
    * The position that the current source map is offset in the
    * buffer being used to generated the compiled source file.
@@ -134,8 +221,14 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
    */
   @Override
   public void reset() {
-    mappings.clear();
-    lastMapping = null;
+    mappingCount = 0;
+    usedMappings.clear();
+    sourceNames.clear();
+    sourceNameIndexes.clear();
+    symbolNames.clear();
+    symbolNameIndexes.clear();
+    sourceFileIds = new int[0];
+    originalNameIds = new int[0];
     sourceFileMap.clear();
     sourceFileContentMap.clear();
     originalNameMap.clear();
@@ -212,8 +305,10 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
       return;
     }
 
-    FilePosition adjustedStart = startPosition;
-    FilePosition adjustedEnd = endPosition;
+    int startLine = startPosition.getLine();
+    int startColumn = startPosition.getColumn();
+    int endLine = endPosition.getLine();
+    int endColumn = endPosition.getColumn();
 
     if (offsetPosition.getLine() != 0
         || offsetPosition.getColumn() != 0) {
@@ -222,49 +317,78 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
       // the *last* line of the source file to which the code is
       // being generated.
       int offsetLine = offsetPosition.getLine();
-      int startOffsetPosition = offsetPosition.getColumn();
-      int endOffsetPosition = offsetPosition.getColumn();
 
-      if (startPosition.getLine() > 0) {
-        startOffsetPosition = 0;
+      if (startLine <= 0) {
+        startColumn += offsetPosition.getColumn();
       }
 
-      if (endPosition.getLine() > 0) {
-        endOffsetPosition = 0;
+      if (endLine <= 0) {
+        endColumn += offsetPosition.getColumn();
       }
 
-      adjustedStart = new FilePosition(
-          startPosition.getLine() + offsetLine,
-          startPosition.getColumn() + startOffsetPosition);
-
-      adjustedEnd = new FilePosition(
-          endPosition.getLine() + offsetLine,
-          endPosition.getColumn() + endOffsetPosition);
+      startLine += offsetLine;
+      endLine += offsetLine;
     }
 
-    // Create the new mapping.
-    Mapping mapping = new Mapping();
-    mapping.sourceFile = sourceName;
-    mapping.originalPosition = sourceStartPosition;
-    mapping.originalName = symbolName;
-    mapping.startPosition = adjustedStart;
-    mapping.endPosition = adjustedEnd;
-
     // Validate the mappings are in a proper order.
-    if (lastMapping != null) {
-      int lastLine = lastMapping.startPosition.getLine();
-      int lastColumn = lastMapping.startPosition.getColumn();
-      int nextLine = mapping.startPosition.getLine();
-      int nextColumn = mapping.startPosition.getColumn();
-      Preconditions.checkState(nextLine > lastLine
-          || (nextLine == lastLine && nextColumn >= lastColumn),
+    if (mappingCount > 0) {
+      int lastLine = startLines[mappingCount - 1];
+      int lastColumn = startColumns[mappingCount - 1];
+      Preconditions.checkState(startLine > lastLine
+          || (startLine == lastLine && startColumn >= lastColumn),
           "Incorrect source mappings order, previous : (%s,%s)\n"
           + "new : (%s,%s)",
-          lastLine, lastColumn, nextLine, nextColumn);
+          lastLine, lastColumn, startLine, startColumn);
     }
 
-    lastMapping = mapping;
-    mappings.add(mapping);
+    // Store the new mapping.
+    if (mappingCount == startLines.length) {
+      int capacity = mappingCount * 2;
+      startLines = Arrays.copyOf(startLines, capacity);
+      startColumns = Arrays.copyOf(startColumns, capacity);
+      endLines = Arrays.copyOf(endLines, capacity);
+      endColumns = Arrays.copyOf(endColumns, capacity);
+      sourceIndexes = Arrays.copyOf(sourceIndexes, capacity);
+      originalLines = Arrays.copyOf(originalLines, capacity);
+      originalColumns = Arrays.copyOf(originalColumns, capacity);
+      symbolIndexes = Arrays.copyOf(symbolIndexes, capacity);
+    }
+    int m = mappingCount++;
+    startLines[m] = startLine;
+    startColumns[m] = startColumn;
+    endLines[m] = endLine;
+    endColumns[m] = endColumn;
+    sourceIndexes[m] = getSourceIndex(sourceName);
+    originalLines[m] = sourceStartPosition.getLine();
+    originalColumns[m] = sourceStartPosition.getColumn();
+    symbolIndexes[m] = symbolName == null ? UNMAPPED : getSymbolIndex(symbolName);
+  }
+
+  /** Returns the index of the given source file name in {@link #sourceNames}. */
+  private int getSourceIndex(String sourceName) {
+    if (sourceName != lastSourceFile) {
+      lastSourceFile = sourceName;
+      Integer index = sourceNameIndexes.get(sourceName);
+      if (index != null) {
+        lastSourceFileIndex = index;
+      } else {
+        lastSourceFileIndex = sourceNames.size();
+        sourceNames.add(sourceName);
+        sourceNameIndexes.put(sourceName, lastSourceFileIndex);
+      }
+    }
+    return lastSourceFileIndex;
+  }
+
+  /** Returns the index of the given original name in {@link #symbolNames}. */
+  private int getSymbolIndex(String symbolName) {
+    Integer index = symbolNameIndexes.get(symbolName);
+    if (index == null) {
+      index = symbolNames.size();
+      symbolNames.add(symbolName);
+      symbolNameIndexes.put(symbolName, index);
+    }
+    return index;
   }
 
   @Override public void addSourcesContent(String source, String content) {
@@ -361,7 +485,35 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
    * Line 9: Any custom field (extension).
    */
   @Override
-  public void appendTo(Appendable out, String name) throws IOException {
+  public void appendTo(final Appendable out, String name) throws IOException {
+    appendTo(
+        out,
+        name,
+        new MappingsSink() {
+          @Override
+          public void write(byte[] bytes, int length) throws IOException {
+            for (int i = 0; i < length; i++) {
+              out.append((char) bytes[i]);
+            }
+          }
+        });
+  }
+
+  /**
+   * Writes out the source map to the given channel, in the same format as
+   * {@link #appendTo}. The mappings are encoded straight into a reusable byte
+   * buffer and written from there, so the mappings field, which makes up
+   * most of a large map, is never held in memory as a whole.
+   */
+  @GwtIncompatible("java.nio.channels.WritableByteChannel")
+  public void writeTo(WritableByteChannel channel, String name) throws IOException {
+    ChannelWriter writer = new ChannelWriter(channel);
+    appendTo(writer, name, writer);
+    writer.flush();
+  }
+
+  private void appendTo(Appendable out, String name, MappingsSink mappingsSink)
+      throws IOException {
     int maxLine = prepMappings() + 1;
 
     // Add the header fields.
@@ -378,7 +530,7 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
     // Add the mappings themselves.
     appendFieldStart(out, "mappings");
     // out.append("[");
-    (new LineMapper(out, maxLine)).appendLineMappings();
+    (new LineMapper(out, mappingsSink, maxLine)).appendLineMappings();
 
     // out.append("]");
     appendFieldEnd(out);
@@ -535,27 +687,27 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
   /**
    * Escapes the given string for JSON.
    */
-  private static String escapeString(String value) {
+  static String escapeString(String value) {
     return Util.escapeString(value);
   }
 
   // Source map field helpers.
 
-  private static void appendFirstField(
+  static void appendFirstField(
       Appendable out, String name, CharSequence value)
       throws IOException {
     appendFieldStart(out, name, true);
     out.append(value);
   }
 
-  private static void appendField(
+  static void appendField(
       Appendable out, String name, CharSequence value)
       throws IOException {
     appendFieldStart(out, name, false);
     out.append(value);
   }
 
-  private static void appendFieldStart(Appendable out, String name)
+  static void appendFieldStart(Appendable out, String name)
       throws IOException {
     appendFieldStart(out, name, false);
   }
@@ -577,106 +729,53 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
   }
 
   /**
-   * Assigns sequential ids to used mappings, and returns the last line mapped.
+   * Marks the used mappings, and returns the last line mapped.
    */
   private int prepMappings() throws IOException {
     // Mark any unused mappings.
+    usedMappings.clear();
     (new MappingTraversal()).traverse(new UsedMappingCheck());
 
-    // Renumber used mappings and keep track of the last line.
-    int id = 0;
+    // Keep track of the last line.
     int maxLine = 0;
-    for (Mapping m : mappings) {
-      if (m.used) {
-        m.id = id++;
-        int endPositionLine = m.endPosition.getLine();
-        maxLine = Math.max(maxLine, endPositionLine);
-      }
+    for (int m = usedMappings.nextSetBit(0); m >= 0; m = usedMappings.nextSetBit(m + 1)) {
+      maxLine = Math.max(maxLine, endLines[m]);
     }
 
     // Adjust for the prefix.
     return maxLine + prefixPosition.getLine();
   }
 
-  /**
-   * A mapping from a given position in an input source file to a given position
-   * in the generated code.
-   */
-  static class Mapping {
-    /**
-     * A unique ID for this mapping for record keeping purposes.
-     */
-    int id = UNMAPPED;
-
-    /**
-     * The source file index.
-     */
-    String sourceFile;
-
-    /**
-     * The position of the code in the input source file. Both
-     * the line number and the character index are indexed by
-     * 1 for legacy reasons via the Rhino Node class.
-     */
-    FilePosition originalPosition;
-
-    /**
-     * The starting position of the code in the generated source
-     * file which this mapping represents. Indexed by 0.
-     */
-    FilePosition startPosition;
-
-    /**
-     * The ending position of the code in the generated source
-     * file which this mapping represents. Indexed by 0.
-     */
-    FilePosition endPosition;
-
-    /**
-     * The original name of the token found at the position
-     * represented by this mapping (if any).
-     */
-    String originalName;
-
-    /**
-     * Whether the mapping is actually used by the source map.
-     */
-    boolean used = false;
-  }
-
   /**
    * Mark any visited mapping as "used".
    */
-  private static class UsedMappingCheck implements MappingVisitor {
-    /**
-     * @throws IOException
-     */
+  private class UsedMappingCheck implements MappingVisitor {
     @Override
-    public void visit(Mapping m, int line, int col, int nextLine, int nextCol)
-        throws IOException {
-      if (m != null) {
-        m.used = true;
+    public void visit(int m, int line, int col, int nextLine, int nextCol) {
+      if (m != UNMAPPED) {
+        usedMappings.set(m);
       }
     }
   }
 
   private interface MappingVisitor {
     /**
-     * @param m The mapping for the current code segment. null if the segment
-     *     is unmapped.
+     * @param m The index of the mapping for the current code segment.
+     *     {@code UNMAPPED} if the segment is unmapped.
      * @param line The starting line for this code segment.
      * @param col The starting column for this code segment.
      * @param endLine The ending line
      * @param endCol The ending column
      * @throws IOException
      */
-    void visit(Mapping m, int line, int col, int endLine, int endCol)
+    void visit(int m, int line, int col, int endLine, int endCol)
         throws IOException;
   }
 
   /**
    * Walk the mappings and visit each segment of the mappings, unmapped
-   * segments are visited with a null mapping, unused mapping are not visited.
+   * segments are visited with {@code UNMAPPED}, unused mapping are not
+   * visited.
    */
   private class MappingTraversal {
     // The last line and column written
@@ -691,29 +790,33 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
       // The mapping list is ordered as a pre-order traversal.  The mapping
       // positions give us enough information to rebuild the stack and this
       // allows the building of the source map in O(n) time.
-      Deque<Mapping> stack = new ArrayDeque<>();
-      for (Mapping m : mappings) {
+      int[] stack = new int[INITIAL_MAPPING_CAPACITY];
+      int stackSize = 0;
+      for (int m = 0; m < mappingCount; m++) {
         // Find the closest ancestor of the current mapping:
         // An overlapping mapping is an ancestor of the current mapping, any
         // non-overlapping mappings are siblings (or cousins) and must be
         // closed in the reverse order of when they encountered.
-        while (!stack.isEmpty() && !isOverlapped(stack.peek(), m)) {
-          Mapping previous = stack.pop();
+        while (stackSize > 0 && !isOverlapped(stack[stackSize - 1], m)) {
+          int previous = stack[--stackSize];
           maybeVisit(v, previous);
         }
 
         // Any gaps between the current line position and the start of the
         // current mapping belong to the parent.
-        Mapping parent = stack.peek();
+        int parent = stackSize > 0 ? stack[stackSize - 1] : UNMAPPED;
         maybeVisitParent(v, parent, m);
 
-        stack.push(m);
+        if (stackSize == stack.length) {
+          stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = m;
       }
 
       // There are no more children to be had, simply close the remaining
       // mappings in the reverse order of when they encountered.
-      while (!stack.isEmpty()) {
-        Mapping m = stack.pop();
+      while (stackSize > 0) {
+        int m = stack[--stackSize];
         maybeVisit(v, m);
       }
     }
@@ -721,16 +824,14 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
     /**
      * @return The line adjusted for the prefix position.
      */
-    private int getAdjustedLine(FilePosition p) {
-      return p.getLine() + prefixPosition.getLine();
+    private int getAdjustedLine(int rawLine) {
+      return rawLine + prefixPosition.getLine();
     }
 
     /**
      * @return The column adjusted for the prefix position.
      */
-    private int getAdjustedCol(FilePosition p) {
-      int rawLine = p.getLine();
-      int rawCol = p.getColumn();
+    private int getAdjustedCol(int rawLine, int rawCol) {
       // Only the first line needs the character position adjusted.
       return (rawLine != 0)
           ? rawCol : rawCol + prefixPosition.getColumn();
@@ -739,12 +840,12 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
     /**
      * @return Whether m1 ends before m2 starts.
      */
-    private boolean isOverlapped(Mapping m1, Mapping m2) {
+    private boolean isOverlapped(int m1, int m2) {
       // No need to use adjusted values here, relative positions are sufficient.
-      int l1 = m1.endPosition.getLine();
-      int l2 = m2.startPosition.getLine();
-      int c1 = m1.endPosition.getColumn();
-      int c2 = m2.startPosition.getColumn();
+      int l1 = endLines[m1];
+      int l2 = startLines[m2];
+      int c1 = endColumns[m1];
+      int c2 = startColumns[m2];
 
       return (l1 == l2 && c1 >= c2) || l1 > l2;
     }
@@ -753,9 +854,9 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
      * Write any needed entries from the current position to the end of the
      * provided mapping.
      */
-    private void maybeVisit(MappingVisitor v, Mapping m) throws IOException {
-      int nextLine = getAdjustedLine(m.endPosition);
-      int nextCol = getAdjustedCol(m.endPosition);
+    private void maybeVisit(MappingVisitor v, int m) throws IOException {
+      int nextLine = getAdjustedLine(endLines[m]);
+      int nextCol = getAdjustedCol(endLines[m], endColumns[m]);
       // If this anything remaining in this mapping beyond the
       // current line and column position, write it out now.
       if (line < nextLine || (line == nextLine && col < nextCol)) {
@@ -766,10 +867,10 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
     /**
      * Write any needed entries to complete the provided mapping.
      */
-    private void maybeVisitParent(MappingVisitor v, Mapping parent, Mapping m)
+    private void maybeVisitParent(MappingVisitor v, int parent, int m)
         throws IOException {
-      int nextLine = getAdjustedLine(m.startPosition);
-      int nextCol = getAdjustedCol(m.startPosition);
+      int nextLine = getAdjustedLine(startLines[m]);
+      int nextCol = getAdjustedCol(startLines[m], startColumns[m]);
       // If the previous value is null, no mapping exists.
       checkState(line < nextLine || col <= nextCol);
       if (line < nextLine || (line == nextLine && col < nextCol)) {
@@ -781,7 +882,7 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
      * Write any entries needed between the current position the next position
      * and update the current position.
      */
-    private void visit(MappingVisitor v, Mapping m,
+    private void visit(MappingVisitor v, int m,
         int nextLine, int nextCol)
         throws IOException {
       checkState(line <= nextLine);
@@ -853,37 +954,71 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
     out.append("\n}");
   }
 
-  private int getSourceId(String sourceName) {
-    if (sourceName != lastSourceFile) {
-      lastSourceFile = sourceName;
+  /**
+   * Returns the index in the "sources" field of the source file with the
+   * given index in {@link #sourceNames}, adding it if necessary.
+   */
+  private int getSourceId(int sourceIndex) {
+    int id = sourceFileIds[sourceIndex];
+    if (id == UNMAPPED) {
+      String sourceName = sourceNames.get(sourceIndex);
       Integer index = sourceFileMap.get(sourceName);
       if (index != null) {
-        lastSourceFileIndex = index;
+        id = index;
       } else {
-        lastSourceFileIndex = sourceFileMap.size();
-        sourceFileMap.put(sourceName, lastSourceFileIndex);
+        id = sourceFileMap.size();
+        sourceFileMap.put(sourceName, id);
       }
+      sourceFileIds[sourceIndex] = id;
     }
-    return lastSourceFileIndex;
+    return id;
+  }
+
+  /**
+   * Returns the index in the "names" field of the original name with the
+   * given index in {@link #symbolNames}, adding it if necessary.
+   */
+  private int getNameId(int symbolIndex) {
+    int id = originalNameIds[symbolIndex];
+    if (id == UNMAPPED) {
+      String symbolName = symbolNames.get(symbolIndex);
+      Integer index = originalNameMap.get(symbolName);
+      if (index != null) {
+        id = index;
+      } else {
+        id = originalNameMap.size();
+        originalNameMap.put(symbolName, id);
+      }
+      originalNameIds[symbolIndex] = id;
+    }
+    return id;
   }
 
-  private int getNameId(String symbolName) {
-    int originalNameIndex;
-    Integer index = originalNameMap.get(symbolName);
-    if (index != null) {
-      originalNameIndex = index;
-    } else {
-      originalNameIndex = originalNameMap.size();
-      originalNameMap.put(symbolName, originalNameIndex);
+  /** Extends the given id table to the given size, with {@code UNMAPPED} entries. */
+  private static int[] growIds(int[] ids, int size) {
+    if (ids.length >= size) {
+      return ids;
     }
-    return originalNameIndex;
+    int[] result = Arrays.copyOf(ids, size);
+    Arrays.fill(result, ids.length, size, UNMAPPED);
+    return result;
+  }
+
+  /** Receives the encoded mappings, a buffer at a time. */
+  private interface MappingsSink {
+    void write(byte[] bytes, int length) throws IOException;
   }
 
   private class LineMapper implements MappingVisitor {
     // The destination.
     private final Appendable out;
+    private final MappingsSink mappingsSink;
     private final int maxLine; // TODO(johnlenz): This shouldn't be necessary to track.
 
+    // The encoded mappings that have not been passed to the sink yet.
+    private final byte[] buffer;
+    private int length = 0;
+
     private int previousLine = -1;
     private int previousColumn = 0;
 
@@ -893,16 +1028,23 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
     private int previousSourceColumn;
     private int previousNameId;
 
-    LineMapper(Appendable out, int maxLine) {
+    LineMapper(Appendable out, MappingsSink mappingsSink, int maxLine) {
       this.out = out;
+      this.mappingsSink = mappingsSink;
       this.maxLine = maxLine;
+      if (mappingsBuffer == null) {
+        mappingsBuffer = new byte[MAPPINGS_BUFFER_SIZE];
+      }
+      this.buffer = mappingsBuffer;
+      sourceFileIds = growIds(sourceFileIds, sourceNames.size());
+      originalNameIds = growIds(originalNameIds, symbolNames.size());
     }
 
     /**
      * As each segment is visited write out the appropriate line mapping.
      */
     @Override
-    public void visit(Mapping m, int line, int col, int nextLine, int nextCol)
+    public void visit(int m, int line, int col, int nextLine, int nextCol)
       throws IOException {
       if (previousLine != line) {
         previousColumn = 0;
@@ -913,14 +1055,15 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
         // So far they're just null mappings and we can ignore them.
         // (If they're non-null, we assert-fail.)
         if (line < maxLine) {
+          reserve(MAX_SEGMENT_LENGTH);
           if (previousLine == line) { // not the first entry for the line
-            out.append(',');
+            buffer[length++] = ',';
           }
           writeEntry(m, col);
           previousLine = line;
           previousColumn = col;
         } else {
-          checkState(m == null);
+          checkState(m == UNMAPPED);
         }
       }
 
@@ -940,29 +1083,29 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
      * The values are stored as relative to the last seen values for each
      * field and encoded as Base64VLQs.
      */
-    void writeEntry(Mapping m, int column) throws IOException {
+    void writeEntry(int m, int column) {
       // The relative generated column number
-      Base64VLQ.encode(out, column - previousColumn);
+      length = Base64VLQ.encode(buffer, length, column - previousColumn);
       previousColumn = column;
-      if (m != null) {
+      if (m != UNMAPPED) {
         // The relative source file id
-        int sourceId = getSourceId(m.sourceFile);
-        Base64VLQ.encode(out, sourceId - previousSourceFileId);
+        int sourceId = getSourceId(sourceIndexes[m]);
+        length = Base64VLQ.encode(buffer, length, sourceId - previousSourceFileId);
         previousSourceFileId = sourceId;
 
         // The relative source file line and column
-        int srcline = m.originalPosition.getLine();
-        int srcColumn = m.originalPosition.getColumn();
-        Base64VLQ.encode(out, srcline - previousSourceLine);
+        int srcline = originalLines[m];
+        int srcColumn = originalColumns[m];
+        length = Base64VLQ.encode(buffer, length, srcline - previousSourceLine);
         previousSourceLine = srcline;
 
-        Base64VLQ.encode(out, srcColumn - previousSourceColumn);
+        length = Base64VLQ.encode(buffer, length, srcColumn - previousSourceColumn);
         previousSourceColumn = srcColumn;
 
-        if (m.originalName != null) {
+        if (symbolIndexes[m] != UNMAPPED) {
           // The relative id for the associated symbol name
-          int nameId = getNameId(m.originalName);
-          Base64VLQ.encode(out, (nameId - previousNameId));
+          int nameId = getNameId(symbolIndexes[m]);
+          length = Base64VLQ.encode(buffer, length, (nameId - previousNameId));
           previousNameId = nameId;
         }
       }
@@ -977,6 +1120,7 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
 
       // And close the final line.
       closeLine(true);
+      flush();
     }
 
     /**
@@ -992,11 +1136,99 @@ public final class SourceMapGeneratorV3 implements SourceMapGenerator {
      * End the entry for a line.
      */
     private void closeLine(boolean finalEntry) throws IOException {
-      out.append(';');
+      reserve(1);
+      buffer[length++] = ';';
       if (finalEntry) {
+        flush();
         out.append('\"');
       }
     }
+
+    /** Makes room for the given number of bytes in the buffer. */
+    private void reserve(int count) throws IOException {
+      if (length + count > buffer.length) {
+        flush();
+      }
+    }
+
+    private void flush() throws IOException {
+      if (length > 0) {
+        mappingsSink.write(buffer, length);
+        length = 0;
+      }
+    }
   }
 
+  /**
+   * Writes the source map to a channel. The text of the fields is encoded as
+   * it is appended, and the mappings are copied from the mappings buffer.
+   */
+  @GwtIncompatible("java.nio.channels.WritableByteChannel")
+  private static final class ChannelWriter implements Appendable, MappingsSink {
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(MAPPINGS_BUFFER_SIZE);
+
+    ChannelWriter(WritableByteChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+      return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+      for (int i = start; i < end; i++) {
+        char c = csq.charAt(i);
+        if (c >= 0x80) {
+          // The fields are escaped to ASCII, except for the extensions.
+          write(csq.subSequence(i, end).toString().getBytes(UTF_8));
+          break;
+        }
+        if (!buffer.hasRemaining()) {
+          flush();
+        }
+        buffer.put((byte) c);
+      }
+      return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+      if (c >= 0x80) {
+        return append(String.valueOf(c));
+      }
+      if (!buffer.hasRemaining()) {
+        flush();
+      }
+      buffer.put((byte) c);
+      return this;
+    }
+
+    @Override
+    public void write(byte[] bytes, int length) throws IOException {
+      int offset = 0;
+      while (offset < length) {
+        if (!buffer.hasRemaining()) {
+          flush();
+        }
+        int count = Math.min(buffer.remaining(), length - offset);
+        buffer.put(bytes, offset, count);
+        offset += count;
+      }
+    }
+
+    private void write(byte[] bytes) throws IOException {
+      write(bytes, bytes.length);
+    }
+
+    void flush() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+  }
 }
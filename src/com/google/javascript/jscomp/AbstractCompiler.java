@@ -118,6 +118,9 @@ public abstract class AbstractCompiler implements SourceExcerptProvider {
   /** Sets the string replacement map */
   public abstract void setStringMap(VariableMap stringMap);
 
+  /** Sets the side effect summaries of the function bodies of this compilation. */
+  abstract void setFunctionSideEffectSummary(FunctionSideEffectSummary summary);
+
   /** Sets the fully qualified function name and globally unique id mapping. */
   public abstract void setFunctionNames(FunctionNames functionNames);
 
@@ -394,6 +397,13 @@ public abstract class AbstractCompiler implements SourceExcerptProvider {
   /** True iff a function changed since the last time a pass was run */
   abstract boolean hasScopeChanged(Node n);
 
+  /**
+   * Returns the control flow graph of the given root. Inside optimization
+   * loops, the graph of a function or script is reused until a change is
+   * reported to it, so callers must not modify the returned graph.
+   */
+  abstract ControlFlowGraph<Node> getControlFlowGraph(Node cfgRoot);
+
   /**
    * Represents the different contexts for which the compiler could have
    * distinct configurations.
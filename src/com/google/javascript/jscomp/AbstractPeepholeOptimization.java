@@ -20,6 +20,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.javascript.jscomp.parsing.parser.FeatureSet;
 import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
+import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * An abstract class whose implementations run peephole optimizations:
@@ -42,6 +45,18 @@ abstract class AbstractPeepholeOptimization {
    */
   abstract Node optimizeSubtree(Node subtree);
 
+  /**
+   * Returns the types of the nodes that {@link #optimizeSubtree} may change,
+   * or null if it may change a node of any type. The
+   * {@link PeepholeOptimizationsPass} only offers nodes of these types to the
+   * optimization, so an optimization that only looks at a few node types
+   * should override this to be skipped for all other nodes.
+   */
+  @Nullable
+  Set<Token> getTokens() {
+    return null;
+  }
+
   /**
    * Helper method for reporting an error to the compiler when applying a
    * peephole optimization.
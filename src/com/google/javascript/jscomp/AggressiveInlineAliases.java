@@ -97,17 +97,31 @@ class AggressiveInlineAliases implements CompilerPass {
 
   private AbstractCompiler compiler;
   private boolean codeChanged;
+  private GlobalNamespace namespace = null;
 
   AggressiveInlineAliases(AbstractCompiler compiler) {
     this.compiler = compiler;
     this.codeChanged = true;
   }
 
+  /**
+   * Uses the given namespace, which may be shared with other passes, instead of
+   * building a new one. The namespace must be for the root this pass is run on.
+   */
+  AggressiveInlineAliases injectNamespace(GlobalNamespace namespace) {
+    this.namespace = namespace;
+    return this;
+  }
+
   @Override
   public void process(Node externs, Node root) {
+    if (namespace == null) {
+      namespace = new GlobalNamespace(compiler, root);
+    }
     while (this.codeChanged) {
       this.codeChanged = false;
-      GlobalNamespace namespace = new GlobalNamespace(compiler, root);
+      // Only the scripts changed by the previous iteration are traversed again.
+      namespace.update();
       inlineAliases(namespace);
     }
   }
@@ -25,19 +25,13 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
-import com.google.javascript.jscomp.graph.AdjacencyGraph;
-import com.google.javascript.jscomp.graph.Annotation;
-import com.google.javascript.jscomp.graph.GraphColoring;
-import com.google.javascript.jscomp.graph.GraphColoring.GreedyGraphColoring;
-import com.google.javascript.jscomp.graph.GraphNode;
-import com.google.javascript.jscomp.graph.SubGraph;
 import com.google.javascript.rhino.FunctionTypeI;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.ObjectTypeI;
 import com.google.javascript.rhino.TypeI;
 import com.google.javascript.rhino.jstype.JSTypeNative;
 import java.util.ArrayList;
-import java.util.BitSet;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -188,23 +182,24 @@ class AmbiguateProperties implements CompilerPass {
         .addAll(externedNames)
         .addAll(quotedNames);
 
+    // The related types of each type are only needed to compute the related
+    // types of the properties.
+    relatedBitsets.clear();
+
     int numRenamedPropertyNames = 0;
     int numSkippedPropertyNames = 0;
-    ArrayList<PropertyGraphNode> nodes = new ArrayList<>(propertyMap.size());
+    List<Property> propsToRename = new ArrayList<>(propertyMap.size());
     for (Property prop : propertyMap.values()) {
       if (prop.skipAmbiguating) {
         ++numSkippedPropertyNames;
         reservedNames.add(prop.oldName);
       } else {
         ++numRenamedPropertyNames;
-        nodes.add(new PropertyGraphNode(prop));
+        propsToRename.add(prop);
       }
     }
 
-    PropertyGraph graph = new PropertyGraph(nodes);
-    GraphColoring<Property, Void> coloring =
-        new GreedyGraphColoring<>(graph, FREQUENCY_COMPARATOR);
-    int numNewPropertyNames = coloring.color();
+    int numNewPropertyNames = colorProperties(propsToRename);
 
     // Generate new names for the properties that will be renamed.
     NameGenerator nameGen =
@@ -216,10 +211,10 @@ class AmbiguateProperties implements CompilerPass {
     }
 
     // Translate the color of each Property instance to a name.
-    for (PropertyGraphNode node : graph.getNodes()) {
-      node.getValue().newName = colorMap[node.getAnnotation().hashCode()];
+    for (Property prop : propsToRename) {
+      prop.newName = colorMap[prop.color];
       if (renamingMap != null) {
-        renamingMap.put(node.getValue().oldName, node.getValue().newName);
+        renamingMap.put(prop.oldName, prop.newName);
       }
     }
 
@@ -242,7 +237,43 @@ class AmbiguateProperties implements CompilerPass {
     }
   }
 
-  private BitSet getRelatedTypesOnNonUnion(TypeI type) {
+  /**
+   * Colors the properties so that no two properties of the same color are
+   * referenced from related types, and returns the number of colors used.
+   *
+   * <p>The properties are colored from the most to the least frequently
+   * referenced, each with the smallest color that it fits in, so the most
+   * frequent properties get the names generated first. This is the coloring
+   * that {@link com.google.javascript.jscomp.graph.GraphColoring.GreedyGraphColoring}
+   * computes, but with a single pass over the properties.
+   */
+  private int colorProperties(List<Property> props) {
+    Collections.sort(props, FREQUENCY_COMPARATOR);
+
+    // The types related to the properties of each color.
+    List<JSTypeBitSet> typesOfColor = new ArrayList<>();
+    // For each distinct set of related types, the smallest color that a
+    // property with that set may still fit in. Colors only gain types, so a
+    // color that did not fit a set earlier never will.
+    Map<JSTypeBitSet, Integer> firstCandidateColor = new HashMap<>();
+    for (Property prop : props) {
+      Integer candidate = firstCandidateColor.get(prop.relatedTypes);
+      int color = candidate == null ? 0 : candidate;
+      while (color < typesOfColor.size()
+          && typesOfColor.get(color).intersects(prop.relatedTypes)) {
+        color++;
+      }
+      if (color == typesOfColor.size()) {
+        typesOfColor.add(new JSTypeBitSet());
+      }
+      typesOfColor.get(color).or(prop.relatedTypes);
+      firstCandidateColor.put(prop.relatedTypes, color);
+      prop.color = color;
+    }
+    return typesOfColor.size();
+  }
+
+  private JSTypeBitSet getRelatedTypesOnNonUnion(TypeI type) {
     // All of the types we encounter should have been added to the
     // relatedBitsets via computeRelatedTypes.
     if (relatedBitsets.containsKey(type)) {
@@ -293,7 +324,7 @@ class AmbiguateProperties implements CompilerPass {
       return;
     }
 
-    JSTypeBitSet related = new JSTypeBitSet(intForType.size());
+    JSTypeBitSet related = new JSTypeBitSet();
     relatedBitsets.put(type, related);
     related.set(getIntForType(type));
 
@@ -328,93 +359,6 @@ class AmbiguateProperties implements CompilerPass {
     related.or(relatedBitsets.get(instanceType));
   }
 
-  class PropertyGraph implements AdjacencyGraph<Property, Void> {
-    private final ArrayList<PropertyGraphNode> nodes;
-
-    PropertyGraph(ArrayList<PropertyGraphNode> nodes) {
-      this.nodes = nodes;
-    }
-
-    @Override
-    public List<PropertyGraphNode> getNodes() {
-      return nodes;
-    }
-
-    @Override
-    public GraphNode<Property, Void> getNode(Property property) {
-      throw new RuntimeException("PropertyGraph#getNode is never called.");
-    }
-
-    @Override
-    public SubGraph<Property, Void> newSubGraph() {
-      return new PropertySubGraph();
-    }
-
-    @Override
-    public void clearNodeAnnotations() {
-      for (PropertyGraphNode node : nodes) {
-        node.setAnnotation(null);
-      }
-    }
-
-    @Override
-    public int getWeight(Property value) {
-      return value.numOccurrences;
-    }
-  }
-
-  /**
-   * A {@link SubGraph} that represents properties. The related types of
-   * the properties are used to efficiently calculate adjacency information.
-   */
-  class PropertySubGraph implements SubGraph<Property, Void> {
-    /** Types related to properties referenced in this subgraph. */
-    JSTypeBitSet relatedTypes = new JSTypeBitSet(intForType.size());
-
-    /**
-     * Returns true if prop is in an independent set from all properties in this
-     * sub graph.  That is, if none of its related types intersects with the
-     * related types for this sub graph.
-     */
-    @Override
-    public boolean isIndependentOf(Property prop) {
-      return !relatedTypes.intersects(prop.relatedTypes);
-    }
-
-    /**
-     * Adds the node to the sub graph, adding all its related types to the
-     * related types for the sub graph.
-     */
-    @Override
-    public void addNode(Property prop) {
-      relatedTypes.or(prop.relatedTypes);
-    }
-  }
-
-  static class PropertyGraphNode implements GraphNode<Property, Void> {
-    Property property;
-    protected Annotation annotation;
-
-    PropertyGraphNode(Property property) {
-      this.property = property;
-    }
-
-    @Override
-    public Property getValue() {
-      return property;
-    }
-
-    @Override
-    public Annotation getAnnotation() {
-      return annotation;
-    }
-
-    @Override
-    public void setAnnotation(Annotation data) {
-      annotation = data;
-    }
-  }
-
   private void reportInvalidRenameFunction(Node n, String functionName, String message) {
     compiler.report(
         JSError.make(
@@ -574,7 +518,8 @@ class AmbiguateProperties implements CompilerPass {
     String newName;
     int numOccurrences;
     boolean skipAmbiguating;
-    JSTypeBitSet relatedTypes = new JSTypeBitSet(intForType.size());
+    JSTypeBitSet relatedTypes = new JSTypeBitSet();
+    int color;
 
     Property(String name) {
       this.oldName = name;
@@ -618,17 +563,8 @@ class AmbiguateProperties implements CompilerPass {
     }
   }
 
-  // A BitSet that stores type info. Adds pretty-print routines.
-  private class JSTypeBitSet extends BitSet {
-    private static final long serialVersionUID = 1L;
-
-    private JSTypeBitSet(int size) {
-      super(size);
-    }
-
-    private JSTypeBitSet() {
-      super();
-    }
+  // A bit set that stores type info. Adds pretty-print routines.
+  private class JSTypeBitSet extends CompressedBitSet {
 
     /**
      * Pretty-printing, for diagnostic purposes.
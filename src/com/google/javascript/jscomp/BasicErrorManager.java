@@ -18,10 +18,10 @@ package com.google.javascript.jscomp;
 
 import com.google.common.base.Objects;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
-import java.util.PriorityQueue;
 import java.util.Set;
 
 /**
@@ -35,8 +35,12 @@ import java.util.Set;
  *
  */
 public abstract class BasicErrorManager implements ErrorManager {
-  private final PriorityQueue<ErrorWithLevel> messages =
-      new PriorityQueue<>(1, new LeveledJSErrorComparator());
+  private static final Comparator<ErrorWithLevel> COMPARATOR = new LeveledJSErrorComparator();
+
+  /** The messages in the order they were reported, until they are sorted. */
+  private final List<ErrorWithLevel> messages = new ArrayList<>();
+  /** Whether {@link #messages} is sorted; reports are only sorted when they are read. */
+  private boolean sorted = true;
   private final Set<ErrorWithLevel> alreadyAdded = new HashSet<>();
   private int errorCount = 0;
   private int warningCount = 0;
@@ -47,6 +51,7 @@ public abstract class BasicErrorManager implements ErrorManager {
     ErrorWithLevel e = new ErrorWithLevel(error, level);
     if (alreadyAdded.add(e)) {
       messages.add(e);
+      sorted = false;
       if (level == CheckLevel.ERROR) {
         errorCount++;
       } else if (level == CheckLevel.WARNING) {
@@ -57,16 +62,30 @@ public abstract class BasicErrorManager implements ErrorManager {
 
   @Override
   public void generateReport() {
-    List<ErrorWithLevel> list = new ArrayList<>();
-    for (ErrorWithLevel message = messages.poll(); message != null; message = messages.poll()) {
+    sortMessages();
+    boolean reportedWhilePrinting = false;
+    for (int i = 0; i < messages.size(); i++) {
+      if (!sorted) {
+        // Printing a message reported more, which are printed in order after it.
+        Collections.sort(messages.subList(i, messages.size()), COMPARATOR);
+        sorted = true;
+        reportedWhilePrinting = true;
+      }
+      ErrorWithLevel message = messages.get(i);
       println(message.level, message.error);
-      list.add(message);
     }
-    // Restore the messages since some tests assert the values after generating the report.
-    messages.addAll(list);
+    // The messages reported while printing may belong before ones printed earlier.
+    sorted = !reportedWhilePrinting;
     printSummary();
   }
 
+  private void sortMessages() {
+    if (!sorted) {
+      Collections.sort(messages, COMPARATOR);
+      sorted = true;
+    }
+  }
+
   /**
    * Print a message with a trailing new line. This method is called by the
    * {@link #generateReport()} method when generating messages.
@@ -109,6 +128,7 @@ public abstract class BasicErrorManager implements ErrorManager {
   }
 
   private JSError[] toArray(CheckLevel level) {
+    sortMessages();
     List<JSError> errors = new ArrayList<>(messages.size());
     for (ErrorWithLevel p : messages) {
       if (p.level == level) {
@@ -19,15 +19,23 @@ package com.google.javascript.jscomp;
 import com.google.common.annotations.GwtIncompatible;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.javascript.jscomp.ConformanceRules.AbstractRule;
+import com.google.javascript.jscomp.ConformanceRules.CustomRuleProxy;
 import com.google.javascript.jscomp.NodeTraversal.Callback;
 import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.TextFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * Provides a framework for checking code against a set of user configured
@@ -36,6 +44,16 @@ import java.util.Set;
  * variables, or dependencies) and allow for more complex checks using
  * custom rules than specify
  *
+ * <p>Rules can declare the tokens and names of the nodes they can report,
+ * and each node is only passed to the rules that declare its token and name
+ * or that declare nothing.
+ *
+ * <p>When the compiler may use more than one thread, the rules that are
+ * {@link AbstractRule#isThreadSafe thread-safe} check the scripts in
+ * parallel. Each task gets its own instances of these rules, and the
+ * violations they find are buffered per script and reported in script order
+ * once all the tasks are done. The other rules check the whole program on the
+ * calling thread, as before.
  */
 @GwtIncompatible("com.google.protobuf")
 public final class CheckConformance implements Callback, CompilerPass {
@@ -57,6 +75,11 @@ public final class CheckConformance implements Callback, CompilerPass {
 
   private final AbstractCompiler compiler;
   private final ImmutableList<Rule> rules;
+  /** The requirement each rule was created from, in the same order as the rules. */
+  private final ImmutableList<Requirement> ruleRequirements;
+  private final RuleIndex ruleIndex;
+  /** The index of the rules that {@link #visit} checks on nodes other than the root nodes. */
+  private RuleIndex traversalIndex;
 
   public static interface Rule {
     /** Perform conformance check */
@@ -70,14 +93,259 @@ public final class CheckConformance implements Callback, CompilerPass {
       AbstractCompiler compiler,
       ImmutableList<ConformanceConfig> configs) {
     this.compiler = compiler;
-    // Initialize the map of functions to inspect for renaming candidates.
-    this.rules = initRules(compiler, configs);
+    ImmutableList.Builder<Rule> rulesBuilder = ImmutableList.builder();
+    ImmutableList.Builder<Requirement> requirementsBuilder = ImmutableList.builder();
+    initRules(compiler, configs, rulesBuilder, requirementsBuilder);
+    this.rules = rulesBuilder.build();
+    this.ruleRequirements = requirementsBuilder.build();
+    this.ruleIndex = new RuleIndex(rules);
+    this.traversalIndex = ruleIndex;
   }
 
   @Override
   public void process(Node externs, Node root) {
-    if (!rules.isEmpty()) {
+    if (rules.isEmpty()) {
+      return;
+    }
+    int numThreads = compiler.getOptions().numParallelThreads;
+    List<Requirement> threadSafeRequirements = new ArrayList<>();
+    ImmutableList.Builder<Rule> serialRules = ImmutableList.builder();
+    for (int i = 0; i < rules.size(); i++) {
+      if (numThreads > 1 && asThreadSafeRule(rules.get(i)) != null) {
+        threadSafeRequirements.add(ruleRequirements.get(i));
+      } else {
+        serialRules.add(rules.get(i));
+      }
+    }
+    if (threadSafeRequirements.isEmpty()) {
+      NodeTraversal.traverseRootsEs6(compiler, this, externs, root);
+      return;
+    }
+
+    traversalIndex = new RuleIndex(serialRules.build());
+    try {
       NodeTraversal.traverseRootsEs6(compiler, this, externs, root);
+    } finally {
+      traversalIndex = ruleIndex;
+    }
+    checkScriptsInParallel(numThreads, externs, root, threadSafeRequirements);
+  }
+
+  /**
+   * Checks the scripts of the externs and the program with new instances of
+   * the rules of the given requirements, which must all be thread-safe, and
+   * reports the violations in script order.
+   */
+  private void checkScriptsInParallel(
+      int numThreads, Node externs, Node root, List<Requirement> requirements) {
+    final List<Node> scripts = new ArrayList<>();
+    for (Node script = externs.getFirstChild(); script != null; script = script.getNext()) {
+      scripts.add(script);
+    }
+    for (Node script = root.getFirstChild(); script != null; script = script.getNext()) {
+      scripts.add(script);
+    }
+    Node globalRoot = externs.getParent();
+    final List<List<JSError>> errorsByScript =
+        new ArrayList<>(Collections.<List<JSError>>nCopies(scripts.size(), null));
+    final Scope globalScope = new Es6SyntacticScopeCreator(compiler).createScope(globalRoot, null);
+
+    // Every task checks every numTasks-th script with rules of its own. The
+    // rules are created here since their constructors may use the type
+    // registry, which is not thread-safe.
+    final int numTasks = Math.min(numThreads, scripts.size());
+    List<Runnable> tasks = new ArrayList<>(numTasks);
+    for (int i = 0; i < numTasks; i++) {
+      final int firstScript = i;
+      final ScriptChecker checker = new ScriptChecker(createThreadSafeRules(requirements));
+      tasks.add(
+          new Runnable() {
+            @Override
+            public void run() {
+              for (int j = firstScript; j < scripts.size(); j += numTasks) {
+                errorsByScript.set(j, checker.check(scripts.get(j), globalScope));
+              }
+            }
+          });
+    }
+    // The traversals only read the AST, and do not set the compiler's change
+    // scope.
+    ParallelTasks.run(numThreads, "CheckConformance", tasks);
+
+    for (List<JSError> errors : errorsByScript) {
+      for (JSError error : errors) {
+        compiler.report(error);
+      }
+    }
+  }
+
+  private ImmutableList<AbstractRule> createThreadSafeRules(List<Requirement> requirements) {
+    ImmutableList.Builder<AbstractRule> builder = ImmutableList.builder();
+    for (Requirement requirement : requirements) {
+      // The rule was created successfully before, so it is again.
+      builder.add(asThreadSafeRule(initRule(compiler, requirement)));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the rule, or the custom rule it is a proxy for, if it is
+   * thread-safe, or null otherwise.
+   */
+  @Nullable
+  private static AbstractRule asThreadSafeRule(Rule rule) {
+    AbstractRule abstractRule = asAbstractRule(rule);
+    return abstractRule != null && abstractRule.isThreadSafe() ? abstractRule : null;
+  }
+
+  /** Returns the rule, or the custom rule it is a proxy for, if it is an AbstractRule. */
+  @Nullable
+  private static AbstractRule asAbstractRule(Rule rule) {
+    if (rule instanceof CustomRuleProxy) {
+      rule = ((CustomRuleProxy) rule).customRule;
+    }
+    return rule instanceof AbstractRule ? (AbstractRule) rule : null;
+  }
+
+  /**
+   * The name of a node that {@link AbstractRule#getCandidateNames} refers
+   * to, or null if the node has none.
+   */
+  @Nullable
+  private static String getCandidateName(Node n) {
+    switch (n.getToken()) {
+      case NAME:
+        return n.getString();
+      case GETPROP:
+      case GETELEM:
+        return n.getLastChild().isString() ? n.getLastChild().getString() : null;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * The rules to check on each node, looked up by the token and the name of
+   * the node, so that most nodes are not passed to any rule. The rules for a
+   * node keep their original order.
+   */
+  private static final class RuleIndex {
+    /** The rules for nodes with a token that no rule is limited to. */
+    private final ImmutableList<Rule> anyTokenRules;
+    /** The rules for nodes with a name that no rule of the token is limited to. */
+    private final Map<Token, ImmutableList<Rule>> rulesByToken = new EnumMap<>(Token.class);
+    private final Map<Token, Map<String, ImmutableList<Rule>>> rulesByTokenAndName =
+        new EnumMap<>(Token.class);
+
+    RuleIndex(List<? extends Rule> rules) {
+      int size = rules.size();
+      List<ImmutableSet<Token>> tokens = new ArrayList<>(size);
+      List<ImmutableSet<String>> names = new ArrayList<>(size);
+      Set<Token> indexedTokens = EnumSet.noneOf(Token.class);
+      for (Rule rule : rules) {
+        AbstractRule abstractRule = asAbstractRule(rule);
+        ImmutableSet<Token> ruleTokens =
+            abstractRule != null ? abstractRule.getCandidateTokens() : null;
+        tokens.add(ruleTokens);
+        names.add(ruleTokens != null ? abstractRule.getCandidateNames() : null);
+        if (ruleTokens != null) {
+          indexedTokens.addAll(ruleTokens);
+        }
+      }
+
+      ImmutableList.Builder<Rule> anyToken = ImmutableList.builder();
+      for (int i = 0; i < size; i++) {
+        if (tokens.get(i) == null) {
+          anyToken.add(rules.get(i));
+        }
+      }
+      anyTokenRules = anyToken.build();
+
+      for (Token token : indexedTokens) {
+        ImmutableList.Builder<Rule> tokenRules = ImmutableList.builder();
+        Set<String> indexedNames = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+          if (tokens.get(i) == null) {
+            tokenRules.add(rules.get(i));
+          } else if (tokens.get(i).contains(token)) {
+            if (names.get(i) == null) {
+              tokenRules.add(rules.get(i));
+            } else {
+              indexedNames.addAll(names.get(i));
+            }
+          }
+        }
+        rulesByToken.put(token, tokenRules.build());
+
+        Map<String, ImmutableList<Rule>> rulesByName = new HashMap<>();
+        for (String name : indexedNames) {
+          ImmutableList.Builder<Rule> nameRules = ImmutableList.builder();
+          for (int i = 0; i < size; i++) {
+            if (tokens.get(i) == null
+                || (tokens.get(i).contains(token)
+                    && (names.get(i) == null || names.get(i).contains(name)))) {
+              nameRules.add(rules.get(i));
+            }
+          }
+          rulesByName.put(name, nameRules.build());
+        }
+        if (!rulesByName.isEmpty()) {
+          rulesByTokenAndName.put(token, rulesByName);
+        }
+      }
+    }
+
+    /** Returns the rules that may report the node. */
+    ImmutableList<Rule> getRules(Node n) {
+      ImmutableList<Rule> tokenRules = rulesByToken.get(n.getToken());
+      if (tokenRules == null) {
+        return anyTokenRules;
+      }
+      Map<String, ImmutableList<Rule>> rulesByName = rulesByTokenAndName.get(n.getToken());
+      if (rulesByName != null) {
+        String name = getCandidateName(n);
+        ImmutableList<Rule> nameRules = name != null ? rulesByName.get(name) : null;
+        if (nameRules != null) {
+          return nameRules;
+        }
+      }
+      return tokenRules;
+    }
+  }
+
+  /** Checks single scripts with a list of thread-safe rules, buffering the violations. */
+  private final class ScriptChecker implements Callback {
+    private final ImmutableList<AbstractRule> scriptRules;
+    private final RuleIndex scriptRuleIndex;
+
+    ScriptChecker(ImmutableList<AbstractRule> scriptRules) {
+      this.scriptRules = scriptRules;
+      this.scriptRuleIndex = new RuleIndex(scriptRules);
+    }
+
+    /** Checks the script and returns the violations found, in traversal order. */
+    List<JSError> check(Node script, Scope globalScope) {
+      List<JSError> errors = new ArrayList<>();
+      for (AbstractRule rule : scriptRules) {
+        rule.setReportBuffer(errors);
+      }
+      NodeTraversal t = new NodeTraversal(compiler, this, new Es6SyntacticScopeCreator(compiler));
+      t.doNotUpdateCompilerChangeScope();
+      t.traverseWithScope(script, globalScope);
+      return errors;
+    }
+
+    @Override
+    public boolean shouldTraverse(NodeTraversal t, Node n, Node parent) {
+      return CheckConformance.this.shouldTraverse(t, n, parent);
+    }
+
+    @Override
+    public void visit(NodeTraversal t, Node n, Node parent) {
+      ImmutableList<Rule> rulesToCheck = scriptRuleIndex.getRules(n);
+      for (int i = 0, len = rulesToCheck.size(); i < len; i++) {
+        rulesToCheck.get(i).check(t, n);
+      }
     }
   }
 
@@ -89,27 +357,31 @@ public final class CheckConformance implements Callback, CompilerPass {
 
   @Override
   public void visit(NodeTraversal t, Node n, Node parent) {
-    for (int i = 0, len = rules.size(); i < len; i++) {
-      Rule rule = rules.get(i);
+    // The root nodes are not part of any script, so all the rules check them here.
+    ImmutableList<Rule> rulesToCheck = (n.isRoot() ? ruleIndex : traversalIndex).getRules(n);
+    for (int i = 0, len = rulesToCheck.size(); i < len; i++) {
+      Rule rule = rulesToCheck.get(i);
       rule.check(t, n);
     }
   }
 
   /**
    * Build the data structures need by this pass from the provided
-   * configurations.
+   * configurations: the rules, and the requirement each was created from.
    */
-  private static ImmutableList<Rule> initRules(
-      AbstractCompiler compiler, ImmutableList<ConformanceConfig> configs) {
-    ImmutableList.Builder<Rule> builder = ImmutableList.builder();
+  private static void initRules(
+      AbstractCompiler compiler,
+      ImmutableList<ConformanceConfig> configs,
+      ImmutableList.Builder<Rule> rules,
+      ImmutableList.Builder<Requirement> ruleRequirements) {
     List<Requirement> requirements = mergeRequirements(compiler, configs);
     for (Requirement requirement : requirements) {
       Rule rule = initRule(compiler, requirement);
       if (rule != null) {
-        builder.add(rule);
+        rules.add(rule);
+        ruleRequirements.add(requirement);
       }
     }
-    return builder.build();
   }
 
   private static final ImmutableSet<String> EXTENDABLE_FIELDS =
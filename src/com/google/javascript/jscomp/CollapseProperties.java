@@ -85,6 +85,9 @@ class CollapseProperties implements CompilerPass {
 
   private AbstractCompiler compiler;
 
+  /** A namespace shared with other passes, or null to build a new one. */
+  private GlobalNamespace injectedNamespace = null;
+
   /** Global namespace tree */
   private List<Name> globalNames;
 
@@ -95,9 +98,24 @@ class CollapseProperties implements CompilerPass {
     this.compiler = compiler;
   }
 
+  /**
+   * Uses the given namespace, which may be shared with other passes, instead of
+   * building a new one. The namespace must be for the root this pass is run on.
+   */
+  CollapseProperties injectNamespace(GlobalNamespace namespace) {
+    this.injectedNamespace = namespace;
+    return this;
+  }
+
   @Override
   public void process(Node externs, Node root) {
-    GlobalNamespace namespace = new GlobalNamespace(compiler, root);
+    GlobalNamespace namespace;
+    if (injectedNamespace != null) {
+      namespace = injectedNamespace;
+      namespace.update();
+    } else {
+      namespace = new GlobalNamespace(compiler, root);
+    }
     nameMap = namespace.getNameIndex();
     globalNames = namespace.getNameForest();
     checkNamespaces();
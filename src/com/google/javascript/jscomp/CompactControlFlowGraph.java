@@ -0,0 +1,358 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.javascript.jscomp.ControlFlowGraph.Branch;
+import com.google.javascript.jscomp.graph.Annotation;
+import com.google.javascript.jscomp.graph.GraphReachability;
+import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A control flow graph over AST nodes that is stored in flat arrays instead
+ * of a graph of node and edge objects.
+ *
+ * <p>Every node of the graph is identified by a dense int id. Ids are
+ * assigned in AST pre-order, which is a good order in which to visit the
+ * nodes for a forward analysis; the implicit return always has the largest
+ * id. The edges of the graph are stored in compressed sparse row form in both
+ * directions, and node annotations are kept in an array parallel to the node
+ * ids, so the whole graph is a handful of arrays that are cheap to discard and
+ * rebuild.
+ *
+ * <p>The graph is built directly by
+ * {@link ControlFlowAnalysis#getCompactCfg(AbstractCompiler, Node)} and is
+ * immutable except for its node annotations. {@link UnreachableCodeElimination}
+ * builds one for every changed function in each optimization loop iteration.
+ */
+final class CompactControlFlowGraph {
+
+  private static final Branch[] BRANCHES = Branch.values();
+
+  /** The AST node of each id. The implicit return maps to null. */
+  private final Node[] nodes;
+  private final Map<Node, Integer> ids;
+  private final int entry;
+  private final int implicitReturn;
+
+  // The out edges of node i are outTargets[outStart[i]] to
+  // outTargets[outStart[i + 1] - 1], in the order they were created.
+  private final int[] outStart;
+  private final int[] outTargets;
+  private final byte[] outBranches;
+
+  // The in edges of node i are inSources[inStart[i]] to
+  // inSources[inStart[i + 1] - 1].
+  private final int[] inStart;
+  private final int[] inSources;
+  private final byte[] inBranches;
+
+  private final Annotation[] annotations;
+
+  private CompactControlFlowGraph(
+      Node[] nodes,
+      Map<Node, Integer> ids,
+      int entry,
+      int[] outStart,
+      int[] outTargets,
+      byte[] outBranches,
+      int[] inStart,
+      int[] inSources,
+      byte[] inBranches) {
+    this.nodes = nodes;
+    this.ids = ids;
+    this.entry = entry;
+    this.implicitReturn = nodes.length - 1;
+    this.outStart = outStart;
+    this.outTargets = outTargets;
+    this.outBranches = outBranches;
+    this.inStart = inStart;
+    this.inSources = inSources;
+    this.inBranches = inBranches;
+    this.annotations = new Annotation[nodes.length];
+  }
+
+  /** Returns the number of nodes in the graph, including the implicit return. */
+  int getNodeCount() {
+    return nodes.length;
+  }
+
+  /** Returns the number of edges in the graph. */
+  int getEdgeCount() {
+    return outTargets.length;
+  }
+
+  /** Returns the id of the entry node. */
+  int getEntry() {
+    return entry;
+  }
+
+  /** Returns the id of the implicit return node. */
+  int getImplicitReturn() {
+    return implicitReturn;
+  }
+
+  boolean isImplicitReturn(int id) {
+    return id == implicitReturn;
+  }
+
+  /** Returns the AST node with the given id, or null for the implicit return. */
+  Node getNode(int id) {
+    return nodes[id];
+  }
+
+  /**
+   * Returns the id of the given AST node, or -1 if it is not in the graph.
+   * A null node stands for the implicit return.
+   */
+  int getId(Node n) {
+    Integer id = ids.get(n);
+    return id == null ? -1 : id;
+  }
+
+  int getOutDegree(int id) {
+    return outStart[id + 1] - outStart[id];
+  }
+
+  /** Returns the destination of the {@code i}th out edge of the given node. */
+  int getSuccessor(int id, int i) {
+    return outTargets[outStart[id] + i];
+  }
+
+  /** Returns the branch type of the {@code i}th out edge of the given node. */
+  Branch getOutBranch(int id, int i) {
+    return BRANCHES[outBranches[outStart[id] + i]];
+  }
+
+  int getInDegree(int id) {
+    return inStart[id + 1] - inStart[id];
+  }
+
+  /** Returns the source of the {@code i}th in edge of the given node. */
+  int getPredecessor(int id, int i) {
+    return inSources[inStart[id] + i];
+  }
+
+  /** Returns the branch type of the {@code i}th in edge of the given node. */
+  Branch getInBranch(int id, int i) {
+    return BRANCHES[inBranches[inStart[id] + i]];
+  }
+
+  @SuppressWarnings("unchecked")
+  <A extends Annotation> A getAnnotation(int id) {
+    return (A) annotations[id];
+  }
+
+  void setAnnotation(int id, Annotation annotation) {
+    annotations[id] = annotation;
+  }
+
+  void clearAnnotations() {
+    Arrays.fill(annotations, null);
+  }
+
+  /**
+   * Annotates the nodes that are reachable from the entry with
+   * {@link GraphReachability#REACHABLE} and clears the annotations of the
+   * others.
+   */
+  void computeReachability() {
+    clearAnnotations();
+    int[] stack = new int[nodes.length];
+    int stackSize = 0;
+    annotations[entry] = GraphReachability.REACHABLE;
+    stack[stackSize++] = entry;
+    while (stackSize > 0) {
+      int id = stack[--stackSize];
+      for (int e = outStart[id]; e < outStart[id + 1]; e++) {
+        int target = outTargets[e];
+        if (annotations[target] != GraphReachability.REACHABLE) {
+          annotations[target] = GraphReachability.REACHABLE;
+          stack[stackSize++] = target;
+        }
+      }
+    }
+  }
+
+  /**
+   * Collects the nodes and edges of a graph as they are discovered and lays
+   * them out in arrays once all of them are known.
+   */
+  static final class Builder {
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<Node, Integer> ids = new HashMap<>();
+    private final int entry;
+
+    private int[] edgeSources = new int[16];
+    private int[] edgeTargets = new int[16];
+    private byte[] edgeBranches = new byte[16];
+    private int edgeCount;
+
+    Builder(Node entry) {
+      getOrCreateId(null);
+      this.entry = getOrCreateId(entry);
+    }
+
+    private int getOrCreateId(Node n) {
+      Integer id = ids.get(n);
+      if (id == null) {
+        id = nodes.size();
+        nodes.add(n);
+        ids.put(n, id);
+      }
+      return id;
+    }
+
+    /**
+     * Adds an edge between the two nodes, creating them if needed. A null
+     * node stands for the implicit return. Duplicate edges are dropped when
+     * the graph is built.
+     */
+    void addEdge(Node from, Branch branch, Node to) {
+      int source = getOrCreateId(from);
+      int target = getOrCreateId(to);
+      if (edgeCount == edgeSources.length) {
+        int newLength = edgeCount * 2;
+        edgeSources = Arrays.copyOf(edgeSources, newLength);
+        edgeTargets = Arrays.copyOf(edgeTargets, newLength);
+        edgeBranches = Arrays.copyOf(edgeBranches, newLength);
+      }
+      edgeSources[edgeCount] = source;
+      edgeTargets[edgeCount] = target;
+      edgeBranches[edgeCount] = (byte) branch.ordinal();
+      edgeCount++;
+    }
+
+    /**
+     * Builds the graph, numbering its nodes by their position in the given
+     * map. The implicit return (the null key) is numbered last regardless of
+     * its position.
+     */
+    CompactControlFlowGraph build(final Map<Node, Integer> astPosition) {
+      int nodeCount = nodes.size();
+      List<Integer> order = new ArrayList<>(nodeCount - 1);
+      for (int i = 1; i < nodeCount; i++) {
+        order.add(i);
+      }
+      Collections.sort(
+          order,
+          new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+              return Integer.compare(position(a), position(b));
+            }
+
+            private int position(int builderId) {
+              Integer position = astPosition.get(nodes.get(builderId));
+              return position == null ? Integer.MAX_VALUE : position;
+            }
+          });
+      order.add(0);
+
+      int[] newIds = new int[nodeCount];
+      Node[] sortedNodes = new Node[nodeCount];
+      Map<Node, Integer> sortedIds = new HashMap<>();
+      for (int i = 0; i < nodeCount; i++) {
+        int builderId = order.get(i);
+        newIds[builderId] = i;
+        sortedNodes[i] = nodes.get(builderId);
+        sortedIds.put(sortedNodes[i], i);
+      }
+      checkState(sortedNodes[nodeCount - 1] == null);
+
+      // Lay out the out edges, keeping the creation order of the edges of
+      // each node and dropping duplicates.
+      int[] outStart = new int[nodeCount + 1];
+      for (int e = 0; e < edgeCount; e++) {
+        outStart[newIds[edgeSources[e]] + 1]++;
+      }
+      for (int i = 0; i < nodeCount; i++) {
+        outStart[i + 1] += outStart[i];
+      }
+      int[] outTargets = new int[edgeCount];
+      byte[] outBranches = new byte[edgeCount];
+      int[] outEnd = Arrays.copyOf(outStart, nodeCount);
+      for (int e = 0; e < edgeCount; e++) {
+        int source = newIds[edgeSources[e]];
+        int target = newIds[edgeTargets[e]];
+        byte branch = edgeBranches[e];
+        if (!containsEdge(outTargets, outBranches, outStart[source], outEnd[source],
+            target, branch)) {
+          outTargets[outEnd[source]] = target;
+          outBranches[outEnd[source]] = branch;
+          outEnd[source]++;
+        }
+      }
+      int uniqueEdgeCount = 0;
+      for (int i = 0; i < nodeCount; i++) {
+        int start = outStart[i];
+        int end = outEnd[i];
+        outStart[i] = uniqueEdgeCount;
+        for (int e = start; e < end; e++) {
+          outTargets[uniqueEdgeCount] = outTargets[e];
+          outBranches[uniqueEdgeCount] = outBranches[e];
+          uniqueEdgeCount++;
+        }
+      }
+      outStart[nodeCount] = uniqueEdgeCount;
+      outTargets = Arrays.copyOf(outTargets, uniqueEdgeCount);
+      outBranches = Arrays.copyOf(outBranches, uniqueEdgeCount);
+
+      // Derive the in edges from the out edges.
+      int[] inStart = new int[nodeCount + 1];
+      for (int e = 0; e < uniqueEdgeCount; e++) {
+        inStart[outTargets[e] + 1]++;
+      }
+      for (int i = 0; i < nodeCount; i++) {
+        inStart[i + 1] += inStart[i];
+      }
+      int[] inSources = new int[uniqueEdgeCount];
+      byte[] inBranches = new byte[uniqueEdgeCount];
+      int[] inEnd = Arrays.copyOf(inStart, nodeCount);
+      for (int source = 0; source < nodeCount; source++) {
+        for (int e = outStart[source]; e < outStart[source + 1]; e++) {
+          int target = outTargets[e];
+          inSources[inEnd[target]] = source;
+          inBranches[inEnd[target]] = outBranches[e];
+          inEnd[target]++;
+        }
+      }
+
+      return new CompactControlFlowGraph(
+          sortedNodes, sortedIds, newIds[entry],
+          outStart, outTargets, outBranches, inStart, inSources, inBranches);
+    }
+
+    private static boolean containsEdge(
+        int[] targets, byte[] branches, int start, int end, int target, byte branch) {
+      for (int e = start; e < end; e++) {
+        if (targets[e] == target && branches[e] == branch) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
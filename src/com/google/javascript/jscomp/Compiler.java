@@ -553,6 +553,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
       sourceMap.setPrefixMappings(options.sourceMapLocationMappings);
       if (options.applyInputSourceMaps) {
         sourceMap.setSourceFileMapping(this);
+        sourceMap.setNumParallelThreads(options.numParallelThreads);
       }
     }
   }
@@ -2601,6 +2602,14 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     return phaseOptimizer.hasScopeChanged(n);
   }
 
+  @Override
+  ControlFlowGraph<Node> getControlFlowGraph(Node cfgRoot) {
+    if (phaseOptimizer == null) {
+      return ControlFlowAnalysis.getCfg(this, cfgRoot);
+    }
+    return phaseOptimizer.getControlFlowGraph(cfgRoot);
+  }
+
   /**
    * @deprecated
    * Use #reportChangeToEnclosingScope or NodeTraversal#reportCodeChange instead
@@ -2614,6 +2623,9 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     if (currentChangeScope != null) {
       checkState(currentChangeScope.isScript() || currentChangeScope.isFunction());
       recordChange(currentChangeScope);
+    } else if (phaseOptimizer != null) {
+      // We don't know what changed, so no cached control flow graph can be trusted.
+      phaseOptimizer.invalidateControlFlowGraphs();
     }
     notifyChangeHandlers();
   }
@@ -2962,6 +2974,9 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
   /** String replacement map */
   private VariableMap stringMap = null;
 
+  /** Side effect summaries of the function bodies */
+  private FunctionSideEffectSummary functionSideEffectSummary = null;
+
   /** Id generator map */
   private String idGeneratorMap = null;
 
@@ -2986,6 +3001,20 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     return this.propertyMap;
   }
 
+  @Override
+  void setFunctionSideEffectSummary(FunctionSideEffectSummary summary) {
+    this.functionSideEffectSummary = summary;
+  }
+
+  /**
+   * Returns the side effect summaries of the function bodies of this compilation, if
+   * {@link CompilerOptions#setCollectFunctionSideEffectSummary} is enabled and function side
+   * effects were computed; null otherwise.
+   */
+  public FunctionSideEffectSummary getFunctionSideEffectSummary() {
+    return functionSideEffectSummary;
+  }
+
   @Override
   public void setStringMap(VariableMap stringMap) {
     this.stringMap = stringMap;
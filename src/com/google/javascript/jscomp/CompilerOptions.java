@@ -621,6 +621,12 @@ public class CompilerOptions implements Serializable {
    */
   boolean preferStableNames;
 
+  /**
+   * Name the local variables of each top-level function separately, after
+   * the global variables, so that they can be named in parallel.
+   */
+  boolean renameLocalsPerScope;
+
   /**
    * Generate pseudo names for variables and properties for debugging purposes.
    */
@@ -672,6 +678,19 @@ public class CompilerOptions implements Serializable {
    */
   String debugFunctionSideEffectsPath;
 
+  /**
+   * Side effect summaries of function bodies from an earlier compilation. The
+   * bodies of functions whose ASTs have not changed since are not analyzed
+   * again. The summaries are only valid for compilations with the same options.
+   */
+  FunctionSideEffectSummary inputFunctionSideEffectSummary;
+
+  /**
+   * Whether to summarize the side effects of function bodies, for use as the
+   * {@link #inputFunctionSideEffectSummary} of a later compilation.
+   */
+  boolean collectFunctionSideEffectSummary;
+
   /**
    * Rename private properties to disambiguate between unrelated fields based on
    * the coding convention.
@@ -1277,6 +1296,7 @@ public class CompilerOptions implements Serializable {
     generatePseudoNames = false;
     shadowVariables = false;
     preferStableNames = false;
+    renameLocalsPerScope = false;
     renamePrefix = null;
     collapseProperties = false;
     collapseObjectLiterals = false;
@@ -2372,6 +2392,10 @@ public class CompilerOptions implements Serializable {
     this.preferStableNames = preferStableNames;
   }
 
+  public void setRenameLocalsPerScope(boolean renameLocalsPerScope) {
+    this.renameLocalsPerScope = renameLocalsPerScope;
+  }
+
   public void setGeneratePseudoNames(boolean generatePseudoNames) {
     this.generatePseudoNames = generatePseudoNames;
   }
@@ -2404,6 +2428,14 @@ public class CompilerOptions implements Serializable {
     this.debugFunctionSideEffectsPath = debugFunctionSideEffectsPath;
   }
 
+  public void setInputFunctionSideEffectSummary(FunctionSideEffectSummary summary) {
+    this.inputFunctionSideEffectSummary = summary;
+  }
+
+  public void setCollectFunctionSideEffectSummary(boolean collect) {
+    this.collectFunctionSideEffectSummary = collect;
+  }
+
   /**
    * @return Whether disambiguate private properties is enabled.
    */
@@ -2866,6 +2898,7 @@ public class CompilerOptions implements Serializable {
             .add("collapseObjectLiterals", collapseObjectLiterals)
             .add("collapseProperties", collapseProperties)
             .add("collapseVariableDeclarations", collapseVariableDeclarations)
+            .add("collectFunctionSideEffectSummary", collectFunctionSideEffectSummary)
             .add("colorizeErrorOutput", shouldColorizeErrorOutput())
             .add("computeFunctionSideEffects", computeFunctionSideEffects)
             .add("conformanceConfigs", getConformanceConfigs())
@@ -2919,6 +2952,7 @@ public class CompilerOptions implements Serializable {
             .add("inlineVariables", inlineVariables)
             .add("inputAnonymousFunctionNamingMap", inputAnonymousFunctionNamingMap)
             .add("inputDelimiter", inputDelimiter)
+            .add("inputFunctionSideEffectSummary", inputFunctionSideEffectSummary)
             .add("inputPropertyMap", inputPropertyMap)
             .add("inputSourceMaps", inputSourceMaps)
             .add("inputVariableMap", inputVariableMap)
@@ -2985,6 +3019,7 @@ public class CompilerOptions implements Serializable {
                 removeUnusedPrototypePropertiesInExterns)
             .add("removeUnusedPrototypeProperties", removeUnusedPrototypeProperties)
             .add("removeUnusedVars", removeUnusedVars)
+            .add("renameLocalsPerScope", renameLocalsPerScope)
             .add(
                 "renamePrefixNamespaceAssumeCrossModuleNames",
                 renamePrefixNamespaceAssumeCrossModuleNames)
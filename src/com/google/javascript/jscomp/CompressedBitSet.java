@@ -0,0 +1,476 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+
+/**
+ * A set of non-negative ints that is stored compactly whether it is sparse or
+ * dense.
+ *
+ * <p>The ints are split into chunks of 2^16 values by their high 16 bits. A
+ * chunk with few members stores them as a sorted array of their low 16 bits;
+ * a chunk with many members stores them as a bitmap. Chunks without members
+ * are not stored at all. So a set costs memory in proportion to its size
+ * rather than to its largest member, unlike {@link java.util.BitSet}, while
+ * unions and intersection tests still work a chunk at a time.
+ */
+class CompressedBitSet {
+
+  /** The largest number of members of a chunk that is stored as an array. */
+  private static final int MAX_ARRAY_SIZE = 4096;
+
+  private static final int BITMAP_WORDS = (1 << 16) / 64;
+
+  /** The high 16 bits of the members of each chunk, in increasing order. */
+  private char[] keys = new char[0];
+
+  /**
+   * The members of each chunk, parallel to {@code keys}. Each chunk is either
+   * an {@link ArrayChunk} or a {@link BitmapChunk}.
+   */
+  private Chunk[] chunks = new Chunk[0];
+
+  private int chunkCount;
+
+  /** Returns whether the given int is a member of the set. */
+  boolean get(int i) {
+    checkArgument(i >= 0, "Negative index: %s", i);
+    int index = indexOfKey(highBits(i));
+    return index >= 0 && chunks[index].contains(lowBits(i));
+  }
+
+  /** Adds the given int to the set. */
+  void set(int i) {
+    checkArgument(i >= 0, "Negative index: %s", i);
+    char key = highBits(i);
+    int index = indexOfKey(key);
+    if (index >= 0) {
+      chunks[index] = chunks[index].add(lowBits(i));
+    } else {
+      ArrayChunk chunk = new ArrayChunk(new char[] {lowBits(i)}, 1);
+      insertChunk(-index - 1, key, chunk);
+    }
+  }
+
+  /** Adds all members of the other set to this set. */
+  void or(CompressedBitSet other) {
+    if (other == this) {
+      return;
+    }
+    char[] newKeys = new char[chunkCount + other.chunkCount];
+    Chunk[] newChunks = new Chunk[newKeys.length];
+    int count = 0;
+    int i = 0;
+    int j = 0;
+    while (i < chunkCount || j < other.chunkCount) {
+      if (j == other.chunkCount || (i < chunkCount && keys[i] < other.keys[j])) {
+        newKeys[count] = keys[i];
+        newChunks[count++] = chunks[i++];
+      } else if (i == chunkCount || other.keys[j] < keys[i]) {
+        newKeys[count] = other.keys[j];
+        newChunks[count++] = other.chunks[j++].copy();
+      } else {
+        newKeys[count] = keys[i];
+        newChunks[count++] = chunks[i++].or(other.chunks[j++]);
+      }
+    }
+    keys = newKeys;
+    chunks = newChunks;
+    chunkCount = count;
+  }
+
+  /** Returns whether this set and the other set have a member in common. */
+  boolean intersects(CompressedBitSet other) {
+    int i = 0;
+    int j = 0;
+    while (i < chunkCount && j < other.chunkCount) {
+      if (keys[i] < other.keys[j]) {
+        i++;
+      } else if (other.keys[j] < keys[i]) {
+        j++;
+      } else if (chunks[i++].intersects(other.chunks[j++])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns the number of members of the set. */
+  int cardinality() {
+    int cardinality = 0;
+    for (int i = 0; i < chunkCount; i++) {
+      cardinality += chunks[i].cardinality();
+    }
+    return cardinality;
+  }
+
+  boolean isEmpty() {
+    return chunkCount == 0;
+  }
+
+  /**
+   * Returns the smallest member of the set that is greater than or equal to
+   * {@code from}, or -1 if there is none.
+   */
+  int nextSetBit(int from) {
+    checkArgument(from >= 0, "Negative index: %s", from);
+    char fromKey = highBits(from);
+    int index = indexOfKey(fromKey);
+    if (index >= 0) {
+      int next = chunks[index].nextMember(lowBits(from));
+      if (next >= 0) {
+        return (fromKey << 16) | next;
+      }
+      index++;
+    } else {
+      index = -index - 1;
+    }
+    if (index < chunkCount) {
+      return (keys[index] << 16) | chunks[index].nextMember(0);
+    }
+    return -1;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof CompressedBitSet)) {
+      return false;
+    }
+    CompressedBitSet other = (CompressedBitSet) o;
+    if (chunkCount != other.chunkCount) {
+      return false;
+    }
+    for (int i = 0; i < chunkCount; i++) {
+      if (keys[i] != other.keys[i] || !chunks[i].sameMembers(other.chunks[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 0;
+    for (int i = 0; i < chunkCount; i++) {
+      hash = 31 * (31 * hash + keys[i]) + chunks[i].membersHashCode();
+    }
+    return hash;
+  }
+
+  private int indexOfKey(char key) {
+    return Arrays.binarySearch(keys, 0, chunkCount, key);
+  }
+
+  private void insertChunk(int index, char key, Chunk chunk) {
+    if (chunkCount == keys.length) {
+      int newLength = Math.max(4, chunkCount * 2);
+      keys = Arrays.copyOf(keys, newLength);
+      chunks = Arrays.copyOf(chunks, newLength);
+    }
+    System.arraycopy(keys, index, keys, index + 1, chunkCount - index);
+    System.arraycopy(chunks, index, chunks, index + 1, chunkCount - index);
+    keys[index] = key;
+    chunks[index] = chunk;
+    chunkCount++;
+  }
+
+  private static char highBits(int i) {
+    return (char) (i >>> 16);
+  }
+
+  private static char lowBits(int i) {
+    return (char) i;
+  }
+
+  /**
+   * The members of one chunk of a set, as their low 16 bits. Operations that
+   * add members return the chunk that holds the result, which is either this
+   * chunk modified in place or a new chunk.
+   *
+   * <p>Since members are never removed, a chunk is an array exactly when it
+   * has at most {@link #MAX_ARRAY_SIZE} members, so two chunks with the same
+   * members also have the same representation.
+   */
+  private abstract static class Chunk {
+    abstract boolean contains(char value);
+
+    abstract Chunk add(char value);
+
+    abstract Chunk or(Chunk other);
+
+    abstract boolean intersects(Chunk other);
+
+    abstract int cardinality();
+
+    /** Returns the smallest member at least {@code from}, or -1 if there is none. */
+    abstract int nextMember(int from);
+
+    abstract Chunk copy();
+
+    abstract boolean sameMembers(Chunk other);
+
+    abstract int membersHashCode();
+  }
+
+  /** A chunk with few members, stored as a sorted array. */
+  private static final class ArrayChunk extends Chunk {
+    char[] values;
+    int size;
+
+    ArrayChunk(char[] values, int size) {
+      this.values = values;
+      this.size = size;
+    }
+
+    @Override
+    boolean contains(char value) {
+      return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    @Override
+    Chunk add(char value) {
+      int index = Arrays.binarySearch(values, 0, size, value);
+      if (index >= 0) {
+        return this;
+      }
+      if (size == MAX_ARRAY_SIZE) {
+        return toBitmap().add(value);
+      }
+      index = -index - 1;
+      if (size == values.length) {
+        values = Arrays.copyOf(values, Math.min(MAX_ARRAY_SIZE, size * 2));
+      }
+      System.arraycopy(values, index, values, index + 1, size - index);
+      values[index] = value;
+      size++;
+      return this;
+    }
+
+    @Override
+    Chunk or(Chunk other) {
+      if (other instanceof BitmapChunk) {
+        BitmapChunk result = (BitmapChunk) other.copy();
+        for (int i = 0; i < size; i++) {
+          result.add(values[i]);
+        }
+        return result;
+      }
+      ArrayChunk array = (ArrayChunk) other;
+      char[] merged = new char[size + array.size];
+      int count = 0;
+      int i = 0;
+      int j = 0;
+      while (i < size && j < array.size) {
+        char a = values[i];
+        char b = array.values[j];
+        if (a < b) {
+          merged[count++] = a;
+          i++;
+        } else if (b < a) {
+          merged[count++] = b;
+          j++;
+        } else {
+          merged[count++] = a;
+          i++;
+          j++;
+        }
+      }
+      while (i < size) {
+        merged[count++] = values[i++];
+      }
+      while (j < array.size) {
+        merged[count++] = array.values[j++];
+      }
+      ArrayChunk result = new ArrayChunk(merged, count);
+      return count > MAX_ARRAY_SIZE ? result.toBitmap() : result;
+    }
+
+    @Override
+    boolean intersects(Chunk other) {
+      if (other instanceof BitmapChunk) {
+        return other.intersects(this);
+      }
+      ArrayChunk array = (ArrayChunk) other;
+      int i = 0;
+      int j = 0;
+      while (i < size && j < array.size) {
+        char a = values[i];
+        char b = array.values[j];
+        if (a < b) {
+          i++;
+        } else if (b < a) {
+          j++;
+        } else {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    int cardinality() {
+      return size;
+    }
+
+    @Override
+    int nextMember(int from) {
+      int index = Arrays.binarySearch(values, 0, size, (char) from);
+      if (index < 0) {
+        index = -index - 1;
+      }
+      return index < size ? values[index] : -1;
+    }
+
+    @Override
+    Chunk copy() {
+      return new ArrayChunk(Arrays.copyOf(values, size), size);
+    }
+
+    @Override
+    boolean sameMembers(Chunk other) {
+      if (!(other instanceof ArrayChunk) || ((ArrayChunk) other).size != size) {
+        return false;
+      }
+      char[] otherValues = ((ArrayChunk) other).values;
+      for (int i = 0; i < size; i++) {
+        if (values[i] != otherValues[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    int membersHashCode() {
+      int hash = 1;
+      for (int i = 0; i < size; i++) {
+        hash = 31 * hash + values[i];
+      }
+      return hash;
+    }
+
+    BitmapChunk toBitmap() {
+      BitmapChunk bitmap = new BitmapChunk(new long[BITMAP_WORDS], 0);
+      for (int i = 0; i < size; i++) {
+        bitmap.add(values[i]);
+      }
+      return bitmap;
+    }
+  }
+
+  /** A chunk with many members, stored as a bitmap. */
+  private static final class BitmapChunk extends Chunk {
+    final long[] words;
+    int cardinality;
+
+    BitmapChunk(long[] words, int cardinality) {
+      this.words = words;
+      this.cardinality = cardinality;
+    }
+
+    @Override
+    boolean contains(char value) {
+      return (words[value >>> 6] & (1L << value)) != 0;
+    }
+
+    @Override
+    Chunk add(char value) {
+      long word = words[value >>> 6];
+      long newWord = word | (1L << value);
+      if (newWord != word) {
+        words[value >>> 6] = newWord;
+        cardinality++;
+      }
+      return this;
+    }
+
+    @Override
+    Chunk or(Chunk other) {
+      if (other instanceof ArrayChunk) {
+        ArrayChunk array = (ArrayChunk) other;
+        for (int i = 0; i < array.size; i++) {
+          add(array.values[i]);
+        }
+        return this;
+      }
+      long[] otherWords = ((BitmapChunk) other).words;
+      int newCardinality = 0;
+      for (int i = 0; i < BITMAP_WORDS; i++) {
+        words[i] |= otherWords[i];
+        newCardinality += Long.bitCount(words[i]);
+      }
+      cardinality = newCardinality;
+      return this;
+    }
+
+    @Override
+    boolean intersects(Chunk other) {
+      if (other instanceof ArrayChunk) {
+        ArrayChunk array = (ArrayChunk) other;
+        for (int i = 0; i < array.size; i++) {
+          if (contains(array.values[i])) {
+            return true;
+          }
+        }
+        return false;
+      }
+      long[] otherWords = ((BitmapChunk) other).words;
+      for (int i = 0; i < BITMAP_WORDS; i++) {
+        if ((words[i] & otherWords[i]) != 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    int nextMember(int from) {
+      int wordIndex = from >>> 6;
+      long word = words[wordIndex] & (-1L << from);
+      while (word == 0) {
+        if (++wordIndex == BITMAP_WORDS) {
+          return -1;
+        }
+        word = words[wordIndex];
+      }
+      return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    @Override
+    Chunk copy() {
+      return new BitmapChunk(words.clone(), cardinality);
+    }
+
+    @Override
+    boolean sameMembers(Chunk other) {
+      return other instanceof BitmapChunk && Arrays.equals(words, ((BitmapChunk) other).words);
+    }
+
+    @Override
+    int membersHashCode() {
+      return Arrays.hashCode(words);
+    }
+  }
+}
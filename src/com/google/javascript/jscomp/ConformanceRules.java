@@ -124,6 +124,14 @@ public final class ConformanceRules {
     @Nullable final Pattern whitelistRegexp;
     @Nullable final Pattern onlyApplyToRegexp;
     final boolean reportLooseTypeViolations;
+    /** Where violations go instead of the compiler while checking scripts in parallel. */
+    @Nullable private List<JSError> reportBuffer;
+    /**
+     * The last source file the whitelist configuration was evaluated for and
+     * the result, since the nodes of a file are checked one after another.
+     */
+    @Nullable private String lastSourceFile;
+    private boolean lastSourceFileChecked;
 
     public AbstractRule(AbstractCompiler compiler, Requirement requirement)
         throws InvalidRequirementSpec {
@@ -167,6 +175,50 @@ public final class ConformanceRules {
       return pattern;
     }
 
+    /**
+     * Whether separate instances of this rule can check different scripts
+     * at the same time. This requires the rule to only read the AST while
+     * checking, to keep no state from one node to the next that a check of
+     * another script could depend on, and to report violations only through
+     * {@link #report}. Rules that query types are not thread-safe, since type
+     * queries can resolve and cache type information in shared types. Rules
+     * are not thread-safe by default.
+     */
+    protected boolean isThreadSafe() {
+      return false;
+    }
+
+    /**
+     * The tokens of the only nodes that can violate this rule, or null if
+     * nodes with any token can. {@link CheckConformance} does not check the
+     * rule on other nodes.
+     */
+    @Nullable
+    protected ImmutableSet<Token> getCandidateTokens() {
+      return null;
+    }
+
+    /**
+     * The only names that the nodes that can violate this rule have, or null
+     * if the nodes can have any name. The name of a NAME node is its string
+     * and that of a GETPROP or GETELEM node is its string property; other
+     * nodes have no name. Only used together with
+     * {@link #getCandidateTokens}, and {@link CheckConformance} does not
+     * check the rule on nodes without one of these names.
+     */
+    @Nullable
+    protected ImmutableSet<String> getCandidateNames() {
+      return null;
+    }
+
+    /**
+     * Makes the rule add the violations it finds to the given list instead
+     * of reporting them to the compiler, or report them again if null.
+     */
+    final void setReportBuffer(@Nullable List<JSError> reportBuffer) {
+      this.reportBuffer = reportBuffer;
+    }
+
     /**
      * @return Whether the code represented by the Node conforms to the
      * rule.
@@ -182,7 +234,15 @@ public final class ConformanceRules {
       String srcfile = NodeUtil.getSourceName(n);
       if (srcfile == null) {
         return true;
-      } else if (!onlyApplyTo.isEmpty() || onlyApplyToRegexp != null) {
+      } else if (!srcfile.equals(lastSourceFile)) {
+        lastSourceFile = srcfile;
+        lastSourceFileChecked = shouldCheckFile(srcfile);
+      }
+      return lastSourceFileChecked;
+    }
+
+    private boolean shouldCheckFile(String srcfile) {
+      if (!onlyApplyTo.isEmpty() || onlyApplyToRegexp != null) {
         return pathIsInListOrRegexp(srcfile, onlyApplyTo, onlyApplyToRegexp)
             && !pathIsInListOrRegexp(srcfile, whitelist, whitelistRegexp);
       } else {
@@ -203,6 +263,11 @@ public final class ConformanceRules {
 
     @Override
     public final void check(NodeTraversal t, Node n) {
+      // A thread-safe rule has no state that checking a node could change,
+      // so whitelisted files can be skipped without checking their nodes.
+      if (isThreadSafe() && !shouldCheckConformance(n)) {
+        return;
+      }
       ConformanceResult result = checkConformance(t, n);
       if (result.level != ConformanceLevel.CONFORMANCE
           && shouldCheckConformance(n)) {
@@ -223,7 +288,11 @@ public final class ConformanceRules {
       String separator = (result.note.isEmpty())
           ? ""
           : "\n";
-      t.report(n, msg, message, separator, result.note);
+      if (reportBuffer != null) {
+        reportBuffer.add(JSError.make(n, msg, message, separator, result.note));
+      } else {
+        t.report(n, msg, message, separator, result.note);
+      }
     }
   }
 
@@ -379,6 +448,16 @@ public final class ConformanceRules {
       }
     }
 
+    @Override
+    protected boolean isThreadSafe() {
+      return true;
+    }
+
+    @Override
+    protected ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.SCRIPT);
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (n.isScript()) {
@@ -415,6 +494,21 @@ public final class ConformanceRules {
       names = builder.build();
     }
 
+    @Override
+    protected boolean isThreadSafe() {
+      return true;
+    }
+
+    @Override
+    protected ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.NAME, Token.GETPROP);
+    }
+
+    @Override
+    protected ImmutableSet<String> getCandidateNames() {
+      return ConformanceUtil.getNamesOfQualifiedNames(names);
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (isCandidateNode(n)) {
@@ -500,6 +594,20 @@ public final class ConformanceRules {
       props = builder.build();
     }
 
+    @Override
+    protected ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.GETPROP, Token.GETELEM);
+    }
+
+    @Override
+    protected ImmutableSet<String> getCandidateNames() {
+      ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+      for (Property prop : props) {
+        builder.add(prop.property);
+      }
+      return builder.build();
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (NodeUtil.isGet(n) && n.getLastChild().isString()) {
@@ -631,6 +739,22 @@ public final class ConformanceRules {
 
   private static class ConformanceUtil {
 
+    /**
+     * Returns the names, as in {@link AbstractRule#getCandidateNames}, of the
+     * NAME and GETPROP nodes that match the given qualified names.
+     */
+    static ImmutableSet<String> getNamesOfQualifiedNames(List<Node> qualifiedNames) {
+      ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+      for (Node name : qualifiedNames) {
+        if (name.isName()) {
+          builder.add(name.getString());
+        } else if (name.isGetProp()) {
+          builder.add(name.getLastChild().getString());
+        }
+      }
+      return builder.build();
+    }
+
     static boolean isCallTarget(Node n) {
       Node parent = n.getParent();
       return (parent.isCall() || parent.isNew())
@@ -751,6 +875,29 @@ public final class ConformanceRules {
       restrictions = builder.build();
     }
 
+    @Override
+    protected ImmutableSet<Token> getCandidateTokens() {
+      for (Restriction r : restrictions) {
+        if (!r.name.isName() && !r.name.isGetProp()) {
+          return null;
+        }
+      }
+      return ImmutableSet.of(Token.NAME, Token.GETPROP);
+    }
+
+    @Override
+    protected ImmutableSet<String> getCandidateNames() {
+      ImmutableList.Builder<Node> names = ImmutableList.builder();
+      for (Restriction r : restrictions) {
+        names.add(r.name);
+      }
+      // Calls through Function.prototype.call are checked too.
+      return ImmutableSet.<String>builder()
+          .addAll(ConformanceUtil.getNamesOfQualifiedNames(names.build()))
+          .add("call")
+          .build();
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (ConformanceUtil.isCallTarget(n) && n.isQualifiedName()) {
@@ -839,6 +986,21 @@ public final class ConformanceRules {
       restrictions = builder.build();
     }
 
+    @Override
+    protected ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.GETPROP, Token.GETELEM);
+    }
+
+    @Override
+    protected ImmutableSet<String> getCandidateNames() {
+      ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+      for (Restriction r : restrictions) {
+        builder.add(r.property);
+      }
+      // Calls through Function.prototype.call are checked too.
+      return builder.add("call").build();
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (NodeUtil.isGet(n)
@@ -1085,6 +1247,11 @@ public final class ConformanceRules {
       super(compiler, requirement);
     }
 
+    @Override
+    protected boolean isThreadSafe() {
+      return true;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       JSDocInfo info = n.getJSDocInfo();
@@ -1108,6 +1275,16 @@ public final class ConformanceRules {
       }
     }
 
+    @Override
+    protected boolean isThreadSafe() {
+      return true;
+    }
+
+    @Override
+    protected ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.SCRIPT);
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (n.isScript()) {
@@ -1131,6 +1308,11 @@ public final class ConformanceRules {
       errorObjType = compiler.getTypeIRegistry().getType("Error");
     }
 
+    @Override
+    protected ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.THROW);
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (errorObjType != null && n.isThrow()) {
@@ -1159,6 +1341,11 @@ public final class ConformanceRules {
       super(compiler, requirement);
     }
 
+    @Override
+    protected ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.GETPROP, Token.GETELEM, Token.NEW, Token.CALL, Token.IN);
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       boolean violation;
@@ -1207,6 +1394,11 @@ public final class ConformanceRules {
       super(compiler, requirement);
     }
 
+    @Override
+    protected ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.THIS);
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (n.isThis()) {
@@ -1239,6 +1431,11 @@ public final class ConformanceRules {
       super(compiler, requirement);
     }
 
+    @Override
+    protected ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.GETPROP);
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (n.isGetProp()
@@ -1272,6 +1469,11 @@ public final class ConformanceRules {
       super(compiler, requirement);
     }
 
+    @Override
+    protected ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.GETPROP);
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (n.isGetProp()
@@ -1351,6 +1553,11 @@ public final class ConformanceRules {
       super(compiler, requirement);
     }
 
+    @Override
+    protected ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.GETPROP);
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (n.isGetProp()) {
@@ -1389,6 +1596,16 @@ public final class ConformanceRules {
       super(compiler, requirement);
     }
 
+    @Override
+    protected boolean isThreadSafe() {
+      return true;
+    }
+
+    @Override
+    protected ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.VAR, Token.LET, Token.CONST, Token.FUNCTION, Token.CLASS);
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (t.inGlobalScope()
@@ -1427,6 +1644,16 @@ public final class ConformanceRules {
       super(compiler, requirement);
     }
 
+    @Override
+    protected boolean isThreadSafe() {
+      return true;
+    }
+
+    @Override
+    protected ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.SCRIPT);
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (!n.isScript()) {
@@ -1477,6 +1704,11 @@ public final class ConformanceRules {
           compiler.getTypeIRegistry().getNativeType(JSTypeNative.VOID_TYPE)));
     }
 
+    @Override
+    protected ImmutableSet<Token> getCandidateTokens() {
+      return ImmutableSet.of(Token.CALL);
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (!isCreateDomCall(n)) {
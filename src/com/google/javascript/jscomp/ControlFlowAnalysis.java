@@ -61,6 +61,12 @@ public final class ControlFlowAnalysis implements Callback, CompilerPass {
 
   private ControlFlowGraph<Node> cfg;
 
+  // When non-null, edges are recorded here instead of in cfg.
+  private CompactControlFlowGraph.Builder compactCfgBuilder;
+
+  // The AST node of the entry of the graph being computed.
+  private Node entry;
+
   private Map<Node, Integer> astPosition;
 
   // TODO(nicksantos): should these be node annotations?
@@ -148,6 +154,38 @@ public final class ControlFlowAnalysis implements Callback, CompilerPass {
     return cfa.getCfg();
   }
 
+  /**
+   * Computes the control flow graph of the given root directly in the compact
+   * array-backed representation, without creating a {@link ControlFlowGraph}.
+   */
+  static CompactControlFlowGraph getCompactCfg(AbstractCompiler compiler, Node cfgRoot) {
+    checkArgument(NodeUtil.isValidCfgRoot(cfgRoot));
+    ControlFlowAnalysis cfa = new ControlFlowAnalysis(compiler, false, false);
+    return cfa.computeCompactCfg(cfgRoot);
+  }
+
+  /**
+   * Computes the control flow graph of the given root in the compact
+   * representation. Node priorities are not computed; the ids of the compact
+   * graph already follow the AST order.
+   */
+  CompactControlFlowGraph computeCompactCfg(Node root) {
+    Preconditions.checkArgument(
+        NodeUtil.isValidCfgRoot(root), "Unexpected control flow graph root %s", root);
+    this.root = root;
+    astPositionCounter = 0;
+    astPosition = new HashMap<>();
+    entry = computeFallThrough(root);
+    compactCfgBuilder = new CompactControlFlowGraph.Builder(entry);
+    try {
+      NodeTraversal.traverseEs6(compiler, root, this);
+      astPosition.put(null, ++astPositionCounter); // the implicit return is last.
+      return compactCfgBuilder.build(astPosition);
+    } finally {
+      compactCfgBuilder = null;
+    }
+  }
+
   ControlFlowGraph<Node> getCfg() {
     return cfg;
   }
@@ -160,15 +198,15 @@ public final class ControlFlowAnalysis implements Callback, CompilerPass {
     astPositionCounter = 0;
     astPosition = new HashMap<>();
     nodePriorities = new HashMap<>();
-    cfg = new AstControlFlowGraph(computeFallThrough(root), nodePriorities, edgeAnnotations);
+    entry = computeFallThrough(root);
+    cfg = new AstControlFlowGraph(entry, nodePriorities, edgeAnnotations);
     NodeTraversal.traverseEs6(compiler, root, this);
     astPosition.put(null, ++astPositionCounter); // the implicit return is last.
 
     // Now, generate the priority of nodes by doing a depth-first
     // search on the CFG.
     priorityCounter = 0;
-    DiGraphNode<Node, Branch> entry = cfg.getEntry();
-    prioritizeFromEntryNode(entry);
+    prioritizeFromEntryNode(cfg.getEntry());
 
     if (shouldTraverseFunctions) {
       // If we're traversing inner functions, we need to rank the
@@ -223,7 +261,7 @@ public final class ControlFlowAnalysis implements Callback, CompilerPass {
     astPosition.put(n, astPositionCounter++);
     switch (n.getToken()) {
       case FUNCTION:
-        if (shouldTraverseFunctions || n == cfg.getEntry().getValue()) {
+        if (shouldTraverseFunctions || n == entry) {
           exceptionHandler.push(n);
           return true;
         }
@@ -858,6 +896,10 @@ public final class ControlFlowAnalysis implements Callback, CompilerPass {
    */
   private void createEdge(Node fromNode, ControlFlowGraph.Branch branch,
       Node toNode) {
+    if (compactCfgBuilder != null) {
+      compactCfgBuilder.addEdge(fromNode, branch, toNode);
+      return;
+    }
     cfg.createNode(fromNode);
     cfg.createNode(toNode);
     cfg.connectIfNotFound(fromNode, branch, toNode);
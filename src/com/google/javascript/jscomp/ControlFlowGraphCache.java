@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.javascript.rhino.Node;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caches the control flow graphs of change scope roots (functions and
+ * scripts), so that passes that analyze the same unchanged function reuse its
+ * graph instead of recomputing it.
+ *
+ * <p>A cached graph is valid as long as no change has been reported to its
+ * root since it was computed, which is tracked by the change time that
+ * {@link AbstractCompiler#reportChangeToChangeScope} and
+ * {@link AbstractCompiler#reportChangeToEnclosingScope} record on the root.
+ * Since graphs are shared, callers may re-annotate the graph nodes but must
+ * not modify the graph itself.
+ */
+final class ControlFlowGraphCache {
+
+  private final AbstractCompiler compiler;
+  private final Map<Node, CachedGraph> graphs = new HashMap<>();
+
+  ControlFlowGraphCache(AbstractCompiler compiler) {
+    this.compiler = compiler;
+  }
+
+  /**
+   * Returns the control flow graph of the given root, as computed by
+   * {@link ControlFlowAnalysis#getCfg(AbstractCompiler, Node)}.
+   */
+  ControlFlowGraph<Node> getCfg(Node cfgRoot) {
+    if (!NodeUtil.isChangeScopeRoot(cfgRoot)) {
+      return ControlFlowAnalysis.getCfg(compiler, cfgRoot);
+    }
+    CachedGraph cached = graphs.get(cfgRoot);
+    if (cached != null && !cfgRoot.isDeleted() && cached.changeTime == cfgRoot.getChangeTime()) {
+      return cached.cfg;
+    }
+    ControlFlowGraph<Node> cfg = ControlFlowAnalysis.getCfg(compiler, cfgRoot);
+    graphs.put(cfgRoot, new CachedGraph(cfg, cfgRoot.getChangeTime()));
+    return cfg;
+  }
+
+  /** Drops all cached graphs. */
+  void clear() {
+    graphs.clear();
+  }
+
+  private static final class CachedGraph {
+    final ControlFlowGraph<Node> cfg;
+    final int changeTime;
+
+    CachedGraph(ControlFlowGraph<Node> cfg, int changeTime) {
+      this.cfg = cfg;
+      this.changeTime = changeTime;
+    }
+  }
+}
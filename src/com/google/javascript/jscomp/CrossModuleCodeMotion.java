@@ -74,8 +74,21 @@ class CrossModuleCodeMotion implements CompilerPass {
    */
   private final Map<JSModule, Node> moduleInsertionPointMap = new HashMap<>();
 
+  /**
+   * Results of {@link JSModuleGraph#getSmallestCoveringSubtree}, by the current module of the
+   * statements and then by the modules with immovable references. Most symbols are referenced from
+   * one of a few sets of modules, so most queries are answered from here.
+   */
+  private final Map<JSModule, Map<BitSet, JSModule>> smallestCoveringSubtrees = new HashMap<>();
+
   private final boolean parentModuleCanSeeSymbolsDeclaredInChildren;
 
+  /**
+   * Collects the top-level statements and their references. It may be shared with other runs of
+   * this pass, in which case it only traverses the scripts that changed since the last run.
+   */
+  private final CrossModuleReferenceCollector referenceCollector;
+
   /**
    * Creates an instance.
    *
@@ -85,17 +98,32 @@ class CrossModuleCodeMotion implements CompilerPass {
       AbstractCompiler compiler,
       JSModuleGraph graph,
       boolean parentModuleCanSeeSymbolsDeclaredInChildren) {
+    this(
+        compiler,
+        graph,
+        parentModuleCanSeeSymbolsDeclaredInChildren,
+        new CrossModuleReferenceCollector(compiler, new Es6SyntacticScopeCreator(compiler)));
+  }
+
+  /**
+   * Creates an instance that uses the given reference collector, so that several runs of the pass
+   * can share the references collected from the scripts that did not change in between.
+   */
+  CrossModuleCodeMotion(
+      AbstractCompiler compiler,
+      JSModuleGraph graph,
+      boolean parentModuleCanSeeSymbolsDeclaredInChildren,
+      CrossModuleReferenceCollector referenceCollector) {
     this.compiler = compiler;
     this.graph = graph;
     this.parentModuleCanSeeSymbolsDeclaredInChildren = parentModuleCanSeeSymbolsDeclaredInChildren;
+    this.referenceCollector = referenceCollector;
   }
 
   @Override
   public void process(Node externs, Node root) {
     // If there are <2 modules, then we will never move anything, so we're done
     if (graph != null && graph.getModuleCount() > 1) {
-      CrossModuleReferenceCollector referenceCollector =
-          new CrossModuleReferenceCollector(compiler, new Es6SyntacticScopeCreator(compiler));
       referenceCollector.process(root);
       Collection<GlobalSymbol> globalSymbols =
           new GlobalSymbolCollector().collectGlobalSymbols(referenceCollector);
@@ -117,7 +145,7 @@ class CrossModuleCodeMotion implements CompilerPass {
   /** Collects all global symbols, their declaration statements and references. */
   private class GlobalSymbolCollector {
 
-    final Map<Var, GlobalSymbol> globalSymbolforVar = new HashMap<>();
+    final Map<String, GlobalSymbol> globalSymbolForName = new HashMap<>();
 
     /**
      * Returning the symbols in the reverse order in which they are defined helps to minimize
@@ -145,7 +173,7 @@ class CrossModuleCodeMotion implements CompilerPass {
     }
 
     private void processImmovableReference(Reference ref, JSModule module) {
-      GlobalSymbol globalSymbol = getGlobalSymbol(ref.getSymbol());
+      GlobalSymbol globalSymbol = getGlobalSymbol(ref);
       if (parentModuleCanSeeSymbolsDeclaredInChildren) {
         // It is possible to move the declaration of `Foo` after
         // `'undefined' != typeof Foo && x instanceof Foo`.
@@ -166,7 +194,7 @@ class CrossModuleCodeMotion implements CompilerPass {
 
     private void processDeclarationStatement(TopLevelStatement statement) {
       GlobalSymbol declaredSymbol =
-          getGlobalSymbol(statement.getDeclaredNameReference().getSymbol());
+          getGlobalSymbol(statement.getDeclaredNameReference());
       DeclarationStatementGroup dsg = declaredSymbol.addDeclarationStatement(statement);
       processDeclarationStatementContainedReferences(statement, declaredSymbol, dsg);
     }
@@ -174,7 +202,7 @@ class CrossModuleCodeMotion implements CompilerPass {
     private void processDeclarationStatementContainedReferences(
         TopLevelStatement statement, GlobalSymbol declaredSymbol, DeclarationStatementGroup dsg) {
       for (Reference ref : statement.getNonDeclarationReferences()) {
-        GlobalSymbol refSymbol = getGlobalSymbol(ref.getSymbol());
+        GlobalSymbol refSymbol = getGlobalSymbol(ref);
         if (refSymbol.equals(declaredSymbol)) {
           continue; // ignore circular reference
         }
@@ -198,11 +226,13 @@ class CrossModuleCodeMotion implements CompilerPass {
       }
     }
 
-    private GlobalSymbol getGlobalSymbol(Var var) {
-      GlobalSymbol globalSymbol = globalSymbolforVar.get(var);
+    private GlobalSymbol getGlobalSymbol(Reference ref) {
+      // All the references are to global names, so the name identifies the variable.
+      String name = ref.getNode().getString();
+      GlobalSymbol globalSymbol = globalSymbolForName.get(name);
       if (globalSymbol == null) {
-        globalSymbol = new GlobalSymbol(var);
-        globalSymbolforVar.put(var, globalSymbol);
+        globalSymbol = new GlobalSymbol(name);
+        globalSymbolForName.put(name, globalSymbol);
         symbolStack.push(globalSymbol);
       }
       return globalSymbol;
@@ -223,7 +253,7 @@ class CrossModuleCodeMotion implements CompilerPass {
 
   /** Represents a global symbol whose declaration statements may be moved. */
   private class GlobalSymbol {
-    final Var var;
+    final String name;
     /**
      * As we traverse the statements in execution order the top of the stack represents the most
      * recently seen DSG for the variable.
@@ -249,13 +279,13 @@ class CrossModuleCodeMotion implements CompilerPass {
     /** Used to confirm all symbols get moved in the correct order. */
     boolean isMoveDeclarationStatementsDone = false;
 
-    GlobalSymbol(Var var) {
-      this.var = var;
+    GlobalSymbol(String name) {
+      this.name = name;
     }
 
     @Override
     public String toString() {
-      return var.getName();
+      return name;
     }
 
     void addImmovableReference(JSModule module) {
@@ -623,7 +653,7 @@ class CrossModuleCodeMotion implements CompilerPass {
       } else if (!allStatementsCanMove()) {
         return currentModule;
       } else {
-        return graph.getSmallestCoveringSubtree(currentModule, modulesWithImmovableReferences);
+        return getSmallestCoveringSubtree(currentModule, modulesWithImmovableReferences);
       }
     }
 
@@ -637,6 +667,21 @@ class CrossModuleCodeMotion implements CompilerPass {
     }
   }
 
+  private JSModule getSmallestCoveringSubtree(JSModule parentTree, BitSet dependentModules) {
+    Map<BitSet, JSModule> results = smallestCoveringSubtrees.get(parentTree);
+    if (results == null) {
+      results = new HashMap<>();
+      smallestCoveringSubtrees.put(parentTree, results);
+    }
+    JSModule result = results.get(dependentModules);
+    if (result == null) {
+      result = graph.getSmallestCoveringSubtree(parentTree, dependentModules);
+      // The caller keeps modifying its set, so the key must be a copy.
+      results.put((BitSet) dependentModules.clone(), result);
+    }
+    return result;
+  }
+
   interface InstanceofReference {
     JSModule getModule();
 
@@ -19,6 +19,7 @@ package com.google.javascript.jscomp;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.javascript.jscomp.NodeTraversal.ScopedCallback;
@@ -26,31 +27,53 @@ import com.google.javascript.rhino.Node;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 
-/** Collects global variable references for use by {@link CrossModuleCodeMotion}. */
-public final class CrossModuleReferenceCollector implements ScopedCallback, CompilerPass {
+/**
+ * Collects global variable references for use by {@link CrossModuleCodeMotion}.
+ *
+ * <p>The top-level statements of each script and the references they contain are kept between
+ * calls to {@link #process(Node)}, so a collector that is shared by several runs of a pass only
+ * traverses the scripts that have changed since its last run. All scripts are traversed again when
+ * the set of global names changes, since that may change which names in the unchanged scripts
+ * refer to global variables. The references are indexed by name rather than by {@link Var}, since
+ * the Var objects of different traversals are not the same.
+ *
+ * <p>When the compiler may use more than one thread, the scripts are traversed in parallel. The
+ * traversals only read the AST and the global scope, and the statements of each script are
+ * combined in script order afterwards, so the result is the same as that of a single thread.
+ */
+public final class CrossModuleReferenceCollector implements CompilerPass {
 
-  /** Maps global variable name to the corresponding {@link Var} object. */
-  private final Map<String, Var> varsByName = new HashMap<>();
+  private static final AtomicInteger instanceCount = new AtomicInteger();
 
-  /**
-   * Maps a given variable to a collection of references to that name. Note that
-   * Var objects are not stable across multiple traversals (unlike scope root or
-   * name).
-   */
-  private final Map<Var, ReferenceCollection> referenceMap =
-       new LinkedHashMap<>();
+  /** Maps global variable name to the corresponding {@link Var} object. */
+  private final Map<String, Var> varsByName = new LinkedHashMap<>();
 
-  /** The stack of basic blocks and scopes the current traversal is in. */
-  private final List<BasicBlock> blockStack = new ArrayList<>();
+  /** Maps a global variable name to a collection of references to that name. */
+  private final Map<String, ReferenceCollection> referenceMap = new HashMap<>();
 
   /** List of all top-level statements in the order they appear in the AST. */
-  private final List<TopLevelStatement> topLevelStatements = new ArrayList<>();
+  private List<TopLevelStatement> topLevelStatements = ImmutableList.of();
+
+  /** The top-level statements of each script, as of the last time the script was traversed. */
+  private final Map<Node, List<TopLevelStatement>> statementsByScript = new HashMap<>();
+
+  /** The names of the global variables when the scripts in statementsByScript were traversed. */
+  private Set<String> collectedGlobalNames = null;
+
+  /** The basic block of the global scope, shared by the traversals of all the scripts. */
+  private BasicBlock globalBlock = null;
+
+  /** The name under which this collector asks the compiler for changes. */
+  private final String changeTrackingName =
+      "CrossModuleReferenceCollector" + instanceCount.incrementAndGet();
 
   private final ScopeCreator scopeCreator;
 
@@ -59,9 +82,6 @@ public final class CrossModuleReferenceCollector implements ScopedCallback, Comp
    */
   private final AbstractCompiler compiler;
 
-  private int statementCounter = 0;
-  private TopLevelStatementDraft topLevelStatementDraft = null;
-
   /**
    * Constructor initializes block stack.
    */
@@ -76,114 +96,142 @@ public final class CrossModuleReferenceCollector implements ScopedCallback, Comp
    */
   @Override
   public void process(Node externs, Node root) {
-    checkState(topLevelStatements.isEmpty(), "process() called more than once");
-    NodeTraversal t = new NodeTraversal(compiler, this, scopeCreator);
-    t.traverseRoots(externs, root);
-  }
-
-  public void process(Node root) {
-    checkState(topLevelStatements.isEmpty(), "process() called more than once");
-    NodeTraversal t = new NodeTraversal(compiler, this, scopeCreator);
-    t.traverse(root);
+    Node scopeRoot = checkNotNull(externs.getParent());
+    statementsByScript.clear();
+    globalBlock = new BasicBlock(null, scopeRoot);
+    Scope globalScope = scopeCreator.createScope(scopeRoot, null);
+    List<Node> scripts = new ArrayList<>();
+    for (Node script = externs.getFirstChild(); script != null; script = script.getNext()) {
+      scripts.add(script);
+    }
+    for (Node script = root.getFirstChild(); script != null; script = script.getNext()) {
+      scripts.add(script);
+    }
+    List<TopLevelStatement> statements = new ArrayList<>();
+    for (List<TopLevelStatement> statementsInScript : collectScripts(scripts, globalScope)) {
+      statements.addAll(statementsInScript);
+    }
+    index(statements, globalScope);
   }
 
   /**
-   * Gets the variables that were referenced in this callback.
+   * Collects the top-level statements of the scripts under the given root, only traversing the
+   * scripts that have changed since the last call.
    */
-  Iterable<Var> getAllSymbols() {
-    return referenceMap.keySet();
-  }
+  public void process(Node root) {
+    List<Node> changedScopeNodes = compiler.getChangedScopeNodesForPass(changeTrackingName);
+    Scope globalScope = scopeCreator.createScope(root, null);
+    Set<String> globalNames = new HashSet<>();
+    for (Var v : globalScope.getVarIterable()) {
+      globalNames.add(v.getName());
+    }
 
-  /**
-   * Gets the reference collection for the given variable.
-   */
-  ReferenceCollection getReferences(Var v) {
-    return referenceMap.get(v);
-  }
+    if (changedScopeNodes == null
+        || globalBlock == null
+        || globalBlock.getRoot() != root
+        || !globalNames.equals(collectedGlobalNames)) {
+      statementsByScript.clear();
+      globalBlock = new BasicBlock(null, root);
+      collectedGlobalNames = globalNames;
+    } else {
+      for (Node changedScopeNode : changedScopeNodes) {
+        statementsByScript.remove(NodeUtil.getEnclosingScript(changedScopeNode));
+      }
+    }
 
-  ImmutableMap<String, Var> getGlobalVariableNamesMap() {
-    return ImmutableMap.copyOf(varsByName);
+    List<Node> scripts = new ArrayList<>();
+    List<Node> changedScripts = new ArrayList<>();
+    for (Node script = root.getFirstChild(); script != null; script = script.getNext()) {
+      scripts.add(script);
+      if (!statementsByScript.containsKey(script)) {
+        changedScripts.add(script);
+      }
+    }
+    List<List<TopLevelStatement>> changedStatements = collectScripts(changedScripts, globalScope);
+    for (int i = 0; i < changedScripts.size(); i++) {
+      statementsByScript.put(changedScripts.get(i), changedStatements.get(i));
+    }
+    // Forget the scripts that are no longer in the AST.
+    statementsByScript.keySet().retainAll(new HashSet<>(scripts));
+
+    List<TopLevelStatement> statements = new ArrayList<>();
+    for (Node script : scripts) {
+      statements.addAll(statementsByScript.get(script));
+    }
+    index(statements, globalScope);
   }
 
   /**
-   * For each node, update the block stack and reference collection
-   * as appropriate.
+   * Traverses the given scripts and returns the top-level statements of each, in the same order.
+   * The scripts are traversed in parallel when the compiler may use more than one thread.
    */
-  @Override
-  public void visit(NodeTraversal t, Node n, Node parent) {
-    if (topLevelStatementDraft != null) {
-      if (n.equals(topLevelStatementDraft.statementNode)) {
-        topLevelStatements.add(new TopLevelStatement(topLevelStatementDraft));
-        topLevelStatementDraft = null;
-      } else if (n.isName() || (n.isStringKey() && !n.hasChildren())) {
-        String varName = n.getString();
-        Var v = t.getScope().getVar(varName);
-
-        if (v != null) {
-          // Only global, non-exported names can be moved
-          if (v.isGlobal() && !compiler.getCodingConvention().isExported(v.getName())) {
-            if (varsByName.containsKey(varName)) {
-              checkState(Objects.equals(varsByName.get(varName), v));
-            } else {
-              varsByName.put(varName, v);
-            }
-            Reference reference = new Reference(n, t, peek(blockStack));
-            if (reference.getNode() == topLevelStatementDraft.declaredNameNode) {
-              topLevelStatementDraft.declaredNameReference = reference;
-            } else {
-              topLevelStatementDraft.nonDeclarationReferences.add(reference);
+  private List<List<TopLevelStatement>> collectScripts(
+      final List<Node> scripts, final Scope globalScope) {
+    final List<List<TopLevelStatement>> statements =
+        new ArrayList<>(Collections.<List<TopLevelStatement>>nCopies(scripts.size(), null));
+    List<Runnable> tasks = new ArrayList<>(scripts.size());
+    for (int i = 0; i < scripts.size(); i++) {
+      final int index = i;
+      tasks.add(
+          new Runnable() {
+            @Override
+            public void run() {
+              statements.set(index, new ScriptCollector().collect(scripts.get(index), globalScope));
             }
-            addReferenceToCollection(v, reference);
-          }
+          });
+    }
+    // The traversals only read the AST, and do not set the compiler's change scope.
+    ParallelTasks.run(
+        compiler.getOptions().numParallelThreads, "CrossModuleReferenceCollector", tasks);
+    return statements;
+  }
+
+  /** Numbers the statements and indexes the references they contain by name. */
+  private void index(List<TopLevelStatement> statements, Scope globalScope) {
+    topLevelStatements = statements;
+    varsByName.clear();
+    referenceMap.clear();
+    int statementCounter = 0;
+    for (TopLevelStatement statement : statements) {
+      statement.originalOrder = statementCounter++;
+      for (Reference reference : statement.references) {
+        String varName = reference.getNode().getString();
+        ReferenceCollection referenceInfo = referenceMap.get(varName);
+        if (referenceInfo == null) {
+          referenceInfo = new ReferenceCollection();
+          referenceMap.put(varName, referenceInfo);
+          varsByName.put(varName, globalScope.getVar(varName));
         }
+        referenceInfo.add(reference);
       }
     }
-    if (isBlockBoundary(n, parent)) {
-      pop(blockStack);
-    }
   }
 
   /**
-   * Updates block stack and invokes any additional behavior.
+   * Gets the variables that were referenced in this callback.
    */
-  @Override
-  public void enterScope(NodeTraversal t) {
-    Node n = t.getScopeRoot();
-    BasicBlock parent = blockStack.isEmpty() ? null : peek(blockStack);
-    // Don't add all ES6 scope roots to blockStack, only those that are also scopes according to
-    // the ES5 scoping rules. Other nodes that ought to be considered the root of a BasicBlock
-    // are added in shouldTraverse() and removed in visit().
-    if (t.isHoistScope()) {
-      blockStack.add(new BasicBlock(parent, n));
-    }
+  Iterable<Var> getAllSymbols() {
+    return varsByName.values();
   }
 
   /**
-   * Updates block stack and invokes any additional behavior.
+   * Gets the reference collection for the given variable.
    */
-  @Override
-  public void exitScope(NodeTraversal t) {
-    if (t.isHoistScope()) {
-      pop(blockStack);
-    }
+  ReferenceCollection getReferences(Var v) {
+    return referenceMap.get(v.getName());
   }
 
-  @Override
-  public boolean shouldTraverse(NodeTraversal nodeTraversal, Node n, Node parent) {
-    if (parent != null && NodeUtil.isTopLevel(parent)) {
-      checkState(topLevelStatementDraft == null, n);
-      topLevelStatementDraft = initializeDraftStatement(nodeTraversal.getModule(), n);
-    }
-    // If node is a new basic block, put on basic block stack
-    if (isBlockBoundary(n, parent)) {
-      blockStack.add(new BasicBlock(peek(blockStack), n));
-    }
-    return true;
+  /** Whether this collector collects the references of the given compiler's AST. */
+  boolean isForCompiler(AbstractCompiler compiler) {
+    return this.compiler == compiler;
+  }
+
+  ImmutableMap<String, Var> getGlobalVariableNamesMap() {
+    return ImmutableMap.copyOf(varsByName);
   }
 
   private TopLevelStatementDraft initializeDraftStatement(JSModule module, Node statementNode) {
-    TopLevelStatementDraft draft =
-        new TopLevelStatementDraft(statementCounter++, module, statementNode);
+    TopLevelStatementDraft draft = new TopLevelStatementDraft(module, statementNode);
     // Determine whether this statement declares a name or not.
     // If so, save its name node and value node, if any.
     if (statementNode.isVar()) {
@@ -242,6 +290,98 @@ public final class CrossModuleReferenceCollector implements ScopedCallback, Comp
     return draft;
   }
 
+  /** Collects the top-level statements of one script, with the state of its traversal. */
+  private final class ScriptCollector implements ScopedCallback {
+
+    /** The stack of basic blocks and scopes the traversal is in. */
+    private final List<BasicBlock> blockStack = new ArrayList<>();
+
+    /** The top-level statements of the script, in the order they appear in the AST. */
+    private final List<TopLevelStatement> scriptStatements = new ArrayList<>();
+
+    private TopLevelStatementDraft topLevelStatementDraft = null;
+
+    /** Traverses the script and returns its top-level statements. */
+    List<TopLevelStatement> collect(Node script, Scope globalScope) {
+      checkState(script.isScript(), script);
+      NodeTraversal t = new NodeTraversal(compiler, this, scopeCreator);
+      t.doNotUpdateCompilerChangeScope();
+      t.traverseWithScope(script, globalScope);
+      return scriptStatements;
+    }
+
+    /**
+     * For each node, update the block stack and reference collection
+     * as appropriate.
+     */
+    @Override
+    public void visit(NodeTraversal t, Node n, Node parent) {
+      if (topLevelStatementDraft != null) {
+        if (n.equals(topLevelStatementDraft.statementNode)) {
+          scriptStatements.add(new TopLevelStatement(topLevelStatementDraft));
+          topLevelStatementDraft = null;
+        } else if (n.isName() || (n.isStringKey() && !n.hasChildren())) {
+          String varName = n.getString();
+          Var v = t.getScope().getVar(varName);
+
+          if (v != null) {
+            // Only global, non-exported names can be moved
+            if (v.isGlobal() && !compiler.getCodingConvention().isExported(v.getName())) {
+              Reference reference = new Reference(n, t, peek(blockStack));
+              if (reference.getNode() == topLevelStatementDraft.declaredNameNode) {
+                topLevelStatementDraft.declaredNameReference = reference;
+              } else {
+                topLevelStatementDraft.nonDeclarationReferences.add(reference);
+              }
+              topLevelStatementDraft.references.add(reference);
+            }
+          }
+        }
+      }
+      if (isBlockBoundary(n, parent)) {
+        pop(blockStack);
+      }
+    }
+
+    /**
+     * Updates block stack and invokes any additional behavior.
+     */
+    @Override
+    public void enterScope(NodeTraversal t) {
+      Node n = t.getScopeRoot();
+      BasicBlock parent = blockStack.isEmpty() ? null : peek(blockStack);
+      // Don't add all ES6 scope roots to blockStack, only those that are also scopes according to
+      // the ES5 scoping rules. Other nodes that ought to be considered the root of a BasicBlock
+      // are added in shouldTraverse() and removed in visit().
+      if (t.isHoistScope()) {
+        blockStack.add(t.getScope().isGlobal() ? globalBlock : new BasicBlock(parent, n));
+      }
+    }
+
+    /**
+     * Updates block stack and invokes any additional behavior.
+     */
+    @Override
+    public void exitScope(NodeTraversal t) {
+      if (t.isHoistScope()) {
+        pop(blockStack);
+      }
+    }
+
+    @Override
+    public boolean shouldTraverse(NodeTraversal nodeTraversal, Node n, Node parent) {
+      if (parent != null && NodeUtil.isTopLevel(parent)) {
+        checkState(topLevelStatementDraft == null, n);
+        topLevelStatementDraft = initializeDraftStatement(nodeTraversal.getModule(), n);
+      }
+      // If node is a new basic block, put on basic block stack
+      if (isBlockBoundary(n, parent)) {
+        blockStack.add(new BasicBlock(peek(blockStack), n));
+      }
+      return true;
+    }
+  }
+
   private static <T> T pop(List<T> list) {
     return list.remove(list.size() - 1);
   }
@@ -291,18 +431,6 @@ public final class CrossModuleReferenceCollector implements ScopedCallback, Comp
     return n.isCase();
   }
 
-  private void addReferenceToCollection(Var v, Reference reference) {
-    // Create collection if none already
-    ReferenceCollection referenceInfo = referenceMap.get(v);
-    if (referenceInfo == null) {
-      referenceInfo = new ReferenceCollection();
-      referenceMap.put(v, referenceInfo);
-    }
-
-    // Add this particular reference
-    referenceInfo.add(reference);
-  }
-
   List<TopLevelStatement> getTopLevelStatements() {
     return Collections.unmodifiableList(topLevelStatements);
   }
@@ -351,18 +479,20 @@ public final class CrossModuleReferenceCollector implements ScopedCallback, Comp
   final class TopLevelStatement {
 
     /** 0-based index indicating original order of this statement in the source. */
-    private final int originalOrder;
+    private int originalOrder;
 
     private final JSModule module;
     private final Node statementNode;
+    /** All the references in the statement, in traversal order. */
+    private final List<Reference> references;
     private final List<Reference> nonDeclarationReferences;
     private final Reference declaredNameReference;
     private final Node declaredValueNode;
 
     TopLevelStatement(TopLevelStatementDraft draft) {
-      this.originalOrder = draft.originalOrder;
       this.module = draft.module;
       this.statementNode = draft.statementNode;
+      this.references = Collections.unmodifiableList(draft.references);
       this.nonDeclarationReferences = Collections.unmodifiableList(draft.nonDeclarationReferences);
       this.declaredNameReference = draft.declaredNameReference;
       this.declaredValueNode = draft.declaredValueNode;
@@ -406,17 +536,15 @@ public final class CrossModuleReferenceCollector implements ScopedCallback, Comp
   /** Holds statement info temporarily while the statement is being traversed. */
   private static final class TopLevelStatementDraft {
 
-    /** 0-based index indicating original order of this statement in the source. */
-    final int originalOrder;
     final JSModule module;
     final Node statementNode;
+    final List<Reference> references = new ArrayList<>();
     final List<Reference> nonDeclarationReferences = new ArrayList<>();
     Node declaredValueNode = null;
     Node declaredNameNode = null;
     Reference declaredNameReference = null;
 
-    TopLevelStatementDraft(int originalOrder, JSModule module, Node statementNode) {
-      this.originalOrder = originalOrder;
+    TopLevelStatementDraft(JSModule module, Node statementNode) {
       this.module = module;
       this.statementNode = statementNode;
     }
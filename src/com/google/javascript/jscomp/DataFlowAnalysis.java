@@ -28,16 +28,20 @@ import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
 import com.google.javascript.jscomp.graph.LatticeElement;
 import com.google.javascript.jscomp.parsing.parser.util.format.SimpleFormat;
 import com.google.javascript.rhino.Node;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.LinkedHashSet;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.TreeSet;
 
 /**
  * A framework to help writing static program analysis. A subclass of
@@ -91,7 +95,27 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
 
   private final ControlFlowGraph<N> cfg;
   final JoinOp<L> joinOp;
-  protected final Set<DiGraphNode<N, Branch>> orderedWorkSet;
+
+  /**
+   * The nodes of the graph (minus the implicit return) in the order that they
+   * should be taken off the work list. Recomputed on each call to
+   * {@link #analyze()}, since the graph may have changed in between.
+   */
+  private List<DiGraphNode<N, Branch>> orderedNodes;
+
+  /**
+   * For each node index, the indices of the nodes that must be recomputed
+   * when the flow state at that node changes.
+   */
+  private int[][] dependentNodes;
+
+  private final PriorityWorkList workList = new PriorityWorkList();
+
+  /** Number of steps taken by the last call to {@link #analyze(int)}. */
+  private int stepCount;
+
+  /** For each node index, the number of times it was visited by the last analysis. */
+  private int[] visitCounts = new int[0];
 
   /*
    * Feel free to increase this to a reasonable number if you are finding that
@@ -125,12 +149,6 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
   DataFlowAnalysis(ControlFlowGraph<N> targetCfg, JoinOp<L> joinOp) {
     this.cfg = targetCfg;
     this.joinOp = joinOp;
-    Comparator<DiGraphNode<N, Branch>> nodeComparator = cfg.getOptionalNodeComparator(isForward());
-    if (nodeComparator != null) {
-      this.orderedWorkSet = new TreeSet<>(nodeComparator);
-    } else {
-      this.orderedWorkSet = new LinkedHashSet<>();
-    }
   }
 
   /**
@@ -204,34 +222,156 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
    */
   final void analyze(int maxSteps) {
     initialize();
+    initializeWorkList();
     int step = 0;
-    while (!orderedWorkSet.isEmpty()) {
+    while (!workList.isEmpty()) {
       if (step > maxSteps) {
+        stepCount = step;
         throw new MaxIterationsExceededException(
             "Analysis did not terminate after " + maxSteps + " iterations");
       }
-      DiGraphNode<N, Branch> curNode = orderedWorkSet.iterator().next();
-      orderedWorkSet.remove(curNode);
+      int curIndex = workList.removeFirst();
+      DiGraphNode<N, Branch> curNode = orderedNodes.get(curIndex);
+      visitCounts[curIndex]++;
       joinInputs(curNode);
       if (flow(curNode)) {
         // If there is a change in the current node, we want to grab the list
         // of nodes that this node affects.
-        List<DiGraphNode<N, Branch>> nextNodes = isForward() ?
-            cfg.getDirectedSuccNodes(curNode) :
-            cfg.getDirectedPredNodes(curNode);
-        for (DiGraphNode<N, Branch> nextNode : nextNodes) {
-          if (nextNode != cfg.getImplicitReturn()) {
-            orderedWorkSet.add(nextNode);
-          }
+        for (int nextIndex : dependentNodes[curIndex]) {
+          workList.add(nextIndex);
         }
       }
       step++;
     }
+    stepCount = step;
     if (isForward()) {
       joinInputs(getCfg().getImplicitReturn());
     }
   }
 
+  /**
+   * Returns the number of steps, that is, single node flows, taken by the last
+   * call to {@link #analyze(int)}.
+   */
+  final int getStepCount() {
+    return stepCount;
+  }
+
+  /**
+   * Returns the largest number of times any single node was visited by the
+   * last call to {@link #analyze(int)}. Analyses where this is much larger
+   * than the loop nesting depth of the graph are likely to be slow.
+   */
+  final int getMaxNodeVisitCount() {
+    int max = 0;
+    for (int count : visitCounts) {
+      max = Math.max(max, count);
+    }
+    return max;
+  }
+
+  /**
+   * Assigns every node but the implicit return an index that reflects the
+   * order in which it should be visited, precomputes the dependent nodes
+   * of each node and fills the work list with all of them.
+   *
+   * <p>If the control flow graph provides a node comparator, that order is
+   * used. Otherwise nodes are visited in reverse postorder of a depth-first
+   * search from the entry for forward analyses, and in postorder for
+   * backward analyses.
+   */
+  private void initializeWorkList() {
+    Comparator<DiGraphNode<N, Branch>> nodeComparator =
+        cfg.getOptionalNodeComparator(isForward());
+    if (nodeComparator != null) {
+      orderedNodes = new ArrayList<>();
+      for (DiGraphNode<N, Branch> node : cfg.getDirectedGraphNodes()) {
+        if (node != cfg.getImplicitReturn()) {
+          orderedNodes.add(node);
+        }
+      }
+      Collections.sort(orderedNodes, nodeComparator);
+    } else {
+      orderedNodes = computeReversePostorder();
+      if (!isForward()) {
+        Collections.reverse(orderedNodes);
+      }
+    }
+
+    int nodeCount = orderedNodes.size();
+    Map<DiGraphNode<N, Branch>, Integer> nodeIndices = new HashMap<>();
+    for (int i = 0; i < nodeCount; i++) {
+      nodeIndices.put(orderedNodes.get(i), i);
+    }
+    dependentNodes = new int[nodeCount][];
+    for (int i = 0; i < nodeCount; i++) {
+      DiGraphNode<N, Branch> node = orderedNodes.get(i);
+      List<DiGraphNode<N, Branch>> nextNodes = isForward()
+          ? cfg.getDirectedSuccNodes(node)
+          : cfg.getDirectedPredNodes(node);
+      int[] dependents = new int[nextNodes.size()];
+      int dependentCount = 0;
+      for (DiGraphNode<N, Branch> nextNode : nextNodes) {
+        Integer nextIndex = nodeIndices.get(nextNode);
+        if (nextIndex != null) {
+          dependents[dependentCount++] = nextIndex;
+        }
+      }
+      dependentNodes[i] = dependentCount == dependents.length
+          ? dependents
+          : Arrays.copyOf(dependents, dependentCount);
+    }
+
+    visitCounts = new int[nodeCount];
+    stepCount = 0;
+    workList.reset(nodeCount);
+    for (int i = 0; i < nodeCount; i++) {
+      workList.add(i);
+    }
+  }
+
+  /**
+   * Returns all nodes of the graph except the implicit return in reverse
+   * postorder of a depth-first search from the entry. Nodes unreachable from
+   * the entry are appended in graph order.
+   */
+  private List<DiGraphNode<N, Branch>> computeReversePostorder() {
+    List<DiGraphNode<N, Branch>> postorder = new ArrayList<>();
+    Set<DiGraphNode<N, Branch>> visited = new HashSet<>();
+    visited.add(cfg.getImplicitReturn());
+    // Iterative, since generated state machines can be arbitrarily deep.
+    Deque<DiGraphNode<N, Branch>> stack = new ArrayDeque<>();
+    Deque<Integer> nextChild = new ArrayDeque<>();
+    visited.add(cfg.getEntry());
+    stack.push(cfg.getEntry());
+    nextChild.push(0);
+    while (!stack.isEmpty()) {
+      DiGraphNode<N, Branch> node = stack.peek();
+      List<DiGraphNode<N, Branch>> succs = cfg.getDirectedSuccNodes(node);
+      int childIndex = nextChild.pop();
+      while (childIndex < succs.size() && visited.contains(succs.get(childIndex))) {
+        childIndex++;
+      }
+      if (childIndex < succs.size()) {
+        DiGraphNode<N, Branch> child = succs.get(childIndex);
+        nextChild.push(childIndex + 1);
+        visited.add(child);
+        stack.push(child);
+        nextChild.push(0);
+      } else {
+        stack.pop();
+        postorder.add(node);
+      }
+    }
+    Collections.reverse(postorder);
+    for (DiGraphNode<N, Branch> node : cfg.getDirectedGraphNodes()) {
+      if (visited.add(node)) {
+        postorder.add(node);
+      }
+    }
+    return postorder;
+  }
+
   /**
    * Gets the state of the initial estimation at each node.
    *
@@ -247,19 +387,12 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
   abstract L createEntryLattice();
 
   /**
-   * Initializes the work list and the control flow graph.
+   * Initializes the flow states of the control flow graph.
    */
   protected void initialize() {
-    // TODO(user): Calling clear doesn't deallocate the memory in a
-    // LinkedHashSet. Consider creating a new work set if we plan to repeatedly
-    // call analyze.
-    orderedWorkSet.clear();
     for (DiGraphNode<N, Branch> node : cfg.getDirectedGraphNodes()) {
       node.setAnnotation(new FlowState<>(createInitialEstimateLattice(),
           createInitialEstimateLattice()));
-      if (node != cfg.getImplicitReturn()) {
-        orderedWorkSet.add(node);
-      }
     }
   }
 
@@ -388,6 +521,73 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
     }
   }
 
+  /**
+   * A work list of node indices that always yields the smallest index first.
+   * Membership is tracked in a bit set, so adding a node that is already
+   * pending is a no-op, and the pending indices are kept in a binary min-heap.
+   */
+  private static final class PriorityWorkList {
+    private final BitSet pending = new BitSet();
+    private int[] heap = new int[16];
+    private int size;
+
+    void reset(int capacity) {
+      pending.clear();
+      if (heap.length < capacity) {
+        heap = new int[capacity];
+      }
+      size = 0;
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    void add(int index) {
+      if (pending.get(index)) {
+        return;
+      }
+      pending.set(index);
+      if (size == heap.length) {
+        heap = Arrays.copyOf(heap, size * 2);
+      }
+      int pos = size++;
+      while (pos > 0) {
+        int parent = (pos - 1) >>> 1;
+        if (heap[parent] <= index) {
+          break;
+        }
+        heap[pos] = heap[parent];
+        pos = parent;
+      }
+      heap[pos] = index;
+    }
+
+    int removeFirst() {
+      checkState(size > 0);
+      int first = heap[0];
+      int last = heap[--size];
+      int pos = 0;
+      while (true) {
+        int child = 2 * pos + 1;
+        if (child >= size) {
+          break;
+        }
+        if (child + 1 < size && heap[child + 1] < heap[child]) {
+          child++;
+        }
+        if (last <= heap[child]) {
+          break;
+        }
+        heap[pos] = heap[child];
+        pos = child;
+      }
+      heap[pos] = last;
+      pending.clear(first);
+      return first;
+    }
+  }
+
   /**
    * The exception to be thrown if the analysis has been running for a long
    * number of iterations. Chances are the analysis is not monotonic, a
@@ -405,7 +605,6 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
 
     @Override
     protected void initialize() {
-      orderedWorkSet.clear();
       for (DiGraphNode<N, Branch> node : getCfg().getDirectedGraphNodes()) {
         int outEdgeCount = getCfg().getOutEdges(node.getValue()).size();
         List<L> outLattices = new ArrayList<>();
@@ -414,9 +613,6 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
         }
         node.setAnnotation(new BranchedFlowState<>(
             createInitialEstimateLattice(), outLattices));
-        if (node != getCfg().getImplicitReturn()) {
-          orderedWorkSet.add(node);
-        }
       }
     }
 
@@ -101,6 +101,72 @@ final class DefaultNameGenerator implements NameGenerator {
   private CharPriority[] firstChars;
   private CharPriority[] nonFirstChars;
 
+  /**
+   * The names generated for the current prefix and character order, before
+   * checking for reserved names. Kept across resets that do not change them,
+   * and built again when first needed after deserialization.
+   */
+  @Nullable private transient NameSequence sequence;
+
+  /**
+   * The sequence of names for a prefix and an order of the characters,
+   * without the JavaScript keywords, computed as far as it has been needed.
+   * Issuing a name is then an array lookup plus a check of the reserved
+   * names.
+   */
+  private static final class NameSequence {
+    private static final int INITIAL_CAPACITY = 64;
+
+    final String prefix;
+    final char[] firstChars;
+    final char[] nonFirstChars;
+
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int size = 0;
+    // The index of the next candidate name, counting keywords.
+    private int nextCandidate = 0;
+
+    NameSequence(String prefix, char[] firstChars, char[] nonFirstChars) {
+      this.prefix = prefix;
+      this.firstChars = firstChars;
+      this.nonFirstChars = nonFirstChars;
+    }
+
+    boolean matches(String prefix, char[] firstChars, char[] nonFirstChars) {
+      return this.prefix.equals(prefix)
+          && Arrays.equals(this.firstChars, firstChars)
+          && Arrays.equals(this.nonFirstChars, nonFirstChars);
+    }
+
+    String get(int index) {
+      while (index >= size) {
+        if (size == names.length) {
+          names = Arrays.copyOf(names, size * 2);
+        }
+        String name = getCandidate(nextCandidate++);
+        if (!TokenStream.isKeyword(name)) {
+          names[size++] = name;
+        }
+      }
+      return names[index];
+    }
+
+    private String getCandidate(int i) {
+      StringBuilder name = new StringBuilder(prefix);
+      if (prefix.isEmpty()) {
+        name.append(firstChars[i % firstChars.length]);
+        i /= firstChars.length;
+      }
+
+      while (i > 0) {
+        i--;
+        name.append(nonFirstChars[i % nonFirstChars.length]);
+        i /= nonFirstChars.length;
+      }
+      return name.toString();
+    }
+  }
+
   public DefaultNameGenerator() {
     buildPriorityLookupMap();
     Set<String> reservedNames = Sets.newHashSetWithExpectedSize(0);
@@ -186,6 +252,26 @@ final class DefaultNameGenerator implements NameGenerator {
     Arrays.sort(nonFirstChars);
 
     checkPrefix(prefix);
+
+    if (sequence != null
+        && !sequence.matches(prefix, getNames(firstChars), getNames(nonFirstChars))) {
+      sequence = null;
+    }
+  }
+
+  private NameSequence getSequence() {
+    if (sequence == null) {
+      sequence = new NameSequence(prefix, getNames(firstChars), getNames(nonFirstChars));
+    }
+    return sequence;
+  }
+
+  private static char[] getNames(CharPriority[] chars) {
+    char[] names = new char[chars.length];
+    for (int i = 0; i < chars.length; i++) {
+      names[i] = chars[i].name;
+    }
+    return names;
   }
 
   @Override
@@ -280,28 +366,12 @@ final class DefaultNameGenerator implements NameGenerator {
    */
   @Override
   public String generateNextName() {
+    NameSequence sequence = getSequence();
     String name;
     do {
-      name = prefix;
-      int i = nameCount;
-
-      if (name.isEmpty()) {
-        int pos = i % firstChars.length;
-        name = String.valueOf(firstChars[pos].name);
-        i /= firstChars.length;
-      }
-
-      while (i > 0) {
-        i--;
-        int pos = i % nonFirstChars.length;
-        name += nonFirstChars[pos].name;
-        i /= nonFirstChars.length;
-      }
-
-      nameCount++;
-
-      // Make sure it's not a JS keyword or reserved name.
-    } while (TokenStream.isKeyword(name) || reservedNames.contains(name));
+      // The sequence has no JS keywords, but make sure it's not a reserved name.
+      name = sequence.get(nameCount++);
+    } while (reservedNames.contains(name));
 
     return name;
   }
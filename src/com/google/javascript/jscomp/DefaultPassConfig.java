@@ -96,6 +96,13 @@ public final class DefaultPassConfig extends PassConfig {
    */
   private GlobalNamespace namespaceForChecks = null;
 
+  /**
+   * A global namespace to share between the alias inlining and property
+   * collapsing optimizations. Each pass updates it with the changes made since
+   * the previous one.
+   */
+  private GlobalNamespace namespaceForOptimizations = null;
+
   /**
    * A symbol table for registering references that get removed during
    * preprocessing.
@@ -108,6 +115,12 @@ public final class DefaultPassConfig extends PassConfig {
    */
   private ClosureRewriteModule.GlobalRewriteState moduleRewriteState = null;
 
+  /**
+   * The references collected for cross module code motion, shared across its runs so that a
+   * later run only traverses the scripts that changed since the earlier one.
+   */
+  private CrossModuleReferenceCollector crossModuleReferenceCollector = null;
+
   /**
    * Whether to protect "hidden" side-effects.
    * @see CheckSideEffects
@@ -1524,8 +1537,16 @@ public final class DefaultPassConfig extends PassConfig {
   private final PassFactory aggressiveInlineAliases =
       new PassFactory("aggressiveInlineAliases", true) {
         @Override
-        protected CompilerPass create(AbstractCompiler compiler) {
-          return new AggressiveInlineAliases(compiler);
+        protected CompilerPass create(final AbstractCompiler compiler) {
+          return new CompilerPass() {
+            @Override
+            public void process(Node externs, Node jsRoot) {
+              namespaceForOptimizations = new GlobalNamespace(compiler, jsRoot);
+              new AggressiveInlineAliases(compiler)
+                  .injectNamespace(namespaceForOptimizations)
+                  .process(externs, jsRoot);
+            }
+          };
         }
       };
 
@@ -2414,8 +2435,20 @@ public final class DefaultPassConfig extends PassConfig {
   private final PassFactory collapseProperties =
       new PassFactory(PassNames.COLLAPSE_PROPERTIES, true) {
         @Override
-        protected CompilerPass create(AbstractCompiler compiler) {
-          return new CollapseProperties(compiler);
+        protected CompilerPass create(final AbstractCompiler compiler) {
+          return new CompilerPass() {
+            @Override
+            public void process(Node externs, Node jsRoot) {
+              CollapseProperties collapseProperties = new CollapseProperties(compiler);
+              if (namespaceForOptimizations != null
+                  && namespaceForOptimizations.getRootNode() == jsRoot.getParent()) {
+                collapseProperties.injectNamespace(namespaceForOptimizations);
+              }
+              // This is the last pass to use the namespace.
+              namespaceForOptimizations = null;
+              collapseProperties.process(externs, jsRoot);
+            }
+          };
         }
       };
 
@@ -2525,7 +2558,7 @@ public final class DefaultPassConfig extends PassConfig {
           } else {
             throw new IllegalStateException("No variable inlining option set.");
           }
-          return new InlineVariables(compiler, mode, true);
+          return new InlineVariables(compiler, mode, true, getName());
         }
 
         @Override
@@ -2764,7 +2797,8 @@ public final class DefaultPassConfig extends PassConfig {
             compiler,
             !removeOnlyLocals,
             preserveAnonymousFunctionNames,
-            modifyCallSites);
+            modifyCallSites,
+            getName());
       }
 
       @Override
@@ -2780,10 +2814,16 @@ public final class DefaultPassConfig extends PassConfig {
       new PassFactory(PassNames.CROSS_MODULE_CODE_MOTION, false) {
         @Override
         protected CompilerPass create(AbstractCompiler compiler) {
+          if (crossModuleReferenceCollector == null
+              || !crossModuleReferenceCollector.isForCompiler(compiler)) {
+            crossModuleReferenceCollector =
+                new CrossModuleReferenceCollector(compiler, new Es6SyntacticScopeCreator(compiler));
+          }
           return new CrossModuleCodeMotion(
               compiler,
               compiler.getModuleGraph(),
-              options.parentModuleCanSeeSymbolsDeclaredInChildren);
+              options.parentModuleCanSeeSymbolsDeclaredInChildren,
+              crossModuleReferenceCollector);
         }
       };
 
@@ -3108,6 +3148,7 @@ public final class DefaultPassConfig extends PassConfig {
         reservedChars,
         reservedNames,
         options.nameGenerator);
+    rn.setRenameLocalsPerScope(options.renameLocalsPerScope);
     rn.process(externs, root);
     return rn.getVariableMap();
   }
@@ -28,7 +28,7 @@ import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
 import com.google.javascript.jscomp.AbstractCompiler.LifeCycleStage;
 import com.google.javascript.jscomp.NodeTraversal.AbstractScopedCallback;
-import com.google.javascript.jscomp.graph.StandardUnionFind;
+import com.google.javascript.jscomp.graph.DenseUnionFind;
 import com.google.javascript.jscomp.graph.UnionFind;
 import com.google.javascript.rhino.FunctionTypeI;
 import com.google.javascript.rhino.Node;
@@ -140,6 +140,9 @@ class DisambiguateProperties implements CompilerPass {
   // Cache calls to getTypeWithProperty.
   private Map<String, IdentityHashMap<TypeI, ObjectTypeI>> gtwpCache;
 
+  // Cache calls to TypeI#toString when choosing the new property names.
+  private final Map<TypeI, String> typeNames = new IdentityHashMap<>();
+
   private ObjectTypeI gtwpCacheGet(String field, TypeI type) {
     IdentityHashMap<TypeI, ObjectTypeI> m = gtwpCache.get(field);
     return m == null ? null : m.get(type);
@@ -197,7 +200,7 @@ class DisambiguateProperties implements CompilerPass {
     /** Returns the types on which this field is referenced. */
     UnionFind<TypeI> getTypes() {
       if (types == null) {
-        types = new StandardUnionFind<>();
+        types = new DenseUnionFind<>();
       }
       return types;
     }
@@ -697,6 +700,19 @@ class DisambiguateProperties implements CompilerPass {
     }
   }
 
+  /**
+   * Returns the string form of the given type. Many properties are referenced
+   * from the same types, so the strings are cached.
+   */
+  private String getTypeName(TypeI type) {
+    String name = typeNames.get(type);
+    if (name == null) {
+      name = type.toString();
+      typeNames.put(type, name);
+    }
+    return name;
+  }
+
   /**
    * Chooses a name to use for renaming in each equivalence class and maps
    * the representative type of that class to that name.
@@ -710,7 +726,7 @@ class DisambiguateProperties implements CompilerPass {
       TypeI representative = pTypes.find(set.iterator().next());
       String typeName = null;
       for (TypeI type : set) {
-        String typeString = type.toString();
+        String typeString = getTypeName(type);
         if (typeName == null || typeString.compareTo(typeName) < 0) {
           typeName = typeString;
         }
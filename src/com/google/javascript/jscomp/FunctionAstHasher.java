@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.javascript.rhino.Node;
+import javax.annotation.Nullable;
+
+/**
+ * Hashes the AST of a function, so that what was learned about the function in
+ * an earlier compilation is only reused while the function is unchanged.
+ *
+ * <p>The hash covers the tokens, names and literals of the function's
+ * subtree, and the side effect flags of its calls, which {@link
+ * PureFunctionIdentifier} relies on. It does not depend on source positions.
+ *
+ * @see FunctionSideEffectSummary
+ */
+final class FunctionAstHasher {
+
+  private FunctionAstHasher() {}
+
+  /** Returns the hash of a function's AST, or null if functions cannot be hashed. */
+  @Nullable
+  static String hash(Node function) {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    putNode(hasher, function);
+    return hasher.hash().toString();
+  }
+
+  private static void putNode(Hasher hasher, Node n) {
+    // The token and, for names, strings and numbers, the value.
+    String label = n.toString(false, false, false);
+    hasher.putInt(label.length()).putString(label, UTF_8).putInt(n.getChildCount());
+    if (n.isCall() || n.isNew()) {
+      hasher.putInt(n.getSideEffectFlags()).putBoolean(n.getBooleanProp(Node.FREE_CALL));
+    }
+    for (Node child = n.getFirstChild(); child != null; child = child.getNext()) {
+      putNode(hasher, child);
+    }
+  }
+}
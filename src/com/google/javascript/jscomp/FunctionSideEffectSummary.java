@@ -0,0 +1,333 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+/**
+ * Side effect summaries of the function bodies of a compilation, saved so that
+ * a later compilation does not need to analyze the unchanged ones again.
+ *
+ * <p>The summary of a function records what {@link PureFunctionIdentifier}
+ * learned from its body alone: the side effects of the body itself and, for
+ * each call in the body, the names of the functions it may call. The effects
+ * of the callees are not included, so a summary stays valid when other files
+ * change, and the side effects are propagated through the calls again in every
+ * compilation. Functions are keyed by their source file and qualified name,
+ * and each summary records a hash of the function's AST as it was when the
+ * function was analyzed; a summary is only used while the function's AST has
+ * the same hash, so functions changed by earlier passes are analyzed again.
+ *
+ * <p>Calls to the methods of regular expression literals are only free of side
+ * effects when the program does not read the global properties of
+ * {@code RegExp}, so summaries made for such a program are not used for
+ * programs that do.
+ *
+ * @see CompilerOptions#setInputFunctionSideEffectSummary
+ * @see Compiler#getFunctionSideEffectSummary
+ */
+public final class FunctionSideEffectSummary {
+
+  private static final char SEPARATOR = '\t';
+  private static final Joiner JOINER = Joiner.on(SEPARATOR);
+  private static final Splitter FIELD_SPLITTER = Splitter.on(SEPARATOR);
+  private static final Splitter LINE_SPLITTER = Splitter.onPattern("\\r?\\n").omitEmptyStrings();
+
+  /** Whether the summarized program referenced the global properties of RegExp. */
+  private final boolean hasRegExpGlobalReferences;
+
+  /** Function summaries by qualified name, by file name. */
+  private final ImmutableSortedMap<String, ImmutableSortedMap<String, FunctionSummary>> files;
+
+  private FunctionSideEffectSummary(
+      boolean hasRegExpGlobalReferences,
+      ImmutableSortedMap<String, ImmutableSortedMap<String, FunctionSummary>> files) {
+    this.hasRegExpGlobalReferences = hasRegExpGlobalReferences;
+    this.files = files;
+  }
+
+  /**
+   * Returns whether the summaries can be used for a program, which depends on
+   * whether it references the global properties of RegExp.
+   */
+  boolean isUsableFor(boolean programHasRegExpGlobalReferences) {
+    return hasRegExpGlobalReferences || !programHasRegExpGlobalReferences;
+  }
+
+  /**
+   * Returns the summary of the function with the given qualified name in the
+   * given file, or null if there is none or the function has changed.
+   *
+   * @param functionHash The hash of the function's current AST, as returned by
+   *     {@link FunctionAstHasher#hash}.
+   */
+  @Nullable
+  FunctionSummary getFunction(String fileName, String functionName, String functionHash) {
+    Map<String, FunctionSummary> functions = files.get(fileName);
+    if (functions == null) {
+      return null;
+    }
+    FunctionSummary function = functions.get(functionName);
+    return function != null && function.hash.equals(functionHash) ? function : null;
+  }
+
+  /** Saves the summary to a file. */
+  @GwtIncompatible("com.google.io.Files")
+  public void save(String filename) throws IOException {
+    Files.write(toBytes(), new File(filename));
+  }
+
+  /** Reads a summary from a file written by {@link #save(String)}. */
+  @GwtIncompatible("java.io.File")
+  public static FunctionSideEffectSummary load(String filename) throws IOException {
+    try {
+      return fromBytes(Files.toByteArray(new File(filename)));
+    } catch (ParseException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * Serializes the summary to a byte array. The format is one tab separated
+   * record per line: a {@code regexp} record that says whether the program
+   * referenced the global properties of RegExp, then a {@code file} record
+   * with the name of each file, followed by a {@code function} record with the
+   * qualified name, AST hash and side effect bits of each of its functions,
+   * each followed by a {@code call} record per call in the function's body.
+   * Backslashes, tabs and line breaks in names are escaped with a backslash.
+   */
+  public byte[] toBytes() {
+    StringBuilder sb = new StringBuilder();
+    appendLine(sb, "regexp", hasRegExpGlobalReferences ? "1" : "0");
+    for (Map.Entry<String, ImmutableSortedMap<String, FunctionSummary>> file
+        : files.entrySet()) {
+      appendLine(sb, "file", escape(file.getKey()));
+      for (Map.Entry<String, FunctionSummary> function : file.getValue().entrySet()) {
+        appendLine(
+            sb,
+            "function",
+            escape(function.getKey()),
+            escape(function.getValue().hash),
+            Integer.toString(function.getValue().sideEffects));
+        for (CallSummary call : function.getValue().calls) {
+          sb.append("call").append(SEPARATOR)
+              .append(call.isNew ? "new" : "call").append(SEPARATOR)
+              .append(call.allArgsUnescapedLocal ? 1 : 0).append(SEPARATOR)
+              .append(call.calleeThisEqualsCallerThis ? 1 : 0);
+          for (String callee : call.callees) {
+            sb.append(SEPARATOR).append(escape(callee));
+          }
+          sb.append('\n');
+        }
+      }
+    }
+    return sb.toString().getBytes(UTF_8);
+  }
+
+  private static void appendLine(StringBuilder sb, String... fields) {
+    JOINER.appendTo(sb, fields).append('\n');
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\")
+        .replace("\t", "\\t")
+        .replace("\r", "\\r")
+        .replace("\n", "\\n");
+  }
+
+  private static String unescape(String value) {
+    if (value.indexOf('\\') == -1) {
+      return value;
+    }
+    StringBuilder sb = new StringBuilder();
+    int len = value.length();
+    for (int i = 0; i < len; i++) {
+      char c = value.charAt(i);
+      if (c == '\\' && ++i < len) {
+        c = value.charAt(i);
+        if (c == 't') {
+          c = '\t';
+        } else if (c == 'r') {
+          c = '\r';
+        } else if (c == 'n') {
+          c = '\n';
+        }
+      }
+      sb.append(c);
+    }
+    return sb.toString();
+  }
+
+  /** Deserializes a summary from a byte array returned by {@link #toBytes()}. */
+  public static FunctionSideEffectSummary fromBytes(byte[] bytes) throws ParseException {
+    Builder builder = null;
+    String fileName = null;
+    String functionName = null;
+    String functionHash = null;
+    int sideEffects = 0;
+    ImmutableList.Builder<CallSummary> calls = null;
+    for (String line : LINE_SPLITTER.split(new String(bytes, UTF_8))) {
+      List<String> fields = FIELD_SPLITTER.splitToList(line);
+      try {
+        switch (fields.get(0)) {
+          case "regexp":
+            if (builder != null) {
+              break;
+            }
+            builder = new Builder(fields.get(1).equals("1"));
+            continue;
+          case "file":
+            if (builder == null) {
+              break;
+            }
+            if (functionName != null) {
+              builder.addFunction(fileName, functionName, functionHash, sideEffects, calls.build());
+              functionName = null;
+            }
+            fileName = unescape(fields.get(1));
+            continue;
+          case "function":
+            if (fileName == null) {
+              break;
+            }
+            if (functionName != null) {
+              builder.addFunction(fileName, functionName, functionHash, sideEffects, calls.build());
+            }
+            functionName = unescape(fields.get(1));
+            functionHash = unescape(fields.get(2));
+            sideEffects = Integer.parseInt(fields.get(3));
+            calls = ImmutableList.builder();
+            continue;
+          case "call":
+            if (functionName == null || fields.size() < 5) {
+              break;
+            }
+            calls.add(
+                new CallSummary(
+                    unescapeAll(fields.subList(4, fields.size())),
+                    fields.get(2).equals("1"),
+                    fields.get(3).equals("1"),
+                    fields.get(1).equals("new")));
+            continue;
+          default:
+            break;
+        }
+      } catch (IndexOutOfBoundsException | NumberFormatException e) {
+        // Reported below.
+      }
+      throw new ParseException("Bad line: " + line, 0);
+    }
+    if (builder == null) {
+      throw new ParseException("Missing regexp record", 0);
+    }
+    if (functionName != null) {
+      builder.addFunction(fileName, functionName, functionHash, sideEffects, calls.build());
+    }
+    return builder.build();
+  }
+
+  private static List<String> unescapeAll(List<String> values) {
+    List<String> result = new ArrayList<>(values.size());
+    for (String value : values) {
+      result.add(unescape(value));
+    }
+    return result;
+  }
+
+  /** What the body of one function does, ignoring the functions it calls. */
+  static final class FunctionSummary {
+    /** The hash of the function's AST when it was analyzed. */
+    final String hash;
+    /** The side effect bits of the body, as used by {@link PureFunctionIdentifier}. */
+    final int sideEffects;
+    final ImmutableList<CallSummary> calls;
+
+    FunctionSummary(String hash, int sideEffects, List<CallSummary> calls) {
+      this.hash = hash;
+      this.sideEffects = sideEffects;
+      this.calls = ImmutableList.copyOf(calls);
+    }
+  }
+
+  /** A call in the body of a summarized function. */
+  static final class CallSummary {
+    /** The qualified names of the functions that may be called. */
+    final ImmutableList<String> callees;
+    final boolean allArgsUnescapedLocal;
+    final boolean calleeThisEqualsCallerThis;
+    final boolean isNew;
+
+    CallSummary(
+        List<String> callees,
+        boolean allArgsUnescapedLocal,
+        boolean calleeThisEqualsCallerThis,
+        boolean isNew) {
+      this.callees = ImmutableList.copyOf(callees);
+      this.allArgsUnescapedLocal = allArgsUnescapedLocal;
+      this.calleeThisEqualsCallerThis = calleeThisEqualsCallerThis;
+      this.isNew = isNew;
+    }
+  }
+
+  /** Collects function summaries, in any order. */
+  static final class Builder {
+    private final boolean hasRegExpGlobalReferences;
+    private final Map<String, Map<String, FunctionSummary>> functions = new TreeMap<>();
+
+    Builder(boolean hasRegExpGlobalReferences) {
+      this.hasRegExpGlobalReferences = hasRegExpGlobalReferences;
+    }
+
+    void addFunction(
+        String fileName,
+        String functionName,
+        String functionHash,
+        int sideEffects,
+        List<CallSummary> calls) {
+      Map<String, FunctionSummary> functionsInFile = functions.get(fileName);
+      if (functionsInFile == null) {
+        functionsInFile = new TreeMap<>();
+        functions.put(fileName, functionsInFile);
+      }
+      functionsInFile.put(functionName, new FunctionSummary(functionHash, sideEffects, calls));
+    }
+
+    FunctionSideEffectSummary build() {
+      ImmutableSortedMap.Builder<String, ImmutableSortedMap<String, FunctionSummary>> files =
+          ImmutableSortedMap.naturalOrder();
+      for (Map.Entry<String, Map<String, FunctionSummary>> entry : functions.entrySet()) {
+        files.put(entry.getKey(), ImmutableSortedMap.copyOf(entry.getValue()));
+      }
+      return new FunctionSideEffectSummary(hasRegExpGlobalReferences, files.build());
+    }
+  }
+}
@@ -35,22 +35,30 @@ import com.google.javascript.rhino.jstype.StaticTypedSlot;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 
 /**
  * Builds a global namespace of all the objects and their properties in
  * the global scope. Also builds an index of all the references to those names.
  *
+ * <p>A namespace that is shared by several passes is kept up to date with
+ * {@link #update}, which only traverses the scripts that changed since the
+ * namespace was last updated.
+ *
  * @author nicksantos@google.com (Nick Santos)
  */
 class GlobalNamespace
     implements StaticTypedScope<TypeI>,
     StaticSymbolTable<GlobalNamespace.Name, GlobalNamespace.Ref> {
 
+  private static final AtomicInteger instanceCount = new AtomicInteger();
+
   private final AbstractCompiler compiler;
   private final Node root;
   private final Node externsRoot;
@@ -58,6 +66,18 @@ class GlobalNamespace
   private Scope externsScope;
   private boolean generated = false;
 
+  /** The name under which {@link #update} asks the compiler for changes. */
+  private final String changeTrackingName = "GlobalNamespace" + instanceCount.incrementAndGet();
+
+  /**
+   * The references found in each script, as of the last time {@link #update}
+   * traversed the script. Null until the first update.
+   */
+  private Map<Node, List<RefRecord>> recordsByScript = null;
+
+  /** The names of the global variables at the last update. */
+  private Set<String> recordedGlobalVarNames = null;
+
   /**
    * Each reference has an index in post-order.
    * Notice that some nodes are represented by 2 Ref objects, so
@@ -229,6 +249,95 @@ class GlobalNamespace
     builder.collect(module, scope, n);
   }
 
+  /**
+   * Brings the namespace up to date with the AST.
+   *
+   * <p>The references found in each script are kept, so only the scripts that
+   * changed since the last update are traversed again. The names and their
+   * references are then rebuilt from the references of all the scripts, in
+   * the order of the scripts, so they are the same as if the whole AST had been
+   * traversed. All the scripts are traversed again when the set of global
+   * variables changes, since that can change which names in the unchanged
+   * scripts are global.
+   *
+   * <p>The {@link Name} and {@link Ref} objects obtained before an update are
+   * not part of the namespace after it.
+   */
+  void update() {
+    List<Node> changedScopeNodes = compiler.getChangedScopeNodesForPass(changeTrackingName);
+    ScopeCreator scopeCreator = new Es6SyntacticScopeCreator(compiler);
+    Scope externsGlobalScope =
+        hasExternsRoot() ? scopeCreator.createScope(externsRoot, null) : null;
+    Scope globalScope = scopeCreator.createScope(root, null);
+    Set<String> globalVarNames = new HashSet<>();
+    for (Var v : globalScope.getVarIterable()) {
+      globalVarNames.add(v.getName());
+    }
+    if (externsGlobalScope != null) {
+      for (Var v : externsGlobalScope.getVarIterable()) {
+        globalVarNames.add(v.getName());
+      }
+    }
+
+    Map<Node, List<RefRecord>> previousRecords = new HashMap<>();
+    if (changedScopeNodes != null
+        && recordsByScript != null
+        && globalVarNames.equals(recordedGlobalVarNames)) {
+      previousRecords.putAll(recordsByScript);
+      for (Node changedScopeNode : changedScopeNodes) {
+        Node script = NodeUtil.getEnclosingScript(changedScopeNode);
+        if (script == null) {
+          // A detached scope; we cannot tell which script it came from.
+          previousRecords.clear();
+          break;
+        }
+        previousRecords.remove(script);
+      }
+    }
+    recordsByScript = new HashMap<>();
+    recordedGlobalVarNames = globalVarNames;
+
+    globalNames.clear();
+    nameMap.clear();
+    currentPreOrderIndex = 0;
+    BuildGlobalNamespace builder = new BuildGlobalNamespace();
+    externsScope = externsGlobalScope;
+    if (hasExternsRoot()) {
+      inExterns = true;
+      updateScripts(builder, scopeCreator, externsRoot, externsGlobalScope, previousRecords);
+    }
+    inExterns = false;
+    updateScripts(builder, scopeCreator, root, globalScope, previousRecords);
+    generated = true;
+    externsScope = null;
+  }
+
+  /**
+   * Adds the references of the scripts under the given root to the namespace,
+   * traversing the scripts that have no previous records.
+   */
+  private void updateScripts(
+      BuildGlobalNamespace builder,
+      ScopeCreator scopeCreator,
+      Node scriptsRoot,
+      Scope globalScope,
+      Map<Node, List<RefRecord>> previousRecords) {
+    for (Node script = scriptsRoot.getFirstChild(); script != null; script = script.getNext()) {
+      List<RefRecord> records = previousRecords.get(script);
+      if (records == null) {
+        builder.records = new ArrayList<>();
+        new NodeTraversal(compiler, builder, scopeCreator).traverseWithScope(script, globalScope);
+        records = builder.records;
+        builder.records = null;
+      } else {
+        for (RefRecord record : records) {
+          builder.addRefs(record);
+        }
+      }
+      recordsByScript.put(script, records);
+    }
+  }
+
   /**
    * Builds the namespace lazily.
    */
@@ -288,6 +397,9 @@ class GlobalNamespace
 
   /** Builds a tree representation of the global namespace. Omits prototypes. */
   private class BuildGlobalNamespace extends NodeTraversal.AbstractPreOrderCallback {
+    /** If not null, the references found are also recorded here. */
+    List<RefRecord> records = null;
+
     /** Collect the references in pre-order. */
     @Override
     public boolean shouldTraverse(NodeTraversal t, Node n, Node parent) {
@@ -598,23 +710,19 @@ class GlobalNamespace
         return;
       }
 
-      Name nameObj = getOrCreateName(name, shouldCreateProp);
-      nameObj.type = type;
-
-      Ref set = new Ref(module, scope, n, nameObj, Ref.Type.SET_FROM_GLOBAL,
-          currentPreOrderIndex++);
-      nameObj.addRef(set);
-
-      if (isNestedAssign(parent)) {
-        // This assignment is both a set and a get that creates an alias.
-        Ref get = new Ref(module, scope, n, nameObj, Ref.Type.ALIASING_GET,
-            currentPreOrderIndex++);
-        nameObj.addRef(get);
-        Ref.markTwins(set, get);
-      } else if (isTypeDeclaration(n)) {
-        // Names with a @constructor or @enum annotation are always collapsed
-        nameObj.setDeclaredType();
-      }
+      // This assignment may be both a set and a get that creates an alias.
+      boolean isNestedAssign = isNestedAssign(parent);
+      addRefs(
+          new RefRecord(
+              module,
+              scope,
+              n,
+              name,
+              Ref.Type.SET_FROM_GLOBAL,
+              type,
+              shouldCreateProp,
+              isNestedAssign,
+              !isNestedAssign && isTypeDeclaration(n)));
     }
 
     /**
@@ -653,18 +761,17 @@ class GlobalNamespace
         return;
       }
 
-      Name nameObj = getOrCreateName(name, shouldCreateProp);
-      Ref set = new Ref(module, scope, n, nameObj,
-          Ref.Type.SET_FROM_LOCAL, currentPreOrderIndex++);
-      nameObj.addRef(set);
-
-      if (isNestedAssign(parent)) {
-        // This assignment is both a set and a get that creates an alias.
-        Ref get = new Ref(module, scope, n, nameObj,
-            Ref.Type.ALIASING_GET, currentPreOrderIndex++);
-        nameObj.addRef(get);
-        Ref.markTwins(set, get);
-      }
+      addRefs(
+          new RefRecord(
+              module,
+              scope,
+              n,
+              name,
+              Ref.Type.SET_FROM_LOCAL,
+              Name.Type.OTHER,
+              shouldCreateProp,
+              isNestedAssign(parent),
+              false));
     }
 
     /**
@@ -829,11 +936,38 @@ class GlobalNamespace
      */
     void handleGet(JSModule module, Scope scope, Node n, Node parent,
         String name, Ref.Type type, boolean shouldCreateProp) {
-      Name nameObj = getOrCreateName(name, shouldCreateProp);
+      addRefs(
+          new RefRecord(
+              module, scope, n, name, type, Name.Type.OTHER, shouldCreateProp, false, false));
+    }
 
-      // No need to look up additional ancestors, since they won't be used.
-      nameObj.addRef(
-          new Ref(module, scope, n, nameObj, type, currentPreOrderIndex++));
+    /**
+     * Adds the references described by a record to the namespace, and records
+     * it if the builder is recording.
+     */
+    void addRefs(RefRecord record) {
+      if (records != null) {
+        records.add(record);
+      }
+      Name nameObj = getOrCreateName(record.name, record.shouldCreateProp);
+      if (record.type == Ref.Type.SET_FROM_GLOBAL) {
+        nameObj.type = record.valueType;
+      }
+
+      Ref ref = new Ref(
+          record.module, record.scope, record.node, nameObj, record.type, currentPreOrderIndex++);
+      nameObj.addRef(ref);
+
+      if (record.isNestedAssign) {
+        // This assignment is both a set and a get that creates an alias.
+        Ref get = new Ref(record.module, record.scope, record.node, nameObj,
+            Ref.Type.ALIASING_GET, currentPreOrderIndex++);
+        nameObj.addRef(get);
+        Ref.markTwins(ref, get);
+      } else if (record.isTypeDeclaration) {
+        // Names with a @constructor or @enum annotation are always collapsed
+        nameObj.setDeclaredType();
+      }
     }
 
     /**
@@ -925,6 +1059,46 @@ class GlobalNamespace
     }
   }
 
+  /**
+   * What the traversal found out about one reference, which is enough to add
+   * the reference to the namespace again without traversing the AST.
+   */
+  private static final class RefRecord {
+    final JSModule module;
+    final Scope scope;
+    final Node node;
+    final String name;
+    final Ref.Type type;
+    /** The type of the value of a set from the global scope. */
+    final Name.Type valueType;
+    final boolean shouldCreateProp;
+    /** Whether the set is also a get that creates an alias. */
+    final boolean isNestedAssign;
+    /** Whether the set declares a constructor, interface or enum. */
+    final boolean isTypeDeclaration;
+
+    RefRecord(
+        JSModule module,
+        Scope scope,
+        Node node,
+        String name,
+        Ref.Type type,
+        Name.Type valueType,
+        boolean shouldCreateProp,
+        boolean isNestedAssign,
+        boolean isTypeDeclaration) {
+      this.module = module;
+      this.scope = scope;
+      this.node = node;
+      this.name = name;
+      this.type = type;
+      this.valueType = valueType;
+      this.shouldCreateProp = shouldCreateProp;
+      this.isNestedAssign = isNestedAssign;
+      this.isTypeDeclaration = isTypeDeclaration;
+    }
+  }
+
   // -------------------------------------------------------------------------
 
   /**
@@ -25,16 +25,19 @@ import com.google.common.base.Predicates;
 import com.google.common.base.Supplier;
 import com.google.javascript.jscomp.FunctionInjector.CanInlineResult;
 import com.google.javascript.jscomp.FunctionInjector.InliningMode;
-import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
 import com.google.javascript.jscomp.NodeTraversal.Callback;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -63,6 +66,18 @@ class InlineFunctions implements CompilerPass {
   private final Map<String, FunctionState> fns = new LinkedHashMap<>();
   private final Map<Node, String> anonFns = new HashMap<>();
 
+  /**
+   * The index of call sites: every reference added to a candidate, in the order the call sites
+   * were found, which is the order in which they are inlined.
+   */
+  private final List<Reference> callSites = new ArrayList<>();
+
+  /**
+   * The names of the functions that may be called from the body of each function, as found by
+   * {@link #isCandidateUsage}.
+   */
+  private final Map<Node, Set<String>> calledNamesByFunction = new HashMap<>();
+
   private final AbstractCompiler compiler;
 
   private final FunctionInjector injector;
@@ -142,7 +157,7 @@ class InlineFunctions implements CompilerPass {
     }
     resolveInlineConflicts();
     decomposeExpressions();
-    NodeTraversal.traverseEs6(compiler, root, new CallVisitor(fns, anonFns, new Inline(injector)));
+    inlineCallSites();
 
     removeInlinedFunctions();
   }
@@ -387,7 +402,7 @@ class InlineFunctions implements CompilerPass {
   }
 
   /** Visit call sites for functions in functionMap. */
-  private static class CallVisitor extends AbstractPostOrderCallback {
+  private static class CallVisitor implements Callback {
 
     protected CallVisitorCallback callback;
     private final Map<String, FunctionState> functionMap;
@@ -400,6 +415,11 @@ class InlineFunctions implements CompilerPass {
       this.callback = callback;
     }
 
+    @Override
+    public boolean shouldTraverse(NodeTraversal t, Node n, Node parent) {
+      return true;
+    }
+
     @Override
     public void visit(NodeTraversal t, Node n, Node parent) {
       switch (n.getToken()) {
@@ -477,18 +497,48 @@ class InlineFunctions implements CompilerPass {
     return false;
   }
 
-  /** Find references to functions that are inlinable. */
+  /**
+   * Find references to functions that are inlinable, and the names of the functions that may be
+   * called from each function body.
+   */
   private class FindCandidatesReferences extends CallVisitor implements CallVisitorCallback {
+    /** The names called from the bodies of the functions the traversal is in. */
+    private final Deque<Set<String>> calledNamesStack = new ArrayDeque<>();
+
     FindCandidatesReferences(Map<String, FunctionState> fns, Map<Node, String> anonFns) {
       super(fns, anonFns, null);
       this.callback = this;
     }
 
+    @Override
+    public boolean shouldTraverse(NodeTraversal t, Node n, Node parent) {
+      if (isFunctionBody(n, parent)) {
+        calledNamesStack.push(new HashSet<String>());
+      }
+      return true;
+    }
+
     @Override
     public void visit(NodeTraversal t, Node n, Node parent) {
       super.visit(t, n, parent);
       if (n.isName()) {
-        checkNameUsage(n, parent);
+        if (isCandidateUsage(n)) {
+          if (!calledNamesStack.isEmpty()) {
+            calledNamesStack.peek().add(n.getString());
+          }
+        } else {
+          checkNameUsage(n, parent);
+        }
+      }
+      if (isFunctionBody(n, parent)) {
+        // Names called from a nested function are also called from the functions around it.
+        Set<String> calledNames = calledNamesStack.pop();
+        if (!calledNames.isEmpty()) {
+          calledNamesByFunction.put(parent, calledNames);
+          if (!calledNamesStack.isEmpty()) {
+            calledNamesStack.peek().addAll(calledNames);
+          }
+        }
       }
     }
 
@@ -546,6 +596,8 @@ class InlineFunctions implements CompilerPass {
         // Yeah!
         candidate.setRequiresDecomposition(result == CanInlineResult.AFTER_PREPARATION);
         functionState.addReference(candidate);
+        candidate.functionState = functionState;
+        callSites.add(candidate);
         return true;
       }
 
@@ -556,10 +608,6 @@ class InlineFunctions implements CompilerPass {
     private void checkNameUsage(Node n, Node parent) {
       checkState(n.isName(), n);
 
-      if (isCandidateUsage(n)) {
-        return;
-      }
-
       // Other refs to a function name remove its candidacy for inlining
       String name = n.getString();
       FunctionState functionState = fns.get(name);
@@ -594,45 +642,45 @@ class InlineFunctions implements CompilerPass {
     }
   }
 
-  /** Inline functions at the call sites. */
-  private static class Inline implements CallVisitorCallback {
-    private final FunctionInjector injector;
-
-    Inline(FunctionInjector injector) {
-      this.injector = injector;
-    }
+  private static boolean isFunctionBody(Node n, Node parent) {
+    return parent != null && parent.isFunction() && n == parent.getLastChild();
+  }
 
-    @Override
-    public void visitCallSite(NodeTraversal t, Node callNode, FunctionState functionState) {
-      checkState(functionState.hasExistingFunctionDefinition());
-      if (functionState.canInline()) {
-        Reference ref = functionState.getReference(callNode);
-
-        // There are two cases ref can be null: if the call site was introduced
-        // because it was part of a function that was inlined during this pass
-        // or if the call site was trimmed from the list of references because
-        // the function couldn't be inlined at this location.
-        if (ref != null) {
-          inlineFunction(t, ref, functionState);
-          // Keep track of references that have been inlined so that
-          // we can verify that none have been missed.
-          ref.inlined = true;
-        }
+  /**
+   * Inline functions at the call sites, using the index of call sites instead of traversing the
+   * AST again. The call sites are visited in the order they were found, which is the order of a
+   * post-order traversal.
+   */
+  private void inlineCallSites() {
+    for (Reference ref : callSites) {
+      FunctionState functionState = ref.functionState;
+      // The reference may have been trimmed because the function couldn't be inlined at this
+      // location, or the function may have been dropped from the candidates.
+      if (functionState.canInline()
+          && functionState.getReference(ref.callNode) == ref
+          && fns.get(functionState.getFn().getName()) == functionState
+          // A call site in code that has been removed is not inlined, which
+          // verifyAllReferencesInlined reports.
+          && NodeUtil.getEnclosingScript(ref.callNode) != null) {
+        inlineFunction(ref, functionState);
+        // Keep track of references that have been inlined so that
+        // we can verify that none have been missed.
+        ref.inlined = true;
       }
     }
+  }
 
-    /** Inline a function into the call site. */
-    private void inlineFunction(NodeTraversal t, Reference ref, FunctionState functionState) {
-      Function fn = functionState.getFn();
-      String fnName = fn.getName();
-      Node fnNode = functionState.getSafeFnNode();
+  /** Inline a function into the call site. */
+  private void inlineFunction(Reference ref, FunctionState functionState) {
+    Function fn = functionState.getFn();
+    String fnName = fn.getName();
+    Node fnNode = functionState.getSafeFnNode();
 
-      Node newExpr = injector.inline(ref, fnName, fnNode);
-      if (!newExpr.isEquivalentTo(ref.callNode)) {
-        t.getCompiler().reportChangeToEnclosingScope(newExpr);
-      }
-      t.getCompiler().addToDebugLog("Inlined function: ", fn.getName());
+    Node newExpr = injector.inline(ref, fnName, fnNode);
+    if (!newExpr.isEquivalentTo(ref.callNode)) {
+      compiler.reportChangeToEnclosingScope(newExpr);
     }
+    compiler.addToDebugLog("Inlined function: ", fn.getName());
   }
 
   /** Remove entries that aren't a valid inline candidates, from the list of encountered names. */
@@ -782,8 +830,8 @@ class InlineFunctions implements CompilerPass {
     }
 
     Node fnNode = functionState.getFn().getFunctionNode();
-    Set<String> names = findCalledFunctions(fnNode);
-    if (!names.isEmpty()) {
+    Set<String> names = calledNamesByFunction.get(fnNode);
+    if (names != null) {
       // Prevent the removal of the referenced functions.
       for (String name : names) {
         FunctionState fsCalled = fns.get(name);
@@ -803,26 +851,6 @@ class InlineFunctions implements CompilerPass {
     }
   }
 
-  /** This functions that may be called directly. */
-  private Set<String> findCalledFunctions(Node node) {
-    Set<String> changed = new HashSet<>();
-    findCalledFunctions(NodeUtil.getFunctionBody(node), changed);
-    return changed;
-  }
-
-  /** @see #findCalledFunctions(Node) */
-  private static void findCalledFunctions(Node node, Set<String> changed) {
-    checkArgument(changed != null);
-    // For each referenced function, add a new reference
-    if (node.isName() && isCandidateUsage(node)) {
-      changed.add(node.getString());
-    }
-
-    for (Node c = node.getFirstChild(); c != null; c = c.getNext()) {
-      findCalledFunctions(c, changed);
-    }
-  }
-
   /**
    * For any call-site that needs it, prepare the call-site for inlining by rewriting the containing
    * expression.
@@ -1123,6 +1151,8 @@ class InlineFunctions implements CompilerPass {
   static class Reference extends FunctionInjector.Reference {
     boolean requiresDecomposition = false;
     boolean inlined = false;
+    /** The candidate function called at this call site. */
+    private FunctionState functionState = null;
 
     Reference(Node callNode, Scope scope, JSModule module, InliningMode mode) {
       super(callNode, scope, module, mode);
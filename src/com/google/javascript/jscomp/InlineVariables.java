@@ -31,6 +31,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * Using the infrastructure provided by VariableReferencePass, identify
@@ -66,15 +67,32 @@ class InlineVariables implements CompilerPass {
   // Inlines all strings, even if they increase the size of the gzipped binary.
   private final boolean inlineAllStrings;
 
+  // The name under which changes are tracked between runs, or null to always look at the
+  // whole AST.
+  @Nullable private final String passName;
+
   private final IdentifyConstants identifyConstants = new IdentifyConstants();
 
   InlineVariables(
       AbstractCompiler compiler,
       Mode mode,
       boolean inlineAllStrings) {
+    this(compiler, mode, inlineAllStrings, null);
+  }
+
+  /**
+   * @param passName If non-null and the mode is {@link Mode#LOCALS_ONLY}, runs after the first
+   *     one only look at the functions changed since the previous run with the same name.
+   */
+  InlineVariables(
+      AbstractCompiler compiler,
+      Mode mode,
+      boolean inlineAllStrings,
+      @Nullable String passName) {
     this.compiler = compiler;
     this.mode = mode;
     this.inlineAllStrings = inlineAllStrings;
+    this.passName = passName;
   }
 
   @Override
@@ -85,7 +103,18 @@ class InlineVariables implements CompilerPass {
             new InliningBehavior(),
             new Es6SyntacticScopeCreator(compiler),
             getFilterForMode());
-    callback.process(externs, root);
+    // All references to a local variable are inside its outermost enclosing function (or its
+    // script, for block scoped variables in global code), so inlining opportunities for locals
+    // can only appear where something changed.
+    List<Node> changedTrees = null;
+    if (mode == Mode.LOCALS_ONLY && passName != null) {
+      changedTrees = NodeTraversal.getChangedScopeTreeRoots(compiler, passName);
+    }
+    if (changedTrees == null) {
+      callback.process(externs, root);
+    } else {
+      callback.processTrees(root, changedTrees);
+    }
   }
 
   private Predicate<Var> getFilterForMode() {
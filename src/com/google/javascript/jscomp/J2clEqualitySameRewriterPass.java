@@ -15,8 +15,12 @@
  */
 package com.google.javascript.jscomp;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
+import java.util.Set;
 
 /** An optimization pass to re-write J2CL Equality.$same. */
 public class J2clEqualitySameRewriterPass extends AbstractPeepholeOptimization {
@@ -35,6 +39,14 @@ public class J2clEqualitySameRewriterPass extends AbstractPeepholeOptimization {
     shouldRunJ2clPasses = J2clSourceFileChecker.shouldRunJ2clPasses(compiler);
   }
 
+  private static final ImmutableSet<Token> TOKENS =
+      Sets.immutableEnumSet(Token.CALL);
+
+  @Override
+  Set<Token> getTokens() {
+    return TOKENS;
+  }
+
   @Override
   Node optimizeSubtree(Node node) {
     if (!shouldRunJ2clPasses) {
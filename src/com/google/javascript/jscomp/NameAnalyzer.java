@@ -23,7 +23,6 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
-import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -36,18 +35,15 @@ import com.google.javascript.jscomp.GatherSideEffectSubexpressionsCallback.GetRe
 import com.google.javascript.jscomp.GatherSideEffectSubexpressionsCallback.SideEffectAccumulator;
 import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
 import com.google.javascript.jscomp.NodeTraversal.Callback;
-import com.google.javascript.jscomp.graph.DiGraph.DiGraphEdge;
-import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
-import com.google.javascript.jscomp.graph.LinkedDirectedGraph;
 import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -94,9 +90,11 @@ final class NameAnalyzer implements CompilerPass {
   /** Map of all JS names found */
   private final Map<String, JsName> allNames = new HashMap<>();
 
-  /** Reference dependency graph */
-  private LinkedDirectedGraph<JsName, RefType> referenceGraph =
-      LinkedDirectedGraph.createWithoutAnnotations();
+  /** All JS names found, indexed by their id */
+  private final List<JsName> namesById = new ArrayList<>();
+
+  /** Reference dependency graph, over the ids of the names */
+  private final ReferenceGraph referenceGraph = new ReferenceGraph();
 
   /**
    * Map of name scopes - all children of the Node key have a dependency on the
@@ -218,13 +216,17 @@ final class NameAnalyzer implements CompilerPass {
    * Struct to hold information about a fully qualified JS name
    */
   private static class JsName implements Comparable<JsName> {
-    JsName(String name) {
+    JsName(String name, int id) {
       this.name = name;
+      this.id = id;
     }
 
     /** Fully qualified name */
     final String name;
 
+    /** Index of this name in the reference graph */
+    final int id;
+
     /** Name of prototype functions attached to this name */
     List<String> prototypeNames = new ArrayList<>();
 
@@ -265,6 +267,118 @@ final class NameAnalyzer implements CompilerPass {
     }
   }
 
+  /**
+   * Directed graph of the references between names, keyed by name id.
+   *
+   * <p>The out edges of each name are stored as a growable array of target ids
+   * per {@link RefType}, so that a large program does not need an object for
+   * every node and edge of the graph.
+   */
+  private static final class ReferenceGraph {
+    private static final RefType[] REF_TYPES = RefType.values();
+
+    /** Target ids of the out edges, indexed by reference type and source id. */
+    private final int[][][] targets = new int[REF_TYPES.length][0][];
+
+    /** Number of out edges, indexed by reference type and source id. */
+    private final int[][] targetCounts = new int[REF_TYPES.length][0];
+
+    /** Number of in edges of all types, indexed by target id. */
+    private int[] sourceCounts = new int[0];
+
+    /** Adds an edge, unless the same edge already exists. */
+    void connectIfNotConnected(int from, RefType type, int to) {
+      ensureCapacity(Math.max(from, to) + 1);
+      int t = type.ordinal();
+      int[] edges = targets[t][from];
+      int count = targetCounts[t][from];
+      for (int i = 0; i < count; i++) {
+        if (edges[i] == to) {
+          return;
+        }
+      }
+      if (edges == null) {
+        edges = targets[t][from] = new int[4];
+      } else if (count == edges.length) {
+        edges = targets[t][from] = Arrays.copyOf(edges, count * 2);
+      }
+      edges[count] = to;
+      targetCounts[t][from] = count + 1;
+      sourceCounts[to]++;
+    }
+
+    private void ensureCapacity(int size) {
+      if (size <= sourceCounts.length) {
+        return;
+      }
+      int capacity = Math.max(size, sourceCounts.length * 2);
+      for (int t = 0; t < REF_TYPES.length; t++) {
+        targets[t] = Arrays.copyOf(targets[t], capacity);
+        targetCounts[t] = Arrays.copyOf(targetCounts[t], capacity);
+      }
+      sourceCounts = Arrays.copyOf(sourceCounts, capacity);
+    }
+
+    /** Returns the target ids of the out edges of a name, of all types. */
+    int[] getTargets(int from) {
+      if (from >= sourceCounts.length) {
+        return new int[0];
+      }
+      int[] result = new int[0];
+      for (int t = 0; t < REF_TYPES.length; t++) {
+        int count = targetCounts[t][from];
+        if (count > 0) {
+          int start = result.length;
+          result = Arrays.copyOf(result, start + count);
+          System.arraycopy(targets[t][from], 0, result, start, count);
+        }
+      }
+      return result;
+    }
+
+    /** Whether any name refers to the given name. */
+    boolean hasSources(int to) {
+      return to < sourceCounts.length && sourceCounts[to] > 0;
+    }
+
+    /**
+     * Returns the ids of all names reachable from the given names, including
+     * the given names themselves.
+     */
+    BitSet getReachable(int... roots) {
+      BitSet reached = new BitSet(sourceCounts.length);
+      int[] work = new int[Math.max(roots.length, 16)];
+      int workSize = 0;
+      for (int root : roots) {
+        if (!reached.get(root)) {
+          reached.set(root);
+          work[workSize++] = root;
+        }
+      }
+      while (workSize > 0) {
+        int source = work[--workSize];
+        if (source >= sourceCounts.length) {
+          continue;
+        }
+        for (int t = 0; t < REF_TYPES.length; t++) {
+          int[] edges = targets[t][source];
+          int count = targetCounts[t][source];
+          for (int i = 0; i < count; i++) {
+            int target = edges[i];
+            if (!reached.get(target)) {
+              reached.set(target);
+              if (workSize == work.length) {
+                work = Arrays.copyOf(work, workSize * 2);
+              }
+              work[workSize++] = target;
+            }
+          }
+        }
+      }
+      return reached;
+    }
+  }
+
   /**
    * Interface to get information about and remove unreferenced names.
    */
@@ -1286,24 +1400,19 @@ final class NameAnalyzer implements CompilerPass {
     }
     JsName from = getName(fromName, true);
     JsName to = getName(toName, true);
-    referenceGraph.connectIfNotConnectedInDirection(from, depType, to);
+    recordReference(from, to, depType);
   }
 
   /**
    * Records a reference from one name to another name.
    */
-  private void recordReference(
-      DiGraphNode<JsName, RefType> from,
-      DiGraphNode<JsName, RefType> to,
-      RefType depType) {
+  private void recordReference(JsName from, JsName to, RefType depType) {
     if (from == to) {
       // Don't bother recording self-references.
       return;
     }
 
-    if (!referenceGraph.isConnectedInDirection(from, Predicates.equalTo(depType), to)) {
-      referenceGraph.connect(from, depType, to);
-    }
+    referenceGraph.connectIfNotConnected(from.id, depType, to.id);
   }
 
   /**
@@ -1359,33 +1468,15 @@ final class NameAnalyzer implements CompilerPass {
         }
       }
 
-      if (referenceGraph.hasNode(node)) {
-        List<DiGraphEdge<JsName, RefType>> refersTo =
-            referenceGraph.getOutEdges(node);
-        if (!refersTo.isEmpty()) {
-          sb.append("<li>REFERS TO: ");
-          Iterator<DiGraphEdge<JsName, RefType>> toIter = refersTo.iterator();
-          while (toIter.hasNext()) {
-            sb.append(nameLink(toIter.next().getDestination().getValue().name));
-            if (toIter.hasNext()) {
-              sb.append(", ");
-            }
-          }
-        }
+      int[] refersTo = referenceGraph.getTargets(node.id);
+      if (refersTo.length > 0) {
+        sb.append("<li>REFERS TO: ");
+        appendNameLinks(sb, refersTo);
+      }
 
-        List<DiGraphEdge<JsName, RefType>> referencedBy =
-            referenceGraph.getInEdges(node);
-        if (!referencedBy.isEmpty()) {
-          sb.append("<li>REFERENCED BY: ");
-          Iterator<DiGraphEdge<JsName, RefType>> fromIter = refersTo.iterator();
-          while (fromIter.hasNext()) {
-            sb.append(
-                nameLink(fromIter.next().getDestination().getValue().name));
-            if (fromIter.hasNext()) {
-              sb.append(", ");
-            }
-          }
-        }
+      if (referenceGraph.hasSources(node.id)) {
+        sb.append("<li>REFERENCED BY: ");
+        appendNameLinks(sb, refersTo);
       }
       sb.append("</li>");
       sb.append("</ul></li>");
@@ -1396,6 +1487,15 @@ final class NameAnalyzer implements CompilerPass {
     return sb.toString();
   }
 
+  private void appendNameLinks(StringBuilder sb, int[] ids) {
+    for (int i = 0; i < ids.length; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(nameLink(namesById.get(ids[i]).name));
+    }
+  }
+
   private static void appendListItem(StringBuilder sb, String text) {
     sb.append("<li>").append(text).append("</li>\n");
   }
@@ -1433,8 +1533,9 @@ final class NameAnalyzer implements CompilerPass {
   private JsName createName(String name) {
     JsName jsn = allNames.get(name);
     if (jsn == null) {
-      jsn = new JsName(name);
+      jsn = new JsName(name, namesById.size());
       allNames.put(name, jsn);
+      namesById.add(jsn);
     }
     return jsn;
   }
@@ -1473,15 +1574,14 @@ final class NameAnalyzer implements CompilerPass {
 
     Set<AliasSet> sets = new HashSet<>(aliases.values());
     for (AliasSet set : sets) {
-      DiGraphNode<JsName, RefType> first = null;
-      Set<DiGraphNode<JsName, RefType>> required = new HashSet<>();
+      JsName first = null;
+      Set<JsName> required = new HashSet<>();
       for (String key : set.names) {
         JsName name = getName(key, false);
         if (name.hasWrittenDescendants || name.hasInstanceOfReference) {
-          DiGraphNode<JsName, RefType> node = getGraphNode(name);
-          required.add(node);
+          required.add(name);
           if (first == null) {
-            first = node;
+            first = name;
           }
         }
       }
@@ -1489,7 +1589,7 @@ final class NameAnalyzer implements CompilerPass {
       if (!required.isEmpty()) {
         // link the required nodes together to form a cluster so that if one
         // is needed, all are kept.
-        for (DiGraphNode<JsName, RefType> node : required) {
+        for (JsName node : required) {
           recordReference(node, first, RefType.REGULAR);
           recordReference(first, node, RefType.REGULAR);
         }
@@ -1498,17 +1598,13 @@ final class NameAnalyzer implements CompilerPass {
         // that if they are kept only if referenced directly, but all the
         // required nodes are kept if any are referenced.
         for (String key : set.names) {
-          DiGraphNode<JsName, RefType> alias = getGraphNode(getName(key, false));
+          JsName alias = getName(key, false);
           recordReference(alias, first, RefType.REGULAR);
         }
       }
     }
   }
 
-  private DiGraphNode<JsName, RefType> getGraphNode(JsName name) {
-    return referenceGraph.createDirectedGraphNode(name);
-  }
-
   /**
    * Adds mutual references between all known global names and their parent
    * names. (e.g. between <code>a.b.c</code> and <code>a.b</code>).
@@ -1527,11 +1623,8 @@ final class NameAnalyzer implements CompilerPass {
 
           JsName parentJsName = getName(parentName, true);
 
-          DiGraphNode<JsName, RefType> nameNode = getGraphNode(name);
-          DiGraphNode<JsName, RefType> parentNode = getGraphNode(parentJsName);
-
-          recordReference(nameNode, parentNode, RefType.REGULAR);
-          recordReference(parentNode, nameNode, RefType.REGULAR);
+          recordReference(name, parentJsName, RefType.REGULAR);
+          recordReference(parentJsName, name, RefType.REGULAR);
         }
       }
     }
@@ -1778,22 +1871,13 @@ final class NameAnalyzer implements CompilerPass {
   }
 
   private void propagateReference(JsName ... names) {
-    Deque<DiGraphNode<JsName, RefType>> work = new ArrayDeque<>();
-    for (JsName name : names) {
-      work.push(referenceGraph.createDirectedGraphNode(name));
-    }
-    while (!work.isEmpty()) {
-      DiGraphNode<JsName, RefType> source = work.pop();
-      List<DiGraphEdge<JsName, RefType>> outEdges = source.getOutEdges();
-      int len = outEdges.size();
-      for (int i = 0; i < len; i++) {
-        DiGraphNode<JsName, RefType> item = outEdges.get(i).getDestination();
-        JsName destNode = item.getValue();
-        if (!destNode.referenced) {
-          destNode.referenced = true;
-          work.push(item);
-        }
-      }
+    int[] roots = new int[names.length];
+    for (int i = 0; i < names.length; i++) {
+      roots[i] = names[i].id;
+    }
+    BitSet reachable = referenceGraph.getReachable(roots);
+    for (int id = reachable.nextSetBit(0); id >= 0; id = reachable.nextSetBit(id + 1)) {
+      namesById.get(id).referenced = true;
     }
   }
 
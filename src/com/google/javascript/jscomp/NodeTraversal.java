@@ -26,6 +26,7 @@ import com.google.javascript.rhino.Token;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import javax.annotation.Nullable;
@@ -45,6 +46,9 @@ public class NodeTraversal {
   /** The change scope for the current node being visiteds */
   private Node currentChangeScope;
 
+  /** Whether the compiler's change scope follows the traversal's. */
+  private boolean updatesCompilerChangeScope = true;
+
   /**
    * Stack containing the Scopes that have been created. The Scope objects
    * are lazily created; so the {@code scopeRoots} stack contains the
@@ -268,6 +272,15 @@ public class NodeTraversal {
     this.useBlockScope = scopeCreator.hasBlockScope();
   }
 
+  /**
+   * Keeps the traversal from setting the compiler's current change scope, which is shared by all
+   * traversals. Traversals that run in {@link ParallelTasks} must call this before they start, and
+   * must not change the AST.
+   */
+  void doNotUpdateCompilerChangeScope() {
+    updatesCompilerChangeScope = false;
+  }
+
   private void throwUnexpectedException(Throwable unexpectedException) {
     // If there's an unexpected exception, try to get the
     // line number of the code that caused it.
@@ -671,6 +684,53 @@ public class NodeTraversal {
         });
   }
 
+  /**
+   * Returns the roots of the subtrees that a pass needs to revisit to see every change made since
+   * it last ran, or null if the pass has not run before and must look at the whole AST.
+   *
+   * <p>Unlike {@link AbstractCompiler#getChangedScopeNodesForPass}, a changed function is not
+   * returned by itself but as part of its outermost enclosing function, and functions inside a
+   * changed script are covered by the script. Traversing the returned roots together with their
+   * nested functions therefore visits every reference to any variable declared in a changed
+   * function, which is what passes that reason about all references to local variables need.
+   *
+   * <p>Calling this marks the changes as seen by the given pass.
+   */
+  @Nullable
+  static List<Node> getChangedScopeTreeRoots(AbstractCompiler compiler, String passName) {
+    List<Node> changedScopeNodes = compiler.getChangedScopeNodesForPass(passName);
+    if (changedScopeNodes == null) {
+      return null;
+    }
+    Set<Node> treeRoots = new LinkedHashSet<>();
+    for (Node changed : changedScopeNodes) {
+      if (changed.isDeleted()) {
+        continue;
+      }
+      Node treeRoot = changed;
+      Node script = null;
+      for (Node n = changed; n != null; n = n.getParent()) {
+        if (n.isScript()) {
+          script = n;
+          break;
+        } else if (n.isFunction()) {
+          treeRoot = n;
+        }
+      }
+      // Skip scopes that have been detached from the AST.
+      if (script != null) {
+        treeRoots.add(treeRoot);
+      }
+    }
+    List<Node> result = new ArrayList<>(treeRoots.size());
+    for (Node treeRoot : treeRoots) {
+      if (treeRoot.isScript() || !treeRoots.contains(NodeUtil.getEnclosingScript(treeRoot))) {
+        result.add(treeRoot);
+      }
+    }
+    return result;
+  }
+
   /**
    * Traverses using the ES6SyntacticScopeCreator
    */
@@ -973,9 +1033,7 @@ public class NodeTraversal {
     Object o = cfgs.peek();
     if (o instanceof Node) {
       Node cfgRoot = (Node) o;
-      ControlFlowAnalysis cfa = new ControlFlowAnalysis(compiler, false, true);
-      cfa.process(null, cfgRoot);
-      result = cfa.getCfg();
+      result = compiler.getControlFlowGraph(cfgRoot);
       cfgs.pop();
       cfgs.push(result);
     } else {
@@ -1093,7 +1151,9 @@ public class NodeTraversal {
    */
   private void setChangeScope(Node n) {
     this.currentChangeScope = n;
-    compiler.setChangeScope(n);
+    if (updatesCompilerChangeScope) {
+      compiler.setChangeScope(n);
+    }
   }
 
   private Node getEnclosingScript(Node n) {
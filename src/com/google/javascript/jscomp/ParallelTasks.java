@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Throwables.throwIfUnchecked;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a list of independent tasks on a pool of compiler threads, for passes
+ * that split part of their work into pieces that do not share mutable state.
+ *
+ * <p>Tasks are handed out to the threads in list order, one at a time, so a
+ * few expensive tasks do not hold up the rest. The caller is responsible for
+ * making the tasks independent and for combining their results in a
+ * deterministic order afterwards; the tasks must not modify the AST or report
+ * errors to the compiler.
+ */
+final class ParallelTasks {
+
+  private ParallelTasks() {}
+
+  /**
+   * Runs all the tasks and returns once they have finished. The tasks are run
+   * on the calling thread if {@code numThreads} is at most one or there is at
+   * most one task. If a task throws, the remaining tasks are not started and
+   * the exception is rethrown.
+   */
+  static void run(int numThreads, final String name, final List<? extends Runnable> tasks) {
+    if (numThreads <= 1 || tasks.size() <= 1) {
+      for (Runnable task : tasks) {
+        task.run();
+      }
+      return;
+    }
+
+    int numWorkers = Math.min(numThreads, tasks.size());
+    ThreadFactory threadFactory = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t =
+              new Thread(null, r, "jscompiler-" + name, CompilerExecutor.COMPILER_STACK_SIZE);
+          t.setDaemon(true);  // Do not prevent the JVM from exiting.
+          return t;
+        }
+    };
+    ThreadPoolExecutor poolExecutor = new ThreadPoolExecutor(
+        numWorkers,
+        numWorkers,
+        Integer.MAX_VALUE,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        threadFactory);
+    ListeningExecutorService executorService = MoreExecutors.listeningDecorator(poolExecutor);
+
+    final AtomicInteger nextTask = new AtomicInteger();
+    Runnable worker = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          for (int i = nextTask.getAndIncrement(); i < tasks.size();
+              i = nextTask.getAndIncrement()) {
+            tasks.get(i).run();
+          }
+        } catch (RuntimeException | Error e) {
+          // Keep the other workers from starting new tasks.
+          nextTask.set(tasks.size());
+          throw e;
+        }
+      }
+    };
+    List<ListenableFuture<?>> futureList = new ArrayList<>(numWorkers);
+    for (int i = 0; i < numWorkers; i++) {
+      futureList.add(executorService.submit(worker));
+    }
+
+    poolExecutor.shutdown();
+    try {
+      Futures.allAsList(futureList).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+}
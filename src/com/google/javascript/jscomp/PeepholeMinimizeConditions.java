@@ -21,6 +21,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import com.google.javascript.jscomp.MinimizedCondition.MeasuredNode;
 import com.google.javascript.jscomp.MinimizedCondition.MinimizationStyle;
 import com.google.javascript.rhino.IR;
@@ -28,6 +30,7 @@ import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 import com.google.javascript.rhino.TypeI;
 import com.google.javascript.rhino.jstype.TernaryValue;
+import java.util.Set;
 
 /**
  * A peephole optimization that minimizes conditional expressions
@@ -57,6 +60,17 @@ class PeepholeMinimizeConditions
     this.useTypes = useTypes;
   }
 
+  private static final ImmutableSet<Token> TOKENS =
+      Sets.immutableEnumSet(
+          Token.THROW, Token.RETURN, Token.NOT, Token.IF, Token.EXPR_RESULT, Token.HOOK,
+          Token.WHILE, Token.DO, Token.FOR, Token.BLOCK, Token.EQ, Token.NE, Token.SHEQ,
+          Token.SHNE);
+
+  @Override
+  Set<Token> getTokens() {
+    return TOKENS;
+  }
+
   /**
    * Tries to apply our various peephole minimizations on the passed in node.
    */
@@ -19,8 +19,10 @@ package com.google.javascript.jscomp;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
 import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 /**
  * A compiler pass to run various peephole optimizations (e.g. constant folding,
@@ -33,6 +35,14 @@ class PeepholeOptimizationsPass implements CompilerPass {
   private final AbstractCompiler compiler;
   private final String passName;
   private final List<AbstractPeepholeOptimization> peepholeOptimizations;
+
+  /**
+   * For each optimization, whether it may change a node of each token type,
+   * indexed by {@link Token#ordinal}; null if the optimization is offered
+   * every node.
+   */
+  private final boolean[][] optimizedTokens;
+
   private boolean retraverseOnChange;
 
   /** Creates a peephole optimization pass that runs the given optimizations. */
@@ -48,6 +58,16 @@ class PeepholeOptimizationsPass implements CompilerPass {
     this.compiler = compiler;
     this.passName = passName;
     this.peepholeOptimizations = optimizations;
+    this.optimizedTokens = new boolean[optimizations.size()][];
+    for (int i = 0; i < optimizations.size(); i++) {
+      Set<Token> tokens = optimizations.get(i).getTokens();
+      if (tokens != null) {
+        optimizedTokens[i] = new boolean[Token.values().length];
+        for (Token token : tokens) {
+          optimizedTokens[i][token.ordinal()] = true;
+        }
+      }
+    }
     this.retraverseOnChange = true;
   }
 
@@ -78,8 +98,14 @@ class PeepholeOptimizationsPass implements CompilerPass {
     @Override
     public void visit(NodeTraversal t, Node n, Node parent) {
       Node currentNode = n;
-      for (AbstractPeepholeOptimization optim : peepholeOptimizations) {
-        currentNode = optim.optimizeSubtree(currentNode);
+      for (int i = 0; i < optimizedTokens.length; i++) {
+        // An optimization may replace the node with one of a different type,
+        // so look up the current token for every optimization.
+        boolean[] tokens = optimizedTokens[i];
+        if (tokens != null && !tokens[currentNode.getToken().ordinal()]) {
+          continue;
+        }
+        currentNode = peepholeOptimizations.get(i).optimizeSubtree(currentNode);
         if (currentNode == null) {
           return;
         }
@@ -22,10 +22,13 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 import com.google.javascript.rhino.jstype.TernaryValue;
+import java.util.Set;
 import javax.annotation.Nullable;
 
 /**
@@ -40,6 +43,16 @@ class PeepholeRemoveDeadCode extends AbstractPeepholeOptimization {
   // There is an existing CFG pass (UnreachableCodeElimination) that
   // could be changed to use code from CheckUnreachableCode to do this.
 
+  private static final ImmutableSet<Token> TOKENS =
+      Sets.immutableEnumSet(
+          Token.ASSIGN, Token.COMMA, Token.SCRIPT, Token.BLOCK, Token.EXPR_RESULT, Token.HOOK,
+          Token.SWITCH, Token.IF, Token.WHILE, Token.FOR, Token.DO, Token.TRY, Token.LABEL);
+
+  @Override
+  Set<Token> getTokens() {
+    return TOKENS;
+  }
+
   @Override
   Node optimizeSubtree(Node subtree) {
     switch (subtree.getToken()) {
@@ -16,8 +16,11 @@
 
 package com.google.javascript.jscomp;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
+import java.util.Set;
 
 /**
  * Reorder constant expression hoping for a better compression.
@@ -28,6 +31,16 @@ import com.google.javascript.rhino.Token;
  */
 class PeepholeReorderConstantExpression extends AbstractPeepholeOptimization {
 
+  private static final ImmutableSet<Token> TOKENS =
+      Sets.immutableEnumSet(
+          Token.EQ, Token.NE, Token.SHEQ, Token.SHNE, Token.MUL, Token.GT, Token.GE, Token.LT,
+          Token.LE);
+
+  @Override
+  Set<Token> getTokens() {
+    return TOKENS;
+  }
+
   @Override
   Node optimizeSubtree(Node subtree) {
     // if the operator is symmetric
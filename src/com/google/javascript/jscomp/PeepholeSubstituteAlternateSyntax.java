@@ -21,10 +21,12 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import com.google.javascript.jscomp.CodingConvention.Bind;
 import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
@@ -60,6 +62,17 @@ class PeepholeSubstituteAlternateSyntax
     this.late = late;
   }
 
+  private static final ImmutableSet<Token> TOKENS =
+      Sets.immutableEnumSet(
+          Token.ASSIGN_SUB, Token.TRUE, Token.FALSE, Token.NEW, Token.CALL, Token.RETURN,
+          Token.COMMA, Token.NAME, Token.ARRAYLIT, Token.GETPROP, Token.TEMPLATELIT, Token.MUL,
+          Token.AND, Token.OR, Token.BITOR, Token.BITXOR, Token.BITAND);
+
+  @Override
+  Set<Token> getTokens() {
+    return TOKENS;
+  }
+
   /**
    * Tries apply our various peephole minimizations on the passed in node.
    */
@@ -67,6 +67,9 @@ class PhaseOptimizer implements CompilerPass {
   // Used for sanity checking passes
   private ChangeVerifier changeVerifier;
 
+  // Control flow graphs shared by the passes of the current loop.
+  private final ControlFlowGraphCache cfgCache;
+
   /**
    * When processing loopable passes in order, the PhaseOptimizer can be in one
    * of these two states.
@@ -122,6 +125,7 @@ class PhaseOptimizer implements CompilerPass {
     this.passes = new ArrayList<>();
     this.inLoop = false;
     this.lastChange = START_TIME;
+    this.cfgCache = new ControlFlowGraphCache(comp);
     this.useSizeHeuristicToStopOptimizationLoop =
         comp.getOptions().useSizeHeuristicToStopOptimizationLoop;
     int maxIterations = comp.getOptions().optimizationLoopMaxIterations;
@@ -345,6 +349,22 @@ class PhaseOptimizer implements CompilerPass {
         || n.getChangeTime() > timeOfLastRun;
   }
 
+  /**
+   * Returns the control flow graph of the given root. Inside a loop, graphs are
+   * cached and reused by later passes and iterations until their scope changes.
+   */
+  ControlFlowGraph<Node> getControlFlowGraph(Node cfgRoot) {
+    if (!inLoop) {
+      return ControlFlowAnalysis.getCfg(compiler, cfgRoot);
+    }
+    return cfgCache.getCfg(cfgRoot);
+  }
+
+  /** Drops the cached control flow graphs, e.g. after a change to an unknown scope. */
+  void invalidateControlFlowGraphs() {
+    cfgCache.clear();
+  }
+
   /**
    * A change handler that marks scopes as changed when reportChange is called.
    */
@@ -481,6 +501,7 @@ class PhaseOptimizer implements CompilerPass {
         }
       } finally {
         inLoop = false;
+        cfgCache.clear();
         compiler.removeChangeHandler(scopeHandler);
       }
     }
@@ -27,17 +27,18 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Multimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.SetMultimap;
 import com.google.common.io.Files;
 import com.google.javascript.jscomp.CodingConvention.Cache;
 import com.google.javascript.jscomp.DefinitionsRemover.Definition;
 import com.google.javascript.jscomp.NodeTraversal.ScopedCallback;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphEdge;
 import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
-import com.google.javascript.jscomp.graph.FixedPointGraphTraversal;
-import com.google.javascript.jscomp.graph.FixedPointGraphTraversal.EdgeCallback;
 import com.google.javascript.jscomp.graph.LinkedDirectedGraph;
+import com.google.javascript.jscomp.graph.StronglyConnectedComponents;
 import com.google.javascript.rhino.FunctionTypeI;
+import com.google.javascript.rhino.InputId;
 import com.google.javascript.rhino.JSDocInfo;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
@@ -47,8 +48,11 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * Compiler pass that computes function purity. A function is pure if it has no outside visible side
@@ -69,6 +73,12 @@ import java.util.Map;
  *     and essence of our natural... fluids. - General Turgidson
  */
 class PureFunctionIdentifier implements CompilerPass {
+  /**
+   * The smallest number of independent components of the side effect graph that are worth handing
+   * to a thread pool; smaller levels are propagated on the calling thread.
+   */
+  private static final int MIN_COMPONENTS_FOR_PARALLEL_PROPAGATION = 256;
+
   private final AbstractCompiler compiler;
   private final DefinitionProvider definitionProvider;
 
@@ -91,7 +101,7 @@ class PureFunctionIdentifier implements CompilerPass {
    * separate from "anotherName()". Hence the function node should point to the {@link
    * FunctionInformation} for both "staticMethod" and "anotherName".
    */
-  private final Multimap<Node, FunctionInformation> functionSideEffectMap;
+  private final ListMultimap<Node, FunctionInformation> functionSideEffectMap;
 
   // List of all function call sites; used to iterate in markPureFunctionCalls.
   private final List<Node> allFunctionCalls;
@@ -99,6 +109,24 @@ class PureFunctionIdentifier implements CompilerPass {
   private final LinkedDirectedGraph<FunctionInformation, CallSitePropagationInfo> sideEffectGraph =
       LinkedDirectedGraph.createWithoutAnnotations();
 
+  // Summaries of function bodies from an earlier compilation, or null.
+  private final FunctionSideEffectSummary inputSummary;
+
+  // The function bodies whose side effects were taken from the input summary instead of being
+  // analyzed, with their summaries.
+  private final Map<Node, FunctionSideEffectSummary.FunctionSummary> summarizedFunctions =
+      new HashMap<>();
+
+  // The calls in the bodies of the analyzed functions, by function, if a summary is being
+  // collected; null otherwise.
+  private final ListMultimap<Node, FunctionSideEffectSummary.CallSummary> callsByFunction;
+
+  // The analyzed functions that cannot be summarized because they call function expressions.
+  private final Set<Node> unsummarizableFunctions = new HashSet<>();
+
+  // The hashes of the ASTs of the functions that summaries have been looked up or collected for.
+  private final Map<Node, String> functionHashes = new HashMap<>();
+
   // Externs and ast tree root, for use in getDebugReport.  These two
   // fields are null until process is called.
   private Node externs;
@@ -111,6 +139,15 @@ class PureFunctionIdentifier implements CompilerPass {
     this.allFunctionCalls = new ArrayList<>();
     this.externs = null;
     this.root = null;
+    FunctionSideEffectSummary inputSummary = compiler.getOptions().inputFunctionSideEffectSummary;
+    this.inputSummary =
+        inputSummary != null && inputSummary.isUsableFor(compiler.hasRegExpGlobalReferences())
+            ? inputSummary
+            : null;
+    this.callsByFunction =
+        compiler.getOptions().collectFunctionSideEffectSummary
+            ? ArrayListMultimap.<Node, FunctionSideEffectSummary.CallSummary>create()
+            : null;
   }
 
   @Override
@@ -128,6 +165,11 @@ class PureFunctionIdentifier implements CompilerPass {
     NodeTraversal.traverseEs6(compiler, externs, new FunctionAnalyzer(true));
     NodeTraversal.traverseEs6(compiler, root, new FunctionAnalyzer(false));
 
+    if (callsByFunction != null) {
+      // Before propagation, the side effects of a function are those of its own body.
+      compiler.setFunctionSideEffectSummary(collectSummary());
+    }
+
     propagateSideEffects();
 
     markPureFunctionCalls();
@@ -240,16 +282,19 @@ class PureFunctionIdentifier implements CompilerPass {
         unwrapCallableExpression(cacheCall.valueFn), unwrapCallableExpression(cacheCall.keyFn));
   }
 
-  private List<FunctionInformation> getSideEffectsForCall(Node call) {
+  /** Returns the expressions that may be called by a call, or null if they are not supported. */
+  private Iterable<Node> getCallableExpressions(Node call) {
     checkArgument(call.isCall() || call.isNew());
 
-    Iterable<Node> expanded;
     Cache cacheCall = compiler.getCodingConvention().describeCachingCall(call);
     if (cacheCall != null) {
-      expanded = getGoogCacheCallableExpression(cacheCall);
-    } else {
-      expanded = unwrapCallableExpression(call.getFirstChild());
+      return getGoogCacheCallableExpression(cacheCall);
     }
+    return unwrapCallableExpression(call.getFirstChild());
+  }
+
+  private List<FunctionInformation> getSideEffectsForCall(Node call) {
+    Iterable<Node> expanded = getCallableExpressions(call);
     if (expanded == null) {
       return null;
     }
@@ -314,6 +359,7 @@ class PureFunctionIdentifier implements CompilerPass {
             info.setTaintsGlobalState();
             info.setFunctionThrows();
             info.setTaintsReturn();
+            info.definitionCount++;
           } else {
             functionInfoByName.put(name, unknownDefinitionFunction);
           }
@@ -336,10 +382,12 @@ class PureFunctionIdentifier implements CompilerPass {
         // Need to create a function info node.
         functionInfo = new FunctionInformation();
         functionInfo.graphNode = sideEffectGraph.createNode(functionInfo);
+        functionInfo.name = name;
         // Keep track of this so that later functions of the same name can point to the same
         // FunctionInformation.
         functionInfoByName.put(name, functionInfo);
       }
+      functionInfo.definitionCount++;
       functionSideEffectMap.put(function, functionInfo);
       if (definitionSite.inExterns) {
         // Externs have their side effects computed here, otherwise in FunctionAnalyzer.
@@ -349,23 +397,207 @@ class PureFunctionIdentifier implements CompilerPass {
   }
 
   /**
-   * Propagate side effect information by building a graph based on call site information stored in
-   * FunctionInformation and the DefinitionProvider and then running GraphReachability to determine
-   * the set of functions that have side effects.
+   * Returns the name under which the side effects of the body of a function can be summarized, or
+   * null if the function is not the only definition of exactly one name.
+   */
+  @Nullable
+  private String getSummaryName(Node function) {
+    if (function.isFromExterns()) {
+      return null;
+    }
+    List<FunctionInformation> infos = functionSideEffectMap.get(function);
+    if (infos.size() != 1) {
+      return null;
+    }
+    FunctionInformation info = infos.get(0);
+    return info.definitionCount == 1 ? info.name : null;
+  }
+
+  /**
+   * Returns the hash of the AST of a function as it is before any of its calls are marked by this
+   * pass, or null if functions cannot be hashed.
+   */
+  @Nullable
+  private String getFunctionHash(Node function) {
+    if (functionHashes.containsKey(function)) {
+      return functionHashes.get(function);
+    }
+    String hash = FunctionAstHasher.hash(function);
+    functionHashes.put(function, hash);
+    return hash;
+  }
+
+  /**
+   * Takes the side effects of the body of a function from the input summary, if it has a summary
+   * for the function and the function's AST has not changed since it was summarized, whether by
+   * an edit of its source or by the passes that ran before this one.
+   */
+  private void applyInputSummary(Node function) {
+    String name = getSummaryName(function);
+    InputId inputId = NodeUtil.getInputId(function);
+    if (name == null || inputId == null) {
+      return;
+    }
+    String hash = getFunctionHash(function);
+    if (hash == null) {
+      return;
+    }
+    FunctionSideEffectSummary.FunctionSummary summary =
+        inputSummary.getFunction(compiler.getInput(inputId).getSourceFile().getName(), name, hash);
+    if (summary == null) {
+      return;
+    }
+
+    FunctionInformation info = functionSideEffectMap.get(function).get(0);
+    info.setMask(summary.sideEffects);
+    for (FunctionSideEffectSummary.CallSummary call : summary.calls) {
+      // Resolve the callees again, in case their definitions have changed.
+      List<FunctionInformation> callees = new ArrayList<>();
+      for (String calleeName : call.callees) {
+        FunctionInformation callee = functionInfoByName.get(calleeName);
+        if (callee == null) {
+          callees = null;
+          break;
+        }
+        callees.add(callee);
+      }
+      if (callees == null) {
+        info.setTaintsGlobalState();
+        info.setFunctionThrows();
+        continue;
+      }
+      CallSitePropagationInfo edge =
+          new CallSitePropagationInfo(
+              call.allArgsUnescapedLocal,
+              call.calleeThisEqualsCallerThis,
+              call.isNew ? Token.NEW : Token.CALL);
+      for (FunctionInformation callee : callees) {
+        sideEffectGraph.connect(callee.graphNode, edge, info.graphNode);
+      }
+    }
+    summarizedFunctions.put(function, summary);
+  }
+
+  /** Records a call in the body of a function for the summary being collected. */
+  private void recordCall(Node function, Node call) {
+    List<String> callees = new ArrayList<>();
+    for (Node expression : getCallableExpressions(call)) {
+      String name =
+          NodeUtil.isFunctionExpression(expression)
+              ? null
+              : NameBasedDefinitionProvider.getSimplifiedName(expression);
+      if (name == null) {
+        // Function expressions have no name to look them up by in the next compilation.
+        unsummarizableFunctions.add(function);
+        return;
+      }
+      callees.add(name);
+    }
+    CallSitePropagationInfo propagation = CallSitePropagationInfo.computePropagationType(call);
+    callsByFunction.put(
+        function,
+        new FunctionSideEffectSummary.CallSummary(
+            callees,
+            propagation.allArgsUnescapedLocal,
+            propagation.calleeThisEqualsCallerThis,
+            call.isNew()));
+  }
+
+  /**
+   * Returns the summary of the function bodies of this compilation. It must be called before the
+   * side effects are propagated, while the side effects of each function are those of its body.
+   */
+  private FunctionSideEffectSummary collectSummary() {
+    FunctionSideEffectSummary.Builder builder =
+        new FunctionSideEffectSummary.Builder(compiler.hasRegExpGlobalReferences());
+    for (Node function : functionSideEffectMap.keySet()) {
+      String name = getSummaryName(function);
+      InputId inputId = NodeUtil.getInputId(function);
+      if (name == null || inputId == null || unsummarizableFunctions.contains(function)) {
+        continue;
+      }
+      String hash = getFunctionHash(function);
+      if (hash == null) {
+        continue;
+      }
+      FunctionSideEffectSummary.FunctionSummary summary = summarizedFunctions.get(function);
+      builder.addFunction(
+          compiler.getInput(inputId).getSourceFile().getName(),
+          name,
+          hash,
+          functionSideEffectMap.get(function).get(0).bitmask,
+          summary != null ? summary.calls : callsByFunction.get(function));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Propagate side effect information along the call edges of the side effect graph, from callees
+   * to callers.
+   *
+   * <p>The strongly connected components of the graph are processed in topological order, so the
+   * side effects of all the callees outside a component are final when the component is reached
+   * and only the calls within a component need to be iterated to a fixed point. The components of
+   * a level of the component graph do not call each other, so large levels are processed in
+   * parallel when the compiler is allowed more than one thread.
    */
   private void propagateSideEffects() {
-    // Propagate side effect information to a fixed point.
-    FixedPointGraphTraversal.newTraversal(
-            new EdgeCallback<FunctionInformation, CallSitePropagationInfo>() {
-              @Override
-              public boolean traverseEdge(
-                  FunctionInformation source,
-                  CallSitePropagationInfo edge,
-                  FunctionInformation destination) {
-                return edge.propagate(source, destination);
-              }
-            })
-        .computeFixedPoint(sideEffectGraph);
+    final StronglyConnectedComponents<FunctionInformation, CallSitePropagationInfo> components =
+        StronglyConnectedComponents.compute(sideEffectGraph);
+    int numThreads = compiler.getOptions().numParallelThreads;
+    for (List<Integer> level : components.getLevels()) {
+      if (numThreads > 1 && level.size() >= MIN_COMPONENTS_FOR_PARALLEL_PROPAGATION) {
+        List<Runnable> tasks = new ArrayList<>(level.size());
+        for (final int component : level) {
+          tasks.add(
+              new Runnable() {
+                @Override
+                public void run() {
+                  propagateSideEffectsInComponent(components, component);
+                }
+              });
+        }
+        ParallelTasks.run(numThreads, "PureFunctionIdentifier", tasks);
+      } else {
+        for (int component : level) {
+          propagateSideEffectsInComponent(components, component);
+        }
+      }
+    }
+  }
+
+  /**
+   * Propagates side effects into the functions of one component, assuming that the side effects of
+   * the functions of all earlier components are final.
+   */
+  private static void propagateSideEffectsInComponent(
+      StronglyConnectedComponents<FunctionInformation, CallSitePropagationInfo> components,
+      int component) {
+    List<DiGraphNode<FunctionInformation, CallSitePropagationInfo>> nodes =
+        components.getComponents().get(component);
+    List<DiGraphEdge<FunctionInformation, CallSitePropagationInfo>> internalEdges =
+        new ArrayList<>();
+    for (DiGraphNode<FunctionInformation, CallSitePropagationInfo> node : nodes) {
+      for (DiGraphEdge<FunctionInformation, CallSitePropagationInfo> edge : node.getInEdges()) {
+        if (components.getComponent(edge.getSource()) == component) {
+          internalEdges.add(edge);
+        } else {
+          edge.getValue().propagate(edge.getSource().getValue(), node.getValue());
+        }
+      }
+    }
+
+    // Each propagation that changes something sets a side effect bit, so this terminates after at
+    // most a few passes per function.
+    boolean changed;
+    do {
+      changed = false;
+      for (DiGraphEdge<FunctionInformation, CallSitePropagationInfo> edge : internalEdges) {
+        changed |=
+            edge.getValue()
+                .propagate(edge.getSource().getValue(), edge.getDestination().getValue());
+      }
+    } while (changed);
   }
 
   /** Set no side effect property at pure-function call sites. */
@@ -457,6 +689,8 @@ class PureFunctionIdentifier implements CompilerPass {
           FunctionInformation functionInfo = new FunctionInformation();
           functionSideEffectMap.put(node, functionInfo);
           functionInfo.graphNode = sideEffectGraph.createNode(functionInfo);
+        } else if (!inExterns && inputSummary != null) {
+          applyInputSummary(node);
         }
       }
       return true;
@@ -478,7 +712,7 @@ class PureFunctionIdentifier implements CompilerPass {
 
       // TODO: This may be more expensive than necessary.
       Node enclosingFunction = traversal.getEnclosingFunction();
-      if (enclosingFunction == null) {
+      if (enclosingFunction == null || summarizedFunctions.containsKey(enclosingFunction)) {
         return;
       }
 
@@ -497,7 +731,7 @@ class PureFunctionIdentifier implements CompilerPass {
         visitAssignmentOrUnaryOperator(
             sideEffectInfo, traversal.getScope(), node, enclosingFunction);
       } else if (NodeUtil.isCallOrNew(node)) {
-        visitCall(sideEffectInfo, node);
+        visitCall(sideEffectInfo, node, enclosingFunction);
       } else if (node.isName()) {
         // Variable definition are not side effects. Check that the name appears in the context of a
         // variable declaration.
@@ -538,7 +772,7 @@ class PureFunctionIdentifier implements CompilerPass {
       }
 
       Node function = NodeUtil.getEnclosingFunction(t.getScopeRoot());
-      if (function == null) {
+      if (function == null || summarizedFunctions.containsKey(function)) {
         return;
       }
 
@@ -651,7 +885,7 @@ class PureFunctionIdentifier implements CompilerPass {
     }
 
     /** Record information about a call site. */
-    private void visitCall(FunctionInformation sideEffectInfo, Node node) {
+    private void visitCall(FunctionInformation sideEffectInfo, Node node, Node enclosingFunction) {
       // Handle special cases (Math, RegExp)
       // TODO: This logic can probably be replaced with @nosideeffects annotations in externs.
       if (node.isCall() && !NodeUtil.functionCallHasSideEffects(node, compiler)) {
@@ -674,6 +908,9 @@ class PureFunctionIdentifier implements CompilerPass {
         CallSitePropagationInfo edge = CallSitePropagationInfo.computePropagationType(node);
         sideEffectGraph.connect(sideEffectNode.graphNode, edge, sideEffectInfo.graphNode);
       }
+      if (callsByFunction != null) {
+        recordCall(enclosingFunction, node);
+      }
     }
   }
 
@@ -794,6 +1031,11 @@ class PureFunctionIdentifier implements CompilerPass {
     DiGraphNode<FunctionInformation, CallSitePropagationInfo> graphNode;
     private int bitmask = 0;
 
+    // The name this function is defined as, or null if it is anonymous.
+    String name;
+    // The number of definitions of the name.
+    int definitionCount = 0;
+
     // Side effect types:
     private static final int FUNCTION_THROWS_MASK = 1 << 1;
     private static final int TAINTS_GLOBAL_STATE_MASK = 1 << 2;
@@ -118,6 +118,17 @@ public final class ReferenceCollectingCallback
     t.traverse(root);
   }
 
+  /**
+   * Same as process but only traverses the given scripts and functions, including the
+   * functions nested in them.
+   */
+  void processTrees(Node root, List<Node> treeRoots) {
+    // Stands in for the global block, which the traversal does not enter.
+    blockStack.add(new BasicBlock(null, root));
+    NodeTraversal.traverseEs6ScopeRoots(compiler, root, treeRoots, this, true);
+    pop(blockStack);
+  }
+
   /**
    * Targets reference collection to a particular scope.
    */
@@ -31,9 +31,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * Garbage collection for variable and function definitions. Basically performs
@@ -138,12 +140,30 @@ class RemoveUnusedVars implements CompilerPass, OptimizeCalls.CallGraphCompilerP
 
   private final ScopeCreator scopeCreator;
 
+  // The name under which changes are tracked between runs, or null to always look at the
+  // whole AST.
+  @Nullable private final String passName;
+
   RemoveUnusedVars(
       AbstractCompiler compiler,
       boolean removeGlobals,
       boolean preserveFunctionExpressionNames,
       boolean modifyCallSites) {
+    this(compiler, removeGlobals, preserveFunctionExpressionNames, modifyCallSites, null);
+  }
+
+  /**
+   * @param passName If non-null and only local variables are removed, runs after the first one
+   *     only look at the functions changed since the previous run with the same name.
+   */
+  RemoveUnusedVars(
+      AbstractCompiler compiler,
+      boolean removeGlobals,
+      boolean preserveFunctionExpressionNames,
+      boolean modifyCallSites,
+      @Nullable String passName) {
     this.compiler = compiler;
+    this.passName = passName;
     this.codingConvention = compiler.getCodingConvention();
     this.removeGlobals = removeGlobals;
     this.preserveFunctionExpressionNames = preserveFunctionExpressionNames;
@@ -187,7 +207,14 @@ class RemoveUnusedVars implements CompilerPass, OptimizeCalls.CallGraphCompilerP
       checkNotNull(defFinder);
       callSiteOptimizer = new CallSiteOptimizer(compiler, defFinder);
     }
-    traverseAndRemoveUnusedReferences(root);
+    // All references to a local variable are inside its outermost enclosing function (or its
+    // script, for block scoped variables in global code), so when globals are left alone,
+    // unused variables can only appear where something changed.
+    List<Node> changedTrees = null;
+    if (!removeGlobals && !modifyCallSites && passName != null) {
+      changedTrees = NodeTraversal.getChangedScopeTreeRoots(compiler, passName);
+    }
+    traverseAndRemoveUnusedReferences(root, changedTrees);
     if (callSiteOptimizer != null) {
       callSiteOptimizer.applyChanges();
     }
@@ -195,10 +222,38 @@ class RemoveUnusedVars implements CompilerPass, OptimizeCalls.CallGraphCompilerP
 
   /**
    * Traverses a node recursively. Call this once per pass.
+   *
+   * @param treeRoots If non-null, only these scripts and outermost functions under the root are
+   *     traversed, and only the local variables declared in them are candidates for removal.
    */
-  private void traverseAndRemoveUnusedReferences(Node root) {
+  private void traverseAndRemoveUnusedReferences(Node root, @Nullable List<Node> treeRoots) {
     Scope scope = scopeCreator.createScope(root, null);
-    traverseNode(root, null, scope);
+    if (treeRoots == null) {
+      traverseNode(root, null, scope);
+    } else {
+      checkState(!removeGlobals);
+      Set<Node> scripts = new LinkedHashSet<>();
+      List<Node> functions = new ArrayList<>();
+      for (Node treeRoot : treeRoots) {
+        Node script = NodeUtil.getEnclosingScript(treeRoot);
+        if (script.getParent() != root) {
+          continue;
+        }
+        if (treeRoot.isScript() || !isTraversedFromGlobalScope(treeRoot)) {
+          scripts.add(script);
+        } else {
+          functions.add(treeRoot);
+        }
+      }
+      for (Node script : scripts) {
+        traverseNode(script, root, scope);
+      }
+      for (Node function : functions) {
+        if (!scripts.contains(NodeUtil.getEnclosingScript(function))) {
+          traverseFunction(function, scope);
+        }
+      }
+    }
 
     if (removeGlobals) {
       collectMaybeUnreferencedVars(scope);
@@ -280,7 +335,9 @@ class RemoveUnusedVars implements CompilerPass, OptimizeCalls.CallGraphCompilerP
         // be more correct to only not track when the subclass does not
         // reference a constructor, but checking that it is a global is
         // easier and mostly the same.
-        if (modifiedVar != null && modifiedVar.isGlobal()
+        // When globals are not removed, neither are the calls, so their
+        // arguments must be traversed now.
+        if (modifiedVar != null && modifiedVar.isGlobal() && removeGlobals
             && !referenced.contains(modifiedVar)) {
           // Save a reference to the EXPR node.
           classDefiningCalls.put(modifiedVar, parent);
@@ -401,6 +458,21 @@ class RemoveUnusedVars implements CompilerPass, OptimizeCalls.CallGraphCompilerP
     }
   }
 
+  /**
+   * Returns whether a full traversal always reaches the given function in global code through
+   * {@link #traverseFunction} with the global scope. Functions in classes, block scopes and
+   * destructuring patterns may be skipped or reached through continuations instead, so changes
+   * to them are handled by traversing their whole script.
+   */
+  private static boolean isTraversedFromGlobalScope(Node function) {
+    for (Node n = function.getParent(); !n.isScript(); n = n.getParent()) {
+      if (n.isClass() || n.isDestructuringPattern() || NodeUtil.createsBlockScope(n)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private boolean isRemovableVar(Var var) {
     // If this is a functions "arguments" object, it isn't removable
     if (var.equals(var.getScope().getArgumentsVar())) {
@@ -194,17 +194,25 @@ class RenameProperties implements CompilerPass {
     reservedNames.addAll(externedNames);
     reservedNames.addAll(quotedNames);
 
+    // The debug log lists the properties that keep their name from the
+    // previous compilation first, then the new ones by descending frequency.
+    compiler.addToDebugLog("JS property assignments:");
+
     // First, try and reuse as many property names from the previous compilation
-    // as possible.
+    // as possible. Pseudo names replace all names, so none are reused then.
     if (prevUsedPropertyMap != null) {
       reusePropertyNames(reservedNames, propertyMap.values());
     }
 
-    compiler.addToDebugLog("JS property assignments:");
-
     // Assign names, sorted by descending frequency to minimize code size.
+    // Properties that kept their name from the previous compilation take no
+    // part in the ordering, so only the new ones are sorted.
     Set<Property> propsByFreq = new TreeSet<>(FREQUENCY_COMPARATOR);
-    propsByFreq.addAll(propertyMap.values());
+    for (Property p : propertyMap.values()) {
+      if (p.newName == null) {
+        propsByFreq.add(p);
+      }
+    }
     generateNames(propsByFreq, reservedNames);
 
     // Update the string nodes.
@@ -278,6 +286,7 @@ class RenameProperties implements CompilerPass {
 
         prop.newName = prevName;
         reservedNames.add(prevName);
+        compiler.addToDebugLog(prop.oldName + " => " + prevName);
       }
     }
   }
@@ -285,7 +294,7 @@ class RenameProperties implements CompilerPass {
   /**
    * Generates new names for properties.
    *
-   * @param props Properties to generate new names for
+   * @param props Properties without a reused name to generate new names for
    * @param reservedNames A set of names to which properties should not be
    *     renamed
    */
@@ -295,10 +304,7 @@ class RenameProperties implements CompilerPass {
       if (generatePseudoNames) {
         p.newName = "$" + p.oldName + "$";
       } else {
-        // If we haven't already given this property a reusable name.
-        if (p.newName == null) {
-          p.newName = nameGenerator.generateNextName();
-        }
+        p.newName = nameGenerator.generateNextName();
       }
       reservedNames.add(p.newName);
       compiler.addToDebugLog(p.oldName + " => " + p.newName);
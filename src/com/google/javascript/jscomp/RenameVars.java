@@ -30,6 +30,7 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -124,6 +125,50 @@ final class RenameVars implements CompilerPass {
   private final Map<String, Assignment> assignments =
       new HashMap<>();
 
+  /**
+   * Whether the locals of each top-level scope are named independently, after
+   * the global names. See {@link #setRenameLocalsPerScope}.
+   */
+  private boolean renameLocalsPerScope = false;
+
+  /**
+   * The temporarily renamed locals of each scope whose parent is the global
+   * scope, in the order the scopes are first seen, when renaming the locals
+   * of each of these scopes separately.
+   */
+  private final Map<Node, LocalScopeNames> localScopeNames = new LinkedHashMap<>();
+
+  /** The local names of a scope whose parent is the global scope. */
+  private final class LocalScopeNames {
+    /** Maps a temporary local name to its assignment in this scope. */
+    final Map<String, Assignment> assignments = new HashMap<>();
+    final List<Node> nameNodes = new ArrayList<>();
+
+    void add(Node n, String tempName) {
+      Assignment a = assignments.get(tempName);
+      if (a == null) {
+        a = new Assignment(tempName);
+        assignments.put(tempName, a);
+      }
+      a.count++;
+      nameNodes.add(n);
+    }
+
+    /**
+     * Names the locals of the scope, the most frequent ones first, with a
+     * generator that avoids the reserved names, which include all the global
+     * names by now.
+     */
+    void assignNames(NameGenerator localNameGenerator) {
+      localNameGenerator.reset(reservedNames, "", reservedCharacters);
+      SortedSet<Assignment> varsByFrequency = new TreeSet<>(FREQUENCY_COMPARATOR);
+      varsByFrequency.addAll(assignments.values());
+      for (Assignment a : varsByFrequency) {
+        a.setNewName(localNameGenerator.generateNextName());
+      }
+    }
+  }
+
   /** Whether renaming should apply to local variables only. */
   private final boolean localRenamingOnly;
 
@@ -181,6 +226,26 @@ final class RenameVars implements CompilerPass {
     this.nameGenerator = nameGenerator;
   }
 
+  /**
+   * Sets whether to name the local variables of each scope whose parent is
+   * the global scope separately from all the others, once the global names
+   * are assigned, instead of sharing one sequence of names with the globals.
+   * The scopes are named in parallel when the compiler may use more than one
+   * thread; the names only depend on the scope and the global names, so the
+   * output is the same for any number of threads. The names of such locals
+   * are not logged or included in the variable map.
+   *
+   * <p>This has no effect when variables are shadowed or a previous variable
+   * map is reused, since both assign local names across scopes.
+   */
+  void setRenameLocalsPerScope(boolean renameLocalsPerScope) {
+    this.renameLocalsPerScope = renameLocalsPerScope;
+  }
+
+  private boolean shouldRenameLocalsPerScope() {
+    return renameLocalsPerScope && !shouldShadow && prevUsedRenameMap == null;
+  }
+
   /**
    * Iterate through the nodes, collect all the NAME nodes that need to be
    * renamed, and count how many times each variable name is referenced.
@@ -291,8 +356,12 @@ final class RenameVars implements CompilerPass {
         // variable's index in the scope to enable name reuse across
         // locals in independent scopes.
         String tempName = LOCAL_VAR_PREFIX + getLocalVarIndex(var);
-        incCount(tempName);
-        localNameNodes.add(n);
+        if (shouldRenameLocalsPerScope()) {
+          getLocalScopeNames(var.getScope()).add(n, tempName);
+        } else {
+          incCount(tempName);
+          localNameNodes.add(n);
+        }
         // Remember the original string in a name before it's temporarily filled with an "L".
         originalNameByNode.put(n, n.getString());
         n.setString(tempName);
@@ -303,6 +372,19 @@ final class RenameVars implements CompilerPass {
       }
     }
 
+    /** Returns the local names of the scope that the given scope is in. */
+    private LocalScopeNames getLocalScopeNames(Scope scope) {
+      while (!scope.getParent().isGlobal()) {
+        scope = scope.getParent();
+      }
+      LocalScopeNames names = localScopeNames.get(scope.getRootNode());
+      if (names == null) {
+        names = new LocalScopeNames();
+        localScopeNames.put(scope.getRootNode(), names);
+      }
+      return names;
+    }
+
     // Increment count of an assignment
     void incCount(String name) {
       Assignment s = assignments.get(name);
@@ -348,6 +430,7 @@ final class RenameVars implements CompilerPass {
     this.externNames = NodeUtil.collectExternVariableNames(this.compiler, externs);
 
     originalNameByNode.clear();
+    localScopeNames.clear();
     assignmentLog = new StringBuilder();
 
     // Do variable reference counting.
@@ -382,7 +465,16 @@ final class RenameVars implements CompilerPass {
 
     // Rename the locals!
     for (Node n : localNameNodes) {
-      setNameAndReport(n, getNewLocalName(n));
+      setNameAndReport(n, getNewLocalName(n, assignments.get(n.getString())));
+    }
+
+    if (!localScopeNames.isEmpty()) {
+      assignLocalNamesPerScope();
+      for (LocalScopeNames scopeNames : localScopeNames.values()) {
+        for (Node n : scopeNames.nameNodes) {
+          setNameAndReport(n, getNewLocalName(n, scopeNames.assignments.get(n.getString())));
+        }
+      }
     }
 
     // Lastly, write the name assignments to the debug log.
@@ -424,9 +516,8 @@ final class RenameVars implements CompilerPass {
   }
 
   @Nullable
-  private String getNewLocalName(Node n) {
+  private String getNewLocalName(Node n, Assignment a) {
     String oldTempName = n.getString();
-    Assignment a = assignments.get(oldTempName);
     if (!a.newName.equals(oldTempName)) {
       if (pseudoNameMap != null) {
         return pseudoNameMap.get(n);
@@ -551,6 +642,33 @@ final class RenameVars implements CompilerPass {
     }
   }
 
+  /**
+   * Names the locals of each scope whose parent is the global scope, in
+   * parallel. Each task has its own name generator, and the reserved names
+   * are not modified while the tasks run.
+   */
+  private void assignLocalNamesPerScope() {
+    final List<LocalScopeNames> scopes = new ArrayList<>(localScopeNames.values());
+    final int numTasks =
+        Math.max(1, Math.min(compiler.getOptions().numParallelThreads, scopes.size()));
+    List<Runnable> tasks = new ArrayList<>(numTasks);
+    for (int i = 0; i < numTasks; i++) {
+      final int first = i;
+      final NameGenerator localNameGenerator =
+          nameGenerator.clone(reservedNames, "", reservedCharacters);
+      tasks.add(
+          new Runnable() {
+            @Override
+            public void run() {
+              for (int j = first; j < scopes.size(); j += numTasks) {
+                scopes.get(j).assignNames(localNameGenerator);
+              }
+            }
+          });
+    }
+    ParallelTasks.run(numTasks, "RenameVars", tasks);
+  }
+
   /**
    * Makes a final name assignment.
    */
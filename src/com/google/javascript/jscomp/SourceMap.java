@@ -24,8 +24,10 @@ import com.google.debugging.sourcemap.SourceMapGeneratorFactory;
 import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
 import com.google.javascript.rhino.Node;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -139,6 +141,19 @@ public final class SourceMap {
   @Nullable
   private SourceFileMapping mapping;
 
+  /**
+   * The mappings added since the last output that still need to be resolved
+   * through {@link #mapping}. They are composed in one batch when the source
+   * map is written, so the lookups can be spread over several threads.
+   */
+  private final List<PendingMapping> pendingMappings = new ArrayList<>();
+  private int numParallelThreads = 1;
+  private int offsetLine = 0;
+  private int offsetIndex = 0;
+
+  /** The number of mappings resolved by each composition task. */
+  private static final int COMPOSITION_CHUNK_SIZE = 4096;
+
   private SourceMap(SourceMapGenerator generator) {
     this.generator = generator;
   }
@@ -161,15 +176,30 @@ public final class SourceMap {
     String originalName = node.getOriginalName();
 
     if (mapping != null) {
-      OriginalMapping sourceMapping = mapping.getSourceMapping(sourceFile, lineNo, charNo);
-      if (sourceMapping != null) {
-        sourceFile = sourceMapping.getOriginalFile();
-        lineNo = sourceMapping.getLineNumber();
-        charNo = sourceMapping.getColumnPosition();
-        originalName = sourceMapping.getIdentifier();
-      }
+      pendingMappings.add(
+          new PendingMapping(
+              sourceFile,
+              originalName,
+              lineNo,
+              charNo,
+              outputStartPosition,
+              outputEndPosition,
+              offsetLine,
+              offsetIndex));
+      return;
     }
 
+    addGeneratorMapping(
+        sourceFile, originalName, lineNo, charNo, outputStartPosition, outputEndPosition);
+  }
+
+  private void addGeneratorMapping(
+      String sourceFile,
+      String originalName,
+      int lineNo,
+      int charNo,
+      FilePosition outputStartPosition,
+      FilePosition outputEndPosition) {
     sourceFile = fixupSourceLocation(sourceFile);
 
     // Rhino source lines are one based but for v3 source maps, we make
@@ -182,6 +212,85 @@ public final class SourceMap {
         outputStartPosition, outputEndPosition);
   }
 
+  /**
+   * Resolves the pending mappings through the input source maps and adds them
+   * to the generator, in the order they were added.
+   *
+   * <p>The mappings are grouped by the file they come from. The first mapping
+   * of each file is resolved on the calling thread, which loads and caches the
+   * file's input source map and reports any problem with it; the rest are
+   * then resolved in parallel against the cached maps, which are not modified
+   * by lookups.
+   */
+  private void composePendingMappings() {
+    if (pendingMappings.isEmpty()) {
+      return;
+    }
+
+    final int count = pendingMappings.size();
+    final OriginalMapping[] resolved = new OriginalMapping[count];
+    Map<String, List<Integer>> mappingsByFile = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      String sourceFile = pendingMappings.get(i).sourceFile;
+      List<Integer> indexes = mappingsByFile.get(sourceFile);
+      if (indexes == null) {
+        indexes = new ArrayList<>();
+        mappingsByFile.put(sourceFile, indexes);
+        resolved[i] = resolve(pendingMappings.get(i));
+      } else {
+        indexes.add(i);
+      }
+    }
+
+    List<Runnable> tasks = new ArrayList<>();
+    for (List<Integer> indexes : mappingsByFile.values()) {
+      for (int start = 0; start < indexes.size(); start += COMPOSITION_CHUNK_SIZE) {
+        final List<Integer> chunk =
+            indexes.subList(start, Math.min(start + COMPOSITION_CHUNK_SIZE, indexes.size()));
+        tasks.add(
+            new Runnable() {
+              @Override
+              public void run() {
+                for (int i : chunk) {
+                  resolved[i] = resolve(pendingMappings.get(i));
+                }
+              }
+            });
+      }
+    }
+    ParallelTasks.run(numParallelThreads, "SourceMapComposition", tasks);
+
+    for (int i = 0; i < count; i++) {
+      PendingMapping pending = pendingMappings.get(i);
+      generator.setStartingPosition(pending.offsetLine, pending.offsetIndex);
+      OriginalMapping sourceMapping = resolved[i];
+      if (sourceMapping != null) {
+        addGeneratorMapping(
+            sourceMapping.getOriginalFile(),
+            sourceMapping.getIdentifier(),
+            sourceMapping.getLineNumber(),
+            sourceMapping.getColumnPosition(),
+            pending.outputStartPosition,
+            pending.outputEndPosition);
+      } else {
+        addGeneratorMapping(
+            pending.sourceFile,
+            pending.originalName,
+            pending.lineNo,
+            pending.charNo,
+            pending.outputStartPosition,
+            pending.outputEndPosition);
+      }
+    }
+    generator.setStartingPosition(offsetLine, offsetIndex);
+    pendingMappings.clear();
+  }
+
+  @Nullable
+  private OriginalMapping resolve(PendingMapping pending) {
+    return mapping.getSourceMapping(pending.sourceFile, pending.lineNo, pending.charNo);
+  }
+
   public void addSourceFile(SourceFile sourceFile) {
     try {
       generator.addSourcesContent(fixupSourceLocation(sourceFile.getName()), sourceFile.getCode());
@@ -223,16 +332,22 @@ public final class SourceMap {
   }
 
   public void appendTo(Appendable out, String name) throws IOException {
+    composePendingMappings();
     generator.appendTo(out, fixupSourceLocation(name));
   }
 
   public void reset() {
     generator.reset();
     sourceLocationFixupCache.clear();
+    pendingMappings.clear();
+    offsetLine = 0;
+    offsetIndex = 0;
   }
 
   public void setStartingPosition(int offsetLine, int offsetIndex) {
     generator.setStartingPosition(offsetLine, offsetIndex);
+    this.offsetLine = offsetLine;
+    this.offsetIndex = offsetIndex;
   }
 
   public void setWrapperPrefix(String prefix) {
@@ -253,4 +368,44 @@ public final class SourceMap {
   public void setSourceFileMapping(SourceFileMapping mapping) {
     this.mapping = mapping;
   }
+
+  /**
+   * Sets the number of threads used to resolve mappings through the
+   * {@link SourceFileMapping}, which must then support concurrent lookups.
+   */
+  void setNumParallelThreads(int numParallelThreads) {
+    this.numParallelThreads = numParallelThreads;
+  }
+
+  /** A mapping that has not been resolved through the input source maps yet. */
+  private static final class PendingMapping {
+    final String sourceFile;
+    final String originalName;
+    final int lineNo;
+    final int charNo;
+    final FilePosition outputStartPosition;
+    final FilePosition outputEndPosition;
+    // The starting position of the generator when the mapping was added.
+    final int offsetLine;
+    final int offsetIndex;
+
+    PendingMapping(
+        String sourceFile,
+        String originalName,
+        int lineNo,
+        int charNo,
+        FilePosition outputStartPosition,
+        FilePosition outputEndPosition,
+        int offsetLine,
+        int offsetIndex) {
+      this.sourceFile = sourceFile;
+      this.originalName = originalName;
+      this.lineNo = lineNo;
+      this.charNo = charNo;
+      this.outputStartPosition = outputStartPosition;
+      this.outputEndPosition = outputEndPosition;
+      this.offsetLine = offsetLine;
+      this.offsetIndex = offsetIndex;
+    }
+  }
 }
@@ -18,8 +18,11 @@ package com.google.javascript.jscomp;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
+import java.util.Set;
 
 /**
  * Tries to fuse all the statements in a block into a one statement by using
@@ -49,6 +52,14 @@ class StatementFusion extends AbstractPeepholeOptimization {
     this.favorsCommaOverSemiColon = favorsCommaOverSemiColon;
   }
 
+  private static final ImmutableSet<Token> TOKENS =
+      Sets.immutableEnumSet(Token.ROOT, Token.SCRIPT, Token.BLOCK, Token.MODULE_BODY);
+
+  @Override
+  Set<Token> getTokens() {
+    return TOKENS;
+  }
+
   @Override
   Node optimizeSubtree(Node n) {
     // TODO(user): It is much cleaner to have two algorithms depending
@@ -16,55 +16,143 @@
 
 package com.google.javascript.jscomp;
 
+import com.google.javascript.jscomp.BasicErrorManager.ErrorWithLevel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * A simple delegating {@link ErrorManager} that provides a thread-safe wrapper
  * for the one being delegated.
+ *
+ * <p>Reporting never blocks: a report is added to a lock-free queue, and
+ * whichever thread holds the lock on the delegate passes the queued reports
+ * on to it. Without contention, every report is passed on before
+ * {@link #report} returns, so a single thread sees the same behavior as
+ * with the delegate alone. Reports from several threads may be passed on a
+ * little later, but always before any of the other methods reads the
+ * delegate. The reports of each thread reach the delegate in the order they
+ * were made.
  */
 public class ThreadSafeDelegatingErrorManager implements ErrorManager {
   private final ErrorManager delegated;
+  private final ReentrantLock lock = new ReentrantLock();
+  /** Reports that have not been passed on to the delegate yet. */
+  private final Queue<ErrorWithLevel> pending = new ConcurrentLinkedQueue<>();
 
   public ThreadSafeDelegatingErrorManager(ErrorManager delegated) {
     this.delegated = delegated;
   }
 
   @Override
-  public synchronized void report(CheckLevel level, JSError error) {
-    delegated.report(level, error);
+  public void report(CheckLevel level, JSError error) {
+    pending.add(new ErrorWithLevel(error, level));
+    flushIfUncontended();
   }
 
-  @Override
-  public synchronized void generateReport() {
-    delegated.generateReport();
+  /**
+   * Passes the pending reports on to the delegate, unless another thread
+   * holds the lock, in which case that thread passes them on before it is
+   * done.
+   */
+  private void flushIfUncontended() {
+    // A report queued while the lock was held is seen here by the holder after it unlocks.
+    while (!pending.isEmpty() && lock.tryLock()) {
+      try {
+        flush();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /** Passes the pending reports on to the delegate. Requires the lock. */
+  private void flush() {
+    for (ErrorWithLevel e = pending.poll(); e != null; e = pending.poll()) {
+      delegated.report(e.level, e.error);
+    }
+  }
+
+  /** Releases the lock, then passes on any report queued meanwhile. */
+  private void unlock() {
+    lock.unlock();
+    flushIfUncontended();
   }
 
   @Override
-  public synchronized int getErrorCount() {
-    return delegated.getErrorCount();
+  public void generateReport() {
+    lock.lock();
+    try {
+      flush();
+      delegated.generateReport();
+    } finally {
+      unlock();
+    }
   }
 
   @Override
-  public synchronized int getWarningCount() {
-    return delegated.getWarningCount();
+  public int getErrorCount() {
+    lock.lock();
+    try {
+      flush();
+      return delegated.getErrorCount();
+    } finally {
+      unlock();
+    }
   }
 
   @Override
-  public synchronized JSError[] getErrors() {
-    return delegated.getErrors();
+  public int getWarningCount() {
+    lock.lock();
+    try {
+      flush();
+      return delegated.getWarningCount();
+    } finally {
+      unlock();
+    }
   }
 
   @Override
-  public synchronized JSError[] getWarnings() {
-    return delegated.getWarnings();
+  public JSError[] getErrors() {
+    lock.lock();
+    try {
+      flush();
+      return delegated.getErrors();
+    } finally {
+      unlock();
+    }
   }
 
   @Override
-  public synchronized void setTypedPercent(double typedPercent) {
-    delegated.setTypedPercent(typedPercent);
+  public JSError[] getWarnings() {
+    lock.lock();
+    try {
+      flush();
+      return delegated.getWarnings();
+    } finally {
+      unlock();
+    }
   }
 
   @Override
-  public synchronized double getTypedPercent() {
-    return delegated.getTypedPercent();
+  public void setTypedPercent(double typedPercent) {
+    lock.lock();
+    try {
+      flush();
+      delegated.setTypedPercent(typedPercent);
+    } finally {
+      unlock();
+    }
   }
 
+  @Override
+  public double getTypedPercent() {
+    lock.lock();
+    try {
+      flush();
+      return delegated.getTypedPercent();
+    } finally {
+      unlock();
+    }
+  }
 }
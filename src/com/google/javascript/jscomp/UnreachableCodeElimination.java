@@ -21,11 +21,8 @@ import static com.google.common.base.Preconditions.checkState;
 import com.google.javascript.jscomp.ControlFlowGraph.Branch;
 import com.google.javascript.jscomp.NodeTraversal.AbstractShallowCallback;
 import com.google.javascript.jscomp.NodeTraversal.ChangeScopeRootCallback;
-import com.google.javascript.jscomp.graph.DiGraph.DiGraphEdge;
-import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
 import com.google.javascript.jscomp.graph.GraphReachability;
 import com.google.javascript.rhino.Node;
-import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -63,12 +60,8 @@ class UnreachableCodeElimination implements CompilerPass {
         @Override
         public void enterChangeScopeRoot(AbstractCompiler compiler, Node root) {
           // Computes the control flow graph.
-          ControlFlowAnalysis cfa =
-              new ControlFlowAnalysis(compiler, false, false);
-          cfa.process(null, root);
-          ControlFlowGraph<Node> cfg = cfa.getCfg();
-          new GraphReachability<>(cfg)
-              .compute(cfg.getEntry().getValue());
+          CompactControlFlowGraph cfg = ControlFlowAnalysis.getCompactCfg(compiler, root);
+          cfg.computeReachability();
           if (root.isFunction()) {
             root = root.getLastChild();
           }
@@ -81,8 +74,8 @@ class UnreachableCodeElimination implements CompilerPass {
   }
 
   private class EliminationPass extends AbstractShallowCallback {
-    private final ControlFlowGraph<Node> cfg;
-    private EliminationPass(ControlFlowGraph<Node> cfg) {
+    private final CompactControlFlowGraph cfg;
+    private EliminationPass(CompactControlFlowGraph cfg) {
       this.cfg = cfg;
     }
 
@@ -91,11 +84,11 @@ class UnreachableCodeElimination implements CompilerPass {
       if (parent == null || n.isFunction() || n.isScript()) {
         return;
       }
-      DiGraphNode<Node, Branch> gNode = cfg.getDirectedGraphNode(n);
-      if (gNode == null) { // Not in CFG.
+      int id = cfg.getId(n);
+      if (id == -1) { // Not in CFG.
         return;
       }
-      if (gNode.getAnnotation() != GraphReachability.REACHABLE
+      if (cfg.getAnnotation(id) != GraphReachability.REACHABLE
           || !NodeUtil.mayHaveSideEffects(n, compiler)) {
         removeDeadExprStatementSafely(n);
         return;
@@ -135,9 +128,9 @@ class UnreachableCodeElimination implements CompilerPass {
          return;
       }
 
-      DiGraphNode<Node, Branch> gNode = cfg.getDirectedGraphNode(n);
+      int id = cfg.getId(n);
 
-      if (gNode == null) {
+      if (id == -1) {
         return;
       }
 
@@ -151,15 +144,14 @@ class UnreachableCodeElimination implements CompilerPass {
           // We are looking for a control flow changing statement that always
           // branches to the same node. If after removing it control still
           // branches to the same node, it is safe to remove.
-          List<DiGraphEdge<Node, Branch>> outEdges = gNode.getOutEdges();
-          if (outEdges.size() == 1
+          if (cfg.getOutDegree(id) == 1
               &&
               // If there is a next node, this jump is not useless.
               (n.getNext() == null || n.getNext().isFunction())) {
 
-            checkState(outEdges.get(0).getValue() == Branch.UNCOND);
+            checkState(cfg.getOutBranch(id, 0) == Branch.UNCOND);
             Node fallThrough = computeFollowing(n);
-            Node nextCfgNode = outEdges.get(0).getDestination().getValue();
+            Node nextCfgNode = cfg.getNode(cfg.getSuccessor(id, 0));
             if (nextCfgNode == fallThrough && !inFinally(n.getParent(), n)) {
               removeNode(n);
             }
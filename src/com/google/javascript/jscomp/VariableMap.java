@@ -27,12 +27,17 @@ import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.io.Files;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.text.ParseException;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -45,6 +50,12 @@ public final class VariableMap {
 
   private static final char SEPARATOR = ':';
 
+  /**
+   * The first bytes of a map serialized by {@link #toBinaryBytes()}. A text
+   * map cannot start with a NUL, since its lines start with a name.
+   */
+  private static final byte[] BINARY_MAGIC = {0, 'V', 'M', 1};
+
   private static final Comparator<Map.Entry<String, String>> ENTRY_COMPARATOR =
       new Comparator<Map.Entry<String, String>>() {
     @Override
@@ -99,7 +110,17 @@ public final class VariableMap {
   }
 
   /**
-   * Reads the variable map from a file written via {@link #save(String)}.
+   * Saves the variable map to a file in the binary format of
+   * {@link #toBinaryBytes()}.
+   */
+  @GwtIncompatible("com.google.io.Files")
+  public void saveBinary(String filename) throws IOException {
+    Files.write(toBinaryBytes(), new File(filename));
+  }
+
+  /**
+   * Reads the variable map from a file written via {@link #save(String)} or
+   * {@link #saveBinary(String)}.
    */
   @GwtIncompatible("java.io.File")
   public static VariableMap load(String filename) throws IOException {
@@ -140,12 +161,91 @@ public final class VariableMap {
   private static final Splitter LINE_SPLITTER
       = Splitter.onPattern("\\r?\\n").omitEmptyStrings();
 
+  /**
+   * Serializes the variable map to a compact binary form, which is read back
+   * without any text parsing or unescaping: {@link #BINARY_MAGIC}, the number
+   * of entries, then the original and new name of each entry, in the same
+   * stable order as {@link #toBytes()}. Every name is written as its length
+   * in UTF-8 bytes followed by the bytes.
+   */
+  @GwtIncompatible("java.io.DataOutputStream")
+  public byte[] toBinaryBytes() {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(baos);
+    try {
+      out.write(BINARY_MAGIC);
+      out.writeInt(map.size());
+      for (Map.Entry<String, String> entry :
+          ImmutableSortedSet.copyOf(ENTRY_COMPARATOR, map.entrySet())) {
+        writeName(out, entry.getKey());
+        writeName(out, entry.getValue());
+      }
+      out.close();
+    } catch (IOException e) {
+      // A ByteArrayOutputStream never throws IOException.
+      throw new RuntimeException(e);
+    }
+    return baos.toByteArray();
+  }
+
+  @GwtIncompatible("java.io.DataOutputStream")
+  private static void writeName(DataOutputStream out, String name) throws IOException {
+    byte[] bytes = name.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  @GwtIncompatible("java.io.DataInputStream")
+  private static VariableMap fromBinaryBytes(byte[] bytes) throws ParseException {
+    DataInputStream in = new DataInputStream(
+        new ByteArrayInputStream(bytes, BINARY_MAGIC.length, bytes.length - BINARY_MAGIC.length));
+    try {
+      int size = in.readInt();
+      if (size < 0) {
+        throw new ParseException("Bad entry count: " + size, BINARY_MAGIC.length);
+      }
+      ImmutableMap.Builder<String, String> map = ImmutableMap.builder();
+      for (int i = 0; i < size; i++) {
+        map.put(readName(in, bytes.length), readName(in, bytes.length));
+      }
+      if (in.read() != -1) {
+        throw new ParseException("Trailing bytes after " + size + " entries", 0);
+      }
+      return new VariableMap(map.build());
+    } catch (EOFException e) {
+      throw new ParseException("Truncated binary variable map", bytes.length);
+    } catch (IOException e) {
+      // A ByteArrayInputStream never throws IOException.
+      throw new RuntimeException(e);
+    }
+  }
+
+  @GwtIncompatible("java.io.DataInputStream")
+  private static String readName(DataInputStream in, int maxLength)
+      throws IOException, ParseException {
+    int length = in.readInt();
+    if (length < 0 || length > maxLength) {
+      throw new ParseException("Bad name length: " + length, 0);
+    }
+    byte[] name = new byte[length];
+    in.readFully(name);
+    return new String(name, UTF_8);
+  }
+
+  private static boolean isBinary(byte[] bytes) {
+    return bytes.length >= BINARY_MAGIC.length
+        && Arrays.equals(Arrays.copyOf(bytes, BINARY_MAGIC.length), BINARY_MAGIC);
+  }
+
   /**
    * Deserializes the variable map from a byte array returned by
-   * {@link #toBytes()}.
+   * {@link #toBytes()} or {@link #toBinaryBytes()}.
    */
   @GwtIncompatible("com.google.common.base.Splitter.onPattern()")
   public static VariableMap fromBytes(byte[] bytes) throws ParseException {
+    if (isBinary(bytes)) {
+      return fromBinaryBytes(bytes);
+    }
     Iterable<String> lines = LINE_SPLITTER.split(
         new String(bytes, UTF_8));
 
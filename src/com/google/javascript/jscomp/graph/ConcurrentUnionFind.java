@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.graph;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import javax.annotation.Nullable;
+
+/**
+ * A Union-Find implementation over a fixed set of elements that supports
+ * unions and finds from several threads at once, without locking.
+ *
+ * <p>The elements are numbered in the order they are given to the
+ * constructor and no elements can be added later. A union links the root with
+ * the larger id below the root with the smaller id, with a compare-and-set
+ * that fails if another thread has linked the root in the meantime, and finds
+ * halve the paths they walk the same way. Because roots are only ever linked
+ * below smaller ids, the representative of every class is its first element,
+ * whatever order the unions happen in, so the result of a parallel union
+ * phase is deterministic.
+ *
+ * <p>{@link #allEquivalenceClasses} and {@link #findAll} are meant to be
+ * called after the parallel phase is over.
+ *
+ * @param <E> element type
+ */
+@GwtIncompatible("java.util.concurrent.atomic.AtomicIntegerArray")
+public final class ConcurrentUnionFind<E> implements UnionFind<E> {
+
+  private final ImmutableMap<E, Integer> ids;
+  private final ImmutableList<E> elementsById;
+  private final AtomicIntegerArray parent;
+
+  /** Creates a structure in which every given element is in a class by itself. */
+  public ConcurrentUnionFind(Iterable<? extends E> elements) {
+    ImmutableMap.Builder<E, Integer> idsBuilder = ImmutableMap.builder();
+    ImmutableList.Builder<E> elementsBuilder = ImmutableList.builder();
+    int count = 0;
+    for (E e : ImmutableSet.copyOf(elements)) {
+      idsBuilder.put(e, count++);
+      elementsBuilder.add(e);
+    }
+    this.ids = idsBuilder.build();
+    this.elementsById = elementsBuilder.build();
+    this.parent = new AtomicIntegerArray(count);
+    for (int i = 0; i < count; i++) {
+      parent.set(i, i);
+    }
+  }
+
+  /**
+   * @throws UnsupportedOperationException if the element was not given to the
+   *     constructor.
+   */
+  @Override
+  public void add(@Nullable E e) {
+    if (!ids.containsKey(e)) {
+      throw new UnsupportedOperationException("Cannot add elements to a ConcurrentUnionFind");
+    }
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public E union(@Nullable E a, @Nullable E b) {
+    int idA = getId(a);
+    int idB = getId(b);
+    while (true) {
+      int rootA = findRoot(idA);
+      int rootB = findRoot(idB);
+      if (rootA == rootB) {
+        return elementsById.get(rootA);
+      }
+      int newRoot = Math.min(rootA, rootB);
+      int child = Math.max(rootA, rootB);
+      if (parent.compareAndSet(child, child, newRoot)) {
+        return elementsById.get(newRoot);
+      }
+      // Another thread linked the child first; retry with the new roots.
+    }
+  }
+
+  @Override
+  public E find(@Nullable E e) {
+    return elementsById.get(findRoot(getId(e)));
+  }
+
+  @Override
+  public boolean areEquivalent(@Nullable E a, @Nullable E b) {
+    int idA = getId(a);
+    int idB = getId(b);
+    while (true) {
+      int rootA = findRoot(idA);
+      int rootB = findRoot(idB);
+      if (rootA == rootB) {
+        return true;
+      }
+      // rootA may have been linked below rootB since it was found.
+      if (parent.get(rootA) == rootA) {
+        return false;
+      }
+    }
+  }
+
+  @Override
+  public Set<E> elements() {
+    return ids.keySet();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The classes are ordered by their first element, and the elements of
+   * each class by their order in the constructor.
+   */
+  @Override
+  public Collection<Set<E>> allEquivalenceClasses() {
+    int count = elementsById.size();
+    int[] classOfRoot = new int[count];
+    Arrays.fill(classOfRoot, -1);
+    List<ImmutableSet.Builder<E>> builders = new ArrayList<>();
+    for (int id = 0; id < count; id++) {
+      int root = findRoot(id);
+      // Roots have the smallest id of their class, so they come first.
+      if (root == id) {
+        classOfRoot[root] = builders.size();
+        builders.add(ImmutableSet.<E>builder());
+      }
+      builders.get(classOfRoot[root]).add(elementsById.get(id));
+    }
+    ImmutableList.Builder<Set<E>> result = ImmutableList.builder();
+    for (ImmutableSet.Builder<E> builder : builders) {
+      result.add(builder.build());
+    }
+    return result.build();
+  }
+
+  @Override
+  public Set<E> findAll(@Nullable E value) {
+    int root = findRoot(getId(value));
+    ImmutableSet.Builder<E> members = ImmutableSet.builder();
+    for (int id = root; id < elementsById.size(); id++) {
+      if (findRoot(id) == root) {
+        members.add(elementsById.get(id));
+      }
+    }
+    return members.build();
+  }
+
+  private int getId(E e) {
+    Integer id = ids.get(e);
+    checkArgument(id != null, "Element does not exist: %s", e);
+    return id;
+  }
+
+  /** Returns the current root of the tree of the given id, halving the path to it. */
+  private int findRoot(int id) {
+    while (true) {
+      int p = parent.get(id);
+      if (p == id) {
+        return id;
+      }
+      int grandparent = parent.get(p);
+      if (grandparent != p) {
+        // Losing this race is harmless: the path is just not shortened.
+        parent.compareAndSet(id, p, grandparent);
+      }
+      id = grandparent;
+    }
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.graph;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * A Union-Find implementation that numbers its elements and keeps the forest
+ * in int arrays.
+ *
+ * <p>Each element is mapped to a dense int id once, when it is added; after
+ * that, the parent, rank and size of every element are array entries instead
+ * of fields of a node object, which makes this implementation much smaller
+ * than {@link StandardUnionFind} for large numbers of elements. Finding the
+ * representative of an element uses path halving.
+ *
+ * <p>This class behaves like {@link StandardUnionFind}: the representative of
+ * a union is the representative of its first argument, and elements and
+ * equivalence classes are iterated in insertion order. It is not thread-safe,
+ * even for concurrent reads, because finding a representative shortens the
+ * paths of the forest; see {@link ConcurrentUnionFind} for parallel unions.
+ *
+ * @param <E> element type
+ */
+public final class DenseUnionFind<E> implements UnionFind<E> {
+
+  private final Map<E, Integer> ids = new HashMap<>();
+  private final List<E> elementsById = new ArrayList<>();
+
+  private int[] parent = new int[8];
+  private int[] rank = new int[8];
+
+  // The following arrays are only meaningful for the roots of the forest.
+  /** The number of elements in the tree of each root. */
+  private int[] size = new int[8];
+  /** The id of the representative element of the tree of each root. */
+  private int[] representative = new int[8];
+
+  /** Creates an empty UnionFind structure. */
+  public DenseUnionFind() {
+  }
+
+  @Override
+  public void add(@Nullable E e) {
+    getOrCreateId(e);
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public E union(@Nullable E a, @Nullable E b) {
+    int rootA = findRoot(getOrCreateId(a));
+    int rootB = findRoot(getOrCreateId(b));
+    if (rootA == rootB) {
+      return elementsById.get(representative[rootA]);
+    }
+    int newRoot;
+    int child;
+    if (rank[rootA] >= rank[rootB]) {
+      newRoot = rootA;
+      child = rootB;
+      if (rank[rootA] == rank[rootB]) {
+        rank[rootA]++;
+      }
+    } else {
+      newRoot = rootB;
+      child = rootA;
+    }
+    parent[child] = newRoot;
+    size[newRoot] += size[child];
+    representative[newRoot] = representative[rootA];
+    return elementsById.get(representative[newRoot]);
+  }
+
+  @Override
+  public E find(@Nullable E e) {
+    return elementsById.get(representative[findRoot(getId(e))]);
+  }
+
+  @Override
+  public boolean areEquivalent(@Nullable E a, @Nullable E b) {
+    return findRoot(getId(a)) == findRoot(getId(b));
+  }
+
+  @Override
+  public Set<E> elements() {
+    return new AbstractSet<E>() {
+      @Override
+      public boolean contains(Object o) {
+        return ids.containsKey(o);
+      }
+
+      @Override
+      public Iterator<E> iterator() {
+        return new ElementIterator(-1);
+      }
+
+      @Override
+      public int size() {
+        return elementsById.size();
+      }
+    };
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The classes are ordered by their first element, and the elements of
+   * each class by their insertion order.
+   */
+  @Override
+  public Collection<Set<E>> allEquivalenceClasses() {
+    int count = elementsById.size();
+    // Number the classes in the order in which their first element was added.
+    int[] classOfRoot = new int[count];
+    Arrays.fill(classOfRoot, -1);
+    int[] classOfElement = new int[count];
+    List<ImmutableSet.Builder<E>> builders = new ArrayList<>();
+    for (int id = 0; id < count; id++) {
+      int root = findRoot(id);
+      if (classOfRoot[root] == -1) {
+        classOfRoot[root] = builders.size();
+        builders.add(ImmutableSet.<E>builder());
+      }
+      classOfElement[id] = classOfRoot[root];
+    }
+    for (int id = 0; id < count; id++) {
+      builders.get(classOfElement[id]).add(elementsById.get(id));
+    }
+    ImmutableList.Builder<Set<E>> result = ImmutableList.builder();
+    for (ImmutableSet.Builder<E> builder : builders) {
+      result.add(builder.build());
+    }
+    return result.build();
+  }
+
+  @Override
+  public Set<E> findAll(@Nullable final E value) {
+    final int id = getId(value);
+    return new AbstractSet<E>() {
+      @Override
+      public boolean contains(Object o) {
+        Integer other = ids.get(o);
+        return other != null && findRoot(other) == findRoot(id);
+      }
+
+      @Override
+      public Iterator<E> iterator() {
+        return new ElementIterator(id);
+      }
+
+      @Override
+      public int size() {
+        return size[findRoot(id)];
+      }
+    };
+  }
+
+  private int getId(E e) {
+    Integer id = ids.get(e);
+    checkArgument(id != null, "Element does not exist: %s", e);
+    return id;
+  }
+
+  private int getOrCreateId(E e) {
+    Integer id = ids.get(e);
+    if (id != null) {
+      return id;
+    }
+    int newId = elementsById.size();
+    if (newId == parent.length) {
+      int newLength = newId * 2;
+      parent = Arrays.copyOf(parent, newLength);
+      rank = Arrays.copyOf(rank, newLength);
+      size = Arrays.copyOf(size, newLength);
+      representative = Arrays.copyOf(representative, newLength);
+    }
+    ids.put(e, newId);
+    elementsById.add(e);
+    parent[newId] = newId;
+    size[newId] = 1;
+    representative[newId] = newId;
+    return newId;
+  }
+
+  /** Returns the root of the tree of the given id, halving the path to it. */
+  private int findRoot(int id) {
+    while (parent[id] != id) {
+      parent[id] = parent[parent[id]];
+      id = parent[id];
+    }
+    return id;
+  }
+
+  /**
+   * Iterates over the elements in insertion order, either all of them or only
+   * those in the class of a given element.
+   */
+  private final class ElementIterator implements Iterator<E> {
+    /** An id in the class to iterate over, or -1 to iterate over all elements. */
+    private final int classMember;
+    private int next;
+
+    ElementIterator(int classMember) {
+      this.classMember = classMember;
+      this.next = advance(0);
+    }
+
+    private int advance(int from) {
+      if (classMember != -1) {
+        while (from < elementsById.size() && findRoot(from) != findRoot(classMember)) {
+          from++;
+        }
+      }
+      return from;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next < elementsById.size();
+    }
+
+    @Override
+    public E next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      E element = elementsById.get(next);
+      next = advance(next + 1);
+      return element;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
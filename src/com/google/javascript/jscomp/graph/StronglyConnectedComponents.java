@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.graph;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphEdge;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The strongly connected components of a directed graph, computed with
+ * Tarjan's algorithm.
+ *
+ * <p>The components are numbered in topological order: every edge between two
+ * different components goes from a component with a smaller number to one
+ * with a larger number. A computation that propagates information along the
+ * edges can therefore visit the components in order and only iterate to a
+ * fixed point within each component, instead of over the whole graph.
+ *
+ * <p>The components are also grouped into levels: the level of a component is
+ * the length of the longest path of components that leads to it. There are no
+ * edges between the components of a level, so they can be processed
+ * independently once all the earlier levels are done.
+ *
+ * @param <N> Value type that the graph node stores.
+ * @param <E> Value type that the graph edge stores.
+ */
+public final class StronglyConnectedComponents<N, E> {
+
+  private final ImmutableList<List<DiGraphNode<N, E>>> components;
+  private final Map<DiGraphNode<N, E>, Integer> componentOfNode;
+  private final ImmutableList<List<Integer>> levels;
+
+  private StronglyConnectedComponents(
+      ImmutableList<List<DiGraphNode<N, E>>> components,
+      Map<DiGraphNode<N, E>, Integer> componentOfNode,
+      ImmutableList<List<Integer>> levels) {
+    this.components = components;
+    this.componentOfNode = componentOfNode;
+    this.levels = levels;
+  }
+
+  /** Computes the strongly connected components of the given graph. */
+  public static <N, E> StronglyConnectedComponents<N, E> compute(DiGraph<N, E> graph) {
+    List<DiGraphNode<N, E>> nodes = new ArrayList<>();
+    Map<DiGraphNode<N, E>, Integer> ids = new IdentityHashMap<>();
+    for (DiGraphNode<N, E> node : graph.getDirectedGraphNodes()) {
+      ids.put(node, nodes.size());
+      nodes.add(node);
+    }
+    int nodeCount = nodes.size();
+
+    // Tarjan's algorithm, with an explicit stack of the nodes being visited
+    // and the index of the next out edge of each to look at.
+    int[] index = new int[nodeCount];
+    Arrays.fill(index, -1);
+    int[] lowLink = new int[nodeCount];
+    boolean[] onStack = new boolean[nodeCount];
+    int[] tarjanStack = new int[nodeCount];
+    int tarjanStackSize = 0;
+    int[] callStack = new int[nodeCount];
+    int[] nextEdge = new int[nodeCount];
+    int nextIndex = 0;
+
+    // Tarjan's algorithm finds the components in reverse topological order.
+    List<List<DiGraphNode<N, E>>> reversedComponents = new ArrayList<>();
+    for (int start = 0; start < nodeCount; start++) {
+      if (index[start] != -1) {
+        continue;
+      }
+      int callStackSize = 0;
+      callStack[callStackSize++] = start;
+      index[start] = lowLink[start] = nextIndex++;
+      tarjanStack[tarjanStackSize++] = start;
+      onStack[start] = true;
+      nextEdge[start] = 0;
+
+      while (callStackSize > 0) {
+        int v = callStack[callStackSize - 1];
+        List<DiGraphEdge<N, E>> outEdges = nodes.get(v).getOutEdges();
+        if (nextEdge[v] < outEdges.size()) {
+          int w = ids.get(outEdges.get(nextEdge[v]++).getDestination());
+          if (index[w] == -1) {
+            index[w] = lowLink[w] = nextIndex++;
+            tarjanStack[tarjanStackSize++] = w;
+            onStack[w] = true;
+            nextEdge[w] = 0;
+            callStack[callStackSize++] = w;
+          } else if (onStack[w]) {
+            lowLink[v] = Math.min(lowLink[v], index[w]);
+          }
+          continue;
+        }
+
+        // All the successors of v are done.
+        callStackSize--;
+        if (callStackSize > 0) {
+          int parent = callStack[callStackSize - 1];
+          lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+        }
+        if (lowLink[v] == index[v]) {
+          List<DiGraphNode<N, E>> component = new ArrayList<>();
+          int w;
+          do {
+            w = tarjanStack[--tarjanStackSize];
+            onStack[w] = false;
+            component.add(nodes.get(w));
+          } while (w != v);
+          reversedComponents.add(component);
+        }
+      }
+    }
+
+    int componentCount = reversedComponents.size();
+    ImmutableList.Builder<List<DiGraphNode<N, E>>> components = ImmutableList.builder();
+    Map<DiGraphNode<N, E>, Integer> componentOfNode = new IdentityHashMap<>();
+    for (int i = 0; i < componentCount; i++) {
+      List<DiGraphNode<N, E>> component = reversedComponents.get(componentCount - 1 - i);
+      components.add(component);
+      for (DiGraphNode<N, E> node : component) {
+        componentOfNode.put(node, i);
+      }
+    }
+    ImmutableList<List<DiGraphNode<N, E>>> orderedComponents = components.build();
+
+    // Compute the levels, visiting the components in topological order.
+    int[] levelOfComponent = new int[componentCount];
+    List<List<Integer>> levels = new ArrayList<>();
+    for (int i = 0; i < componentCount; i++) {
+      int level = levelOfComponent[i];
+      if (level == levels.size()) {
+        levels.add(new ArrayList<Integer>());
+      }
+      levels.get(level).add(i);
+      for (DiGraphNode<N, E> node : orderedComponents.get(i)) {
+        for (DiGraphEdge<N, E> edge : node.getOutEdges()) {
+          int successor = componentOfNode.get(edge.getDestination());
+          if (successor != i) {
+            levelOfComponent[successor] = Math.max(levelOfComponent[successor], level + 1);
+          }
+        }
+      }
+    }
+
+    return new StronglyConnectedComponents<>(
+        orderedComponents, componentOfNode, ImmutableList.copyOf(levels));
+  }
+
+  /** Returns the components, in topological order. */
+  public List<List<DiGraphNode<N, E>>> getComponents() {
+    return components;
+  }
+
+  /** Returns the number of the component that contains the given node. */
+  public int getComponent(DiGraphNode<N, E> node) {
+    Integer component = componentOfNode.get(node);
+    checkArgument(component != null, "Node is not in the graph: %s", node);
+    return component;
+  }
+
+  /**
+   * Returns the numbers of the components of each level, in increasing order
+   * of level. Every edge that enters a component comes from the same
+   * component or from a component of an earlier level.
+   */
+  public List<List<Integer>> getLevels() {
+    return levels;
+  }
+}
@@ -17,6 +17,7 @@
 package com.google.debugging.sourcemap;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 
 import junit.framework.TestCase;
 
@@ -91,6 +92,10 @@ public final class Base64VLQTest extends TestCase {
       ci.set(sb);
       int result = Base64VLQ.decode(ci);
       assertThat(result).isEqualTo(value);
+
+      byte[] bytes = new byte[Base64VLQ.MAX_ENCODED_LENGTH];
+      int length = Base64VLQ.encode(bytes, 0, value);
+      assertThat(new String(bytes, 0, length, US_ASCII)).isEqualTo(sb.toString());
     } catch (Exception e) {
       throw new RuntimeException("failed for value " + value, e);
     }
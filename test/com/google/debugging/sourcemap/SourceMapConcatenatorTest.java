@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.debugging.sourcemap;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
+import java.io.IOException;
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link SourceMapConcatenator}.
+ */
+public final class SourceMapConcatenatorTest extends TestCase {
+
+  public void testGoldenOutput() throws Exception {
+    SourceMapConcatenator concatenator = new SourceMapConcatenator();
+    concatenator.addSection(0, 0, section("a.js", "f", 0));
+    concatenator.addSection(2, 4, section("b.js", "g", 3));
+
+    StringBuilder out = new StringBuilder();
+    concatenator.appendTo(out, "out.js");
+    assertEquals(
+        "{\n"
+            + "\"version\":3,\n"
+            + "\"file\":\"out.js\",\n"
+            + "\"lineCount\":4,\n"
+            + "\"mappings\":\"AAAAA,IAAI,I;AACJ;ICEAC,IAAI,I;AACJ;\",\n"
+            + "\"sources\":[\"a.js\",\"b.js\"],\n"
+            + "\"names\":[\"f\",\"g\"]\n"
+            + "}\n",
+        out.toString());
+  }
+
+  public void testSameResultAsGenerating() throws Exception {
+    String[] sources = {"a.js", "b.js", "a.js"};
+    String[] names = {"f", "g", "h"};
+    int[] sourceLines = {0, 5, 2};
+    // The second section starts on the line the first one ends on.
+    int[][] offsets = {{0, 0}, {1, 3}, {4, 0}};
+
+    SourceMapConcatenator concatenator = new SourceMapConcatenator();
+    SourceMapGeneratorV3 generator = new SourceMapGeneratorV3();
+    for (int i = 0; i < sources.length; i++) {
+      concatenator.addSection(
+          offsets[i][0], offsets[i][1], section(sources[i], names[i], sourceLines[i]));
+      generator.setStartingPosition(offsets[i][0], offsets[i][1]);
+      addSectionMappings(generator, sources[i], names[i], sourceLines[i]);
+    }
+
+    SourceMapConsumerV3 concatenated = parse(concatenator);
+    SourceMapConsumerV3 generated = new SourceMapConsumerV3();
+    StringBuilder generatedMap = new StringBuilder();
+    generator.appendTo(generatedMap, "out.js");
+    generated.parse(generatedMap.toString());
+
+    // A section map does not record where the last mapping of the section
+    // ends, so the concatenated map only agrees where the generated one maps.
+    for (int line = 1; line <= 8; line++) {
+      for (int column = 1; column <= 20; column++) {
+        OriginalMapping expected = generated.getMappingForLine(line, column);
+        if (expected != null) {
+          assertEquals(
+              "at " + line + ":" + column,
+              expected,
+              concatenated.getMappingForLine(line, column));
+        }
+      }
+    }
+  }
+
+  public void testEmptySection() throws Exception {
+    SourceMapConcatenator concatenator = new SourceMapConcatenator();
+    concatenator.addSection(0, 0, "{\"version\":3,\"mappings\":\";;\",\"sources\":[],\"names\":[]}");
+    concatenator.addSection(1, 0, section("a.js", "f", 0));
+
+    SourceMapConsumerV3 consumer = parse(concatenator);
+    assertNull(consumer.getMappingForLine(1, 1));
+    assertEquals("f", consumer.getMappingForLine(2, 1).getIdentifier());
+  }
+
+  public void testOverlappingSections() throws Exception {
+    SourceMapConcatenator concatenator = new SourceMapConcatenator();
+    concatenator.addSection(2, 0, section("a.js", "f", 0));
+    try {
+      concatenator.addSection(1, 0, section("b.js", "g", 0));
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testIndexMapSection() throws Exception {
+    SourceMapConcatenator concatenator = new SourceMapConcatenator();
+    try {
+      concatenator.addSection(0, 0, "{\"version\":3,\"sections\":[]}");
+      fail();
+    } catch (SourceMapParseException expected) {
+      assertThat(expected).hasMessageThat().contains("regular source maps");
+    }
+  }
+
+  /**
+   * Returns a map of two generated lines: a named mapping and an unnamed one
+   * on the first, and an unnamed one on the second.
+   */
+  private static String section(String source, String name, int sourceLine)
+      throws IOException {
+    SourceMapGeneratorV3 generator = new SourceMapGeneratorV3();
+    addSectionMappings(generator, source, name, sourceLine);
+    StringBuilder out = new StringBuilder();
+    generator.appendTo(out, "section.js");
+    return out.toString();
+  }
+
+  private static void addSectionMappings(
+      SourceMapGeneratorV3 generator, String source, String name, int sourceLine) {
+    generator.addMapping(
+        source, name, new FilePosition(sourceLine, 0),
+        new FilePosition(0, 0), new FilePosition(0, 4));
+    generator.addMapping(
+        source, null, new FilePosition(sourceLine, 4),
+        new FilePosition(0, 4), new FilePosition(0, 8));
+    generator.addMapping(
+        source, null, new FilePosition(sourceLine + 1, 0),
+        new FilePosition(1, 0), new FilePosition(1, 3));
+  }
+
+  private static SourceMapConsumerV3 parse(SourceMapConcatenator concatenator)
+      throws Exception {
+    StringBuilder out = new StringBuilder();
+    concatenator.appendTo(out, "out.js");
+    SourceMapConsumerV3 consumer = new SourceMapConsumerV3();
+    consumer.parse(out.toString());
+    return consumer;
+  }
+}
@@ -17,12 +17,15 @@
 package com.google.debugging.sourcemap;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 
 import junit.framework.TestCase;
 
+import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
+import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -115,4 +118,92 @@ public final class SourceMapConsumerV3Test extends TestCase {
     assertThat(((JsonElement) exts.get("x_org_int")).getAsInt()).isEqualTo(2);
     assertThat(((JsonArray) exts.get("x_org_array")).size()).isEqualTo(0);
   }
+
+  public void testParseBytes() throws Exception {
+    String sourceMap =  "{\n" +
+                        "\"version\":3,\n" +
+                        "\"file\":\"testcode\",\n" +
+                        "\"lineCount\":2,\n" +
+                        "\"sourceRoot\":\"http://server/p\\u00e4th/\",\n" +
+                        "\"mappings\":\"AAAAA,QAASA,UAAS,EAAG;CAACA,E\",\n" +
+                        "\"sources\":[\"testcode\", \"t\\\"é\"],\n" +
+                        "\"ignored\":{\"a\":[1, \"]\"]},\n" +
+                        "\"names\":[\"__BASIC__\", \"x\"]\n" +
+                        "}\n";
+
+    SourceMapConsumerV3 fromString = new SourceMapConsumerV3();
+    fromString.parse(sourceMap);
+    SourceMapConsumerV3 fromBytes = new SourceMapConsumerV3();
+    fromBytes.parse(sourceMap.getBytes(UTF_8));
+
+    assertThat(fromBytes.getOriginalSources())
+        .containsExactlyElementsIn(fromString.getOriginalSources()).inOrder();
+    assertThat(fromBytes.getSourceRoot()).isEqualTo("http://server/päth/");
+    for (int line = 1; line <= 3; line++) {
+      for (int column = 1; column <= 20; column++) {
+        assertEquals(
+            fromString.getMappingForLine(line, column),
+            fromBytes.getMappingForLine(line, column));
+      }
+    }
+  }
+
+  public void testParseBytesWithExtensions() throws Exception {
+    String sourceMap =  "{\n" +
+                        "\"version\":3,\n" +
+                        "\"file\":\"testcode\",\n" +
+                        "\"mappings\":\"AAAAA;\",\n" +
+                        "\"sources\":[\"testcode\"],\n" +
+                        "\"names\":[\"__BASIC__\"],\n" +
+                        "\"x_org_int\":2\n" +
+                        "}\n";
+
+    SourceMapConsumerV3 consumer = new SourceMapConsumerV3();
+    consumer.parse(sourceMap.getBytes(UTF_8));
+
+    assertThat(consumer.getExtensions()).containsKey("x_org_int");
+    assertEquals("__BASIC__", consumer.getMappingForLine(1, 1).getIdentifier());
+  }
+
+  public void testParseBytesBadVersion() throws Exception {
+    String sourceMap = "{\"version\":2,\"mappings\":\"\",\"sources\":[],\"names\":[]}";
+    try {
+      new SourceMapConsumerV3().parse(sourceMap.getBytes(UTF_8));
+      fail();
+    } catch (SourceMapParseException expected) {
+      assertThat(expected).hasMessageThat().isEqualTo("Unknown version: 2");
+    }
+  }
+
+  public void testReverseMapping() throws Exception {
+    // Line 1 maps to lines 0 and 1 of "a", line 2 to line 1 of "a" and a
+    // second "a" in the sources, and line 3 to line 0 of "b".
+    String sourceMap =  "{\n" +
+                        "\"version\":3,\n" +
+                        "\"file\":\"testcode\",\n" +
+                        "\"mappings\":\"AAAA,EACA;AAAA,ECAA;ACDA\",\n" +
+                        "\"sources\":[\"a\", \"a\", \"b\"],\n" +
+                        "\"names\":[]\n" +
+                        "}\n";
+
+    SourceMapConsumerV3 consumer = new SourceMapConsumerV3();
+    consumer.parse(sourceMap);
+    consumer.precomputeReverseMapping();
+
+    assertReverseMapping(consumer.getReverseMapping("a", 0, 1), "0:0");
+    assertReverseMapping(consumer.getReverseMapping("a", 1, 1), "0:2", "1:0", "1:2");
+    assertReverseMapping(consumer.getReverseMapping("b", 0, 1), "2:0");
+    assertReverseMapping(consumer.getReverseMapping("a", 2, 1));
+    assertReverseMapping(consumer.getReverseMapping("c", 0, 1));
+  }
+
+  private static void assertReverseMapping(
+      Collection<OriginalMapping> mappings, String... expected) {
+    String[] actual = new String[mappings.size()];
+    int i = 0;
+    for (OriginalMapping mapping : mappings) {
+      actual[i++] = mapping.getLineNumber() + ":" + mapping.getColumnPosition();
+    }
+    assertThat(actual).asList().containsExactly((Object[]) expected).inOrder();
+  }
 }
@@ -17,6 +17,7 @@
 package com.google.debugging.sourcemap;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.collect.ImmutableList;
 import com.google.debugging.sourcemap.SourceMapGeneratorV3.ExtensionMergeAction;
@@ -26,9 +27,11 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import com.google.javascript.jscomp.SourceMap;
 import com.google.javascript.jscomp.SourceMap.Format;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.nio.channels.Channels;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -522,6 +525,31 @@ public final class SourceMapGeneratorV3Test extends SourceMapTestCase {
     check(inputs, output.toString(), mapContents.toString());
   }
 
+  public void testWriteToChannel() throws Exception {
+    SourceMapGeneratorV3 generator = new SourceMapGeneratorV3();
+    // Enough mappings to fill the mappings buffer several times.
+    for (int line = 0; line < 5000; line++) {
+      for (int col = 0; col < 40; col += 10) {
+        generator.addMapping(
+            "file" + (line % 7) + ".js",
+            col == 0 ? "name" + (line % 11) : null,
+            new FilePosition(line * 3, col * 2),
+            new FilePosition(line, col),
+            new FilePosition(line, col + 5));
+      }
+    }
+    generator.addSourcesContent("file1.js", "var x = '\u00e9';");
+    generator.addExtension("x_google_str", "caf\u00e9");
+    generator.addExtension("x_google_object", parseJsonObject("{\"k\" : \"\u00e9\"}"));
+
+    StringBuilder expected = new StringBuilder();
+    generator.appendTo(expected, "out.js");
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    generator.writeTo(Channels.newChannel(out), "out.js");
+    assertThat(new String(out.toByteArray(), UTF_8)).isEqualTo(expected.toString());
+  }
+
   public void testSourceMapExtensions() throws Exception {
     //generating the json
     SourceMapGeneratorV3 mapper = new SourceMapGeneratorV3();
@@ -123,6 +123,30 @@ public final class BasicErrorManagerTest extends TestCase {
     assertThat(printedErrors).hasSize(1);
   }
 
+  public void testErrorsAreSortedWhenRead() {
+    BasicErrorManager manager = new BasicErrorManager() {
+      @Override
+      public void println(CheckLevel level, JSError error) {}
+
+      @Override
+      protected void printSummary() {}
+    };
+    JSError e1 = JSError.make("a", 1, 1, FOO_TYPE);
+    JSError e2 = JSError.make("a", 2, 1, FOO_TYPE);
+    JSError e3 = JSError.make("b", 1, 1, FOO_TYPE);
+    manager.report(CheckLevel.ERROR, e3);
+    manager.report(CheckLevel.ERROR, e1);
+    manager.report(CheckLevel.WARNING, e2);
+    manager.report(CheckLevel.ERROR, e2);
+    assertThat(manager.getErrors()).asList().containsExactly(e1, e2, e3).inOrder();
+    assertThat(manager.getWarnings()).asList().containsExactly(e2);
+
+    JSError e0 = JSError.make("a", 0, 1, FOO_TYPE);
+    manager.report(CheckLevel.ERROR, e0);
+    assertThat(manager.getErrors()).asList().containsExactly(e0, e1, e2, e3).inOrder();
+    assertEquals(4, manager.getErrorCount());
+  }
+
   // Ensure that more warnings can be added from generating the report.
   // One case in which this happened is when the report tries to use the source maps to map back to
   // the original source, yet a warning was produced because of a corrupted source map. This test
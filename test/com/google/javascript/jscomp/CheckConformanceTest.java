@@ -27,6 +27,7 @@ import com.google.javascript.jscomp.testing.BlackHoleErrorManager;
 import com.google.javascript.rhino.Node;
 import com.google.protobuf.TextFormat;
 import com.google.protobuf.TextFormat.ParseException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -35,6 +36,7 @@ import java.util.List;
  */
 public final class CheckConformanceTest extends TypeICompilerTestCase {
   private String configuration;
+  private int numParallelThreads;
 
   private static final String EXTERNS =
       LINE_JOINER.join(
@@ -83,6 +85,7 @@ public final class CheckConformanceTest extends TypeICompilerTestCase {
     setLanguage(LanguageMode.ECMASCRIPT_2015, LanguageMode.ECMASCRIPT5_STRICT);
     enableClosurePass();
     configuration = DEFAULT_CONFORMANCE;
+    numParallelThreads = 1;
     ignoreWarnings(DiagnosticGroups.MISSING_PROPERTIES);
   }
 
@@ -97,6 +100,13 @@ public final class CheckConformanceTest extends TypeICompilerTestCase {
     return new CheckConformance(compiler, ImmutableList.of(builder.build()));
   }
 
+  @Override
+  protected CompilerOptions getOptions() {
+    CompilerOptions options = super.getOptions();
+    options.setNumParallelThreads(numParallelThreads);
+    return options;
+  }
+
   @Override
   protected int getNumRepetitions() {
     // This compiler pass is not idempotent and should only be run over a
@@ -1912,4 +1922,152 @@ public final class CheckConformanceTest extends TypeICompilerTestCase {
     testNoWarning("goog.dom.createDom('span', {'textContent': text});");
     testNoWarning("goog.dom.createDom('span', {}, text);");
   }
+
+  public void testBannedPropertyThroughStringKey() {
+    configuration =
+        "requirement: {\n" +
+        "  type: BANNED_PROPERTY\n" +
+        "  value: 'Window.prototype.name'\n" +
+        "  error_message: 'Window.prototype.name is not allowed'\n" +
+        "}";
+    testWarning("window['name'];", CheckConformance.CONFORMANCE_VIOLATION);
+    testNoWarning("window['title'];");
+  }
+
+  public void testRulesSharingNames() {
+    configuration = LINE_JOINER.join(
+        DEFAULT_CONFORMANCE,
+        "requirement: {",
+        "  type: BANNED_PROPERTY",
+        "  value: 'Arguments.prototype.caller'",
+        "  error_message: 'Arguments.prototype.caller is not allowed'",
+        "}",
+        "requirement: {",
+        "  type: BANNED_NAME",
+        "  value: 'window.callee'",
+        "  error_message: 'window.callee is not allowed'",
+        "}");
+    testWarning(
+        "function f() { arguments.caller }",
+        CheckConformance.CONFORMANCE_VIOLATION,
+        "Violation: Arguments.prototype.caller is not allowed");
+    testWarning(
+        "function f() { window.callee }",
+        CheckConformance.CONFORMANCE_VIOLATION,
+        "Violation: window.callee is not allowed");
+    testWarning("eval()", CheckConformance.CONFORMANCE_VIOLATION);
+    testNoWarning("function f() { window.caller; }");
+  }
+
+  public void testWhitelistAcrossFiles() {
+    configuration =
+        "requirement: {\n" +
+        "  type: BANNED_NAME\n" +
+        "  value: 'eval'\n" +
+        "  error_message: 'eval is not allowed'\n" +
+        "  whitelist: 'safe/'\n" +
+        "}";
+    testWarning(
+        ImmutableList.of(
+            SourceFile.fromCode("safe/a.js", "eval()"),
+            SourceFile.fromCode("b.js", "var b;"),
+            SourceFile.fromCode("safe/c.js", "eval()"),
+            SourceFile.fromCode("d.js", "eval()")),
+        CheckConformance.CONFORMANCE_VIOLATION);
+  }
+
+  public void testParallelViolation() {
+    numParallelThreads = 4;
+    ImmutableList<SourceFile> inputs = ImmutableList.of(
+        SourceFile.fromCode("a.js", "var a = 1;"),
+        SourceFile.fromCode("b.js", "var b = 2;"),
+        SourceFile.fromCode("c.js", "function f() { arguments.callee }"),
+        SourceFile.fromCode("d.js", "var d = 3;"),
+        SourceFile.fromCode("e.js", "var e = 4;"));
+    testWarning(inputs, CheckConformance.CONFORMANCE_VIOLATION);
+  }
+
+  public void testParallelNoViolation() {
+    numParallelThreads = 4;
+    testNoWarning(ImmutableList.of(
+        SourceFile.fromCode("a.js", "var a = 1;"),
+        SourceFile.fromCode("b.js", "function f() { return a; }")));
+  }
+
+  public void testParallelSameWarningsAsSerial() throws ParseException {
+    configuration = LINE_JOINER.join(
+        DEFAULT_CONFORMANCE,
+        "requirement: {",
+        "  type: CUSTOM",
+        "  java_class: 'com.google.javascript.jscomp.ConformanceRules$BanUnknownThis'",
+        "  error_message: 'BanUnknownThis Message'",
+        "}",
+        "requirement: {",
+        "  type: CUSTOM",
+        "  java_class: 'com.google.javascript.jscomp.ConformanceRules$BanExpose'",
+        "  error_message: 'BanExpose Message'",
+        "}");
+    List<SourceFile> inputs = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      inputs.add(SourceFile.fromCode(
+          "in" + i + ".js",
+          LINE_JOINER.join(
+              "function f" + i + "() { return this.x + arguments.callee; }",
+              i % 3 == 0 ? "eval('" + i + "');" : "",
+              i % 4 == 0 ? "/** @expose */ var e" + i + ";" : "")));
+    }
+    List<String> serial = conformanceWarnings(inputs, 1);
+    assertThat(serial).hasSize(10 + 4 + 3 + 10);
+    assertThat(conformanceWarnings(inputs, 4)).containsExactlyElementsIn(serial).inOrder();
+  }
+
+  public void testParallelExternsSameAsSerial() throws ParseException {
+    configuration = LINE_JOINER.join(
+        DEFAULT_CONFORMANCE,
+        "requirement: {",
+        "  type: CUSTOM",
+        "  java_class: 'com.google.javascript.jscomp.ConformanceRules$BanExpose'",
+        "  error_message: 'BanExpose Message'",
+        "}",
+        "requirement: {",
+        "  type: CUSTOM",
+        "  java_class: 'com.google.javascript.jscomp.ConformanceRules$BanGlobalVars'",
+        "  error_message: 'BanGlobalVars Message'",
+        "}");
+    List<SourceFile> externs = ImmutableList.of(
+        SourceFile.fromCode("externs.js", EXTERNS),
+        SourceFile.fromCode("more_externs.js", "/** @expose */ var x = eval; eval();"));
+    List<SourceFile> inputs = ImmutableList.of(SourceFile.fromCode("a.js", "var y = eval;"));
+    List<String> serial = conformanceWarnings(externs, inputs, 1);
+    // Both modes leave the extern files to CheckConformance.shouldTraverse.
+    assertThat(serial).hasSize(2);
+    assertThat(conformanceWarnings(externs, inputs, 4)).containsExactlyElementsIn(serial).inOrder();
+  }
+
+  private List<String> conformanceWarnings(List<SourceFile> inputs, int numThreads)
+      throws ParseException {
+    return conformanceWarnings(
+        ImmutableList.of(SourceFile.fromCode("externs.js", EXTERNS)), inputs, numThreads);
+  }
+
+  private List<String> conformanceWarnings(
+      List<SourceFile> externs, List<SourceFile> inputs, int numThreads)
+      throws ParseException {
+    ConformanceConfig.Builder builder = ConformanceConfig.newBuilder();
+    TextFormat.merge(configuration, builder);
+    CompilerOptions options = new CompilerOptions();
+    options.setCheckTypes(true);
+    options.setConformanceConfig(builder.build());
+    options.setNumParallelThreads(numThreads);
+    Compiler compiler = new Compiler(new BlackHoleErrorManager());
+    compiler.compile(externs, inputs, options);
+    List<String> warnings = new ArrayList<>();
+    for (JSError warning : compiler.getWarnings()) {
+      if (warning.getType() == CheckConformance.CONFORMANCE_VIOLATION
+          || warning.getType() == CheckConformance.CONFORMANCE_POSSIBLE_VIOLATION) {
+        warnings.add(warning.toString());
+      }
+    }
+    return warnings;
+  }
 }
@@ -339,6 +339,45 @@ public final class CompilerTest extends TestCase {
     assertThat(mapping.getIdentifier()).isEqualTo("testSymbolName");
   }
 
+  public void testApplyInputSourceMaps_parallel() throws Exception {
+    String serialSourceMap = compileWithInputSourceMaps(1);
+    assertThat(compileWithInputSourceMaps(4)).isEqualTo(serialSourceMap);
+
+    SourceMapConsumerV3 consumer = new SourceMapConsumerV3();
+    consumer.parse(serialSourceMap);
+    // The second input is printed on line 4, after its input delimiter.
+    OriginalMapping mapping = consumer.getMappingForLine(4, 5);
+    assertThat(mapping.getOriginalFile()).isEqualTo("input1.ts");
+    assertThat(mapping.getLineNumber()).isEqualTo(12);
+    assertThat(mapping.getColumnPosition()).isEqualTo(2);
+  }
+
+  private String compileWithInputSourceMaps(int numParallelThreads) throws Exception {
+    ImmutableMap.Builder<String, SourceMapInput> inputSourceMaps = ImmutableMap.builder();
+    List<SourceFile> inputs = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      inputSourceMaps.put(
+          "input" + i + ".js",
+          sourcemap("input" + i + ".js.map", "input" + i + ".ts", new FilePosition(10 + i, i)));
+      inputs.add(
+          SourceFile.fromCode(
+              "input" + i + ".js", "// Unmapped line\nvar x" + i + " = 1;\nalert(x" + i + ");"));
+    }
+
+    CompilerOptions options = new CompilerOptions();
+    options.sourceMapOutputPath = "fake/source_map_path.js.map";
+    options.inputSourceMaps = inputSourceMaps.build();
+    options.applyInputSourceMaps = true;
+    options.setPrintInputDelimiter(true);
+    options.setNumParallelThreads(numParallelThreads);
+    Compiler compiler = new Compiler();
+    compiler.compile(EMPTY_EXTERNS, inputs, options);
+    compiler.toSource();
+    StringWriter out = new StringWriter();
+    compiler.getSourceMap().appendTo(out, "source.js.map");
+    return out.toString();
+  }
+
   private Compiler initCompilerForCommonJS(
       List<SourceFile> inputs, List<ModuleIdentifier> entryPoints)
       throws Exception {
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.BitSet;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/** Unit tests for {@link CompressedBitSet}. */
+public final class CompressedBitSetTest extends TestCase {
+
+  public void testSetAndGet() {
+    CompressedBitSet set = new CompressedBitSet();
+    assertThat(set.isEmpty()).isTrue();
+
+    set.set(3);
+    set.set(70000);
+    set.set(3);
+
+    assertThat(set.get(3)).isTrue();
+    assertThat(set.get(70000)).isTrue();
+    assertThat(set.get(4)).isFalse();
+    assertThat(set.get(4464)).isFalse();
+    assertThat(set.cardinality()).isEqualTo(2);
+    assertThat(set.nextSetBit(0)).isEqualTo(3);
+    assertThat(set.nextSetBit(4)).isEqualTo(70000);
+    assertThat(set.nextSetBit(70001)).isEqualTo(-1);
+  }
+
+  public void testDenseChunk() {
+    CompressedBitSet set = new CompressedBitSet();
+    for (int i = 0; i < 10000; i += 2) {
+      set.set(i);
+    }
+    assertThat(set.cardinality()).isEqualTo(5000);
+    assertThat(set.get(9998)).isTrue();
+    assertThat(set.get(9999)).isFalse();
+    assertThat(set.nextSetBit(9999)).isEqualTo(-1);
+  }
+
+  public void testOrAndIntersects() {
+    CompressedBitSet a = new CompressedBitSet();
+    CompressedBitSet b = new CompressedBitSet();
+    a.set(1);
+    a.set(200000);
+    b.set(2);
+    b.set(100000);
+
+    assertThat(a.intersects(b)).isFalse();
+
+    a.or(b);
+    assertThat(a.intersects(b)).isTrue();
+    assertThat(a.cardinality()).isEqualTo(4);
+
+    // Modifying the union does not modify the set that was added.
+    a.set(100001);
+    assertThat(b.get(100001)).isFalse();
+  }
+
+  public void testEquals() {
+    CompressedBitSet a = new CompressedBitSet();
+    CompressedBitSet b = new CompressedBitSet();
+    for (int i = 0; i < 6000; i++) {
+      a.set(i);
+      b.set(5999 - i);
+    }
+    assertThat(a).isEqualTo(b);
+    assertThat(a.hashCode()).isEqualTo(b.hashCode());
+
+    b.set(70000);
+    assertThat(a).isNotEqualTo(b);
+  }
+
+  public void testMatchesBitSet() {
+    Random random = new Random(42);
+    for (int round = 0; round < 20; round++) {
+      // Alternate between sparse and dense sets.
+      int range = round % 2 == 0 ? 1 << 20 : 20000;
+      BitSet expectedA = new BitSet();
+      BitSet expectedB = new BitSet();
+      CompressedBitSet a = new CompressedBitSet();
+      CompressedBitSet b = new CompressedBitSet();
+      for (int i = 0; i < 8000; i++) {
+        int value = random.nextInt(range);
+        if (random.nextBoolean()) {
+          expectedA.set(value);
+          a.set(value);
+        } else {
+          expectedB.set(value);
+          b.set(value);
+        }
+      }
+
+      assertThat(a.intersects(b)).isEqualTo(expectedA.intersects(expectedB));
+      a.or(b);
+      expectedA.or(expectedB);
+      assertThat(a.cardinality()).isEqualTo(expectedA.cardinality());
+      for (int i = expectedA.nextSetBit(0), j = a.nextSetBit(0); ;
+          i = expectedA.nextSetBit(i + 1), j = a.nextSetBit(j + 1)) {
+        assertThat(j).isEqualTo(i);
+        if (i == -1) {
+          break;
+        }
+      }
+    }
+  }
+}
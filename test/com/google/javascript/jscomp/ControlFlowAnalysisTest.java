@@ -23,6 +23,7 @@ import com.google.common.collect.Ordering;
 import com.google.javascript.jscomp.ControlFlowGraph.Branch;
 import com.google.javascript.jscomp.graph.DiGraph.DiGraphEdge;
 import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
+import com.google.javascript.jscomp.graph.GraphReachability;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 import java.util.ArrayList;
@@ -1531,6 +1532,79 @@ public final class ControlFlowAnalysisTest extends TestCase {
   }
 
 
+  public void testCompactCfgMatchesCfg() {
+    assertCompactCfgMatches("var x = 1; if (x) { x = 2 } else { x = 3 } x;");
+    assertCompactCfgMatches("while (a) { if (b) break; else continue; } c();");
+    assertCompactCfgMatches("a: for (var i = 0; i < 3; i++) { for (x in y) { break a; } }");
+    assertCompactCfgMatches("switch (a) { case 1: b(); case 2: break; default: c(); } d();");
+    assertCompactCfgMatches("try { a() } catch (e) { b() } finally { c() } d();");
+    assertCompactCfgMatches("function f() { if (a) return 1; try { b() } finally { c() } }");
+  }
+
+  public void testCompactCfgNodeIds() {
+    Compiler compiler = new Compiler();
+    Node root = compiler.parseSyntheticCode("cfgtest", "a(); b();");
+    CompactControlFlowGraph cfg = ControlFlowAnalysis.getCompactCfg(compiler, root);
+
+    assertEquals(0, cfg.getEntry());
+    assertSame(root, cfg.getNode(cfg.getEntry()));
+    assertEquals(cfg.getNodeCount() - 1, cfg.getImplicitReturn());
+    assertNull(cfg.getNode(cfg.getImplicitReturn()));
+    assertEquals(cfg.getImplicitReturn(), cfg.getId(null));
+    // Ids follow the AST order.
+    for (int id = 0; id < cfg.getImplicitReturn(); id++) {
+      for (int i = 0; i < cfg.getOutDegree(id); i++) {
+        assertThat(cfg.getSuccessor(id, i)).isGreaterThan(id);
+      }
+    }
+  }
+
+  public void testCompactCfgReachability() {
+    Compiler compiler = new Compiler();
+    Node root = compiler.parseSyntheticCode("cfgtest", "function f() { a(); return; b(); }");
+    Node function = root.getFirstChild();
+    CompactControlFlowGraph cfg =
+        ControlFlowAnalysis.getCompactCfg(compiler, function);
+    cfg.computeReachability();
+
+    Node body = function.getLastChild();
+    Node callA = body.getFirstChild();
+    Node callB = body.getLastChild();
+    assertSame(GraphReachability.REACHABLE, cfg.getAnnotation(cfg.getId(callA)));
+    assertNull(cfg.getAnnotation(cfg.getId(callB)));
+    assertSame(GraphReachability.REACHABLE, cfg.getAnnotation(cfg.getImplicitReturn()));
+  }
+
+  /**
+   * Asserts that the compact control flow graph of the input has exactly the
+   * nodes and edges of the linked control flow graph, in the same order.
+   */
+  private static void assertCompactCfgMatches(String input) {
+    Compiler compiler = new Compiler();
+    Node root = compiler.parseSyntheticCode("cfgtest", input);
+    ControlFlowAnalysis cfa = new ControlFlowAnalysis(compiler, true, false);
+    cfa.process(null, root);
+    ControlFlowGraph<Node> cfg = cfa.getCfg();
+    CompactControlFlowGraph compactCfg =
+        new ControlFlowAnalysis(compiler, true, false).computeCompactCfg(root);
+
+    assertEquals(cfg.getNodes().size(), compactCfg.getNodeCount());
+    assertEquals(getAllEdges(cfg).size(), compactCfg.getEdgeCount());
+    for (DiGraphNode<Node, Branch> node : cfg.getDirectedGraphNodes()) {
+      int id = compactCfg.getId(node.getValue());
+      assertThat(id).isAtLeast(0);
+      List<DiGraphEdge<Node, Branch>> outEdges = node.getOutEdges();
+      assertEquals(outEdges.size(), compactCfg.getOutDegree(id));
+      for (int i = 0; i < outEdges.size(); i++) {
+        DiGraphEdge<Node, Branch> edge = outEdges.get(i);
+        assertSame(
+            edge.getDestination().getValue(), compactCfg.getNode(compactCfg.getSuccessor(id, i)));
+        assertEquals(edge.getValue(), compactCfg.getOutBranch(id, i));
+      }
+      assertEquals(node.getInEdges().size(), compactCfg.getInDegree(id));
+    }
+  }
+
   /**
    * Asserts the priority order of CFG nodes.
    *
@@ -24,6 +24,7 @@ public final class CrossModuleCodeMotionTest extends CompilerTestCase {
 
   private static final String EXTERNS = "alert";
   private boolean parentModuleCanSeeSymbolsDeclaredInChildren = false;
+  private int numParallelThreads = 1;
 
   public CrossModuleCodeMotionTest() {
     super(EXTERNS);
@@ -40,6 +41,14 @@ public final class CrossModuleCodeMotionTest extends CompilerTestCase {
     super.setUp();
 
     parentModuleCanSeeSymbolsDeclaredInChildren = false;
+    numParallelThreads = 1;
+  }
+
+  @Override
+  protected CompilerOptions getOptions(CompilerOptions options) {
+    options = super.getOptions(options);
+    options.setNumParallelThreads(numParallelThreads);
+    return options;
   }
 
   @Override
@@ -88,6 +97,36 @@ public final class CrossModuleCodeMotionTest extends CompilerTestCase {
         });
   }
 
+  public void testFunctionMovement_parallel() {
+    numParallelThreads = 4;
+    JSModule[] modules =
+        createModuleStar(
+            // m1
+            LINE_JOINER.join(
+                "function f1(a) { alert(a); }",
+                "function f2(a) { alert(a); }",
+                "function f3(a) { alert(a); }"),
+            // m2
+            "f1('hi'); f3('bye');",
+            // m3
+            "f2('hi'); f3('bye');",
+            // m4
+            "f2('hi');");
+
+    test(
+        modules,
+        new String[] {
+          // m1
+          "function f2(a) { alert(a); } function f3(a) { alert(a); }",
+          // m2
+          "function f1(a) { alert(a); } f1('hi'); f3('bye');",
+          // m3
+          "f2('hi'); f3('bye');",
+          // m4
+          "f2('hi');",
+        });
+  }
+
   public void testFunctionMovement2() {
     // having f declared as a local variable should block the migration to m2
     JSModule[] modules =
@@ -23,6 +23,7 @@ import static com.google.javascript.jscomp.testing.NodeSubject.assertNode;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.javascript.jscomp.CrossModuleReferenceCollector.TopLevelStatement;
+import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 import java.util.List;
@@ -193,6 +194,55 @@ public final class CrossModuleReferenceCollectorTest extends CompilerTestCase {
         .containsExactly(zReferences.get(1));
   }
 
+  public void testOnlyChangedScriptsAreCollectedAgain() {
+    Compiler compiler = new Compiler();
+    compiler.init(
+        ImmutableList.<SourceFile>of(),
+        ImmutableList.of(
+            SourceFile.fromCode("a.js", "var x = 1; var y = x;"),
+            SourceFile.fromCode("b.js", "var z = y; x;")),
+        new CompilerOptions());
+    compiler.parseInputs();
+    Node root = compiler.getJsRoot();
+    CrossModuleReferenceCollector collector =
+        new CrossModuleReferenceCollector(compiler, new Es6SyntacticScopeCreator(compiler));
+    collector.process(root);
+    List<TopLevelStatement> statements = collector.getTopLevelStatements();
+    assertThat(statements).hasSize(4);
+    assertThat(collector.getReferences(collector.getGlobalVariableNamesMap().get("x")).references)
+        .hasSize(3);
+
+    // Remove the `x;` statement from b.js.
+    compiler.incrementChangeStamp();
+    Node bScript = root.getLastChild();
+    Node xStatement = bScript.getLastChild();
+    compiler.reportChangeToEnclosingScope(xStatement);
+    xStatement.detach();
+    collector.process(root);
+
+    List<TopLevelStatement> newStatements = collector.getTopLevelStatements();
+    assertThat(newStatements).hasSize(3);
+    // a.js did not change, so its statements were kept.
+    assertThat(newStatements.get(0)).isSameAs(statements.get(0));
+    assertThat(newStatements.get(1)).isSameAs(statements.get(1));
+    assertThat(newStatements.get(2)).isNotSameAs(statements.get(2));
+    assertThat(newStatements.get(2).getOriginalOrder()).isEqualTo(2);
+    assertThat(collector.getReferences(collector.getGlobalVariableNamesMap().get("x")).references)
+        .hasSize(2);
+
+    // Declaring a new global name means all the scripts are collected again.
+    compiler.incrementChangeStamp();
+    Node newDeclaration = IR.var(IR.name("w"));
+    bScript.addChildToBack(newDeclaration);
+    compiler.reportChangeToEnclosingScope(newDeclaration);
+    collector.process(root);
+
+    List<TopLevelStatement> recollectedStatements = collector.getTopLevelStatements();
+    assertThat(recollectedStatements).hasSize(4);
+    assertThat(recollectedStatements.get(0)).isNotSameAs(statements.get(0));
+    assertThat(collector.getGlobalVariableNamesMap()).containsKey("w");
+  }
+
   public void testVarDeclarationStatement() {
     testSame("var x = 1;");
 
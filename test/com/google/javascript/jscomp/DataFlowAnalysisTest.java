@@ -917,6 +917,31 @@ public final class DataFlowAnalysisTest extends TestCase {
     verifyBranchedInHas(n4, a, 0);
   }
 
+  public void testNodesVisitedInReversePostorder() {
+    // a = 0; b = a; c = b;
+    Variable a = new Variable("a");
+    Variable b = new Variable("b");
+    Variable c = new Variable("c");
+    Instruction inst1 = newAssignNumberToVariableInstruction(a, 0);
+    Instruction inst2 = newAssignVariableToVariableInstruction(b, a);
+    Instruction inst3 = newAssignVariableToVariableInstruction(c, b);
+    ControlFlowGraph<Instruction> cfg = new ControlFlowGraph<>(inst1, true, true);
+    // Create the nodes in the opposite order of the flow, so that visiting
+    // them in creation order would require revisits.
+    GraphNode<Instruction, Branch> n3 = cfg.createNode(inst3);
+    GraphNode<Instruction, Branch> n2 = cfg.createNode(inst2);
+    cfg.connect(inst1, ControlFlowGraph.Branch.UNCOND, inst2);
+    cfg.connect(inst2, ControlFlowGraph.Branch.UNCOND, inst3);
+
+    DummyConstPropagation constProp = new DummyConstPropagation(cfg);
+    constProp.analyze();
+
+    verifyOutHas(n2, b, 0);
+    verifyOutHas(n3, c, 0);
+    assertThat(constProp.getStepCount()).isEqualTo(3);
+    assertThat(constProp.getMaxNodeVisitCount()).isEqualTo(1);
+  }
+
   private static final int MAX_STEP = 10;
 
   public void testMaxIterationsExceededException() {
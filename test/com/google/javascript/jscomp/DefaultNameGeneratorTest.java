@@ -19,6 +19,10 @@ package com.google.javascript.jscomp;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.collect.ImmutableSet;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Collections;
 import junit.framework.TestCase;
 
@@ -174,4 +178,52 @@ public final class DefaultNameGeneratorTest extends TestCase {
     result = generate(ng, "", 106);
     assertEquals("a", result[0]);
   }
+
+  public static void testSkipsKeywords() throws Exception {
+    DefaultNameGenerator ng = new DefaultNameGenerator(
+        Collections.<String>emptySet(), "", null);
+    assertThat(generate(ng, "", 4000)).asList().containsNoneOf("do", "if", "in", "for", "new");
+  }
+
+  public static void testReset() throws Exception {
+    DefaultNameGenerator ng = new DefaultNameGenerator(
+        Collections.<String>emptySet(), "", null);
+    String[] first = generate(ng, "", 200);
+    assertEquals("ba", first[54]);
+
+    // The names are issued again from the start, skipping the new reserved names.
+    ng.reset(RESERVED_NAMES, "", null);
+    String[] second = generate(ng, "", 199);
+    assertEquals("aa", second[53]);
+    assertEquals("ca", second[54]);
+    assertEquals(first[199], second[198]);
+
+    ng.reset(RESERVED_NAMES, "x", null);
+    assertEquals("x", ng.generateNextName());
+    assertEquals("xa", ng.generateNextName());
+  }
+
+  public static void testSerialization() throws Exception {
+    DefaultNameGenerator ng = new DefaultNameGenerator(
+        ImmutableSet.of("ca"), "", null);
+    String[] before = generate(ng, "", 100);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(ng);
+    }
+    DefaultNameGenerator copy;
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      copy = (DefaultNameGenerator) in.readObject();
+    }
+
+    // The copy continues where the generator was serialized.
+    String[] after = generate(copy, "", 10);
+    ng.reset(ImmutableSet.of("ca"), "", null);
+    String[] expected = generate(ng, "", 110);
+    assertEquals(expected[100], after[0]);
+    assertEquals(expected[109], after[9]);
+    assertEquals(expected[99], before[99]);
+  }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.FunctionSideEffectSummary.CallSummary;
+import com.google.javascript.jscomp.FunctionSideEffectSummary.FunctionSummary;
+import java.text.ParseException;
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link FunctionSideEffectSummary}.
+ */
+public final class FunctionSideEffectSummaryTest extends TestCase {
+
+  public void testRoundTrip() throws ParseException {
+    FunctionSideEffectSummary.Builder builder = new FunctionSideEffectSummary.Builder(false);
+    builder.addFunction("b.js", "b.f", "hashB", 4, ImmutableList.<CallSummary>of());
+    builder.addFunction(
+        "a.js",
+        "a.f",
+        "hashA",
+        0,
+        ImmutableList.of(
+            new CallSummary(ImmutableList.of("b.f"), true, false, false),
+            new CallSummary(ImmutableList.of("C", "D"), false, true, true)));
+    FunctionSideEffectSummary summary = builder.build();
+
+    String serialized = new String(summary.toBytes(), UTF_8);
+    assertEquals(
+        "regexp\t0\n"
+            + "file\ta.js\n"
+            + "function\ta.f\thashA\t0\n"
+            + "call\tcall\t1\t0\tb.f\n"
+            + "call\tnew\t0\t1\tC\tD\n"
+            + "file\tb.js\n"
+            + "function\tb.f\thashB\t4\n",
+        serialized);
+
+    FunctionSideEffectSummary parsed =
+        FunctionSideEffectSummary.fromBytes(serialized.getBytes(UTF_8));
+    assertEquals(serialized, new String(parsed.toBytes(), UTF_8));
+
+    FunctionSummary function = parsed.getFunction("a.js", "a.f", "hashA");
+    assertThat(function.calls).hasSize(2);
+    assertThat(function.calls.get(1).callees).containsExactly("C", "D").inOrder();
+    assertTrue(function.calls.get(1).isNew);
+  }
+
+  public void testChangedFunction() {
+    FunctionSideEffectSummary.Builder builder = new FunctionSideEffectSummary.Builder(false);
+    builder.addFunction("a.js", "f", "hashF", 0, ImmutableList.<CallSummary>of());
+    FunctionSideEffectSummary summary = builder.build();
+
+    assertNotNull(summary.getFunction("a.js", "f", "hashF"));
+    assertNull(summary.getFunction("a.js", "f", "otherHash"));
+    assertNull(summary.getFunction("b.js", "f", "hashF"));
+    assertNull(summary.getFunction("a.js", "g", "hashF"));
+  }
+
+  public void testEscaping() throws ParseException {
+    FunctionSideEffectSummary.Builder builder = new FunctionSideEffectSummary.Builder(false);
+    builder.addFunction(
+        "dir\\a\tb.js",
+        "f",
+        "hash",
+        0,
+        ImmutableList.of(new CallSummary(ImmutableList.of("g\nh", "k\r"), true, true, false)));
+    FunctionSideEffectSummary summary = builder.build();
+
+    String serialized = new String(summary.toBytes(), UTF_8);
+    assertEquals(
+        "regexp\t0\n"
+            + "file\tdir\\\\a\\tb.js\n"
+            + "function\tf\thash\t0\n"
+            + "call\tcall\t1\t1\tg\\nh\tk\\r\n",
+        serialized);
+
+    FunctionSummary function =
+        FunctionSideEffectSummary.fromBytes(serialized.getBytes(UTF_8))
+            .getFunction("dir\\a\tb.js", "f", "hash");
+    assertThat(function.calls.get(0).callees).containsExactly("g\nh", "k\r").inOrder();
+  }
+
+  public void testRegExpGlobalReferences() {
+    FunctionSideEffectSummary withoutReferences =
+        new FunctionSideEffectSummary.Builder(false).build();
+    assertTrue(withoutReferences.isUsableFor(false));
+    assertFalse(withoutReferences.isUsableFor(true));
+
+    FunctionSideEffectSummary withReferences = new FunctionSideEffectSummary.Builder(true).build();
+    assertTrue(withReferences.isUsableFor(false));
+    assertTrue(withReferences.isUsableFor(true));
+  }
+
+  public void testBadInput() {
+    assertParseFails("file\ta.js\n");
+    assertParseFails("regexp\t0\nfunction\tf\thash\t0\n");
+    assertParseFails("regexp\t0\nfile\ta.js\nfunction\tf\thash\tx\n");
+    assertParseFails("regexp\t0\nfile\ta.js\nfunction\tf\t0\n");
+    assertParseFails("regexp\t0\nfile\ta.js\ncall\tcall\t0\t0\tg\n");
+    assertParseFails("regexp\t0\nunknown\n");
+  }
+
+  private static void assertParseFails(String serialized) {
+    try {
+      FunctionSideEffectSummary.fromBytes(serialized.getBytes(UTF_8));
+      fail("Expected a ParseException for: " + serialized);
+    } catch (ParseException expected) {
+    }
+  }
+}
@@ -18,9 +18,11 @@ package com.google.javascript.jscomp;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.collect.ImmutableList;
 import com.google.javascript.jscomp.GlobalNamespace.Name;
 import com.google.javascript.jscomp.GlobalNamespace.Ref;
-
+import com.google.javascript.rhino.IR;
+import com.google.javascript.rhino.Node;
 import junit.framework.TestCase;
 
 /**
@@ -68,6 +70,92 @@ public final class GlobalNamespaceTest extends TestCase {
     assertEquals(0, n.globalSets);
   }
 
+  public void testUpdateOnlyTraversesChangedScripts() {
+    Compiler compiler = new Compiler();
+    compiler.init(
+        ImmutableList.<SourceFile>of(),
+        ImmutableList.of(
+            SourceFile.fromCode("a.js", "var a = {}; a.b = 1;"),
+            SourceFile.fromCode("b.js", "var c = a.b; function f() { a.b = 2; }")),
+        new CompilerOptions());
+    compiler.parseInputs();
+    Node root = compiler.getJsRoot();
+    GlobalNamespace namespace = new GlobalNamespace(compiler, root);
+    namespace.update();
+    Name ab = namespace.getSlot("a.b");
+    assertEquals(1, ab.globalSets);
+    assertEquals(1, ab.localSets);
+    assertEquals(1, ab.aliasingGets);
+
+    // Replace `var c = a.b;` with `a.b;` in b.js.
+    Node bScript = root.getLastChild();
+    Node aliasValue = bScript.getFirstFirstChild().getFirstChild();
+    Node newStatement = IR.exprResult(aliasValue.detach());
+    bScript.replaceChild(bScript.getFirstChild(), newStatement);
+    compiler.reportChangeToEnclosingScope(newStatement);
+    namespace.update();
+
+    ab = namespace.getSlot("a.b");
+    assertEquals(1, ab.globalSets);
+    assertEquals(1, ab.localSets);
+    assertEquals(0, ab.aliasingGets);
+    assertEquals(1, ab.totalGets);
+    assertNull(namespace.getSlot("c"));
+    assertEquals(Name.Type.OBJECTLIT, namespace.getSlot("a").type);
+
+    // The result is the same as for a namespace built from scratch.
+    assertNamespaceEquals(new GlobalNamespace(compiler, root), namespace);
+  }
+
+  public void testUpdateReplaysUnchangedScripts() {
+    Compiler compiler = new Compiler();
+    compiler.init(
+        ImmutableList.<SourceFile>of(),
+        ImmutableList.of(
+            SourceFile.fromCode("a.js", "var a = {}; a.b = 1; a.c = a.b;"),
+            SourceFile.fromCode("b.js", "var c = a.b; function f() { a.b = 2; }")),
+        new CompilerOptions());
+    compiler.parseInputs();
+    Node root = compiler.getJsRoot();
+    GlobalNamespace namespace = new GlobalNamespace(compiler, root);
+    namespace.update();
+
+    // Add `a.b = 3;` to the body of f in b.js, which does not change the global names.
+    Node bScript = root.getLastChild();
+    Node fBody = NodeUtil.getFunctionBody(bScript.getLastChild());
+    Node newStatement =
+        IR.exprResult(IR.assign(IR.getprop(IR.name("a"), IR.string("b")), IR.number(3)));
+    fBody.addChildToBack(newStatement);
+    compiler.reportChangeToEnclosingScope(newStatement);
+    namespace.update();
+
+    assertEquals(2, namespace.getSlot("a.b").localSets);
+    assertNamespaceEquals(new GlobalNamespace(compiler, root), namespace);
+
+    // a.js is replayed from its records, not traversed again, so a change to it
+    // that is not reported is not seen.
+    Node aScript = root.getFirstChild();
+    aScript.addChildToBack(
+        IR.exprResult(IR.assign(IR.getprop(IR.name("a"), IR.string("d")), IR.number(4))));
+    newStatement = IR.exprResult(IR.name("c"));
+    fBody.addChildToBack(newStatement);
+    compiler.reportChangeToEnclosingScope(newStatement);
+    namespace.update();
+
+    assertNull(namespace.getSlot("a.d"));
+    assertEquals(1, namespace.getSlot("c").totalGets);
+  }
+
+  private static void assertNamespaceEquals(GlobalNamespace expected, GlobalNamespace actual) {
+    assertThat(actual.getNameIndex().keySet())
+        .containsExactlyElementsIn(expected.getNameIndex().keySet());
+    for (Name name : expected.getNameIndex().values()) {
+      Name actualName = actual.getNameIndex().get(name.getFullName());
+      assertEquals(name.toString(), actualName.toString());
+      assertEquals(name.getRefs().size(), actualName.getRefs().size());
+    }
+  }
+
   private Ref createNodelessRef(Ref.Type type) {
     return Ref.createRefForTesting(type);
   }
@@ -523,6 +523,14 @@ public class InlineFunctionsTest extends CompilerTestCase {
         "lab:{{JSCompiler_inline_label_0:{4}}}");
   }
 
+  public void testCallInNestedFunctionIsInlinedWithContainingFunction() {
+    // bar is called from a function nested in foo, so the call counts as a call from foo. Both
+    // functions are inlined and removed, and no call to the removed bar is left behind.
+    test(
+        "function bar(){return x()} function foo(){y(function(){return bar()})} foo();",
+        "{y(function(){return x()})}");
+  }
+
   public void testMixedModeInlining1() {
     // Base line tests, direct inlining
     test("function foo(){return 1}" +
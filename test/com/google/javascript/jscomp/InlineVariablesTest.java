@@ -18,6 +18,7 @@ package com.google.javascript.jscomp;
 
 import static com.google.javascript.jscomp.CompilerOptions.LanguageMode.ECMASCRIPT_NEXT;
 
+import com.google.javascript.rhino.Node;
 
 /**
  * Verifies that valid candidates for inlining are inlined, but
@@ -30,6 +31,7 @@ public final class InlineVariablesTest extends CompilerTestCase {
 
   private boolean inlineAllStrings = false;
   private boolean inlineLocalsOnly = false;
+  private boolean onlyChangedFunctions = false;
 
   @Override
   protected void setUp() throws Exception {
@@ -40,6 +42,26 @@ public final class InlineVariablesTest extends CompilerTestCase {
 
   @Override
   protected CompilerPass getProcessor(final Compiler compiler) {
+    if (onlyChangedFunctions) {
+      return new CompilerPass() {
+        @Override
+        public void process(Node externs, Node root) {
+          // Pretend that the pass ran before and that every function changed since.
+          compiler.getChangedScopeNodesForPass("inlineVariables");
+          NodeUtil.visitPreOrder(root, new NodeUtil.Visitor() {
+            @Override
+            public void visit(Node n) {
+              if (n.isFunction()) {
+                compiler.reportChangeToChangeScope(n);
+              }
+            }
+          });
+          new InlineVariables(
+                  compiler, InlineVariables.Mode.LOCALS_ONLY, inlineAllStrings, "inlineVariables")
+              .process(externs, root);
+        }
+      };
+    }
     return new InlineVariables(
         compiler,
         (inlineLocalsOnly)
@@ -52,6 +74,7 @@ public final class InlineVariablesTest extends CompilerTestCase {
   public void tearDown() {
     inlineAllStrings = false;
     inlineLocalsOnly = false;
+    onlyChangedFunctions = false;
   }
 
   public void testPassDoesntProduceInvalidCode1() {
@@ -1059,6 +1082,35 @@ public final class InlineVariablesTest extends CompilerTestCase {
         "/** @const */var X=1; X; function f() {1;}");
   }
 
+  public void testLocalsOnlyInChangedFunctions() {
+    testOnlyChangedFunctions(
+        "var x=1; x; function f() {var x = 1; x; function g() {var y = 2; y;}}",
+        "var x=1; x; function f() {1; function g() {2;}}");
+    testOnlyChangedFunctions(
+        "class C { m() { var x = 1; alert(x); } }",
+        "class C { m() { alert(1); } }");
+    testOnlyChangedFunctions(
+        "{ let f = function() { var y = 2; alert(y); }; f(); f(); }",
+        "{ let f = function() { alert(2); }; f(); f(); }");
+    testOnlyChangedFunctions(
+        "var f = function(a) { var y = a; return function() { return y; }; };",
+        "var f = function(a) { return function() { return a; }; };");
+  }
+
+  /**
+   * Checks that a run that only looks at the changed functions gives the
+   * same result as a full run.
+   */
+  private void testOnlyChangedFunctions(String js, String expected) {
+    inlineLocalsOnly = true;
+    onlyChangedFunctions = false;
+    test(js, expected);
+    onlyChangedFunctions = true;
+    // Functions are marked as changed without being changed.
+    disableValidateAstChangeMarking();
+    test(js, expected);
+  }
+
   public void testInlineUndefined1() {
     test("var x; x;",
          "void 0;");
@@ -690,6 +690,62 @@ public final class NodeTraversalTest extends TestCase {
     assertThat(scopesEntered).hasSize(3);  // Function, function's body, and the block inside it.
   }
 
+  public void testGetChangedScopeTreeRoots() {
+    Compiler compiler = new Compiler();
+
+    String code =
+        LINE_JOINER.join(
+            "function foo() {",
+            "  function baz() {}",
+            "}",
+            "function bar() {}");
+
+    Node tree = parse(compiler, code);
+    Node fooFunction = tree.getFirstChild();
+    Node bazFunction = fooFunction.getLastChild().getFirstChild();
+    Node barFunction = fooFunction.getNext();
+
+    // The first run of a pass sees no change information.
+    assertThat(NodeTraversal.getChangedScopeTreeRoots(compiler, "pass")).isNull();
+    assertThat(NodeTraversal.getChangedScopeTreeRoots(compiler, "pass")).isEmpty();
+
+    // A change to a nested function is reported as its outermost function.
+    compiler.reportChangeToChangeScope(bazFunction);
+    compiler.reportChangeToChangeScope(barFunction);
+    assertThat(NodeTraversal.getChangedScopeTreeRoots(compiler, "pass"))
+        .containsExactly(fooFunction, barFunction);
+
+    // A change to the script subsumes the changes to its functions.
+    compiler.reportChangeToChangeScope(bazFunction);
+    compiler.reportChangeToChangeScope(tree);
+    assertThat(NodeTraversal.getChangedScopeTreeRoots(compiler, "pass")).containsExactly(tree);
+  }
+
+  @SuppressWarnings("deprecation")
+  public void testDoNotUpdateCompilerChangeScope() {
+    Compiler compiler = new Compiler();
+    Node tree = parse(compiler, "function foo() {} function bar() { var x; }");
+    Node fooFunction = tree.getFirstChild();
+    assertThat(NodeTraversal.getChangedScopeTreeRoots(compiler, "pass")).isNull();
+
+    // The traversal leaves the compiler's change scope as it was, so a change reported without a
+    // node is still recorded for foo.
+    compiler.setChangeScope(fooFunction);
+    NodeTraversal traversal =
+        new NodeTraversal(
+            compiler,
+            new AbstractPostOrderCallback() {
+              @Override
+              public void visit(NodeTraversal t, Node n, Node parent) {}
+            },
+            new Es6SyntacticScopeCreator(compiler));
+    traversal.doNotUpdateCompilerChangeScope();
+    traversal.traverse(tree);
+    compiler.reportCodeChange();
+    assertThat(NodeTraversal.getChangedScopeTreeRoots(compiler, "pass"))
+        .containsExactly(fooFunction);
+  }
+
   private static final class EnterFunctionAccumulator extends AbstractPostOrderCallback
       implements ChangeScopeRootCallback {
 
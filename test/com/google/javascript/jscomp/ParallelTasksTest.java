@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import junit.framework.TestCase;
+
+/** Unit tests for {@link ParallelTasks}. */
+public final class ParallelTasksTest extends TestCase {
+
+  public void testRunsEveryTaskOnce() {
+    for (int numThreads : new int[] {1, 4}) {
+      final AtomicIntegerArray runs = new AtomicIntegerArray(100);
+      List<Runnable> tasks = new ArrayList<>();
+      for (int i = 0; i < runs.length(); i++) {
+        final int index = i;
+        tasks.add(
+            new Runnable() {
+              @Override
+              public void run() {
+                runs.incrementAndGet(index);
+              }
+            });
+      }
+
+      ParallelTasks.run(numThreads, "test", tasks);
+
+      for (int i = 0; i < runs.length(); i++) {
+        assertThat(runs.get(i)).isEqualTo(1);
+      }
+    }
+  }
+
+  public void testRethrowsTaskException() {
+    List<Runnable> tasks = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      final int index = i;
+      tasks.add(
+          new Runnable() {
+            @Override
+            public void run() {
+              if (index == 5) {
+                throw new IllegalStateException("task 5");
+              }
+            }
+          });
+    }
+
+    try {
+      ParallelTasks.run(4, "test", tasks);
+      fail("Expected an exception");
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessageThat().isEqualTo("task 5");
+    }
+  }
+}
@@ -19,6 +19,8 @@ package com.google.javascript.jscomp;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 import java.util.ArrayList;
@@ -115,6 +117,73 @@ public final class PeepholeOptimizationsPassTest extends CompilerTestCase {
         .containsExactly("x1", "x2", "y1", "y2").inOrder();
   }
 
+  public void testOptimizationOnlyOfferedItsTokens() {
+    final List<Token> visitedTokens = new ArrayList<>();
+
+    AbstractPeepholeOptimization visitNamesAndVars =
+        new AbstractPeepholeOptimization() {
+          @Override
+          Set<Token> getTokens() {
+            return ImmutableSet.of(Token.NAME, Token.VAR);
+          }
+
+          @Override
+          public Node optimizeSubtree(Node node) {
+            visitedTokens.add(node.getToken());
+            return node;
+          }
+        };
+
+    currentPeepholePasses = ImmutableList.of(visitNamesAndVars);
+
+    testSame("var x = 1 + y;");
+    assertThat(visitedTokens).containsExactly(Token.NAME, Token.NAME, Token.VAR).inOrder();
+  }
+
+  /**
+   * An optimization offered a node that an earlier optimization replaced with
+   * a node of another type sees the replacement.
+   */
+  public void testOptimizationOfferedReplacementOfDifferentType() {
+    final List<String> visitationLog = new ArrayList<>();
+
+    AbstractPeepholeOptimization replaceTrueWithName =
+        new AbstractPeepholeOptimization() {
+          @Override
+          Set<Token> getTokens() {
+            return ImmutableSet.of(Token.TRUE);
+          }
+
+          @Override
+          public Node optimizeSubtree(Node node) {
+            Node replacement = IR.name("t");
+            node.replaceWith(replacement);
+            compiler.reportChangeToEnclosingScope(replacement);
+            return replacement;
+          }
+        };
+
+    AbstractPeepholeOptimization noteNames =
+        new AbstractPeepholeOptimization() {
+          @Override
+          Set<Token> getTokens() {
+            return ImmutableSet.of(Token.NAME);
+          }
+
+          @Override
+          public Node optimizeSubtree(Node node) {
+            visitationLog.add(node.getString());
+            return node;
+          }
+        };
+
+    currentPeepholePasses = ImmutableList.of(replaceTrueWithName, noteNames);
+
+    test("var x = true;", "var x = t;");
+    // The script is traversed a second time because it changed.
+    assertThat(visitationLog).containsExactly("t", "x", "t", "x").inOrder();
+  }
+
   /**
    * A peephole optimization that, given a subtree consisting of a VAR node,
    * removes children of that node named "x".
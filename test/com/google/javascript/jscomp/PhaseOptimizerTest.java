@@ -195,6 +195,38 @@ public final class PhaseOptimizerTest extends TestCase {
     assertEquals(100, Math.round(progressList.get(3)));
   }
 
+  public void testControlFlowGraphsCachedUntilScopeChanges() {
+    final List<ControlFlowGraph<Node>> cfgs = new ArrayList<>();
+    Loop loop = optimizer.addFixedPointLoop();
+    loop.addLoopedPass(
+        createPassFactory(
+            "x",
+            new CompilerPass() {
+              private boolean changed = false;
+
+              @Override
+              public void process(Node externs, Node root) {
+                cfgs.add(compiler.getControlFlowGraph(dummyScript));
+                cfgs.add(compiler.getControlFlowGraph(dummyScript));
+                if (!changed) {
+                  changed = true;
+                  compiler.reportChangeToEnclosingScope(dummyScript);
+                }
+              }
+            },
+            false));
+    optimizer.process(null, dummyRoot);
+
+    assertThat(cfgs).hasSize(4);
+    assertSame(cfgs.get(0), cfgs.get(1));
+    // The change to the script invalidates its graph.
+    assertNotSame(cfgs.get(1), cfgs.get(2));
+    assertSame(cfgs.get(2), cfgs.get(3));
+    // Outside of loops, graphs are not cached.
+    assertNotSame(
+        compiler.getControlFlowGraph(dummyScript), compiler.getControlFlowGraph(dummyScript));
+  }
+
   public void assertPasses(String ... names) {
     optimizer.process(null, dummyRoot);
     assertEquals(ImmutableList.copyOf(names), passesRun);
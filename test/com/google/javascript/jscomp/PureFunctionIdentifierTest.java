@@ -17,10 +17,12 @@
 package com.google.javascript.jscomp;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
+import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import java.util.ArrayList;
 import java.util.List;
@@ -37,6 +39,10 @@ public final class PureFunctionIdentifierTest extends TypeICompilerTestCase {
 
   boolean regExpHaveSideEffects = true;
 
+  FunctionSideEffectSummary inputSummary = null;
+  boolean collectSummary = false;
+  CompilerPass preprocessor = null;
+
   private static final String TEST_EXTERNS =
       CompilerTypeTestCase.DEFAULT_EXTERNS + LINE_JOINER.join(
           "var window; window.setTimeout;",
@@ -197,6 +203,9 @@ public final class PureFunctionIdentifierTest extends TypeICompilerTestCase {
   protected void tearDown() throws Exception {
     super.tearDown();
     regExpHaveSideEffects = true;
+    inputSummary = null;
+    collectSummary = false;
+    preprocessor = null;
   }
 
   /**
@@ -217,6 +226,11 @@ public final class PureFunctionIdentifierTest extends TypeICompilerTestCase {
       localResultCalls = new ArrayList<>();
       compiler.setHasRegExpGlobalReferences(regExpHaveSideEffects);
       compiler.getOptions().setUseTypesForLocalOptimization(true);
+      compiler.getOptions().setInputFunctionSideEffectSummary(inputSummary);
+      compiler.getOptions().setCollectFunctionSideEffectSummary(collectSummary);
+      if (preprocessor != null) {
+        preprocessor.process(externs, root);
+      }
       NameBasedDefinitionProvider defFinder = new NameBasedDefinitionProvider(compiler, true);
       defFinder.process(externs, root);
 
@@ -1852,6 +1866,104 @@ public final class PureFunctionIdentifierTest extends TypeICompilerTestCase {
         });
   }
 
+  public void testSideEffectSummary() throws Exception {
+    String source = LINE_JOINER.join(
+        "var x = 0;",
+        "function g() { x = 1; }",
+        "function f() { g(); }",
+        "function h() { return 1; }",
+        "f(); h();");
+
+    collectSummary = true;
+    assertPureCallsMarked(source, ImmutableList.of("h"), new Postcondition() {
+      @Override public void verify(Compiler compiler) {
+        inputSummary = compiler.getFunctionSideEffectSummary();
+      }
+    });
+    assertThat(inputSummary).isNotNull();
+    String summary = new String(inputSummary.toBytes(), UTF_8);
+    assertThat(summary).containsMatch("\tg\t[0-9a-f]+\t4\n");
+    assertThat(summary).containsMatch("\tf\t[0-9a-f]+\t0\ncall\tcall\t1\t0\tg\n");
+    assertThat(summary).containsMatch("\th\t[0-9a-f]+\t0\n");
+
+    // The side effects of g still reach f through the summarized call.
+    inputSummary = FunctionSideEffectSummary.fromBytes(inputSummary.toBytes());
+    assertPureCallsMarked(source, ImmutableList.of("h"));
+
+    // The summaries are used instead of the function bodies.
+    inputSummary = FunctionSideEffectSummary.fromBytes(
+        summary.replaceAll("(\th\t[0-9a-f]+)\t0\n", "$1\t4\n").getBytes(UTF_8));
+    assertNoPureCalls(source);
+  }
+
+  public void testSideEffectSummaryOfChangedFile() throws Exception {
+    collectSummary = true;
+    assertNoPureCalls("var x = 0; function f() { x = 1; } f();", new Postcondition() {
+      @Override public void verify(Compiler compiler) {
+        inputSummary = compiler.getFunctionSideEffectSummary();
+      }
+    });
+    assertPureCallsMarked("var x = 0; function f() {} f();", ImmutableList.of("f"));
+  }
+
+  public void testSideEffectSummaryOfUnchangedFunctionInChangedFile() throws Exception {
+    collectSummary = true;
+    assertNoPureCalls("var x = 0; function f() { x = 1; } f();", new Postcondition() {
+      @Override public void verify(Compiler compiler) {
+        inputSummary = compiler.getFunctionSideEffectSummary();
+      }
+    });
+    // Only the summary says that f is pure, so it is used for the unchanged function.
+    inputSummary = FunctionSideEffectSummary.fromBytes(
+        new String(inputSummary.toBytes(), UTF_8)
+            .replaceAll("(\tf\t[0-9a-f]+)\t4\n", "$1\t0\n")
+            .getBytes(UTF_8));
+    assertPureCallsMarked(
+        "var x = 0; var y = 0; function f() { x = 1; } f();", ImmutableList.of("f"));
+  }
+
+  public void testSideEffectSummaryOfFunctionChangedByEarlierPass() throws Exception {
+    String source = "var x = 0; function f() {} f();";
+    collectSummary = true;
+    assertPureCallsMarked(source, ImmutableList.of("f"), new Postcondition() {
+      @Override public void verify(Compiler compiler) {
+        inputSummary = compiler.getFunctionSideEffectSummary();
+      }
+    });
+    // The source is the same, but the body of f sets x by the time the summary is looked up.
+    preprocessor = new CompilerPass() {
+      @Override
+      public void process(Node externs, Node root) {
+        Node body = NodeUtil.getFunctionBody(findQualifiedNameNode("f", root).getParent());
+        body.addChildToBack(
+            IR.exprResult(IR.assign(IR.name("x"), IR.number(1)))
+                .useSourceInfoIfMissingFromForTree(body));
+      }
+    };
+    disableValidateAstChangeMarking();
+    test(
+        srcs(source),
+        expected("var x = 0; function f() { x = 1; } f();"),
+        new Postcondition() {
+          @Override public void verify(Compiler compiler) {
+            assertThat(noSideEffectCalls).isEmpty();
+          }
+        });
+  }
+
+  public void testSideEffectSummaryWithRegExpGlobalReferences() throws Exception {
+    String source = "function k() { (/a/).exec(''); } k();";
+    regExpHaveSideEffects = false;
+    collectSummary = true;
+    assertPureCallsMarked(source, ImmutableList.of("REGEXP STRING exec", "k"), new Postcondition() {
+      @Override public void verify(Compiler compiler) {
+        inputSummary = compiler.getFunctionSideEffectSummary();
+      }
+    });
+    regExpHaveSideEffects = true;
+    assertNoPureCalls(source);
+  }
+
   void assertNoPureCalls(String source) {
     assertPureCallsMarked(source, ImmutableList.<String>of(), null);
   }
@@ -23,6 +23,7 @@ public final class RemoveUnusedVarsTest extends CompilerTestCase {
   private boolean removeGlobal;
   private boolean preserveFunctionExpressionNames;
   private boolean modifyCallSites;
+  private boolean onlyChangedFunctions;
 
   public RemoveUnusedVarsTest() {
     super("function alert() {}");
@@ -40,6 +41,7 @@ public final class RemoveUnusedVarsTest extends CompilerTestCase {
     removeGlobal = true;
     preserveFunctionExpressionNames = false;
     modifyCallSites = false;
+    onlyChangedFunctions = false;
   }
 
   @Override
@@ -52,6 +54,22 @@ public final class RemoveUnusedVarsTest extends CompilerTestCase {
           defFinder.process(externs, root);
           compiler.setDefinitionFinder(defFinder);
         }
+        if (onlyChangedFunctions) {
+          // Pretend that the pass ran before and that every function changed since.
+          compiler.getChangedScopeNodesForPass("removeUnusedVars");
+          NodeUtil.visitPreOrder(root, new NodeUtil.Visitor() {
+            @Override
+            public void visit(Node n) {
+              if (n.isFunction()) {
+                compiler.reportChangeToChangeScope(n);
+              }
+            }
+          });
+          new RemoveUnusedVars(
+              compiler, removeGlobal, preserveFunctionExpressionNames,
+              modifyCallSites, "removeUnusedVars").process(externs, root);
+          return;
+        }
         new RemoveUnusedVars(
             compiler, removeGlobal, preserveFunctionExpressionNames,
             modifyCallSites).process(externs, root);
@@ -59,6 +77,20 @@ public final class RemoveUnusedVarsTest extends CompilerTestCase {
     };
   }
 
+  /**
+   * Checks that a run that only looks at the changed functions gives the
+   * same result as a full run.
+   */
+  private void testOnlyChangedFunctions(String js, String expected) {
+    removeGlobal = false;
+    onlyChangedFunctions = false;
+    test(js, expected);
+    onlyChangedFunctions = true;
+    // Functions are marked as changed without being changed.
+    disableValidateAstChangeMarking();
+    test(js, expected);
+  }
+
   public void testRemoveUnusedVarsFn0() {
     // Test with function expressions in another function call
     test("function A(){}" +
@@ -449,6 +481,63 @@ public final class RemoveUnusedVarsTest extends CompilerTestCase {
         "function x(){}");
   }
 
+  public void testRemoveGlobalClassDefiningCall() {
+    removeGlobal = false;
+    // The arguments of the call are references even though the global class
+    // is never read, since it is never removed.
+    testSame(
+        LINE_JOINER.join(
+            "function goog$inherits(){}",
+            "var b = function(){};",
+            "function f() {",
+            "  var a = function(){};",
+            "  goog$inherits(b, a);",
+            "}",
+            "f();"));
+    testSame(
+        LINE_JOINER.join(
+            "function goog$addSingletonGetter(a){}",
+            "var b = function(){};",
+            "function f() {",
+            "  var a = function(){};",
+            "  goog$addSingletonGetter(b, a());",
+            "}",
+            "f();"));
+  }
+
+  public void testOnlyChangedFunctions() {
+    testOnlyChangedFunctions(
+        "function f(x){var z;} var g = function(){var y; return function(){var w;}};",
+        "function f(x){} var g = function(){return function(){}};");
+    testOnlyChangedFunctions(
+        LINE_JOINER.join(
+            "function goog$inherits(){}",
+            "var b = function(){};",
+            "function f() { var a = function(){}; var unused; goog$inherits(b, a); }",
+            "f();"),
+        LINE_JOINER.join(
+            "function goog$inherits(){}",
+            "var b = function(){};",
+            "function f() { var a = function(){}; goog$inherits(b, a); }",
+            "f();"));
+  }
+
+  public void testOnlyChangedFunctionsInClassesAndBlocks() {
+    setAcceptedLanguage(CompilerOptions.LanguageMode.ECMASCRIPT_2015);
+    // The methods of a global class are not traversed.
+    testOnlyChangedFunctions(
+        "class C { m() { var z; } } function f() { var y; }",
+        "class C { m() { var z; } } function f() {}");
+    // Unreferenced functions in blocks are removed with their bodies.
+    testOnlyChangedFunctions(
+        "{ let h = function() { var z; }; let k = function() { var y; }; alert(k); }",
+        "{ let k = function() {}; alert(k); }");
+    // Nor are functions in destructuring patterns.
+    testOnlyChangedFunctions(
+        "var {a = function() { var z; }} = {}; function f() { var y; }",
+        "var {a = function() { var z; }} = {}; function f() {}");
+  }
+
   public void testIssue168a() {
     test("function _a(){" +
             "  (function(x){ _b(); })(1);" +
@@ -34,6 +34,7 @@ public final class RenamePropertiesTest extends CompilerTestCase {
   private RenameProperties renameProperties;
   private boolean generatePseudoNames;
   private VariableMap prevUsedPropertyMap;
+  private boolean useDebugLog;
 
   public RenamePropertiesTest() {
     super(EXTERNS);
@@ -44,6 +45,7 @@ public final class RenamePropertiesTest extends CompilerTestCase {
     super.setUp();
     generatePseudoNames = false;
     prevUsedPropertyMap = null;
+    useDebugLog = false;
     enableNormalize();
     enableGatherExternProperties();
   }
@@ -387,6 +389,39 @@ public final class RenamePropertiesTest extends CompilerTestCase {
         "foo.a = 1; foo.d = 2; foo.e = 3;");
   }
 
+  public void testStableRenamingThroughBinaryMap() throws Exception {
+    test("Bar.prototype = {getA: function(){}, b: 0}; bar.getA();",
+         "Bar.prototype = {a: function(){}, b: 0}; bar.a();");
+    prevUsedPropertyMap =
+        VariableMap.fromBytes(renameProperties.getPropertyMap().toBinaryBytes());
+    // The new property is the most frequent one but does not take the names
+    // of the properties that kept theirs.
+    test("Bar.prototype = {getA: function(){}, b: 0, c: 1}; bar.c(); bar.c(); bar.getA();",
+         "Bar.prototype = {a: function(){}, b: 0, c: 1}; bar.c(); bar.c(); bar.a();");
+  }
+
+  public void testGeneratePseudoNamesWithPreviousMap() {
+    test("Bar.prototype = {getA: function(){}, b: 0}; bar.getA();",
+         "Bar.prototype = {a: function(){}, b: 0}; bar.a();");
+    prevUsedPropertyMap = renameProperties.getPropertyMap();
+    generatePseudoNames = true;
+    test("Bar.prototype = {getA: function(){}, b: 0, c: 1}; bar.c();",
+         "Bar.prototype = {$getA$: function(){}, $b$: 0, $c$: 1}; bar.$c$();");
+  }
+
+  public void testDebugLogWithPreviousMap() {
+    useDebugLog = true;
+    test("Bar.prototype = {getA: function(){}, b: 0}; bar.getA();",
+         "Bar.prototype = {a: function(){}, b: 0}; bar.a();");
+    prevUsedPropertyMap = renameProperties.getPropertyMap();
+    test("Bar.prototype = {getA: function(){}, b: 0, c: 1}; bar.c(); bar.c();",
+         "Bar.prototype = {a: function(){}, b: 0, c: 1}; bar.c(); bar.c();");
+    // The reused names come first, then the new ones by descending frequency.
+    assertEquals(
+        "JS property assignments:\ngetA => a\nb => b\nc => c\n",
+        getLastCompiler().getResult().debugLog);
+  }
+
   private void testStableRenaming(String input1, String expected1,
                                   String input2, String expected2) {
     test(input1, expected1);
@@ -674,6 +709,13 @@ public final class RenamePropertiesTest extends CompilerTestCase {
     return compiler;
   }
 
+  @Override
+  protected CompilerOptions getOptions(CompilerOptions options) {
+    options = super.getOptions(options);
+    options.useDebugLog = useDebugLog;
+    return options;
+  }
+
   @Override
   protected CompilerPass getProcessor(Compiler compiler) {
     return renameProperties =
@@ -44,6 +44,8 @@ public final class RenameVarsTest extends CompilerTestCase {
   private boolean shouldShadow = false;
   private boolean preferStableNames = false;
   private boolean withNormalize = false;
+  private boolean renameLocalsPerScope = false;
+  private int numParallelThreads = 1;
 
   // NameGenerator to use, or null for a default.
   private DefaultNameGenerator nameGenerator = null;
@@ -74,6 +76,10 @@ public final class RenameVarsTest extends CompilerTestCase {
           previouslyUsedMap, null, null, new DefaultNameGenerator());
     }
 
+    if (renameVars != null) {
+      renameVars.setRenameLocalsPerScope(renameLocalsPerScope);
+    }
+
     if (withNormalize) {
       // Don't use the standard CompilerTestCase normalization options
       // as renaming is a post denormalization operation, but we do still
@@ -84,6 +90,13 @@ public final class RenameVarsTest extends CompilerTestCase {
     return pass;
   }
 
+  @Override
+  protected CompilerOptions getOptions() {
+    CompilerOptions options = super.getOptions();
+    options.setNumParallelThreads(numParallelThreads);
+    return options;
+  }
+
   @Override
   protected int getNumRepetitions() {
     return 1;
@@ -103,6 +116,8 @@ public final class RenameVarsTest extends CompilerTestCase {
     shouldShadow = false;
     preferStableNames = false;
     nameGenerator = null;
+    renameLocalsPerScope = false;
+    numParallelThreads = 1;
   }
 
   public void testRenameSimple() {
@@ -206,6 +221,34 @@ public final class RenameVarsTest extends CompilerTestCase {
         "};");
   }
 
+  public void testRenameLocalsPerScope() {
+    renameLocalsPerScope = true;
+    previouslyUsedMap = null;
+    // The globals are named first, so the locals get the next names.
+    test(
+        "var g = 1; function f1(x, y) { return x + g; } function f2(z) { return z; }",
+        "var a = 1; function b(d, e) { return d + a; } function c(d) { return d; }");
+    // Locals in nested functions are named with those of the top-level function.
+    test(
+        "function f1(x) { return function(y) { return x + y + y; }; }",
+        "function a(c) { return function(b) { return c + b + b; }; }");
+  }
+
+  public void testRenameLocalsPerScope_parallel() {
+    renameLocalsPerScope = true;
+    previouslyUsedMap = null;
+    numParallelThreads = 4;
+    StringBuilder input = new StringBuilder();
+    StringBuilder output = new StringBuilder();
+    for (int i = 0; i < 20; i++) {
+      input.append("function f" + i + "(x, y) { return y + y + x; }");
+    }
+    for (int i = 0; i < 20; i++) {
+      output.append("function " + (char) ('a' + i) + "(v, u) { return u + u + v; }");
+    }
+    test(input.toString(), output.toString());
+  }
+
   public void testRenameLocalsClashingWithGlobals() {
     test("function a(v1, v2) {return v1;} a();",
         "function a(b, c) {return b;} a();");
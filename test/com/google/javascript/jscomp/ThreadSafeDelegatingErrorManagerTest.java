@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link ThreadSafeDelegatingErrorManager}.
+ */
+public final class ThreadSafeDelegatingErrorManagerTest extends TestCase {
+
+  private static final DiagnosticType FOO_TYPE = DiagnosticType.warning("TEST_FOO", "Foo");
+
+  private final List<JSError> reported = new ArrayList<>();
+  private final List<JSError> printed = new ArrayList<>();
+
+  private final BasicErrorManager delegate = new BasicErrorManager() {
+    @Override
+    public void report(CheckLevel level, JSError error) {
+      reported.add(error);
+      super.report(level, error);
+    }
+
+    @Override
+    public void println(CheckLevel level, JSError error) {
+      printed.add(error);
+    }
+
+    @Override
+    protected void printSummary() {}
+  };
+
+  public void testReportsReachTheDelegateImmediately() {
+    ErrorManager manager = new ThreadSafeDelegatingErrorManager(delegate);
+    JSError e1 = JSError.make("b.js", 1, 1, FOO_TYPE);
+    JSError e2 = JSError.make("a.js", 1, 1, FOO_TYPE);
+    manager.report(CheckLevel.WARNING, e1);
+    assertThat(reported).containsExactly(e1);
+    manager.report(CheckLevel.ERROR, e2);
+    assertThat(reported).containsExactly(e1, e2).inOrder();
+
+    assertEquals(1, manager.getWarningCount());
+    assertEquals(1, manager.getErrorCount());
+    manager.generateReport();
+    // Warnings are printed before errors.
+    assertThat(printed).containsExactly(e1, e2).inOrder();
+  }
+
+  public void testConcurrentReports() throws InterruptedException {
+    final ErrorManager manager = new ThreadSafeDelegatingErrorManager(delegate);
+    final int numThreads = 4;
+    final int reportsPerThread = 2000;
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < numThreads; i++) {
+      final String sourceName = "in" + i + ".js";
+      threads.add(new Thread() {
+        @Override
+        public void run() {
+          for (int line = 1; line <= reportsPerThread; line++) {
+            manager.report(CheckLevel.WARNING, JSError.make(sourceName, line, 0, FOO_TYPE));
+          }
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(numThreads * reportsPerThread, manager.getWarningCount());
+    manager.generateReport();
+    assertThat(printed).hasSize(numThreads * reportsPerThread);
+    assertEquals("in0.js", printed.get(0).sourceName);
+    assertEquals(1, printed.get(0).lineNumber);
+    assertEquals("in3.js", printed.get(printed.size() - 1).sourceName);
+    assertEquals(reportsPerThread, printed.get(printed.size() - 1).lineNumber);
+
+    // The reports of each thread reached the delegate in order.
+    int[] lastLine = new int[numThreads];
+    for (JSError error : reported) {
+      int thread = error.sourceName.charAt(2) - '0';
+      assertEquals(lastLine[thread] + 1, error.lineNumber);
+      lastLine[thread] = error.lineNumber;
+    }
+  }
+}
@@ -131,6 +131,41 @@ public final class VariableMapTest extends TestCase {
     }
   }
 
+  public void testBinaryCycle() throws ParseException {
+    ImmutableMap<String, String> map =
+        ImmutableMap.of("AA:AA", "a", "x\ny", "b", "\u00e9t\u00e9", "c", "empty", "");
+    VariableMap in = new VariableMap(map);
+    byte[] bytes = in.toBinaryBytes();
+    assertMapsEquals(in.toMap(), VariableMap.fromBytes(bytes).toMap());
+    // The output order is stable.
+    assertEqual(bytes, new VariableMap(ImmutableMap.copyOf(map)).toBinaryBytes());
+  }
+
+  public void testBinaryEmpty() throws ParseException {
+    VariableMap in = new VariableMap(ImmutableMap.<String, String>of());
+    assertThat(VariableMap.fromBytes(in.toBinaryBytes()).toMap()).isEmpty();
+  }
+
+  public void testBinaryTruncated() {
+    byte[] bytes = new VariableMap(ImmutableMap.of("AAA", "a")).toBinaryBytes();
+    for (int length = 4; length < bytes.length; length++) {
+      try {
+        VariableMap.fromBytes(Arrays.copyOf(bytes, length));
+        fail("Expected a ParseException for length " + length);
+      } catch (ParseException expected) {
+      }
+    }
+  }
+
+  public void testBinaryTrailingBytes() {
+    byte[] bytes = new VariableMap(ImmutableMap.of("AAA", "a")).toBinaryBytes();
+    try {
+      VariableMap.fromBytes(Arrays.copyOf(bytes, bytes.length + 1));
+      fail();
+    } catch (ParseException expected) {
+    }
+  }
+
   public void testReverseThrowsErrorOnDuplicate() {
     try {
       new VariableMap(ImmutableMap.of("AA", "b", "BB", "b"));
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.graph;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+
+/** Unit test for the {@link ConcurrentUnionFind} data structure. */
+public final class ConcurrentUnionFindTest extends TestCase {
+
+  public void testUnionAndFind() {
+    ConcurrentUnionFind<String> union =
+        new ConcurrentUnionFind<>(ImmutableList.of("A", "B", "C", "D", "E"));
+    assertThat(union.allEquivalenceClasses()).hasSize(5);
+
+    assertThat(union.union("B", "A")).isEqualTo("A");
+    assertThat(union.union("E", "C")).isEqualTo("C");
+    assertThat(union.union("E", "B")).isEqualTo("A");
+
+    assertThat(union.find("C")).isEqualTo("A");
+    assertThat(union.areEquivalent("B", "E")).isTrue();
+    assertThat(union.areEquivalent("B", "D")).isFalse();
+    assertThat(union.findAll("E")).containsExactly("A", "B", "C", "E").inOrder();
+    assertThat(union.allEquivalenceClasses())
+        .containsExactly(ImmutableSet.of("A", "B", "C", "E"), ImmutableSet.of("D"))
+        .inOrder();
+  }
+
+  public void testUnknownElement() {
+    ConcurrentUnionFind<String> union = new ConcurrentUnionFind<>(ImmutableList.of("A"));
+    union.add("A");
+    try {
+      union.add("Z");
+      fail("add() of an unknown element should not be allowed.");
+    } catch (UnsupportedOperationException expected) {
+    }
+    try {
+      union.find("Z");
+      fail("find() on unknown element should not be allowed.");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testParallelUnions() throws InterruptedException {
+    final int numElements = 10000;
+    final int numClasses = 13;
+    List<Integer> elements = new ArrayList<>();
+    for (int i = 0; i < numElements; i++) {
+      elements.add(i);
+    }
+    final ConcurrentUnionFind<Integer> union = new ConcurrentUnionFind<>(elements);
+
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      final int offset = t;
+      Thread thread =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  // Each thread unions a different interleaving of the same pairs.
+                  for (int i = offset; i < numElements + offset; i++) {
+                    int a = i % numElements;
+                    if (a + numClasses < numElements) {
+                      union.union(a + numClasses, a);
+                    }
+                  }
+                }
+              });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(union.allEquivalenceClasses()).hasSize(numClasses);
+    for (int i = 0; i < numElements; i++) {
+      assertThat(union.find(i)).isEqualTo(i % numClasses);
+    }
+  }
+}
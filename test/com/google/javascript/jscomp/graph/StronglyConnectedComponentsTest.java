@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.graph;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphEdge;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link StronglyConnectedComponents}.
+ */
+public final class StronglyConnectedComponentsTest extends TestCase {
+
+  private final DiGraph<String, String> graph = LinkedDirectedGraph.create();
+
+  public void testEmptyGraph() {
+    StronglyConnectedComponents<String, String> sccs = StronglyConnectedComponents.compute(graph);
+    assertThat(sccs.getComponents()).isEmpty();
+    assertThat(sccs.getLevels()).isEmpty();
+  }
+
+  public void testChain() {
+    graph.createNode("C");
+    graph.createNode("B");
+    graph.createNode("A");
+    graph.connect("A", "-", "B");
+    graph.connect("B", "-", "C");
+    StronglyConnectedComponents<String, String> sccs = StronglyConnectedComponents.compute(graph);
+    assertThat(sccs.getComponents()).hasSize(3);
+    assertEquals(0, sccs.getComponent(graph.getDirectedGraphNode("A")));
+    assertEquals(1, sccs.getComponent(graph.getDirectedGraphNode("B")));
+    assertEquals(2, sccs.getComponent(graph.getDirectedGraphNode("C")));
+    assertThat(sccs.getLevels()).hasSize(3);
+  }
+
+  public void testCycles() {
+    graph.createNode("A");
+    graph.createNode("B");
+    graph.createNode("C");
+    graph.createNode("D");
+    graph.createNode("E");
+    graph.connect("A", "-", "B");
+    graph.connect("B", "-", "A");
+    graph.connect("B", "-", "C");
+    graph.connect("C", "-", "D");
+    graph.connect("D", "-", "E");
+    graph.connect("E", "-", "C");
+    StronglyConnectedComponents<String, String> sccs = StronglyConnectedComponents.compute(graph);
+    assertThat(sccs.getComponents()).hasSize(2);
+    assertEquals(
+        sccs.getComponent(graph.getDirectedGraphNode("A")),
+        sccs.getComponent(graph.getDirectedGraphNode("B")));
+    assertEquals(
+        sccs.getComponent(graph.getDirectedGraphNode("C")),
+        sccs.getComponent(graph.getDirectedGraphNode("E")));
+    assertTopologicallyOrdered(sccs);
+  }
+
+  public void testSelfLoop() {
+    graph.createNode("A");
+    graph.connect("A", "-", "A");
+    StronglyConnectedComponents<String, String> sccs = StronglyConnectedComponents.compute(graph);
+    assertThat(sccs.getComponents()).hasSize(1);
+    assertThat(sccs.getLevels()).hasSize(1);
+  }
+
+  public void testLevels() {
+    // A -> B -> D and A -> C -> D, plus an isolated E and a long path
+    // X -> F -> G -> D that determines the level of D.
+    for (String name : new String[] {"A", "B", "C", "D", "E", "X", "F", "G"}) {
+      graph.createNode(name);
+    }
+    graph.connect("A", "-", "B");
+    graph.connect("A", "-", "C");
+    graph.connect("B", "-", "D");
+    graph.connect("C", "-", "D");
+    graph.connect("X", "-", "F");
+    graph.connect("F", "-", "G");
+    graph.connect("G", "-", "D");
+    StronglyConnectedComponents<String, String> sccs = StronglyConnectedComponents.compute(graph);
+    List<List<Integer>> levels = sccs.getLevels();
+    assertThat(levels).hasSize(4);
+    assertThat(levels.get(0))
+        .containsExactly(
+            sccs.getComponent(graph.getDirectedGraphNode("A")),
+            sccs.getComponent(graph.getDirectedGraphNode("E")),
+            sccs.getComponent(graph.getDirectedGraphNode("X")));
+    assertThat(levels.get(1))
+        .containsExactly(
+            sccs.getComponent(graph.getDirectedGraphNode("B")),
+            sccs.getComponent(graph.getDirectedGraphNode("C")),
+            sccs.getComponent(graph.getDirectedGraphNode("F")));
+    assertThat(levels.get(2)).containsExactly(sccs.getComponent(graph.getDirectedGraphNode("G")));
+    assertThat(levels.get(3)).containsExactly(sccs.getComponent(graph.getDirectedGraphNode("D")));
+    assertTopologicallyOrdered(sccs);
+  }
+
+  public void testLongChainDoesNotOverflowTheStack() {
+    int length = 100000;
+    for (int i = 0; i < length; i++) {
+      graph.createNode("n" + i);
+    }
+    for (int i = 1; i < length; i++) {
+      graph.connect("n" + i, "-", "n" + (i - 1));
+    }
+    graph.connect("n0", "-", "n" + (length - 1));
+    StronglyConnectedComponents<String, String> sccs = StronglyConnectedComponents.compute(graph);
+    assertThat(sccs.getComponents()).hasSize(1);
+    assertThat(sccs.getComponents().get(0)).hasSize(length);
+  }
+
+  private void assertTopologicallyOrdered(StronglyConnectedComponents<String, String> sccs) {
+    Set<Integer> seenLevels = new HashSet<>();
+    int[] levelOfComponent = new int[sccs.getComponents().size()];
+    for (int level = 0; level < sccs.getLevels().size(); level++) {
+      for (int component : sccs.getLevels().get(level)) {
+        levelOfComponent[component] = level;
+        seenLevels.add(component);
+      }
+    }
+    assertThat(seenLevels).hasSize(sccs.getComponents().size());
+    for (DiGraphNode<String, String> node : graph.getDirectedGraphNodes()) {
+      for (DiGraphEdge<String, String> edge : node.getOutEdges()) {
+        int source = sccs.getComponent(edge.getSource());
+        int destination = sccs.getComponent(edge.getDestination());
+        if (source != destination) {
+          assertThat(source).isLessThan(destination);
+          assertThat(levelOfComponent[source]).isLessThan(levelOfComponent[destination]);
+        }
+      }
+    }
+  }
+}